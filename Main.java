@@ -2,28 +2,243 @@ import controller.GameController;
 import model.board.KwazamBoard;
 import model.game.KwazamGameMaster;
 import model.game.Player;
+import model.serialization.JournalRecovery;
+import model.serialization.MoveJournal;
 import model.serialization.SaveLoadManager;
 import model.serialization.SaveLoadSerializer;
-import utils.CircularLinkedList;
+import model.spectator.SpectatorHub;
+import model.spectator.SpectatorServer;
+import utils.CircularArrayRing;
+import utils.StartupTimings;
+import view.AssetManager;
 import view.KwazamGUI;
 
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
+ * Starts the game.
+ * <p>
+ * The window is built on the event dispatch thread while this thread sets up
+ * the game and the sprites are read in the background, so the window shows
+ * as soon as Swing is up, and the pieces appear once the game is ready.
+ * Run with "-Dkwazam.startupTimings=true" to print how long each phase took.
+ *
  * @author Laxman Pillai -> creator
  */
 public class Main
 {
+    /**
+     * How many updates a spectator may fall behind by before it is sent a
+     * snapshot of the board instead.
+     */
+    private static final int SPECTATOR_QUEUE_CAPACITY = 64;
+
     public static void main(String[] args)
     {
-        CircularLinkedList<Player> players = new CircularLinkedList<>();
-        players.add(new Player("1")); // TODO placeholder
-        players.add(new Player("2")); // TODO placeholder
+        StartupTimings timings = new StartupTimings();
+
+        // The number of players can be passed as the first argument to play
+        // one of the variants, e.g. "java Main 4"
+        int playerCount = args.length > 0 ? parsePlayerCount(args[0]) : 2;
+
+        // If setting up the game fails, whatever went wrong is shown and the
+        // window, if it is up by then, closes rather than staying up empty
+        CompletableFuture<KwazamGUI> window = new CompletableFuture<>();
+        boolean windowStarted = false;
+        try
+        {
+            // A journal file can be passed as the second argument to journal
+            // every move, e.g. "java Main 2 game.journal". An existing journal
+            // is recovered, picking the game up where it was left off
+            Path journalPath = args.length > 1 ? Path.of(args[1]) : null;
+            long recoveryBegin = timings.now();
+            JournalRecovery recovery = journalPath != null && Files.exists(journalPath)
+                    ? MoveJournal.recover(journalPath)
+                    : null;
+            List<Player> seats = null;
+            if (recovery != null)
+            {
+                // The board is set up for the seats of the journalled game, which
+                // include the players eliminated before the crash
+                seats = new ArrayList<>(recovery.base().seats());
+                playerCount = seats.size();
+                timings.record("recovery", recoveryBegin);
+            }
+
+            // Start reading the piece sprites in the background, so the window
+            // does not wait for them and they are ready by the time it is shown
+            long spritesBegin = timings.now();
+            AssetManager.shared().preloadSprites(playerCount)
+                    .whenComplete((ignored, error) -> timings.record("sprites", spritesBegin));
+
+            // "-Dkwazam.paintedBoard=true" paints the board as one component
+            // instead of a button per cell, which is lighter on large boards
+            boolean paintedBoard = Boolean.getBoolean("kwazam.paintedBoard");
+            int rows = KwazamBoard.ROWS;
+            int columns = KwazamBoard.columnsFor(playerCount);
+            SwingUtilities.invokeLater(() -> {
+                long windowBegin = timings.now();
+                try
+                {
+                    window.complete(new KwazamGUI(rows, columns, paintedBoard));
+                }
+                catch (RuntimeException e)
+                {
+                    window.completeExceptionally(e);
+                    failStartup(window, e);
+                    return;
+                }
+                timings.record("window", windowBegin);
+            });
+            windowStarted = true;
+
+            // Meanwhile, set up the game on this thread
+            long modelBegin = timings.now();
+            List<Player> players = seats;
+            if (players == null)
+            {
+                players = new ArrayList<>();
+                for (int i = 1; i <= playerCount; i++)
+                {
+                    players.add(new Player(String.valueOf(i)));
+                }
+            }
+
+            KwazamBoard board = new KwazamBoard(players);
 
-        KwazamBoard board = new KwazamBoard(players);
+            KwazamGameMaster gameMaster = new KwazamGameMaster(board, new CircularArrayRing<>(players));
+            SaveLoadManager saveLoadManager = new SaveLoadManager(gameMaster, board);
+            SaveLoadSerializer saveLoadSerializer = new SaveLoadSerializer();
+            KwazamGameMaster historyStart = null;
+            if (recovery != null)
+            {
+                // The recovered moves can be replayed from the base position.
+                // Loading a state takes over its cells, so the replay gets a copy
+                historyStart = SaveLoadManager.newGame(recovery.base()).copy();
+                recovery.applyTo(gameMaster);
+            }
+            MoveJournal moveJournal = null;
+            if (journalPath != null)
+            {
+                moveJournal = recovery != null
+                        ? MoveJournal.resume(journalPath)
+                        : MoveJournal.create(journalPath, saveLoadManager.saveGame());
+            }
+            timings.record("model", modelBegin);
 
-        KwazamGameMaster gameMaster = new KwazamGameMaster(board, players);
-        KwazamGUI gui = new KwazamGUI();
-        SaveLoadManager saveLoadManager = new SaveLoadManager(gameMaster, board);
-        SaveLoadSerializer saveLoadSerializer = new SaveLoadSerializer();
-        new GameController(gui, gameMaster, saveLoadSerializer, saveLoadManager);
+            // "-Dkwazam.spectatorPort=N" streams the game to spectators
+            // connecting to port N on this machine
+            Integer spectatorPort = Integer.getInteger("kwazam.spectatorPort");
+            SpectatorHub spectatorHub = null;
+            if (spectatorPort != null)
+            {
+                spectatorHub = new SpectatorHub(gameMaster, SPECTATOR_QUEUE_CAPACITY);
+                SpectatorServer spectatorServer = new SpectatorServer(spectatorHub, spectatorPort);
+                System.out.println("Spectators can connect to port " + spectatorServer.getPort());
+            }
+
+            // Once both are ready, connect them on the event dispatch thread
+            MoveJournal journal = moveJournal;
+            SpectatorHub hub = spectatorHub;
+            KwazamGameMaster recoveredHistoryStart = historyStart;
+            window.thenAccept(gui -> SwingUtilities.invokeLater(() -> {
+                long controllerBegin = timings.now();
+                try
+                {
+                    GameController controller = new GameController(gui, gameMaster, saveLoadSerializer,
+                            saveLoadManager);
+                    if (recoveredHistoryStart != null)
+                    {
+                        controller.setHistoryStart(recoveredHistoryStart);
+                    }
+                    if (journal != null)
+                    {
+                        controller.setMoveJournal(journal);
+                    }
+                    if (hub != null)
+                    {
+                        controller.setSpectatorHub(hub);
+                    }
+                }
+                catch (RuntimeException e)
+                {
+                    failStartup(window, e);
+                    return;
+                }
+                timings.record("controller", controllerBegin);
+
+                if (Boolean.getBoolean("kwazam.startupTimings"))
+                {
+                    System.out.println(timings.report());
+                }
+                // "-Dkwazam.exitAfterStartup=true" quits once started, to record
+                // the classes loaded at startup into a class data sharing archive
+                if (Boolean.getBoolean("kwazam.exitAfterStartup"))
+                {
+                    System.exit(0);
+                }
+            }));
+        }
+        catch (IOException | RuntimeException e)
+        {
+            if (!windowStarted)
+            {
+                // there is no window to close
+                window.complete(null);
+            }
+            failStartup(window, e);
+        }
+    }
+
+    /**
+     * Reports that the game could not be started, closes the window once it
+     * is up, if it comes up at all, and quits.
+     */
+    private static void failStartup(CompletableFuture<KwazamGUI> window, Exception error)
+    {
+        window.whenComplete((gui, windowError) -> SwingUtilities.invokeLater(() -> {
+            error.printStackTrace();
+            if (!GraphicsEnvironment.isHeadless())
+            {
+                JOptionPane.showMessageDialog(gui, "The game could not be started:\n" + error.getMessage(),
+                        "Kwazam Chess", JOptionPane.ERROR_MESSAGE);
+            }
+            if (gui != null)
+            {
+                gui.dispose();
+            }
+            System.exit(1);
+        }));
+    }
+
+    /**
+     * Reads the number of players from the command line, or quits with the
+     * usage if it is not a number of players the game supports.
+     */
+    private static int parsePlayerCount(String arg)
+    {
+        try
+        {
+            int playerCount = Integer.parseInt(arg);
+            if (playerCount >= KwazamBoard.MIN_PLAYERS && playerCount <= KwazamBoard.MAX_PLAYERS)
+            {
+                return playerCount;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // reported below
+        }
+        System.err.printf("Usage: java Main [players %d-%d] [journal file]%n",
+                KwazamBoard.MIN_PLAYERS, KwazamBoard.MAX_PLAYERS);
+        System.exit(2);
+        return 0;
     }
 }
@@ -0,0 +1,118 @@
+package benchmarks;
+
+import model.board.KwazamBoard;
+import model.engine.MoveGenerator;
+import model.game.KwazamGameMaster;
+import model.game.Move;
+import model.game.Player;
+import utils.CircularArrayRing;
+import view.BoardImageRenderer;
+import view.SpriteCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures how many board images per second {@link BoardImageRenderer} turns
+ * out, encoded as PNG, at a given cell size and with a growing number of
+ * threads.
+ * <p>
+ * The boards are positions from random playouts of a fixed seed. The sprite
+ * cache is warmed up before measuring, so the numbers show the steady state
+ * of a renderer that has been running for a while. Run it from the project
+ * folder so that the assets folder is found.
+ */
+public class BoardRenderBenchmark
+{
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception
+    {
+        System.setProperty("java.awt.headless", "true");
+
+        int imageCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int cellSize = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int playerCount = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        List<List<List<String>>> boards = randomBoards(imageCount, playerCount);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d boards, %d players, %dpx cells, %d processors%n", imageCount, playerCount,
+                cellSize, processors);
+        System.out.printf("%-8s %14s %14s%n", "threads", "images/s", "bytes/image");
+        for (int threads = 1; threads <= Math.max(4, processors); threads *= 2)
+        {
+            benchmark(boards, cellSize, threads);
+        }
+    }
+
+    private static void benchmark(List<List<List<String>>> boards, int cellSize, int threads)
+    {
+        try (BoardImageRenderer renderer = new BoardImageRenderer(cellSize, SpriteCache.shared(), threads))
+        {
+            long bytes = 0;
+            long nanos = 0;
+            for (int round = 0; round <= ROUNDS; round++)
+            {
+                long start = System.nanoTime();
+                List<CompletableFuture<byte[]>> images = new ArrayList<>(boards.size());
+                for (List<List<String>> board : boards)
+                {
+                    images.add(renderer.renderPngAsync(board));
+                }
+                bytes = 0;
+                for (CompletableFuture<byte[]> image : images)
+                {
+                    bytes += image.join().length;
+                }
+
+                // the first round only warms up
+                if (round > 0)
+                {
+                    nanos += System.nanoTime() - start;
+                }
+            }
+
+            double imagesPerSecond = (double) boards.size() * ROUNDS / (nanos / 1e9);
+            System.out.printf("%-8d %14.0f %14d%n", threads, imagesPerSecond, bytes / boards.size());
+        }
+    }
+
+    /**
+     * Plays random games and keeps the board of one position from each, at a
+     * random ply.
+     */
+    private static List<List<List<String>>> randomBoards(int count, int playerCount)
+    {
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= playerCount; i++)
+        {
+            players.add(new Player(String.valueOf(i)));
+        }
+
+        Random random = new Random(42);
+        List<List<List<String>>> boards = new ArrayList<>(count);
+        while (boards.size() < count)
+        {
+            KwazamGameMaster game = new KwazamGameMaster(new KwazamBoard(players), new CircularArrayRing<>(players));
+            int plies = random.nextInt(80);
+            for (int ply = 0; ply < plies && game.getPlayers().size() > 1; ply++)
+            {
+                List<Move> moves = MoveGenerator.generateMoves(game);
+                if (moves.isEmpty())
+                {
+                    break;
+                }
+                Move move = moves.get(random.nextInt(moves.size()));
+                game.movePiece(move.from(), move.to());
+                if (game.getPlayers().size() > 1)
+                {
+                    game.advanceTurn();
+                }
+            }
+            boards.add(game.getCellsStringRepresentation());
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,155 @@
+package benchmarks;
+
+import model.board.KwazamBoard;
+import model.engine.MoveGenerator;
+import model.game.KwazamGameMaster;
+import model.game.Move;
+import model.game.Player;
+import model.serialization.GameCollectionTransfer;
+import model.serialization.GameState;
+import model.serialization.SaveLoadSerializer;
+import model.serialization.TransferStats;
+import utils.CircularArrayRing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the plain and the GZIP compressed save formats: bytes per saved
+ * game, and the time it takes to save and load one, both as single files and
+ * as one collection file.
+ * <p>
+ * The games are positions from random playouts of a fixed seed, so every run
+ * measures the same data. Each measurement is repeated after a warm-up round
+ * so that the JIT compiler has settled.
+ */
+public class SaveFormatBenchmark
+{
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int gameCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int playerCount = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        List<GameState> games = randomPositions(gameCount, playerCount);
+
+        Path directory = Files.createTempDirectory("kwazam-benchmark");
+        try
+        {
+            System.out.printf("%d positions, %d players%n", gameCount, playerCount);
+            System.out.printf("%-12s %14s %14s %14s %16s %16s%n", "format", "bytes/state",
+                    "save us/file", "load us/file", "collection B/st", "import games/s");
+            for (boolean compressed : new boolean[]{false, true})
+            {
+                benchmark(compressed, games, directory);
+            }
+        }
+        finally
+        {
+            try (var files = Files.list(directory))
+            {
+                for (Path file : files.toList())
+                {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void benchmark(boolean compressed, List<GameState> games, Path directory)
+            throws IOException, InterruptedException
+    {
+        SaveLoadSerializer serializer = new SaveLoadSerializer(compressed);
+        List<String> paths = new ArrayList<>(games.size());
+        for (int i = 0; i < games.size(); i++)
+        {
+            paths.add(directory.resolve((compressed ? "gzip-" : "plain-") + i + ".txt").toString());
+        }
+
+        long saveNanos = 0;
+        long loadNanos = 0;
+        for (int round = 0; round <= ROUNDS; round++)
+        {
+            long start = System.nanoTime();
+            for (int i = 0; i < games.size(); i++)
+            {
+                serializer.saveStateToFile(games.get(i), paths.get(i));
+            }
+            long saved = System.nanoTime();
+            for (String path : paths)
+            {
+                serializer.loadStateFromFile(path);
+            }
+            long loaded = System.nanoTime();
+
+            // the first round only warms up
+            if (round > 0)
+            {
+                saveNanos += saved - start;
+                loadNanos += loaded - saved;
+            }
+        }
+
+        long bytes = 0;
+        for (String path : paths)
+        {
+            bytes += Files.size(Path.of(path));
+        }
+
+        Path collection = directory.resolve(compressed ? "collection.txt.gz" : "collection.txt");
+        GameCollectionTransfer transfer = new GameCollectionTransfer();
+        transfer.exportCollection(games, collection, compressed);
+        TransferStats importStats = null;
+        for (int round = 0; round <= ROUNDS; round++)
+        {
+            importStats = transfer.importCollection(collection, gameState -> {});
+        }
+
+        int runs = games.size() * ROUNDS;
+        System.out.printf("%-12s %14.1f %14.1f %14.1f %16.1f %16.0f%n", compressed ? "gzip" : "plain",
+                (double) bytes / games.size(), saveNanos / 1000.0 / runs, loadNanos / 1000.0 / runs,
+                (double) Files.size(collection) / games.size(), importStats.gamesPerSecond());
+    }
+
+    /**
+     * Plays random games and keeps one position from each, at a random ply.
+     */
+    private static List<GameState> randomPositions(int count, int playerCount)
+    {
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= playerCount; i++)
+        {
+            players.add(new Player(String.valueOf(i)));
+        }
+
+        Random random = new Random(42);
+        List<GameState> positions = new ArrayList<>(count);
+        while (positions.size() < count)
+        {
+            KwazamGameMaster game = new KwazamGameMaster(new KwazamBoard(players), new CircularArrayRing<>(players));
+            int plies = random.nextInt(80);
+            for (int ply = 0; ply < plies && game.getPlayers().size() > 1; ply++)
+            {
+                List<Move> moves = MoveGenerator.generateMoves(game);
+                if (moves.isEmpty())
+                {
+                    break;
+                }
+                Move move = moves.get(random.nextInt(moves.size()));
+                game.movePiece(move.from(), move.to());
+                if (game.getPlayers().size() > 1)
+                {
+                    game.advanceTurn();
+                }
+            }
+            positions.add(new GameState(game.getTurnCount(), game.getBoard().getParticipants(), game.getPlayers(),
+                    game.getCurrentPlayer(), game.getBoard().copyCells()));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,215 @@
+package benchmarks;
+
+import model.board.KwazamBoard;
+import model.engine.MoveGenerator;
+import model.game.KwazamGameMaster;
+import model.game.Move;
+import model.game.Player;
+import model.spectator.SpectatorFrame;
+import model.spectator.SpectatorHub;
+import model.spectator.SpectatorSubscription;
+import utils.CircularArrayRing;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures how long {@link SpectatorHub} takes to hand every move of a game
+ * to a given number of spectators, and checks that every spectator ends up
+ * with the board as it is.
+ * <p>
+ * The moves are a random playout of a fixed seed, starting a new game when
+ * one ends. Most spectators read every update straight away; every tenth one
+ * only reads at the end, so it falls behind and has to catch up through
+ * snapshots. Meanwhile more spectators keep joining and leaving from another
+ * thread, racing the updates; none of them may miss an update, and the last
+ * of them must end up with the board all the same.
+ */
+public class SpectatorFanoutBenchmark
+{
+    private static final int LAGGING_EVERY = 10;
+
+    /**
+     * How long the joining thread waits between subscribing spectators.
+     */
+    private static final long JOIN_INTERVAL_NANOS = 20_000;
+
+    /**
+     * How many of the spectators that joined last are kept; the ones before
+     * them leave again.
+     */
+    private static final int JOINED_KEPT = 64;
+
+    public static void main(String[] args)
+    {
+        int subscriberCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int moveCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int queueCapacity = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int playerCount = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= playerCount; i++)
+        {
+            players.add(new Player(String.valueOf(i)));
+        }
+        KwazamGameMaster game = new KwazamGameMaster(new KwazamBoard(players), new CircularArrayRing<>(players));
+        SpectatorHub hub = new SpectatorHub(game, queueCapacity);
+
+        List<SpectatorSubscription> subscriptions = new ArrayList<>(subscriberCount);
+        byte[][] cells = new byte[subscriberCount][];
+        for (int i = 0; i < subscriberCount; i++)
+        {
+            subscriptions.add(hub.subscribe());
+        }
+        // one more spectator to measure the size of the updates
+        SpectatorSubscription probe = hub.subscribe();
+        probe.poll();
+
+        Deque<SpectatorSubscription> joined = new ArrayDeque<>();
+        AtomicBoolean publishing = new AtomicBoolean(true);
+        AtomicLong joinCount = new AtomicLong();
+        AtomicLong missedCount = new AtomicLong();
+        Thread joiner = new Thread(() -> {
+            while (publishing.get())
+            {
+                joined.addLast(hub.subscribe());
+                if (joined.size() > JOINED_KEPT)
+                {
+                    SpectatorSubscription leaving = joined.removeFirst();
+                    leaving.close();
+                    if (readChecked(leaving) == null)
+                    {
+                        missedCount.incrementAndGet();
+                    }
+                }
+                joinCount.incrementAndGet();
+                LockSupport.parkNanos(JOIN_INTERVAL_NANOS);
+            }
+        }, "joining-spectators");
+        joiner.start();
+
+        Random random = new Random(42);
+        long publishNanos = 0;
+        long readNanos = 0;
+        long frameBytes = 0;
+        for (int played = 0; played < moveCount; played++)
+        {
+            List<Move> moves = MoveGenerator.generateMoves(game);
+            if (game.getPlayers().size() <= 1 || moves.isEmpty())
+            {
+                game.resetGame();
+            }
+            else
+            {
+                Move move = moves.get(random.nextInt(moves.size()));
+                game.movePiece(move.from(), move.to());
+                if (game.getPlayers().size() > 1)
+                {
+                    game.advanceTurn();
+                }
+            }
+
+            long start = System.nanoTime();
+            hub.publish();
+            publishNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < subscriberCount; i++)
+            {
+                if (i % LAGGING_EVERY != 0)
+                {
+                    cells[i] = readAll(subscriptions.get(i), cells[i]);
+                }
+            }
+            readNanos += System.nanoTime() - start;
+            SpectatorFrame frame;
+            while ((frame = probe.poll()) != null)
+            {
+                frameBytes += frame.size();
+            }
+        }
+
+        publishing.set(false);
+        try
+        {
+            joiner.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        long resyncs = 0;
+        byte[] board = hub.getLatestSnapshot().applyTo(null);
+        for (int i = 0; i < subscriberCount; i++)
+        {
+            cells[i] = readAll(subscriptions.get(i), cells[i]);
+            resyncs += subscriptions.get(i).getResyncCount();
+            if (!Arrays.equals(cells[i], board))
+            {
+                throw new IllegalStateException("Spectator " + i + " does not have the board");
+            }
+        }
+        for (SpectatorSubscription subscription : joined)
+        {
+            if (!Arrays.equals(readChecked(subscription), board))
+            {
+                missedCount.incrementAndGet();
+            }
+        }
+        if (missedCount.get() > 0)
+        {
+            throw new IllegalStateException(missedCount.get() + " spectators that joined during the game missed an update");
+        }
+
+        System.out.printf("%d spectators, %d moves, queues of %d%n", subscriberCount, moveCount, queueCapacity);
+        System.out.printf("publish: %.1f us/move, %.1f ns/spectator%n", publishNanos / 1e3 / moveCount,
+                (double) publishNanos / moveCount / Math.max(1, subscriberCount));
+        System.out.printf("read:    %.1f ns/frame%n",
+                (double) readNanos / moveCount / Math.max(1, subscriberCount - subscriberCount / LAGGING_EVERY));
+        System.out.printf("snapshot: %d bytes, average update: %.1f bytes%n", hub.getLatestSnapshot().size(),
+                (double) frameBytes / moveCount);
+        System.out.printf("resyncs: %d, %d spectators joined during the game, every spectator has the board%n",
+                resyncs, joinCount.get());
+    }
+
+    /**
+     * Reads every frame of a spectator from its first one.
+     *
+     * @return the spectator's cells, or {@code null} if it was handed a diff
+     *         that does not follow on from the frame before
+     */
+    private static byte[] readChecked(SpectatorSubscription subscription)
+    {
+        byte[] cells = null;
+        int sequence = 0;
+        SpectatorFrame frame;
+        while ((frame = subscription.poll()) != null)
+        {
+            if (frame.getType() == SpectatorFrame.DIFF && (cells == null || frame.getSequence() != sequence + 1))
+            {
+                return null;
+            }
+            sequence = frame.getSequence();
+            cells = frame.applyTo(cells);
+        }
+        return cells;
+    }
+
+    private static byte[] readAll(SpectatorSubscription subscription, byte[] cells)
+    {
+        SpectatorFrame frame;
+        while ((frame = subscription.poll()) != null)
+        {
+            cells = frame.applyTo(cells);
+        }
+        return cells;
+    }
+}
@@ -1,13 +1,20 @@
 package controller;
 
 import model.board.CellPosition;
+import model.diagnostics.MoveValidationEvent;
+import model.engine.LegalMoveSet;
+import model.engine.SearchEngine;
 import model.exceptions.NoPieceException;
 import model.exceptions.NotYourPieceException;
 import model.exceptions.PieceMoveException;
 import model.game.KwazamGameMaster;
+import model.game.Move;
 import model.game.Player;
 import model.listeners.WinListener;
+import model.replay.Replay;
 import model.serialization.GameState;
+import model.serialization.MoveJournal;
+import model.spectator.SpectatorHub;
 import model.serialization.SaveLoadManager;
 import model.serialization.SaveLoadSerializer;
 import view.CellClickListener;
@@ -17,7 +24,10 @@ import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Represents the Controller our MVC design pattern, managing user interactions from the GUI
@@ -36,6 +46,32 @@ public class GameController implements CellClickListener, WinListener
     private final SaveLoadSerializer saveLoadSerializer;
     private final SaveLoadManager saveLoadManager;
 
+    /**
+     * Journal that every move is written to, or {@code null} if the game is
+     * not journalled or the journal has failed.
+     */
+    private MoveJournal moveJournal;
+
+    /**
+     * Hub that every position is broadcast to, or {@code null} if the game
+     * has no spectators.
+     */
+    private SpectatorHub spectatorHub;
+
+    private final LegalMovePrecomputer legalMoves;
+    private final MoveHints moveHints;
+
+    /**
+     * A copy of the position the move history of the game starts from, to
+     * replay the history from, or {@code null} if it is not known.
+     */
+    private KwazamGameMaster historyStart;
+
+    /**
+     * The replay shown on the board, or {@code null} while playing.
+     */
+    private ReplayController replayController;
+
     private int selectedRow = -1;
     private int selectedCol = -1;
     private boolean isPieceSelected = false;
@@ -66,27 +102,245 @@ public class GameController implements CellClickListener, WinListener
 
         this.saveLoadSerializer = saveLoadSerializer;
         this.saveLoadManager = saveLoadManager;
+        this.legalMoves = new LegalMovePrecomputer(gameMaster);
+        this.moveHints = new MoveHints(gui, gameMaster, this.legalMoves, new SearchEngine());
 
-        gui.setBoard(gameMaster.getCellsStringRepresentation());
+        // The game may have been recovered mid-way, with the current player
+        // seated at the top
+        syncBoardWithModel();
+        if (!gameMaster.canUndo())
+        {
+            historyStart = gameMaster.copy();
+        }
 
         setupMenuListeners();
     }
 
     /**
-     * Adds action listeners to GUI menu items like our "Save Game", "Load Game", and "New Game".
+     * Starts writing every move, undo and redo to a journal, so that the game
+     * can be recovered after a crash. Starting a new game or loading one
+     * starts the journal again from that position.
+     *
+     * @param moveJournal the journal to write to
+     */
+    public void setMoveJournal(MoveJournal moveJournal)
+    {
+        this.moveJournal = moveJournal;
+    }
+
+    /**
+     * Sets the position the move history of the game starts from, for a game
+     * that already had moves played when this controller was constructed,
+     * e.g. one recovered from a journal. Without it, such a game cannot be
+     * replayed until a new game is started or one is loaded.
+     *
+     * @param historyStart the position before the first move of the history;
+     *                     kept as it is, so it must not be used elsewhere
+     */
+    public void setHistoryStart(KwazamGameMaster historyStart)
+    {
+        this.historyStart = historyStart;
+    }
+
+    /**
+     * Starts broadcasting every position to the spectators of a hub.
+     *
+     * @param spectatorHub the hub following the board of this game
+     */
+    public void setSpectatorHub(SpectatorHub spectatorHub)
+    {
+        this.spectatorHub = spectatorHub;
+        spectatorHub.publish();
+    }
+
+    /**
+     * Adds action listeners to GUI menu items like our "Save Game", "Load Game", "New Game",
+     * "Undo" and "Redo".
      * Establishes the connection between the GUI menu actions and the corresponding handlers
      *
      * @author Sivanathan
      */
     private void setupMenuListeners()
     {
+        // Every action applies to the game, so a replay shown on the board
+        // is left first
+
         // Save Game button handler
-        gui.addSaveGameListener(e -> handleSaveGame());
+        gui.addSaveGameListener(e -> {
+            exitReplay();
+            handleSaveGame();
+        });
 
         // Load Game button handler
-        gui.addLoadGameListener(e -> handleLoadGame());
+        gui.addLoadGameListener(e -> {
+            exitReplay();
+            handleLoadGame();
+        });
+
+        gui.addNewGameListener(e -> {
+            exitReplay();
+            handleNewGame();
+        });
+
+        gui.addUndoListener(e -> {
+            exitReplay();
+            handleUndo();
+        });
+
+        gui.addRedoListener(e -> {
+            exitReplay();
+            handleRedo();
+        });
+
+        gui.addHintsListener(e -> {
+            exitReplay();
+            moveHints.setEnabled(!moveHints.isEnabled());
+        });
+
+        // Replay toggles between replaying the game and playing it
+        gui.addReplayListener(e -> {
+            if (replayController != null)
+            {
+                exitReplay();
+            }
+            else
+            {
+                handleReplay();
+            }
+        });
+    }
+
+    /**
+     * Shows the moves of the game so far on the board, to step through them
+     * from the position the history starts from. The game itself is left as
+     * it is, and play carries on from it when the replay is exited.
+     */
+    private void handleReplay()
+    {
+        if (historyStart == null)
+        {
+            return;
+        }
+
+        selectedRow = -1;
+        selectedCol = -1;
+        isPieceSelected = false;
+        moveHints.hide();
+        // a won game is replayed on an enabled board, only without clicks
+        gui.enableBoard();
+        replayController = new ReplayController(gui, new Replay(historyStart, gameMaster.getMoveHistory()),
+                this::replayExited);
+    }
+
+    /**
+     * Leaves the replay shown on the board, if any.
+     */
+    private void exitReplay()
+    {
+        if (replayController != null)
+        {
+            replayController.exit();
+        }
+    }
+
+    /**
+     * Takes the board back from a replay: handles its clicks again and shows
+     * the game as it is, including its win message and hints.
+     */
+    private void replayExited()
+    {
+        replayController = null;
+        gui.setCellClickListener(this);
+        syncBoardWithModel();
+        if (gameMaster.getPlayers().size() <= 1)
+        {
+            onWin(gameMaster.getPlayers().get(0));
+        }
+        moveHints.positionChanged();
+    }
+
+    /**
+     * Takes back the last move and updates the board on screen.
+     */
+    private void handleUndo()
+    {
+        int turnCountBefore = gameMaster.getTurnCount();
+        int playersBefore = gameMaster.getPlayers().size();
+        gameMaster.undo().ifPresent(move -> {
+            writeJournal(MoveJournal::appendUndo);
+            showHistoryStep(move, turnCountBefore, playersBefore);
+            positionChanged();
+        });
+    }
+
+    /**
+     * Makes the last taken-back move again and updates the board on screen.
+     */
+    private void handleRedo()
+    {
+        int turnCountBefore = gameMaster.getTurnCount();
+        int playersBefore = gameMaster.getPlayers().size();
+        gameMaster.redo().ifPresent(move -> {
+            writeJournal(journal -> journal.append(move));
+            showHistoryStep(move, turnCountBefore, playersBefore);
+            positionChanged();
+        });
+    }
+
+    /**
+     * Brings the GUI up to date after a move was undone or redone. Normally
+     * only the two cells of the move are re-rendered; the whole board is only
+     * re-synced if a player was eliminated or brought back.
+     *
+     * @param move            the move that was undone or redone
+     * @param turnCountBefore the turn count before the undo/redo
+     * @param playersBefore   the number of players before the undo/redo
+     */
+    private void showHistoryStep(Move move, int turnCountBefore, int playersBefore)
+    {
+        selectedRow = -1;
+        selectedCol = -1;
+        isPieceSelected = false;
+
+        int playersAfter = gameMaster.getPlayers().size();
+        if (playersAfter != playersBefore)
+        {
+            syncBoardWithModel();
+            if (playersAfter > 1)
+            {
+                // a won game was taken back
+                gui.enableBoard();
+                gui.disableWinMessage();
+            }
+            return;
+        }
+
+        // Tor/Xor switch whenever the turn count moves onto an even number, so
+        // crossing one in either direction means the visuals must be swapped
+        int turnCountAfter = gameMaster.getTurnCount();
+        if (turnCountAfter != turnCountBefore && Math.max(turnCountBefore, turnCountAfter) % 2 == 0)
+        {
+            gui.toggleTorXorVisuals();
+        }
+
+        showCell(move.from());
+        showCell(move.to());
+        faceCurrentPlayer();
+    }
 
-        gui.addNewGameListener(e -> handleNewGame());
+    /**
+     * Re-renders a single cell from the model.
+     *
+     * @param cellPos the position of the cell on the model's board
+     */
+    private void showCell(CellPosition cellPos)
+    {
+        CellPosition viewPos = cellPos;
+        if (gui.isFlipped())
+        {
+            viewPos = flipCellPos(cellPos, gameMaster.getBoardRows(), gameMaster.getBoardColumns());
+        }
+        gui.setCellPiece(viewPos.row(), viewPos.column(), gameMaster.getCellStringRepresentation(cellPos));
     }
 
     /**
@@ -109,7 +363,7 @@ public class GameController implements CellClickListener, WinListener
         {
             File fileToSave = fileChooser.getSelectedFile();
             GameState gameState = this.saveLoadManager.saveGame();
-            this.saveLoadSerializer.saveStateToFile(gameState, fileToSave.getAbsolutePath());
+            this.saveLoadSerializer.saveStateToFileAtomically(gameState, fileToSave.getAbsolutePath());
         }
     }
 
@@ -134,51 +388,129 @@ public class GameController implements CellClickListener, WinListener
             File fileToLoad = fileChooser.getSelectedFile();
             GameState gameState = this.saveLoadSerializer.loadStateFromFile(fileToLoad.getAbsolutePath());
             this.saveLoadManager.loadGame(gameState);
+            historyStart = gameMaster.copy();
+            checkpointJournal();
             gui.enableBoard();
-            gui.setBoard(gameMaster.getCellsStringRepresentation());
-            gui.setFlipped(false);
-            if (gameMaster.getTurnCount() % 2 != 0)
+            syncBoardWithModel();
+            gui.disableWinMessage();
+            positionChanged();
+        }
+    }
+
+    /**
+     * Lets everything that depends on the current position start on the new
+     * one: the precomputed legal moves, the move hints and the spectators.
+     */
+    private void positionChanged()
+    {
+        legalMoves.positionChanged();
+        moveHints.positionChanged();
+        if (spectatorHub != null)
+        {
+            spectatorHub.publish();
+        }
+    }
+
+    /**
+     * Starts the move journal again from the current position, after the
+     * game was replaced by a new or loaded one.
+     */
+    private void checkpointJournal()
+    {
+        writeJournal(journal -> journal.checkpoint(this.saveLoadManager.saveGame()));
+    }
+
+    /**
+     * Writes to the move journal, if the game is journalled. A journal that
+     * cannot be written is reported to the player once and detached, and
+     * the game carries on without it, as it is already up to date.
+     *
+     * @param write what to write to the journal
+     */
+    private void writeJournal(Consumer<MoveJournal> write)
+    {
+        if (moveJournal == null)
+        {
+            return;
+        }
+        try
+        {
+            write.accept(moveJournal);
+        }
+        catch (RuntimeException e)
+        {
+            MoveJournal failed = moveJournal;
+            moveJournal = null;
+            try
             {
-                gui.flipBoard();
+                failed.close();
             }
-            if (gui.isTorXorSwitched())
+            catch (IOException ignored)
             {
-                gui.toggleTorXorVisuals();
+                // it has failed already
             }
-            gui.disableWinMessage();
+            JOptionPane.showMessageDialog(gui,
+                    "The move journal could not be written, so the rest of the game will not be journalled:\n"
+                            + e.getMessage(),
+                    "Move Journal", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
+    /**
+     * Re-renders the whole board from the model, facing the current player.
+     * Used whenever the GUI's own copy of the board can no longer be updated
+     * incrementally, e.g. after loading a game or eliminating a player.
+     */
+    private void syncBoardWithModel()
+    {
+        gui.setBoard(gameMaster.getCellsStringRepresentation());
+        gui.setFlipped(false);
+        faceCurrentPlayer();
+        if (gui.isTorXorSwitched())
+        {
+            gui.toggleTorXorVisuals();
+        }
+    }
+
+    /**
+     * Flips the board if needed so that the current player's army is at the
+     * bottom of the screen. Players seated at the top of the board see it
+     * upside down.
+     */
+    private void faceCurrentPlayer()
+    {
+        if (gameMaster.isCurrentPlayerAtTop() != gui.isFlipped())
+        {
+            gui.flipBoard();
         }
     }
 
 
 
     /**
-     * Initializes a new game session by loading a predefined game state from a "new-game" file.
+     * Initializes a new game session by resetting the game to the initial
+     * arrangement of its board, for however many players it was set up.
      * Reconfigures the board and resets the relevant GUI components to start fresh.
      *
      * @author Siva
      */
     private void handleNewGame()
     {
-        GameState gameState = this.saveLoadSerializer.loadStateFromFile("assets/new-game.txt");
-        this.saveLoadManager.loadGame(gameState);
+        this.gameMaster.resetGame();
+        historyStart = gameMaster.copy();
+        checkpointJournal();
         gui.enableBoard();
-        gui.setBoard(gameMaster.getCellsStringRepresentation());
-        gui.setFlipped(false);
-        if (gameMaster.getTurnCount() % 2 != 0)
-        {
-            gui.flipBoard();
-        }
-        if (gui.isTorXorSwitched())
-        {
-            gui.toggleTorXorVisuals();
-        }
+        syncBoardWithModel();
         gui.disableWinMessage();
+        positionChanged();
     }
 
 
     /**
      * Handles cell click interactions. Depending on whether a piece is already selected,
      * it either selects a piece or attempts to move the selected piece to the clicked cell.
+     * With move hints on, selecting a piece marks the cells it can move to. Moves that
+     * the precomputed legal moves rule out are rejected without validating them again.
      *
      * @param row the row index of the clicked cell
      * @param col the column index of the clicked cell
@@ -199,6 +531,12 @@ public class GameController implements CellClickListener, WinListener
                 selectedCol = col;
                 isPieceSelected = true;
 
+                CellPosition selectedPos = new CellPosition(row, col);
+                if (gui.isFlipped())
+                {
+                    selectedPos = flipCellPos(selectedPos, gameMaster.getBoardRows(), gameMaster.getBoardColumns());
+                }
+                moveHints.showTargets(selectedPos);
             }
         }
         else
@@ -206,28 +544,55 @@ public class GameController implements CellClickListener, WinListener
             CellPosition fromCellPos = new CellPosition(selectedRow, selectedCol);
             CellPosition toCellPos = new CellPosition(row, col);
 
+            int boardRows = gameMaster.getBoardRows();
+            int boardColumns = gameMaster.getBoardColumns();
             if (gui.isFlipped())
             {
-                fromCellPos = this.flipCellPos(fromCellPos, 8, 5);
-                toCellPos = this.flipCellPos(toCellPos, 8, 5);
+                fromCellPos = this.flipCellPos(fromCellPos, boardRows, boardColumns);
+                toCellPos = this.flipCellPos(toCellPos, boardRows, boardColumns);
+            }
+
+            // A move the precomputed legal moves already rule out is rejected
+            // the same way movePiece would, without validating it again, but
+            // still shows up as a rejected move in a recording
+            MoveValidationEvent validationEvent = new MoveValidationEvent();
+            validationEvent.begin();
+            Optional<LegalMoveSet> knownMoves = legalMoves.getIfReady();
+            if (knownMoves.isPresent() && !knownMoves.get().contains(fromCellPos, toCellPos))
+            {
+                validationEvent.commit(gameMaster.getGameId(), gameMaster.getTurnCount(), fromCellPos,
+                        toCellPos, false);
+                if (knownMoves.get().isOwnPiece(fromCellPos))
+                {
+                    gui.flashCellRed(row, col);
+                }
+                else
+                {
+                    gui.flashCellRed(selectedRow, selectedCol);
+                }
+                selectedRow = -1;
+                selectedCol = -1;
+                isPieceSelected = false;
+                moveHints.clearTargets();
+                return;
             }
 
+            int playersBeforeMove = gameMaster.getPlayers().size();
             try
             {
                 gameMaster.movePiece(fromCellPos, toCellPos);
+                gui.animateMove(selectedRow, selectedCol, row, col);
 
                 // Perform the movement
                 board.get(row).set(col, board.get(selectedRow).get(selectedCol)); // Move the piece
                 board.get(selectedRow).set(selectedCol, null); // Clear the original
                 // position
 
-                if ((row == 0 || row == 7) && board.get(row).get(col) != null && board.get(row).get(col).startsWith("ram"))
+                if ((row == 0 || row == boardRows - 1) && board.get(row).get(col) != null && board.get(row).get(col).startsWith("ram"))
                 {
                     gui.flipRamPiece(row, col);
                 }
 
-                gui.flipBoard();
-
                 // Update the View
                 gui.renderPieceToBoard(board);
             }
@@ -248,16 +613,43 @@ public class GameController implements CellClickListener, WinListener
                 selectedRow = -1;
                 selectedCol = -1;
                 isPieceSelected = false;
+                moveHints.clearTargets();
+            }
+
+            // The move is journalled once the game has moved on to the next
+            // turn, so that the game is whole whatever happens to the journal
+            int playersAfterMove = gameMaster.getPlayers().size();
+            if (playersAfterMove > 1)
+            {
+                gameMaster.advanceTurn();
+            }
+            Move move = new Move(fromCellPos, toCellPos);
+            writeJournal(journal -> journal.append(move));
 
+            if (playersAfterMove == 1)
+            {
+                // the game is over, leave the winning move on screen
+                positionChanged();
+                return;
             }
 
-            gameMaster.advanceTurn();
+            if (playersAfterMove < playersBeforeMove)
+            {
+                // a player was eliminated along with all of their pieces
+                syncBoardWithModel();
+                positionChanged();
+                return;
+            }
+
+            faceCurrentPlayer();
 
             // Check if it's time to swap visuals
             if (gameMaster.getTurnCount() % 2 == 0)
             {
                 gui.toggleTorXorVisuals();
             }
+
+            positionChanged();
         }
     }
 
@@ -290,8 +682,17 @@ public class GameController implements CellClickListener, WinListener
     @Override
     public void onWin(Player winner)
     {
+        String colourName = gameMaster.getPlayerColour(winner);
+        Color colour = switch (colourName)
+        {
+            case "blue" -> Color.BLUE;
+            case "red" -> Color.RED;
+            case "green" -> new Color(40, 170, 60);
+            default -> new Color(230, 160, 0);
+        };
+
         gui.disableBoard();
-        gui.displayWinMessage(winner.id().equals("1") ? "Blue wins!!" : "Red wins!!",
-                winner.id().equals("1") ? Color.BLUE : Color.RED);
+        gui.displayWinMessage(Character.toUpperCase(colourName.charAt(0)) + colourName.substring(1) + " wins!!",
+                colour);
     }
 }
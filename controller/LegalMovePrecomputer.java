@@ -0,0 +1,174 @@
+package controller;
+
+import model.engine.LegalMoveSet;
+import model.engine.PositionHasher;
+import model.game.KwazamGameMaster;
+
+import javax.swing.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Works out the legal moves of each position while the player is still
+ * thinking, so that clicks can be checked and move hints shown without
+ * waiting for move validation.
+ * <p>
+ * Whenever the position changes, the legal moves of the new position are
+ * generated on a background thread from a copy of the game. The results are
+ * kept in a small cache keyed by the {@link PositionHasher hash} of the
+ * position, so positions reached again by undo and redo are answered at
+ * once.
+ * <p>
+ * All methods must be called on the event dispatch thread.
+ */
+public class LegalMovePrecomputer
+{
+    /**
+     * The number of positions whose legal moves are kept.
+     */
+    private static final int CACHE_SIZE = 256;
+
+    private final KwazamGameMaster gameMaster;
+    private final ExecutorService executor;
+
+    /**
+     * Least recently used positions are dropped first. Written by the
+     * background thread, read on the event dispatch thread.
+     */
+    private final Map<Long, LegalMoveSet> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true)
+            {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, LegalMoveSet> eldest)
+                {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    /**
+     * The legal moves of the current position, or {@code null} if the game
+     * is over.
+     */
+    private CompletableFuture<LegalMoveSet> current;
+
+    /**
+     * Constructs a precomputer for a game and starts on its current position.
+     *
+     * @param gameMaster the game to precompute the moves of
+     */
+    public LegalMovePrecomputer(KwazamGameMaster gameMaster)
+    {
+        this.gameMaster = gameMaster;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "legal-moves");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.positionChanged();
+    }
+
+    /**
+     * Starts on the current position of the game. Call it whenever the game
+     * changes: after a move, an undo or redo, or a new or loaded game.
+     */
+    public void positionChanged()
+    {
+        if (this.current != null)
+        {
+            // a position that was never started is not worth finishing
+            this.current.cancel(false);
+            this.current = null;
+        }
+        if (this.gameMaster.getPlayers().size() < 2)
+        {
+            return;
+        }
+
+        LegalMoveSet cached = this.cache.get(PositionHasher.hash(this.gameMaster));
+        if (cached != null)
+        {
+            this.current = CompletableFuture.completedFuture(cached);
+            return;
+        }
+
+        KwazamGameMaster position = this.gameMaster.copy();
+        // cancelling it before the executor gets to it skips it altogether
+        this.current = CompletableFuture.supplyAsync(() -> {
+            LegalMoveSet legalMoves = LegalMoveSet.of(position);
+            this.cache.put(legalMoves.getHash(), legalMoves);
+            return legalMoves;
+        }, this.executor);
+    }
+
+    /**
+     * Retrieves the legal moves of the current position if they are ready,
+     * without waiting.
+     *
+     * @return the legal moves, or an empty Optional if they are still being
+     *         worked out or the game is over
+     */
+    public Optional<LegalMoveSet> getIfReady()
+    {
+        if (this.current == null || !this.current.isDone())
+        {
+            return Optional.empty();
+        }
+        return this.get();
+    }
+
+    /**
+     * Runs an action with the legal moves of the current position once they
+     * are ready, on the event dispatch thread. The action is not run if the
+     * position changes first, or if the game is over.
+     *
+     * @param action the action to run with the legal moves
+     */
+    public void whenReady(Consumer<LegalMoveSet> action)
+    {
+        CompletableFuture<LegalMoveSet> position = this.current;
+        if (position == null)
+        {
+            return;
+        }
+        position.thenAccept(legalMoves -> SwingUtilities.invokeLater(() -> {
+            if (this.current == position)
+            {
+                action.accept(legalMoves);
+            }
+        }));
+    }
+
+    /**
+     * Retrieves the legal moves of the current position, waiting for them if
+     * they are still being worked out.
+     *
+     * @return the legal moves, or an empty Optional if the game is over
+     */
+    public Optional<LegalMoveSet> get()
+    {
+        if (this.current == null)
+        {
+            return Optional.empty();
+        }
+        try
+        {
+            return Optional.of(this.current.get());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+        catch (ExecutionException e)
+        {
+            throw new RuntimeException("Failed to generate legal moves", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package controller;
+
+import model.board.CellPosition;
+import model.engine.LegalMoveSet;
+import model.engine.SearchEngine;
+import model.game.KwazamGameMaster;
+import model.game.Move;
+import view.KwazamGUI;
+
+import javax.swing.*;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shows move hints on a {@link KwazamGUI}: where the selected piece can move,
+ * and an arrow for the move the {@link SearchEngine} thinks is best.
+ * <p>
+ * The legal moves come from a {@link LegalMovePrecomputer}, which has
+ * usually worked them out before a piece is selected, so selecting pieces
+ * marks their targets straight away. The best move is searched for in the
+ * background on a copy of the game, so the event dispatch thread never waits
+ * for it. When the position changes before
+ * the search is done, the search is cancelled and its result thrown away.
+ * <p>
+ * All methods must be called on the event dispatch thread.
+ */
+public class MoveHints
+{
+    /**
+     * The number of plies searched for the best move; deep enough to see a
+     * capture coming, shallow enough to finish within a second.
+     */
+    private static final int SEARCH_DEPTH = 3;
+
+    private final KwazamGUI gui;
+    private final KwazamGameMaster gameMaster;
+    private final LegalMovePrecomputer legalMoves;
+    private final SearchEngine searchEngine;
+
+    private boolean enabled;
+
+    /**
+     * The cell of the piece whose targets are to be marked, or {@code null}
+     * if no piece is selected.
+     */
+    private CellPosition selected;
+
+    /**
+     * The search for the best move of the current position, or {@code null}
+     * if none is running.
+     */
+    private SwingWorker<Optional<Move>, Void> search;
+
+    /**
+     * Constructs move hints for a game, initially turned off.
+     *
+     * @param gui          the graphical user interface to show the hints on
+     * @param gameMaster   the game to give hints for
+     * @param legalMoves   the legal moves of the game's positions
+     * @param searchEngine the engine to find the best move with
+     */
+    public MoveHints(KwazamGUI gui, KwazamGameMaster gameMaster, LegalMovePrecomputer legalMoves,
+                     SearchEngine searchEngine)
+    {
+        this.gui = gui;
+        this.gameMaster = gameMaster;
+        this.legalMoves = legalMoves;
+        this.searchEngine = searchEngine;
+    }
+
+    /**
+     * @return whether hints are shown
+     */
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    /**
+     * Turns the hints on or off. Turning them on starts searching for the
+     * best move of the current position.
+     *
+     * @param enabled whether to show hints
+     */
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+        this.gui.setHintsOn(enabled);
+        this.positionChanged();
+    }
+
+    /**
+     * Forgets everything known about the previous position and starts on the
+     * current one. Call it whenever the game changes: after a move, an undo
+     * or redo, or a new or loaded game.
+     */
+    public void positionChanged()
+    {
+        this.hide();
+
+        if (this.enabled && this.gameMaster.getPlayers().size() > 1)
+        {
+            this.startSearch();
+        }
+    }
+
+    /**
+     * Stops searching and takes the hints off the board, e.g. while it shows
+     * something other than the game. {@link #positionChanged()} brings them
+     * back.
+     */
+    public void hide()
+    {
+        this.selected = null;
+        if (this.search != null)
+        {
+            this.search.cancel(true);
+            this.search = null;
+        }
+        this.gui.clearMoveHints();
+        this.gui.clearHintArrow();
+    }
+
+    /**
+     * Marks the cells the piece on a cell can legally move to, replacing the
+     * marks of the previously selected piece. If the legal moves are still
+     * being worked out, the cells are marked once they are, as long as the
+     * piece is still selected by then.
+     *
+     * @param from the cell of the selected piece on the model's board
+     */
+    public void showTargets(CellPosition from)
+    {
+        this.gui.clearMoveHints();
+        this.selected = null;
+        if (!this.enabled)
+        {
+            return;
+        }
+
+        // normally ready long before the player selects a piece
+        this.selected = from;
+        Optional<LegalMoveSet> legalMoveSet = this.legalMoves.getIfReady();
+        if (legalMoveSet.isPresent())
+        {
+            this.markTargets(legalMoveSet.get(), from);
+            return;
+        }
+        this.legalMoves.whenReady(legalMoves -> {
+            if (from.equals(this.selected))
+            {
+                this.markTargets(legalMoves, from);
+            }
+        });
+    }
+
+    /**
+     * Removes the marks of the selected piece, keeping the arrow.
+     */
+    public void clearTargets()
+    {
+        this.selected = null;
+        this.gui.clearMoveHints();
+    }
+
+    private void markTargets(LegalMoveSet legalMoveSet, CellPosition from)
+    {
+        for (Move move : legalMoveSet.getMoves())
+        {
+            if (move.from().equals(from))
+            {
+                CellPosition target = this.toView(move.to());
+                this.gui.highlightMoveTarget(target.row(), target.column());
+            }
+        }
+    }
+
+    /**
+     * Searches for the best move on a copy of the game in the background and
+     * shows it when done, unless the position has changed by then.
+     */
+    private void startSearch()
+    {
+        KwazamGameMaster position = this.gameMaster.copy();
+        SwingWorker<Optional<Move>, Void> worker = new SwingWorker<>()
+        {
+            @Override
+            protected Optional<Move> doInBackground()
+            {
+                return searchEngine.findBestMove(position, SEARCH_DEPTH);
+            }
+
+            @Override
+            protected void done()
+            {
+                if (search != this || isCancelled())
+                {
+                    return;
+                }
+                search = null;
+                try
+                {
+                    get().ifPresent(MoveHints.this::showArrow);
+                }
+                catch (InterruptedException | ExecutionException | CancellationException e)
+                {
+                    // no hint for this position
+                }
+            }
+        };
+        this.search = worker;
+        worker.execute();
+    }
+
+    private void showArrow(Move move)
+    {
+        CellPosition from = this.toView(move.from());
+        CellPosition to = this.toView(move.to());
+        this.gui.showHintArrow(from.row(), from.column(), to.row(), to.column());
+    }
+
+    /**
+     * Converts a position on the model's board to the cell showing it.
+     */
+    private CellPosition toView(CellPosition cellPos)
+    {
+        if (!this.gui.isFlipped())
+        {
+            return cellPos;
+        }
+        return new CellPosition(this.gameMaster.getBoardRows() - 1 - cellPos.row(),
+                this.gameMaster.getBoardColumns() - 1 - cellPos.column());
+    }
+}
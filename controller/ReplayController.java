@@ -0,0 +1,191 @@
+package controller;
+
+import model.replay.Replay;
+import view.KwazamGUI;
+import view.ReplayBar;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Lets the user scrub through a recorded game on a {@link KwazamGUI}, using
+ * a {@link ReplayBar} below the board or the arrow, Home and End keys, and
+ * to go back to the game with the bar's exit button or Escape.
+ * <p>
+ * Board clicks are ignored while replaying; whoever started the replay gets
+ * the board back when it exits. The board is always shown from
+ * blue's side so that it does not spin around while scrubbing, and only the
+ * cells that differ from the shown position are redrawn, which keeps
+ * dragging the slider smooth.
+ */
+public class ReplayController
+{
+    /**
+     * The keys bound while replaying.
+     */
+    private static final int[] KEY_CODES = {
+            KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_HOME, KeyEvent.VK_END, KeyEvent.VK_ESCAPE
+    };
+
+    private final KwazamGUI gui;
+    private final Replay replay;
+    private final ReplayBar replayBar;
+    private final Runnable onExit;
+    private boolean exited;
+
+    /**
+     * The piece names currently shown on the board.
+     */
+    private List<List<String>> shownCells;
+
+    /**
+     * Constructs a ReplayController and shows the start position of the
+     * replay.
+     *
+     * @param gui    the graphical user interface to show the replay on
+     * @param replay the replay to control
+     * @param onExit run once the replay has been taken off the board, e.g. to
+     *               set the cell click listener and the board back
+     */
+    public ReplayController(KwazamGUI gui, Replay replay, Runnable onExit)
+    {
+        this.gui = gui;
+        this.replay = replay;
+        this.replayBar = new ReplayBar(replay.size());
+        this.onExit = onExit;
+
+        gui.setCellClickListener((row, col) -> {});
+        gui.disableWinMessage();
+        gui.showReplayBar(this.replayBar);
+
+        replay.seek(0);
+        gui.setFlipped(false);
+        if (gui.isTorXorSwitched())
+        {
+            gui.toggleTorXorVisuals();
+        }
+        this.shownCells = replay.getGame().getCellsStringRepresentation();
+        gui.setBoard(this.shownCells);
+
+        this.replayBar.addSliderListener(e -> this.showPly(this.replayBar.getSelectedPly()));
+        this.replayBar.addFirstListener(e -> this.showPly(0));
+        this.replayBar.addPreviousListener(e -> this.showPly(this.replay.getPly() - 1));
+        this.replayBar.addNextListener(e -> this.showPly(this.replay.getPly() + 1));
+        this.replayBar.addLastListener(e -> this.showPly(this.replay.size()));
+        this.replayBar.addExitListener(e -> this.exit());
+        this.bindKeys();
+    }
+
+    /**
+     * Takes the replay controls and key bindings away and hands the board
+     * back. Does nothing if already exited.
+     */
+    public void exit()
+    {
+        if (this.exited)
+        {
+            return;
+        }
+        this.exited = true;
+
+        JRootPane rootPane = this.gui.getRootPane();
+        InputMap inputMap = rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap actionMap = rootPane.getActionMap();
+        for (int keyCode : KEY_CODES)
+        {
+            Object name = inputMap.get(KeyStroke.getKeyStroke(keyCode, 0));
+            inputMap.remove(KeyStroke.getKeyStroke(keyCode, 0));
+            if (name != null)
+            {
+                actionMap.remove(name);
+            }
+        }
+
+        this.gui.hideReplayBar(this.replayBar);
+        this.onExit.run();
+    }
+
+    /**
+     * Shows the position after the given number of plies, clamped to the
+     * length of the game.
+     *
+     * @param ply the ply to show
+     */
+    public void showPly(int ply)
+    {
+        int target = Math.max(0, Math.min(this.replay.size(), ply));
+        if (target == this.replay.getPly())
+        {
+            return;
+        }
+
+        if (target == this.replay.getPly() + 1)
+        {
+            this.replay.stepForward();
+        }
+        else if (target == this.replay.getPly() - 1)
+        {
+            this.replay.stepBack();
+        }
+        else
+        {
+            this.replay.seek(target);
+        }
+
+        this.redrawChangedCells();
+        this.replayBar.setPly(target);
+    }
+
+    /**
+     * Redraws the cells whose piece differs from what is shown.
+     */
+    private void redrawChangedCells()
+    {
+        List<List<String>> cells = this.replay.getGame().getCellsStringRepresentation();
+        for (int row = 0; row < cells.size(); row++)
+        {
+            for (int col = 0; col < cells.get(row).size(); col++)
+            {
+                String piece = cells.get(row).get(col);
+                if (!Objects.equals(piece, this.shownCells.get(row).get(col)))
+                {
+                    this.gui.setCellPiece(row, col, piece);
+                }
+            }
+        }
+        this.shownCells = cells;
+    }
+
+    /**
+     * Binds the arrow keys to stepping, Home/End to jumping to either end of
+     * the game and Escape to exiting, anywhere in the window.
+     */
+    private void bindKeys()
+    {
+        JRootPane rootPane = this.gui.getRootPane();
+        InputMap inputMap = rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap actionMap = rootPane.getActionMap();
+
+        this.bindKey(inputMap, actionMap, KeyEvent.VK_LEFT, "replayPrevious", () -> this.showPly(this.replay.getPly() - 1));
+        this.bindKey(inputMap, actionMap, KeyEvent.VK_RIGHT, "replayNext", () -> this.showPly(this.replay.getPly() + 1));
+        this.bindKey(inputMap, actionMap, KeyEvent.VK_HOME, "replayFirst", () -> this.showPly(0));
+        this.bindKey(inputMap, actionMap, KeyEvent.VK_END, "replayLast", () -> this.showPly(this.replay.size()));
+        this.bindKey(inputMap, actionMap, KeyEvent.VK_ESCAPE, "replayExit", this::exit);
+    }
+
+    private void bindKey(InputMap inputMap, ActionMap actionMap, int keyCode, String name, Runnable action)
+    {
+        inputMap.put(KeyStroke.getKeyStroke(keyCode, 0), name);
+        actionMap.put(name, new AbstractAction()
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                action.run();
+            }
+        });
+    }
+}
@@ -2,15 +2,21 @@ package model.board;
 
 import model.exceptions.PieceMoveException;
 import model.game.Player;
+import model.listeners.BoardChangeListener;
 import model.listeners.BoardVerticalEdgeListener;
 import model.listeners.CaptureListener;
 import model.pieces.Piece;
 import model.pieces.Switchable;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This abstract class represents a game board composed of {@code Cell} objects.
@@ -30,6 +36,19 @@ import java.util.Optional;
  * of this pattern, pieces may have to take in instances of the {@code Board}
  * class to gain information which isn't very logical and violates good
  * separation of concerns.
+ * <p>
+ * Listener registries are copy-on-write, so listeners may be registered from
+ * any thread while events are being dispatched, without any locking on the
+ * dispatch path. Vertical edge events are delivered straight to the piece that
+ * reached the edge if that piece is itself a {@link BoardVerticalEdgeListener}
+ * (e.g. a Ram), so pieces do not need to be registered one by one and do not
+ * have to filter out events about other pieces.
+ * <p>
+ * Besides the cell matrix, the board keeps a per-player index from each piece
+ * to its position. Every change to the cells goes through this class, so the
+ * index is always in sync and questions like "where are all of this player's
+ * pieces?" can be answered without scanning the whole board. For the same
+ * reason, {@link BoardChangeListener}s can follow every change to the cells.
  *
  * @author Harris Majeed
  * @see Cell
@@ -47,24 +66,42 @@ public abstract class Board
      */
     protected final List<Player> players;
 
+    /**
+     * Read-only view of {@link #players}, created once so that reading the
+     * participants does not allocate.
+     */
+    private final List<Player> participantsView;
+
     /**
      * A two-dimensional matrix of cells representing the game board.
      */
     protected final ArrayList<ArrayList<Cell>> cells;
 
     /**
-     * A list that holds all registered listeners which respond when a piece
-     * reaches one of the vertical edges of the board.
-     *
+     * Index of every piece on the board and its position, grouped by owner.
+     * The inner maps are insertion ordered so that iterating over a player's
+     * pieces is deterministic.
      */
-    private final ArrayList<BoardVerticalEdgeListener> verticalEdgeListeners = new ArrayList<>();
+    private final Map<Player, Map<Piece, CellPosition>> piecePositions = new HashMap<>();
+
+    /**
+     * A list that holds all registered listeners which respond when any piece
+     * reaches one of the vertical edges of the board. Pieces that listen for
+     * their own edge events are notified directly and need not be in here.
+     */
+    private final List<BoardVerticalEdgeListener> verticalEdgeListeners = new CopyOnWriteArrayList<>();
 
     /**
      * A list that holds all registered listeners which respond when a piece is
      * captured.
-     *
      */
-    private final ArrayList<CaptureListener> captureListeners = new ArrayList<>();
+    private final List<CaptureListener> captureListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * A list that holds all registered listeners which respond to any change
+     * to the contents of the cells.
+     */
+    private final List<BoardChangeListener> changeListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Constructs a Board with the specified list of players. The board's cells
@@ -77,7 +114,9 @@ public abstract class Board
     public Board(List<Player> players)
     {
         this.players = players;
+        this.participantsView = Collections.unmodifiableList(players);
         this.cells = this.populateCells();
+        this.rebuildPieceIndex();
     }
 
     /**
@@ -99,11 +138,124 @@ public abstract class Board
         return cell.getPiece();
     }
 
+    /**
+     * Retrieves the piece on a cell without bounds checks or wrapping it in an
+     * {@code Optional}, for code that walks the whole board and must not
+     * allocate, such as taking snapshots.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return the piece, or {@code null} if the cell is empty
+     */
+    public Piece getPieceOrNull(int row, int column)
+    {
+        return this.cells.get(row).get(column).getPieceOrNull();
+    }
+
     public List<List<Cell>> getCells()
     {
         return List.copyOf(this.cells);
     }
 
+    /**
+     * Creates a deep copy of the cell matrix: new cells holding copies of the
+     * pieces. Unlike {@link #getCells()}, nothing in the result is shared with
+     * this board.
+     *
+     * @return a 2D list of copied cells
+     */
+    public List<List<Cell>> copyCells()
+    {
+        return copyCells(this.cells);
+    }
+
+    /**
+     * Creates a deep copy of a cell matrix: new cells holding copies of the
+     * pieces, so that the copy can be changed (e.g. handed to
+     * {@link #setCells}) without affecting the original.
+     *
+     * @param cells the cells to copy
+     * @return a 2D list of copied cells
+     */
+    public static List<List<Cell>> copyCells(List<? extends List<Cell>> cells)
+    {
+        List<List<Cell>> copy = new ArrayList<>(cells.size());
+        for (List<Cell> row : cells)
+        {
+            List<Cell> rowCopy = new ArrayList<>(row.size());
+            for (Cell cell : row)
+            {
+                Cell cellCopy = new Cell();
+                cell.getPiece().ifPresent(piece -> cellCopy.setPiece(piece.copy()));
+                rowCopy.add(cellCopy);
+            }
+            copy.add(rowCopy);
+        }
+        return copy;
+    }
+
+    /**
+     * Retrieves the players this board was set up for, including players who
+     * have since been eliminated, in seating order.
+     *
+     * @return an unmodifiable list of the participants of this board
+     */
+    public List<Player> getParticipants()
+    {
+        return this.participantsView;
+    }
+
+    /**
+     * Retrieves the positions of all pieces owned by the specified player.
+     * This is a view backed by the board's piece index, so no cells are
+     * scanned.
+     *
+     * @param player the owner of the pieces
+     * @return an unmodifiable map from each of the player's pieces to its
+     * position; empty if the player has no pieces on the board
+     */
+    public Map<Piece, CellPosition> getPiecePositions(Player player)
+    {
+        Map<Piece, CellPosition> positions = this.piecePositions.get(player);
+        if (positions == null)
+        {
+            return Map.of();
+        }
+        return Collections.unmodifiableMap(positions);
+    }
+
+    /**
+     * Removes every piece owned by the specified player from the board. The
+     * cost is proportional to the number of pieces the player owns, not to
+     * the size of the board.
+     *
+     * @param player the player whose pieces are removed
+     * @return the removed pieces and the positions they were removed from
+     */
+    public Map<Piece, CellPosition> removePiecesOf(Player player)
+    {
+        Map<Piece, CellPosition> positions = this.piecePositions.remove(player);
+        if (positions == null)
+        {
+            return Map.of();
+        }
+
+        for (Map.Entry<Piece, CellPosition> entry : positions.entrySet())
+        {
+            this.getCell(entry.getValue()).setPiece(null);
+            this.notifyPieceRemoved(entry.getKey(), entry.getValue());
+        }
+        return positions;
+    }
+
+    /**
+     * Replaces every cell of the board.
+     *
+     * @param newCells the new cells, row by row, of the same size as the board
+     * @throws IllegalArgumentException if the cells do not fit the board or a
+     *                                  piece is owned by someone who is not a
+     *                                  participant of this board
+     */
     public void setCells(List<List<Cell>> newCells)
     {
         if (newCells == null || newCells.size() != this.cells.size())
@@ -117,6 +269,15 @@ public abstract class Board
             {
                 throw new IllegalArgumentException("Invalid row size in newCells for setCells.");
             }
+            for (Cell cell : newCells.get(i))
+            {
+                Piece piece = cell.getPieceOrNull();
+                if (piece != null && !this.players.contains(piece.getOwner()))
+                {
+                    throw new IllegalArgumentException("Piece owner " + piece.getOwner().id()
+                            + " is not a participant of this board.");
+                }
+            }
         }
 
         this.cells.clear();
@@ -124,6 +285,21 @@ public abstract class Board
         {
             this.cells.add(new ArrayList<>(row));
         }
+        this.rebuildPieceIndex();
+
+        for (BoardChangeListener listener : this.changeListeners)
+        {
+            listener.onBoardReset(this);
+        }
+    }
+
+    /**
+     * Restores the board to its initial arrangement, as produced by
+     * {@link #populateCells()}.
+     */
+    public void resetCells()
+    {
+        this.setCells(new ArrayList<>(this.populateCells()));
     }
 
     /**
@@ -158,18 +334,88 @@ public abstract class Board
         Optional<Piece> existingPiece = this.getPieceAt(toPos);
         existingPiece.ifPresent(this::notifyCaptureListeners);
         this.removePiece(fromPos);
-        Cell toCell = this.getCell(toPos);
-        toCell.setPiece(piece);
+        this.setPieceAt(toPos, piece);
 
         if (toPos.row() == 0 || toPos.row() == this.getBoardRows() - 1)
         {
+            // the piece may change itself in response (e.g. a Ram turning
+            // around), so change listeners see it being placed again
+            this.notifyPieceRemoved(piece, toPos);
             notifyVerticalEdgeListeners(piece);
+            this.notifyPiecePlaced(piece, toPos);
+        }
+    }
+
+    /**
+     * Reverts a move made through {@link #movePiece}: the piece at
+     * {@code toPos} is moved back to {@code fromPos}, any captured piece is put
+     * back on {@code toPos}, and if {@code toPos} is on a vertical edge the
+     * edge listeners are told that the edge event was undone.
+     * <p>
+     * No capture events are fired. Moves must be undone in the reverse order
+     * they were made.
+     *
+     * @param fromPos       the position the piece was originally moved from
+     * @param toPos         the position the piece was originally moved to; must
+     *                      contain a piece
+     * @param capturedPiece the piece that was captured by the move, or
+     *                      {@code null} if none
+     * @throws PieceMoveException       if there is no piece at {@code toPos}
+     * @throws IllegalArgumentException if either position is out of bounds
+     */
+    public void undoMove(CellPosition fromPos, CellPosition toPos, Piece capturedPiece)
+    {
+        Piece piece = this.getPieceAt(toPos).orElseThrow(PieceMoveException::new);
+
+        if (toPos.row() == 0 || toPos.row() == this.getBoardRows() - 1)
+        {
+            this.notifyPieceRemoved(piece, toPos);
+            this.notifyVerticalEdgeUndoListeners(piece);
+            this.notifyPiecePlaced(piece, toPos);
+        }
+
+        this.setPieceAt(toPos, capturedPiece);
+        this.setPieceAt(fromPos, piece);
+    }
+
+    /**
+     * Puts pieces back onto the board at the given positions, e.g. the pieces
+     * of an eliminated player when the elimination is undone.
+     *
+     * @param pieces the pieces to place and their positions
+     * @throws IllegalArgumentException if a position is out of bounds
+     */
+    public void restorePieces(Map<Piece, CellPosition> pieces)
+    {
+        for (Map.Entry<Piece, CellPosition> entry : pieces.entrySet())
+        {
+            this.setPieceAt(entry.getValue(), entry.getKey());
+        }
+    }
+
+    /**
+     * Notifies the piece itself and all registered vertical edge listeners
+     * that an edge event of the specified piece has been undone.
+     *
+     * @param piece the piece whose edge event is being undone
+     */
+    private void notifyVerticalEdgeUndoListeners(Piece piece)
+    {
+        if (piece instanceof BoardVerticalEdgeListener pieceListener)
+        {
+            pieceListener.onBoardVerticalEdgeReachUndone(piece);
+        }
+
+        for (BoardVerticalEdgeListener listener : this.verticalEdgeListeners)
+        {
+            listener.onBoardVerticalEdgeReachUndone(piece);
         }
     }
 
     /**
-     * Notifies all registered vertical edge listeners that a specific piece has
-     * reached the topmost or bottommost row of the board.
+     * Notifies the piece itself (if it listens for vertical edge events) and
+     * all registered vertical edge listeners that a specific piece has reached
+     * the topmost or bottommost row of the board.
      *
      * @param piece the piece that has reached the vertical edge of the board
      *
@@ -177,6 +423,11 @@ public abstract class Board
      */
     private void notifyVerticalEdgeListeners(Piece piece)
     {
+        if (piece instanceof BoardVerticalEdgeListener pieceListener)
+        {
+            pieceListener.onBoardVerticalEdgeReached(piece);
+        }
+
         for (BoardVerticalEdgeListener listener : this.verticalEdgeListeners)
         {
             listener.onBoardVerticalEdgeReached(piece);
@@ -199,6 +450,36 @@ public abstract class Board
         }
     }
 
+    /**
+     * Notifies all registered change listeners that a piece has been placed
+     * on a cell.
+     *
+     * @param piece   the placed piece
+     * @param cellPos the position of the cell
+     */
+    private void notifyPiecePlaced(Piece piece, CellPosition cellPos)
+    {
+        for (BoardChangeListener listener : this.changeListeners)
+        {
+            listener.onPiecePlaced(piece, cellPos);
+        }
+    }
+
+    /**
+     * Notifies all registered change listeners that a piece has been removed
+     * from a cell.
+     *
+     * @param piece   the removed piece
+     * @param cellPos the position of the cell
+     */
+    private void notifyPieceRemoved(Piece piece, CellPosition cellPos)
+    {
+        for (BoardChangeListener listener : this.changeListeners)
+        {
+            listener.onPieceRemoved(piece, cellPos);
+        }
+    }
+
     /**
      * Removes the piece located at the specified cell position on the board.
      * The piece is set to {@code null}, effectively clearing the cell.
@@ -214,8 +495,7 @@ public abstract class Board
      */
     public void removePiece(CellPosition cellPos)
     {
-        Cell cell = this.getCell(cellPos);
-        cell.setPiece(null);
+        this.setPieceAt(cellPos, null);
     }
 
     /**
@@ -279,8 +559,12 @@ public abstract class Board
 
     /**
      * Registers a new vertical edge listener to the board. A vertical edge
-     * listener is notified when a piece reaches the topmost or bottommost row
-     * of the board.
+     * listener is notified when any piece reaches the topmost or bottommost
+     * row of the board.
+     * <p>
+     * Pieces implementing {@link BoardVerticalEdgeListener} are always
+     * notified about their own edge events and should not be registered here.
+     * This method is safe to call from any thread.
      *
      * @param listener the listener to be registered for vertical edge events
      *
@@ -293,7 +577,8 @@ public abstract class Board
 
     /**
      * Registers a new capture listener to the board. A capture listener is
-     * notified when a piece has been captured during the game.
+     * notified when a piece has been captured during the game. This method is
+     * safe to call from any thread.
      *
      * @param listener the listener to be registered for capture events
      *
@@ -304,12 +589,37 @@ public abstract class Board
         this.captureListeners.add(listener);
     }
 
+    /**
+     * Registers a new change listener to the board. A change listener is
+     * notified whenever a piece is placed on or removed from a cell, and when
+     * all cells are replaced at once. This method is safe to call from any
+     * thread.
+     *
+     * @param listener the listener to be registered for change events
+     */
+    public void registerChangeListener(BoardChangeListener listener)
+    {
+        this.changeListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a change listener so that it is no longer notified.
+     *
+     * @param listener the listener to be unregistered
+     */
+    public void unregisterChangeListener(BoardChangeListener listener)
+    {
+        this.changeListeners.remove(listener);
+    }
+
     /**
      * Replaces any piece that implements the {@link Switchable} interface with
      * its corresponding switched piece.
      * <p>
      * This method is designed to be sufficiently generic and can be used for
-     * any game (not just Kwazam Chess) where pieces can switch.
+     * any game (not just Kwazam Chess) where pieces can switch. It walks the
+     * piece index rather than every cell, so its cost depends on the number
+     * of pieces left, not on the size of the board.
      *
      * @see Switchable
      *
@@ -317,18 +627,22 @@ public abstract class Board
      */
     public void switchPieces()
     {
-        for (ArrayList<Cell> row : this.cells)
+        List<CellPosition> switchablePositions = new ArrayList<>();
+        for (Map<Piece, CellPosition> positions : this.piecePositions.values())
         {
-            for (Cell cell : row)
+            for (Map.Entry<Piece, CellPosition> entry : positions.entrySet())
             {
-                cell.getPiece().ifPresent(piece -> {
-                    if (piece instanceof Switchable)
-                    {
-                        cell.setPiece((((Switchable) piece).getSwitchedPiece()));
-                    }
-                });
+                if (entry.getKey() instanceof Switchable)
+                {
+                    switchablePositions.add(entry.getValue());
+                }
             }
+        }
 
+        for (CellPosition cellPos : switchablePositions)
+        {
+            Switchable piece = (Switchable) this.getPieceAt(cellPos).orElseThrow();
+            this.setPieceAt(cellPos, piece.getSwitchedPiece());
         }
     }
 
@@ -352,7 +666,7 @@ public abstract class Board
      *
      *  @author Harris Majeed
      */
-    protected abstract int getBoardRows();
+    public abstract int getBoardRows();
 
     /**
      * Retrieves the number of columns in the board. Up to the implementing
@@ -362,7 +676,69 @@ public abstract class Board
      *
      *  @author Harris Majeed
      */
-    protected abstract int getBoardColumns();
+    public abstract int getBoardColumns();
+
+    /**
+     * Low-level helper method that places a piece into a cell (or clears it if
+     * {@code piece} is {@code null}), keeps the piece index in sync and
+     * notifies change listeners. All changes to cell contents should go
+     * through this method.
+     *
+     * @param cellPos the position of the cell to change; must be within the
+     *                bounds of the board
+     * @param piece   the piece to place, or {@code null} to clear the cell
+     * @throws IllegalArgumentException if {@code cellPos} is out of bounds
+     */
+    private void setPieceAt(CellPosition cellPos, Piece piece)
+    {
+        Cell cell = this.getCell(cellPos);
+        Optional<Piece> oldPiece = cell.getPiece();
+        oldPiece.ifPresent(this::unindexPiece);
+        cell.setPiece(piece);
+        oldPiece.ifPresent(removed -> this.notifyPieceRemoved(removed, cellPos));
+
+        if (piece != null)
+        {
+            this.piecePositions
+                    .computeIfAbsent(piece.getOwner(), owner -> new LinkedHashMap<>())
+                    .put(piece, cellPos);
+            this.notifyPiecePlaced(piece, cellPos);
+        }
+    }
+
+    /**
+     * Removes a piece from the piece index.
+     *
+     * @param piece the piece to forget
+     */
+    private void unindexPiece(Piece piece)
+    {
+        Map<Piece, CellPosition> positions = this.piecePositions.get(piece.getOwner());
+        if (positions != null)
+        {
+            positions.remove(piece);
+        }
+    }
+
+    /**
+     * Rebuilds the piece index from scratch by scanning every cell. Only
+     * needed when the whole cell matrix is replaced.
+     */
+    private void rebuildPieceIndex()
+    {
+        this.piecePositions.clear();
+        for (int row = 0; row < this.cells.size(); row++)
+        {
+            for (int column = 0; column < this.cells.get(row).size(); column++)
+            {
+                CellPosition cellPos = new CellPosition(row, column);
+                this.cells.get(row).get(column).getPiece().ifPresent(piece ->
+                        this.piecePositions
+                                .computeIfAbsent(piece.getOwner(), owner -> new LinkedHashMap<>())
+                                .put(piece, cellPos));
+            }
+        }
+    }
 
     /**
      * Low-level helper method to retrieve the cell located at the specified
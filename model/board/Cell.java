@@ -20,7 +20,6 @@ public class Cell implements Stringable
     /**
      * Represents the piece currently held by the cell. The piece might be null,
      * meaning the cell is empty.
-     *
      */
     private Piece piece = null;
 
@@ -45,6 +44,17 @@ public class Cell implements Stringable
         return Optional.ofNullable(piece);
     }
 
+    /**
+     * Retrieves the piece currently held by the cell without wrapping it in
+     * an {@code Optional}, for code that must not allocate.
+     *
+     * @return the piece, or {@code null} if the cell is empty
+     */
+    Piece getPieceOrNull()
+    {
+        return piece;
+    }
+
     /**
      * Setter method for piece.
      *
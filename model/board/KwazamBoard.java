@@ -8,27 +8,80 @@ import java.util.List;
 
 /**
  * Specialized {@link Board} class designed to be used in Kwazam Chess.
+ * <p>
+ * The classic game is played by two players on an 8x5 board. Variants with
+ * up to {@value #MAX_PLAYERS} players are supported by placing additional
+ * armies side by side: even-seated players (the first, third, ...) set up at
+ * the bottom of the board and odd-seated players at the top, and the board
+ * grows by {@value #ARMY_COLUMNS} columns for every extra pair of players.
  *
  * @author Harris Majeed
  * @see Board
  */
 public class KwazamBoard extends Board
 {
+    /**
+     * The minimum number of players a Kwazam Chess game can have.
+     */
+    public static final int MIN_PLAYERS = 2;
+
+    /**
+     * The maximum number of players a Kwazam Chess game can have.
+     */
+    public static final int MAX_PLAYERS = 4;
+
+    /**
+     * The number of rows of a Kwazam Chess board, for any number of players.
+     */
+    public static final int ROWS = 8;
+
+    /**
+     * The number of columns taken up by a single player's army.
+     */
+    public static final int ARMY_COLUMNS = 5;
+
     /**
      * Constructs a KwazamBoard with the specified players.
      *
      * @param players the list of players participating in the Kwazam Chess
-     *                game
+     *                game, in seating order
+     * @throws IllegalArgumentException if there are fewer than
+     *                                  {@value #MIN_PLAYERS} or more than
+     *                                  {@value #MAX_PLAYERS} players
      */
     public KwazamBoard(List<Player> players)
     {
-        super(players);
+        super(checkPlayerCount(players));
+    }
+
+    /**
+     * Calculates how many columns a Kwazam Chess board needs for the given
+     * number of players.
+     *
+     * @param playerCount the number of players in the game
+     * @return the number of columns of the board
+     */
+    public static int columnsFor(int playerCount)
+    {
+        return ARMY_COLUMNS * ((playerCount + 1) / 2);
+    }
+
+    /**
+     * Determines whether the player in the given seat sets up at the top of
+     * the board (and therefore plays "downwards").
+     *
+     * @param seat the zero-based seat of the player
+     * @return {@code true} if the seat is at the top of the board
+     */
+    public static boolean isTopSeat(int seat)
+    {
+        return seat % 2 == 1;
     }
 
     /**
      * Populates the cells of the board with the appropriate pieces. This sets
      * up the initial state of Kwazam Chess as described in the assignment
-     * requirements.
+     * requirements, with one army per player.
      *
      * @return a 2D {@code ArrayList} representing the board, where each element
      * contains a {@code Cell} object. Cells are pre-configured with the
@@ -50,64 +103,120 @@ public class KwazamBoard extends Board
             cells.add(rowCells);
         }
 
-        cells.get(0).get(0).setPiece(new Tor(players.get(1)));
-        cells.get(0).get(1).setPiece(new Biz(players.get(1)));
+        for (int seat = 0; seat < players.size(); seat++)
+        {
+            int firstColumn = ARMY_COLUMNS * (seat / 2);
+            if (isTopSeat(seat))
+            {
+                populateTopArmy(cells, players.get(seat), firstColumn);
+            }
+            else
+            {
+                populateBottomArmy(cells, players.get(seat), firstColumn);
+            }
+        }
+
+        return cells;
+    }
+
+    /**
+     * Places an army at the top of the board, facing down.
+     *
+     * @param cells       the cells being populated
+     * @param player      the owner of the army
+     * @param firstColumn the leftmost column of the army
+     */
+    private void populateTopArmy(ArrayList<ArrayList<Cell>> cells, Player player, int firstColumn)
+    {
+        int backRow = 0;
+        int ramRow = 1;
+
+        cells.get(backRow).get(firstColumn).setPiece(new Tor(player));
+        cells.get(backRow).get(firstColumn + 1).setPiece(new Biz(player));
 
-        Piece redSau = new Sau(players.get(1));
-        redSau.setCriticalPiece(true);
-        cells.get(0).get(2).setPiece(redSau);
+        Piece sau = new Sau(player);
+        sau.setCriticalPiece(true);
+        cells.get(backRow).get(firstColumn + 2).setPiece(sau);
 
-        cells.get(0).get(3).setPiece(new Biz(players.get(1)));
-        cells.get(0).get(4).setPiece(new Xor(players.get(1)));
-        for (int column = 0; column < getBoardColumns(); column++)
+        cells.get(backRow).get(firstColumn + 3).setPiece(new Biz(player));
+        cells.get(backRow).get(firstColumn + 4).setPiece(new Xor(player));
+        for (int column = firstColumn; column < firstColumn + ARMY_COLUMNS; column++)
         {
-            Ram ram = new Ram(players.get(1), false);
-            this.registerVerticalEdgeListener(ram);
-            cells.get(1).get(column).setPiece(ram);
+            cells.get(ramRow).get(column).setPiece(new Ram(player, false));
         }
+    }
 
-        for (int column = 0; column < getBoardColumns(); column++)
+    /**
+     * Places an army at the bottom of the board, facing up.
+     *
+     * @param cells       the cells being populated
+     * @param player      the owner of the army
+     * @param firstColumn the leftmost column of the army
+     */
+    private void populateBottomArmy(ArrayList<ArrayList<Cell>> cells, Player player, int firstColumn)
+    {
+        int backRow = getBoardRows() - 1;
+        int ramRow = backRow - 1;
+
+        for (int column = firstColumn; column < firstColumn + ARMY_COLUMNS; column++)
         {
-            Ram ram = new Ram(players.get(0), true);
-            this.registerVerticalEdgeListener(ram);
-            cells.get(6).get(column).setPiece(ram);
+            cells.get(ramRow).get(column).setPiece(new Ram(player, true));
         }
-        cells.get(7).get(0).setPiece(new Xor(players.get(0)));
-        cells.get(7).get(1).setPiece(new Biz(players.get(0)));
-
-        Piece blueSau = new Sau(players.get(0));
-        blueSau.setCriticalPiece(true);
-        cells.get(7).get(2).setPiece(blueSau);
+        cells.get(backRow).get(firstColumn).setPiece(new Xor(player));
+        cells.get(backRow).get(firstColumn + 1).setPiece(new Biz(player));
 
-        cells.get(7).get(3).setPiece(new Biz(players.get(0)));
-        cells.get(7).get(4).setPiece(new Tor(players.get(0)));
+        Piece sau = new Sau(player);
+        sau.setCriticalPiece(true);
+        cells.get(backRow).get(firstColumn + 2).setPiece(sau);
 
-        return cells;
+        cells.get(backRow).get(firstColumn + 3).setPiece(new Biz(player));
+        cells.get(backRow).get(firstColumn + 4).setPiece(new Tor(player));
     }
 
     /**
      * Retrieves the number of rows in the board for Kwazam Chess.
      *
-     * @return 8
+     * @return {@value #ROWS}
      *
      * @author Harris Majeed
      */
     @Override
-    protected int getBoardRows()
+    public int getBoardRows()
     {
-        return 8;
+        return ROWS;
     }
 
     /**
-     * Retrieves the number of columns in the board for Kwazam Chess.
+     * Retrieves the number of columns in the board for Kwazam Chess. This is
+     * 5 for the classic two player game and grows with extra players.
      *
-     * @return 5
+     * @return the number of columns of the board
      *
      * @author Harris Majeed
+     * @see #columnsFor(int)
      */
     @Override
-    protected int getBoardColumns()
+    public int getBoardColumns()
     {
-        return 5;
+        return columnsFor(players.size());
+    }
+
+    /**
+     * Checks that the number of players is supported before the board is
+     * populated.
+     *
+     * @param players the players of the game
+     * @return {@code players}, for use in the constructor call
+     * @throws IllegalArgumentException if the player count is not supported
+     */
+    private static List<Player> checkPlayerCount(List<Player> players)
+    {
+        if (players.size() < MIN_PLAYERS || players.size() > MAX_PLAYERS)
+        {
+            throw new IllegalArgumentException(
+                    "Kwazam Chess supports %d to %d players, got %d."
+                            .formatted(MIN_PLAYERS, MAX_PLAYERS, players.size()));
+        }
+        return players;
     }
 }
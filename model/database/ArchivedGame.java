@@ -0,0 +1,24 @@
+package model.database;
+
+import java.util.Optional;
+
+/**
+ * A game stored in a {@link PositionDatabase}.
+ *
+ * @param gameId   the id of the game, which is its position in ingest order
+ * @param label    where the game came from, e.g. a file name and record number
+ * @param plies    the number of moves of the game, or the turn count of a
+ *                 game archived as a single saved position
+ * @param winnerId the id of the winning player, or {@code null} if the game
+ *                 did not finish
+ */
+public record ArchivedGame(int gameId, String label, int plies, String winnerId)
+{
+    /**
+     * @return the id of the winning player, if the game finished
+     */
+    public Optional<String> getWinnerId()
+    {
+        return Optional.ofNullable(this.winnerId);
+    }
+}
@@ -0,0 +1,612 @@
+package model.database;
+
+import model.board.KwazamBoard;
+import model.engine.PositionHasher;
+import model.game.KwazamGameMaster;
+import model.game.Move;
+import model.game.Player;
+import model.serialization.GameCollectionTransfer;
+import model.serialization.GameState;
+import model.serialization.SaveLoadManager;
+import model.serialization.SaveLoadSerializer;
+import model.serialization.TransferStats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An embedded database of archived games, indexed by every position they
+ * reached, for "which games reached this position and how did they end"
+ * queries.
+ * <p>
+ * A database is a directory of four files:
+ * <ul>
+ *   <li>
+ *     the index, {@value #INDEX_FILE} or a grown copy of it named after its
+ *     capacity: a 32 byte header (magic number, format version,
+ *     capacity and entry count) followed by an open-addressing hash table of
+ *     16 byte slots, each holding a {@link PositionHasher position hash}
+ *     (long), the id of a game that reached it plus one (int, 0 marks an
+ *     empty slot) and the ply it was reached at (int). Collisions are resolved
+ *     by linear probing, and the table is doubled when it is three quarters
+ *     full. The table is memory-mapped, so a lookup touches only the few
+ *     slots it probes and takes well under a microsecond once they are in the
+ *     page cache, however many positions are stored;
+ *   </li>
+ *   <li>
+ *     {@value #CURRENT_INDEX_FILE}: the name of the index file in use. A
+ *     grown index is written to a new file that this then points to, as a
+ *     memory-mapped file cannot be replaced on every platform. A database
+ *     without it uses {@value #INDEX_FILE};
+ *   </li>
+ *   <li>
+ *     {@value #GAMES_FILE}: one 16 byte record per game (offset of its label
+ *     in the labels file, number of plies and whether it finished), so that
+ *     games can be found by id;
+ *   </li>
+ *   <li>
+ *     {@value #LABELS_FILE}: the label and winner of every game.
+ *   </li>
+ * </ul>
+ * A position reached several times in the same game is stored once, at the
+ * first ply it was reached. A database must only be used by one thread at a
+ * time.
+ */
+public class PositionDatabase implements Closeable
+{
+    static final String INDEX_FILE = "positions.idx";
+    static final String CURRENT_INDEX_FILE = "positions.current";
+    static final String GAMES_FILE = "games.dat";
+    static final String LABELS_FILE = "labels.dat";
+
+    private static final int MAGIC = 0x4B575044; // "KWPD"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int SLOT_BYTES = 16;
+    private static final int GAME_BYTES = 16;
+
+    /**
+     * Slots per mapping. A single mapping cannot be larger than 2 GB, so big
+     * tables are mapped in 1 GB segments.
+     */
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_SLOTS = 1L << SEGMENT_SHIFT;
+
+    private static final long INITIAL_CAPACITY = 1L << 16;
+    private static final long MAX_CAPACITY = 1L << 34;
+
+    private static final int FINISHED = 1;
+
+    private final Path directory;
+    private final FileChannel gamesChannel;
+    private final FileChannel labelsChannel;
+
+    private Path indexFile;
+    private FileChannel indexChannel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer[] segments;
+    private long capacity;
+    private long size;
+    private int gameCount;
+
+    private PositionDatabase(Path directory, FileChannel gamesChannel, FileChannel labelsChannel)
+            throws IOException
+    {
+        this.directory = directory;
+        this.gamesChannel = gamesChannel;
+        this.labelsChannel = labelsChannel;
+        this.gameCount = (int) (gamesChannel.size() / GAME_BYTES);
+    }
+
+    /**
+     * Opens a database, creating it if the directory holds none.
+     *
+     * @param directory the directory of the database
+     * @return the opened database
+     * @throws IOException              if the files cannot be opened
+     * @throws IllegalArgumentException if the index is not a valid index file
+     */
+    public static PositionDatabase open(Path directory) throws IOException
+    {
+        Files.createDirectories(directory);
+        PositionDatabase database = new PositionDatabase(directory,
+                openChannel(directory.resolve(GAMES_FILE)),
+                openChannel(directory.resolve(LABELS_FILE)));
+
+        Path currentIndexFile = directory.resolve(CURRENT_INDEX_FILE);
+        Path indexFile = directory.resolve(Files.exists(currentIndexFile)
+                ? Files.readString(currentIndexFile, StandardCharsets.UTF_8).trim()
+                : INDEX_FILE);
+        boolean exists = Files.exists(indexFile);
+        database.indexFile = indexFile;
+        database.indexChannel = openChannel(indexFile);
+        if (exists)
+        {
+            MappedByteBuffer header = database.indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+            {
+                database.close();
+                throw new IllegalArgumentException("Not a position database index: " + indexFile);
+            }
+            database.size = header.getLong(16);
+            database.mapIndex(header.getLong(8));
+        }
+        else
+        {
+            database.mapIndex(INITIAL_CAPACITY);
+        }
+        database.deleteStaleIndexes();
+        return database;
+    }
+
+    /**
+     * Adds a game given as a start position and the moves played from it,
+     * and indexes every position it reached.
+     *
+     * @param label where the game came from
+     * @param start the position the game started from; it is not modified
+     * @param moves the moves of the game, in order
+     * @return the id of the game
+     * @throws IOException              if the database cannot be written
+     * @throws IllegalArgumentException if a move is illegal, in which case
+     *                                  nothing is added
+     */
+    public int addGame(String label, KwazamGameMaster start, List<Move> moves) throws IOException
+    {
+        KwazamGameMaster game = start.copy();
+        Map<Long, Integer> positions = new LinkedHashMap<>();
+        positions.put(PositionHasher.hash(game), 0);
+
+        for (int i = 0; i < moves.size(); i++)
+        {
+            Move move = moves.get(i);
+            if (game.getPlayers().size() < KwazamBoard.MIN_PLAYERS
+                    || !game.isLegalMove(move.from(), move.to()))
+            {
+                throw new IllegalArgumentException("Illegal move at ply " + (i + 1) + ": " + move);
+            }
+
+            game.movePiece(move.from(), move.to());
+            if (game.getPlayers().size() >= KwazamBoard.MIN_PLAYERS)
+            {
+                game.advanceTurn();
+            }
+            positions.putIfAbsent(PositionHasher.hash(game), i + 1);
+        }
+
+        return this.addGame(label, moves.size(), winnerOf(game.getPlayers()), positions);
+    }
+
+    /**
+     * Adds a game given as a single saved position, and indexes that
+     * position. A finished game is stored with its winner but not indexed,
+     * as no player is left to move.
+     *
+     * @param label     where the game came from
+     * @param gameState the saved position
+     * @return the id of the game
+     * @throws IOException if the database cannot be written
+     */
+    public int addGame(String label, GameState gameState) throws IOException
+    {
+        Map<Long, Integer> positions = new LinkedHashMap<>();
+        if (gameState.players().size() >= KwazamBoard.MIN_PLAYERS)
+        {
+            positions.put(PositionHasher.hash(SaveLoadManager.newGame(gameState)), gameState.turnCount());
+        }
+        return this.addGame(label, gameState.turnCount(), winnerOf(gameState.players()), positions);
+    }
+
+    /**
+     * Adds every game of a collection file, labelled with the file name and
+     * record number. The games are parsed in parallel but added in file
+     * order.
+     *
+     * @param path the collection file
+     * @return the throughput of the import
+     * @throws IOException              if the file cannot be read or the
+     *                                  database cannot be written
+     * @throws IllegalArgumentException if a game is invalid; the games before
+     *                                  it have been added
+     * @throws InterruptedException     if interrupted while importing
+     * @see GameCollectionTransfer
+     */
+    public TransferStats importCollection(Path path) throws IOException, InterruptedException
+    {
+        String name = path.getFileName().toString();
+        int[] recordNumber = {0};
+        return new GameCollectionTransfer().importCollection(path, gameState -> {
+            try
+            {
+                this.addGame(name + "#" + ++recordNumber[0], gameState);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException("Failed to add game to position database", e);
+            }
+        });
+    }
+
+    /**
+     * Finds the games that reached the current position of a game.
+     *
+     * @param game the game whose position to look up
+     * @return the occurrences of the position, in no particular order
+     */
+    public List<PositionOccurrence> lookup(KwazamGameMaster game)
+    {
+        return this.lookup(PositionHasher.hash(game));
+    }
+
+    /**
+     * Finds the games that reached a position.
+     *
+     * @param hash the {@link PositionHasher hash} of the position
+     * @return the occurrences of the position, in no particular order
+     */
+    public List<PositionOccurrence> lookup(long hash)
+    {
+        List<PositionOccurrence> occurrences = new ArrayList<>();
+        long mask = this.capacity - 1;
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask)
+        {
+            ByteBuffer segment = segmentOf(this.segments, slot);
+            int offset = offsetOf(slot);
+            int gameIdPlusOne = segment.getInt(offset + 8);
+            if (gameIdPlusOne == 0)
+            {
+                return occurrences;
+            }
+            if (segment.getLong(offset) == hash)
+            {
+                occurrences.add(new PositionOccurrence(gameIdPlusOne - 1, segment.getInt(offset + 12)));
+            }
+        }
+    }
+
+    /**
+     * Retrieves a stored game.
+     *
+     * @param gameId the id of the game
+     * @return the game
+     * @throws IOException              if the database cannot be read
+     * @throws IllegalArgumentException if there is no game with that id
+     */
+    public ArchivedGame getGame(int gameId) throws IOException
+    {
+        if (gameId < 0 || gameId >= this.gameCount)
+        {
+            throw new IllegalArgumentException("No game with id " + gameId);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(GAME_BYTES);
+        this.gamesChannel.read(record, (long) gameId * GAME_BYTES);
+        long labelOffset = record.getLong(0);
+        int plies = record.getInt(8);
+        boolean finished = (record.getInt(12) & FINISHED) != 0;
+
+        // The stream reads from the channel's position; the channel is
+        // otherwise only written to at explicit positions
+        this.labelsChannel.position(labelOffset);
+        DataInputStream labels = new DataInputStream(Channels.newInputStream(this.labelsChannel));
+        String label = labels.readUTF();
+        String winnerId = labels.readUTF();
+        return new ArchivedGame(gameId, label, plies, finished ? winnerId : null);
+    }
+
+    /**
+     * @return the number of games stored
+     */
+    public int getGameCount()
+    {
+        return this.gameCount;
+    }
+
+    /**
+     * @return the number of distinct (position, game) pairs stored
+     */
+    public long getPositionCount()
+    {
+        return this.size;
+    }
+
+    /**
+     * Writes all changes to disk.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    public void flush() throws IOException
+    {
+        this.header.putLong(16, this.size);
+        this.header.force();
+        for (MappedByteBuffer segment : this.segments)
+        {
+            segment.force();
+        }
+        this.gamesChannel.force(false);
+        this.labelsChannel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            if (this.header != null)
+            {
+                this.flush();
+            }
+        }
+        finally
+        {
+            this.gamesChannel.close();
+            this.labelsChannel.close();
+            if (this.indexChannel != null)
+            {
+                this.indexChannel.close();
+            }
+        }
+    }
+
+    private int addGame(String label, int plies, String winnerId, Map<Long, Integer> positions)
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream labels = new DataOutputStream(bytes);
+        labels.writeUTF(label);
+        labels.writeUTF(winnerId == null ? "" : winnerId);
+        long labelOffset = this.labelsChannel.size();
+        this.labelsChannel.write(ByteBuffer.wrap(bytes.toByteArray()), labelOffset);
+
+        int gameId = this.gameCount;
+        ByteBuffer record = ByteBuffer.allocate(GAME_BYTES)
+                .putLong(labelOffset)
+                .putInt(plies)
+                .putInt(winnerId == null ? 0 : FINISHED)
+                .flip();
+        this.gamesChannel.write(record, (long) gameId * GAME_BYTES);
+        this.gameCount++;
+
+        for (Map.Entry<Long, Integer> position : positions.entrySet())
+        {
+            if (this.size + 1 > this.capacity / 4 * 3)
+            {
+                this.grow();
+            }
+            put(this.segments, this.capacity - 1, position.getKey(), gameId + 1, position.getValue());
+            this.size++;
+        }
+        return gameId;
+    }
+
+    /**
+     * Doubles the capacity of the index. The new index is built in a file of
+     * its own, and only once it is on disk does {@value #CURRENT_INDEX_FILE}
+     * point to it, so the index on disk is complete at all times. The old
+     * index stays mapped until its buffers are collected, which keeps it from
+     * being deleted on some platforms; it is then deleted on the next open.
+     */
+    private void grow() throws IOException
+    {
+        long newCapacity = this.capacity * 2;
+        if (newCapacity > MAX_CAPACITY)
+        {
+            throw new RuntimeException("Position database is full");
+        }
+
+        Path newIndexFile = this.directory.resolve("positions-" + newCapacity + ".idx");
+        FileChannel newChannel = FileChannel.open(newIndexFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer newHeader;
+        MappedByteBuffer[] newSegments;
+        try
+        {
+            newHeader = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            newSegments = mapSegments(newChannel, newCapacity);
+
+            for (long slot = 0; slot < this.capacity; slot++)
+            {
+                ByteBuffer segment = segmentOf(this.segments, slot);
+                int offset = offsetOf(slot);
+                int gameIdPlusOne = segment.getInt(offset + 8);
+                if (gameIdPlusOne != 0)
+                {
+                    put(newSegments, newCapacity - 1, segment.getLong(offset), gameIdPlusOne,
+                            segment.getInt(offset + 12));
+                }
+            }
+
+            writeHeader(newHeader, newCapacity, this.size);
+            newHeader.force();
+            for (MappedByteBuffer segment : newSegments)
+            {
+                segment.force();
+            }
+            this.pointTo(newIndexFile);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            newChannel.close();
+            throw e;
+        }
+
+        Path oldIndexFile = this.indexFile;
+        this.indexChannel.close();
+        this.indexFile = newIndexFile;
+        this.indexChannel = newChannel;
+        this.header = newHeader;
+        this.segments = newSegments;
+        this.capacity = newCapacity;
+        deleteQuietly(oldIndexFile);
+    }
+
+    /**
+     * Makes {@value #CURRENT_INDEX_FILE} name the given index file. The
+     * pointer is replaced atomically, and is never mapped, so it can always
+     * be renamed over.
+     */
+    private void pointTo(Path indexFile) throws IOException
+    {
+        Path temporaryFile = Files.createTempFile(this.directory, CURRENT_INDEX_FILE, ".tmp");
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE))
+            {
+                channel.write(ByteBuffer.wrap(indexFile.getFileName().toString().getBytes(StandardCharsets.UTF_8)));
+                channel.force(true);
+            }
+            Files.move(temporaryFile, this.directory.resolve(CURRENT_INDEX_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Deletes the index files left behind by earlier growths, and by growths
+     * that failed before they were complete.
+     */
+    private void deleteStaleIndexes() throws IOException
+    {
+        try (DirectoryStream<Path> indexFiles = Files.newDirectoryStream(this.directory, "positions*.idx"))
+        {
+            for (Path file : indexFiles)
+            {
+                if (!file.equals(this.indexFile))
+                {
+                    deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file)
+    {
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e)
+        {
+            // still mapped, deleted on the next open
+        }
+    }
+
+    private void mapIndex(long capacity) throws IOException
+    {
+        this.header = this.indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        this.segments = mapSegments(this.indexChannel, capacity);
+        this.capacity = capacity;
+        writeHeader(this.header, capacity, this.size);
+    }
+
+    private static void writeHeader(ByteBuffer header, long capacity, long size)
+    {
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putLong(8, capacity);
+        header.putLong(16, size);
+    }
+
+    private static MappedByteBuffer[] mapSegments(FileChannel channel, long capacity) throws IOException
+    {
+        long slotsPerSegment = Math.min(capacity, SEGMENT_SLOTS);
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int) (capacity / slotsPerSegment)];
+        for (int i = 0; i < segments.length; i++)
+        {
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + i * slotsPerSegment * SLOT_BYTES, slotsPerSegment * SLOT_BYTES);
+        }
+        return segments;
+    }
+
+    private static void put(MappedByteBuffer[] segments, long mask, long hash, int gameIdPlusOne, int ply)
+    {
+        long slot = hash & mask;
+        while (segmentOf(segments, slot).getInt(offsetOf(slot) + 8) != 0)
+        {
+            slot = (slot + 1) & mask;
+        }
+
+        ByteBuffer segment = segmentOf(segments, slot);
+        int offset = offsetOf(slot);
+        segment.putLong(offset, hash);
+        segment.putInt(offset + 8, gameIdPlusOne);
+        segment.putInt(offset + 12, ply);
+    }
+
+    private static ByteBuffer segmentOf(MappedByteBuffer[] segments, long slot)
+    {
+        return segments[(int) (slot >>> SEGMENT_SHIFT)];
+    }
+
+    private static int offsetOf(long slot)
+    {
+        return (int) (slot & (SEGMENT_SLOTS - 1)) * SLOT_BYTES;
+    }
+
+    private static FileChannel openChannel(Path path) throws IOException
+    {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static String winnerOf(List<Player> players)
+    {
+        return players.size() == 1 ? players.get(0).id() : null;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if (args.length < 3 || !args[1].equals("import") && !args[1].equals("query"))
+        {
+            System.err.println("Usage: PositionDatabase <directory> import <collection files...>");
+            System.err.println("       PositionDatabase <directory> query <saved game file>");
+            System.exit(1);
+        }
+
+        try (PositionDatabase database = PositionDatabase.open(Path.of(args[0])))
+        {
+            if (args[1].equals("import"))
+            {
+                for (int i = 2; i < args.length; i++)
+                {
+                    TransferStats stats = database.importCollection(Path.of(args[i]));
+                    System.out.println(args[i] + ": " + stats.getStringRepresentation());
+                }
+                System.out.printf("%d games, %d positions%n", database.getGameCount(), database.getPositionCount());
+                return;
+            }
+
+            KwazamGameMaster game = SaveLoadManager.newGame(new SaveLoadSerializer().loadStateFromFile(args[2]));
+            long start = System.nanoTime();
+            List<PositionOccurrence> occurrences = database.lookup(game);
+            long nanos = System.nanoTime() - start;
+            for (PositionOccurrence occurrence : occurrences)
+            {
+                ArchivedGame archived = database.getGame(occurrence.gameId());
+                System.out.printf("%s at ply %d of %d: %s%n", archived.label(), occurrence.ply(), archived.plies(),
+                        archived.getWinnerId().map(id -> "won by player " + id).orElse("unfinished"));
+            }
+            System.out.printf("%d games reached this position (lookup took %d us)%n", occurrences.size(), nanos / 1000);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package model.database;
+
+/**
+ * A position reached in an archived game.
+ *
+ * @param gameId the id of the game that reached the position
+ * @param ply    the number of moves played in the game when the position was
+ *               reached; for games archived as a single saved position, its
+ *               turn count
+ */
+public record PositionOccurrence(int gameId, int ply)
+{
+}
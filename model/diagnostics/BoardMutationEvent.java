@@ -0,0 +1,64 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import model.board.CellPosition;
+
+/**
+ * Flight Recorder event emitted when a validated move is applied to the
+ * board, including any capture and vertical edge notifications it triggers.
+ */
+@Name("kwazam.BoardMutation")
+@Label("Board Mutation")
+@Category({"Kwazam", "Board"})
+@Description("A piece being moved on the board")
+@Enabled(false)
+@StackTrace(false)
+public class BoardMutationEvent extends Event
+{
+    @Label("Game Id")
+    long gameId;
+
+    @Label("Turn Count")
+    int turnCount;
+
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+
+    @Label("Capture")
+    boolean capture;
+
+    /**
+     * Ends the event and commits it with the given fields if it is enabled.
+     *
+     * @param gameId    the id of the game the board belongs to
+     * @param turnCount the turn count at the time of the move
+     * @param fromPos   the starting cell position of the moved piece
+     * @param toPos     the target cell position of the moved piece
+     * @param capture   whether the move captured a piece
+     */
+    public void commit(long gameId, int turnCount, CellPosition fromPos,
+                       CellPosition toPos, boolean capture)
+    {
+        this.end();
+        if (!this.shouldCommit())
+        {
+            return;
+        }
+
+        this.gameId = gameId;
+        this.turnCount = turnCount;
+        this.from = GameEvents.format(fromPos);
+        this.to = GameEvents.format(toPos);
+        this.capture = capture;
+        this.commit();
+    }
+}
@@ -0,0 +1,58 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import model.pieces.Piece;
+
+/**
+ * Flight Recorder event emitted while the {@code GameMaster} handles a capture
+ * notification, including the elimination of the owning player if the piece
+ * was critical.
+ */
+@Name("kwazam.Capture")
+@Label("Capture")
+@Category({"Kwazam", "Game"})
+@Description("Handling of a captured piece")
+@Enabled(false)
+@StackTrace(false)
+public class CaptureEvent extends Event
+{
+    @Label("Game Id")
+    long gameId;
+
+    @Label("Turn Count")
+    int turnCount;
+
+    @Label("Piece")
+    String piece;
+
+    @Label("Critical")
+    boolean critical;
+
+    /**
+     * Ends the event and commits it with the given fields if it is enabled.
+     *
+     * @param gameId    the id of the game the capture happened in
+     * @param turnCount the turn count at the time of the capture
+     * @param piece     the piece that was captured
+     */
+    public void commit(long gameId, int turnCount, Piece piece)
+    {
+        this.end();
+        if (!this.shouldCommit())
+        {
+            return;
+        }
+
+        this.gameId = gameId;
+        this.turnCount = turnCount;
+        this.piece = piece.getStringRepresentation();
+        this.critical = piece.isCriticalPiece();
+        this.commit();
+    }
+}
@@ -0,0 +1,49 @@
+package model.diagnostics;
+
+import model.board.CellPosition;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small helpers shared by the Flight Recorder events in this package.
+ * <p>
+ * All events are disabled by default. To record them, start the application
+ * with a recording whose settings enable the {@code kwazam.*} events, e.g.
+ * <pre>
+ * java -XX:StartFlightRecording:filename=kwazam.jfr,kwazam.MoveValidation#enabled=true Main
+ * </pre>
+ */
+public final class GameEvents
+{
+    /**
+     * Game id used by events that are not bound to a live game.
+     */
+    public static final long NO_GAME = 0;
+
+    private static final AtomicLong nextGameId = new AtomicLong(NO_GAME + 1);
+
+    private GameEvents()
+    {
+    }
+
+    /**
+     * Hands out a new, process-wide unique game id.
+     *
+     * @return the next game id
+     */
+    public static long nextGameId()
+    {
+        return nextGameId.getAndIncrement();
+    }
+
+    /**
+     * Formats a cell position as {@code row,column} for event fields.
+     *
+     * @param cellPos the position to format
+     * @return the formatted position
+     */
+    static String format(CellPosition cellPos)
+    {
+        return cellPos.row() + "," + cellPos.column();
+    }
+}
@@ -0,0 +1,72 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import model.board.CellPosition;
+
+/**
+ * Flight Recorder event emitted whenever the {@code GameMaster} validates a
+ * requested move, whether the move was accepted or rejected. Moves that the
+ * controller rejects from the precomputed legal moves, without asking the
+ * {@code GameMaster}, are emitted as rejected too.
+ * <p>
+ * Like every event in this package it is disabled by default and has to be
+ * switched on through a recording setting (e.g.
+ * {@code kwazam.MoveValidation#enabled=true}). While it is disabled the JIT
+ * removes the event allocation entirely, so the hot path stays free.
+ */
+@Name("kwazam.MoveValidation")
+@Label("Move Validation")
+@Category({"Kwazam", "Game"})
+@Description("Validation of a move requested through the GameMaster")
+@Enabled(false)
+@StackTrace(false)
+public class MoveValidationEvent extends Event
+{
+    @Label("Game Id")
+    long gameId;
+
+    @Label("Turn Count")
+    int turnCount;
+
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+
+    @Label("Legal")
+    boolean legal;
+
+    /**
+     * Ends the event and commits it with the given fields, but only if the
+     * event is enabled and passes its threshold.
+     *
+     * @param gameId    the id of the game the move belongs to
+     * @param turnCount the turn count at the time of validation
+     * @param fromPos   the starting cell position of the move
+     * @param toPos     the target cell position of the move
+     * @param legal     whether the move passed validation
+     */
+    public void commit(long gameId, int turnCount, CellPosition fromPos,
+                       CellPosition toPos, boolean legal)
+    {
+        this.end();
+        if (!this.shouldCommit())
+        {
+            return;
+        }
+
+        this.gameId = gameId;
+        this.turnCount = turnCount;
+        this.from = GameEvents.format(fromPos);
+        this.to = GameEvents.format(toPos);
+        this.legal = legal;
+        this.commit();
+    }
+}
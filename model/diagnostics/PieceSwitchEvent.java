@@ -0,0 +1,47 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted when the board switches every
+ * {@code Switchable} piece (e.g. Tor and Xor in Kwazam Chess).
+ */
+@Name("kwazam.PieceSwitch")
+@Label("Piece Switch")
+@Category({"Kwazam", "Board"})
+@Description("Switching of all switchable pieces on the board")
+@Enabled(false)
+@StackTrace(false)
+public class PieceSwitchEvent extends Event
+{
+    @Label("Game Id")
+    long gameId;
+
+    @Label("Turn Count")
+    int turnCount;
+
+    /**
+     * Ends the event and commits it with the given fields if it is enabled.
+     *
+     * @param gameId    the id of the game the board belongs to
+     * @param turnCount the turn count that triggered the switch
+     */
+    public void commit(long gameId, int turnCount)
+    {
+        this.end();
+        if (!this.shouldCommit())
+        {
+            return;
+        }
+
+        this.gameId = gameId;
+        this.turnCount = turnCount;
+        this.commit();
+    }
+}
@@ -0,0 +1,61 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted for saving and loading game states, both the
+ * in-memory snapshot taken by the {@code SaveLoadManager} and the file I/O done
+ * by the {@code SaveLoadSerializer}.
+ * <p>
+ * The serializer has no notion of a live game, so its events carry a game id
+ * of {@link GameEvents#NO_GAME}; the manager's events carry no path.
+ */
+@Name("kwazam.SaveLoad")
+@Label("Save/Load")
+@Category({"Kwazam", "Serialization"})
+@Description("Saving or loading of a game state")
+@Enabled(false)
+@StackTrace(false)
+public class SaveLoadEvent extends Event
+{
+    @Label("Game Id")
+    long gameId;
+
+    @Label("Turn Count")
+    int turnCount;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    /**
+     * Ends the event and commits it with the given fields if it is enabled.
+     *
+     * @param gameId    the id of the game, or {@link GameEvents#NO_GAME}
+     * @param turnCount the turn count of the saved or loaded state
+     * @param operation the operation performed (e.g. "save" or "load")
+     * @param path      the file involved, or {@code null} if none
+     */
+    public void commit(long gameId, int turnCount, String operation, String path)
+    {
+        this.end();
+        if (!this.shouldCommit())
+        {
+            return;
+        }
+
+        this.gameId = gameId;
+        this.turnCount = turnCount;
+        this.operation = operation;
+        this.path = path;
+        this.commit();
+    }
+}
@@ -0,0 +1,54 @@
+package model.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import model.game.Player;
+
+/**
+ * Flight Recorder event emitted while the win listeners of a game are being
+ * notified. The duration covers every listener, which makes slow listeners
+ * (such as GUI updates) easy to spot.
+ */
+@Name("kwazam.Win")
+@Label("Win")
+@Category({"Kwazam", "Game"})
+@Description("Notification of the win listeners")
+@Enabled(false)
+@StackTrace(false)
+public class WinEvent extends Event
+{
+    @Label("Game Id")
+    long gameId;
+
+    @Label("Turn Count")
+    int turnCount;
+
+    @Label("Winner")
+    String winner;
+
+    /**
+     * Ends the event and commits it with the given fields if it is enabled.
+     *
+     * @param gameId    the id of the game that was won
+     * @param turnCount the turn count at the time of the win
+     * @param winner    the winning player
+     */
+    public void commit(long gameId, int turnCount, Player winner)
+    {
+        this.end();
+        if (!this.shouldCommit())
+        {
+            return;
+        }
+
+        this.gameId = gameId;
+        this.turnCount = turnCount;
+        this.winner = winner.id();
+        this.commit();
+    }
+}
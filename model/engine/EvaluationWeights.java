@@ -0,0 +1,104 @@
+package model.engine;
+
+import model.board.KwazamBoard;
+
+/**
+ * The tunable numbers used by the {@link Evaluator}, in hundredths of a Ram.
+ * <p>
+ * Piece-square tables cover a single army's area of
+ * {@value KwazamBoard#ROWS} x {@value KwazamBoard#ARMY_COLUMNS} cells and are
+ * indexed by {@code row * ARMY_COLUMNS + column}, where row 0 is the owner's
+ * back row and columns repeat every {@value KwazamBoard#ARMY_COLUMNS} cells on
+ * wider boards. Rams have one table for facing forward (towards the
+ * opponents) and one for facing back (after turning around at the far edge).
+ * The tables are copied on construction, and the arrays returned by the
+ * accessors must not be modified.
+ *
+ * @param ramValue            material value of a Ram
+ * @param bizValue            material value of a Biz
+ * @param torValue            material value of a Tor
+ * @param xorValue            material value of a Xor
+ * @param sauValue            material value of a Sau
+ * @param ramForwardTable     piece-square table of a Ram facing forward
+ * @param ramBackwardTable    piece-square table of a Ram facing back
+ * @param bizTable            piece-square table of a Biz
+ * @param torTable            piece-square table of a Tor
+ * @param xorTable            piece-square table of a Xor
+ * @param sauTable            piece-square table of a Sau
+ * @param mobilityWeight      value of each cell a piece could move to from
+ *                            its square on an empty board
+ * @param sauShelterBonus     value of each friendly piece next to the Sau
+ * @param sauThreatPenalty    penalty for each enemy piece next to the Sau
+ */
+public record EvaluationWeights(int ramValue, int bizValue, int torValue, int xorValue,
+                                int sauValue, int[] ramForwardTable, int[] ramBackwardTable,
+                                int[] bizTable, int[] torTable, int[] xorTable, int[] sauTable,
+                                int mobilityWeight, int sauShelterBonus, int sauThreatPenalty)
+{
+    /**
+     * The number of entries in each piece-square table.
+     */
+    public static final int TABLE_SIZE = KwazamBoard.ROWS * KwazamBoard.ARMY_COLUMNS;
+
+    /**
+     * Validates the tables and takes copies of them, so that the weights
+     * cannot change after an evaluator has started using them.
+     *
+     * @throws IllegalArgumentException if a table does not have
+     *                                  {@value #TABLE_SIZE} entries
+     */
+    public EvaluationWeights
+    {
+        ramForwardTable = checkTable(ramForwardTable);
+        ramBackwardTable = checkTable(ramBackwardTable);
+        bizTable = checkTable(bizTable);
+        torTable = checkTable(torTable);
+        xorTable = checkTable(xorTable);
+        sauTable = checkTable(sauTable);
+    }
+
+    /**
+     * The default weights: a Biz is worth three Rams and the sliding pieces
+     * five, Rams are encouraged to advance, the Biz to stay off the edge
+     * columns and the Sau to stay near its back row among its own pieces.
+     *
+     * @return the default weights
+     */
+    public static EvaluationWeights defaults()
+    {
+        int[] ramForward = new int[TABLE_SIZE];
+        int[] ramBackward = new int[TABLE_SIZE];
+        int[] biz = new int[TABLE_SIZE];
+        int[] tor = new int[TABLE_SIZE];
+        int[] xor = new int[TABLE_SIZE];
+        int[] sau = new int[TABLE_SIZE];
+
+        for (int row = 0; row < KwazamBoard.ROWS; row++)
+        {
+            for (int column = 0; column < KwazamBoard.ARMY_COLUMNS; column++)
+            {
+                int i = row * KwazamBoard.ARMY_COLUMNS + column;
+                int centre = 2 - Math.abs(column - KwazamBoard.ARMY_COLUMNS / 2);
+
+                ramForward[i] = 6 * row;
+                ramBackward[i] = 2 * row;
+                biz[i] = 8 * centre + (row >= 2 && row <= 5 ? 10 : 0);
+                tor[i] = 3 * centre;
+                xor[i] = 3 * centre;
+                sau[i] = row == 0 ? 20 : row == 1 ? 10 : -10 * row;
+            }
+        }
+
+        return new EvaluationWeights(100, 300, 500, 500, 0, ramForward, ramBackward,
+                biz, tor, xor, sau, 2, 15, 25);
+    }
+
+    private static int[] checkTable(int[] table)
+    {
+        if (table == null || table.length != TABLE_SIZE)
+        {
+            throw new IllegalArgumentException("Piece-square tables must have " + TABLE_SIZE + " entries");
+        }
+        return table.clone();
+    }
+}
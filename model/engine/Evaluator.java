@@ -0,0 +1,275 @@
+package model.engine;
+
+import model.board.Board;
+import model.board.CellPosition;
+import model.board.KwazamBoard;
+import model.game.Player;
+import model.listeners.BoardChangeListener;
+import model.pieces.Biz;
+import model.pieces.Piece;
+import model.pieces.Ram;
+import model.pieces.Sau;
+import model.pieces.Tor;
+import model.pieces.Xor;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Static evaluation of Kwazam Chess positions, kept up to date incrementally.
+ * <p>
+ * The evaluator listens to the changes of a board and keeps a running score
+ * for each seat. The score adds up material, the piece-square tables and
+ * mobility. Mobility counts the cells a piece could move to from its square
+ * on an empty board, which is a property of the square and can therefore be
+ * kept incrementally as well. Only the Sau safety term depends on the pieces
+ * around each Sau. It is computed when {@link #evaluate(Player)} is called
+ * and looks at no more than eight cells per player. An evaluation therefore
+ * takes constant time, however many pieces are on the board.
+ * <p>
+ * An evaluator is not thread-safe and must only be used by the thread that
+ * changes its board.
+ *
+ * @see EvaluationWeights
+ */
+public class Evaluator implements BoardChangeListener
+{
+    private static final int SAU = 0;
+    private static final int RAM_FACING_UP = 1;
+    private static final int BIZ = 2;
+    private static final int TOR = 3;
+    private static final int XOR = 4;
+    private static final int RAM_FACING_DOWN = 5;
+
+    /**
+     * Empty-board move counts by number of columns, then by kind and cell.
+     */
+    private static final Map<Integer, int[][]> mobilityTables = new ConcurrentHashMap<>();
+
+    private final KwazamBoard board;
+    private final EvaluationWeights weights;
+    private final List<Player> participants;
+    private final int rows;
+    private final int columns;
+    private final int[][] mobility;
+
+    private final int[] scores = new int[KwazamBoard.MAX_PLAYERS];
+    private final CellPosition[] sauPositions = new CellPosition[KwazamBoard.MAX_PLAYERS];
+
+    /**
+     * Creates an evaluator for a board and starts following its changes.
+     *
+     * @param board   the board to evaluate
+     * @param weights the weights to evaluate with
+     */
+    public Evaluator(KwazamBoard board, EvaluationWeights weights)
+    {
+        this.board = board;
+        this.weights = weights;
+        this.participants = board.getParticipants();
+        this.rows = board.getBoardRows();
+        this.columns = board.getBoardColumns();
+        this.mobility = mobilityTables.computeIfAbsent(this.columns,
+                columns -> buildMobilityTable(this.rows, columns));
+
+        this.recompute();
+        board.registerChangeListener(this);
+    }
+
+    /**
+     * Stops following the changes of the board. The evaluator must not be
+     * used afterwards.
+     */
+    public void detach()
+    {
+        this.board.unregisterChangeListener(this);
+    }
+
+    /**
+     * Evaluates the current position from the point of view of a player: the
+     * player's score minus the scores of all other players still on the
+     * board. Higher is better for the player.
+     *
+     * @param player the player to evaluate for
+     * @return the evaluation, in hundredths of a Ram
+     */
+    public int evaluate(Player player)
+    {
+        int evaluation = 0;
+        for (int seat = 0; seat < this.participants.size(); seat++)
+        {
+            int score = this.scores[seat] + this.sauSafety(seat);
+            evaluation += this.participants.get(seat) == player ? score : -score;
+        }
+        return evaluation;
+    }
+
+    @Override
+    public void onPiecePlaced(Piece piece, CellPosition cellPos)
+    {
+        int seat = this.seatOf(piece.getOwner());
+        this.scores[seat] += this.valueOf(piece, seat, cellPos);
+        if (piece instanceof Sau)
+        {
+            this.sauPositions[seat] = cellPos;
+        }
+    }
+
+    @Override
+    public void onPieceRemoved(Piece piece, CellPosition cellPos)
+    {
+        int seat = this.seatOf(piece.getOwner());
+        this.scores[seat] -= this.valueOf(piece, seat, cellPos);
+        if (piece instanceof Sau && cellPos.equals(this.sauPositions[seat]))
+        {
+            this.sauPositions[seat] = null;
+        }
+    }
+
+    @Override
+    public void onBoardReset(Board board)
+    {
+        this.recompute();
+    }
+
+    private void recompute()
+    {
+        Arrays.fill(this.scores, 0);
+        Arrays.fill(this.sauPositions, null);
+        for (Player player : this.participants)
+        {
+            for (Map.Entry<Piece, CellPosition> entry : this.board.getPiecePositions(player).entrySet())
+            {
+                this.onPiecePlaced(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private int seatOf(Player player)
+    {
+        for (int seat = 0; seat < this.participants.size(); seat++)
+        {
+            if (this.participants.get(seat) == player)
+            {
+                return seat;
+            }
+        }
+        return this.participants.indexOf(player);
+    }
+
+    /**
+     * Computes the material, piece-square and mobility value of a piece on a
+     * cell.
+     */
+    private int valueOf(Piece piece, int seat, CellPosition cellPos)
+    {
+        boolean topSeat = KwazamBoard.isTopSeat(seat);
+        int row = topSeat ? cellPos.row() : this.rows - 1 - cellPos.row();
+        int square = row * KwazamBoard.ARMY_COLUMNS + cellPos.column() % KwazamBoard.ARMY_COLUMNS;
+
+        int kind = kindOf(piece);
+        int value = this.weights.mobilityWeight() * this.mobility[kind][cellPos.row() * this.columns + cellPos.column()];
+        return value + switch (kind)
+        {
+            case SAU -> this.weights.sauValue() + this.weights.sauTable()[square];
+            case BIZ -> this.weights.bizValue() + this.weights.bizTable()[square];
+            case TOR -> this.weights.torValue() + this.weights.torTable()[square];
+            case XOR -> this.weights.xorValue() + this.weights.xorTable()[square];
+            default ->
+            {
+                // forward is up for the bottom seats and down for the top ones
+                boolean facingForward = (kind == RAM_FACING_UP) != topSeat;
+                yield this.weights.ramValue() + (facingForward
+                        ? this.weights.ramForwardTable()[square]
+                        : this.weights.ramBackwardTable()[square]);
+            }
+        };
+    }
+
+    /**
+     * Scores the pieces right next to a seat's Sau: friendly pieces shelter
+     * it, enemy pieces threaten it.
+     */
+    private int sauSafety(int seat)
+    {
+        CellPosition sauPos = this.sauPositions[seat];
+        if (sauPos == null)
+        {
+            return 0;
+        }
+
+        Player owner = this.participants.get(seat);
+        int safety = 0;
+        for (int row = Math.max(0, sauPos.row() - 1); row <= Math.min(this.rows - 1, sauPos.row() + 1); row++)
+        {
+            for (int column = Math.max(0, sauPos.column() - 1);
+                 column <= Math.min(this.columns - 1, sauPos.column() + 1); column++)
+            {
+                Optional<Piece> neighbour = this.board.getPieceAt(new CellPosition(row, column));
+                if (neighbour.isEmpty() || neighbour.get() instanceof Sau && neighbour.get().getOwner() == owner)
+                {
+                    continue;
+                }
+                safety += neighbour.get().getOwner() == owner
+                        ? this.weights.sauShelterBonus()
+                        : -this.weights.sauThreatPenalty();
+            }
+        }
+        return safety;
+    }
+
+    private static int kindOf(Piece piece)
+    {
+        if (piece instanceof Ram ram)
+        {
+            return ram.isFacingUp() ? RAM_FACING_UP : RAM_FACING_DOWN;
+        }
+        if (piece instanceof Biz)
+        {
+            return BIZ;
+        }
+        if (piece instanceof Tor)
+        {
+            return TOR;
+        }
+        if (piece instanceof Xor)
+        {
+            return XOR;
+        }
+        return SAU;
+    }
+
+    /**
+     * Counts, for every kind of piece and every cell, the cells the piece
+     * could move to on an empty board, using the pieces' own move rules.
+     */
+    private static int[][] buildMobilityTable(int rows, int columns)
+    {
+        Player owner = new Player("evaluator");
+        Piece[] pieces = {new Sau(owner), new Ram(owner, true), new Biz(owner),
+                new Tor(owner), new Xor(owner), new Ram(owner, false)};
+
+        int[][] table = new int[pieces.length][rows * columns];
+        for (int kind = 0; kind < pieces.length; kind++)
+        {
+            for (int from = 0; from < rows * columns; from++)
+            {
+                CellPosition fromPos = new CellPosition(from / columns, from % columns);
+                for (int to = 0; to < rows * columns; to++)
+                {
+                    Optional<LinkedList<CellPosition>> path = pieces[kind].getPotentialPath(
+                            fromPos, new CellPosition(to / columns, to % columns));
+                    if (to != from && path.isPresent() && !path.get().isEmpty())
+                    {
+                        table[kind][from]++;
+                    }
+                }
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,114 @@
+package model.engine;
+
+import model.board.CellPosition;
+import model.game.KwazamGameMaster;
+import model.game.Move;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The legal moves of one position, for answering "is this move legal?" with
+ * a lookup instead of validating the move again.
+ * <p>
+ * Besides the moves themselves, the set remembers which cells hold a piece of
+ * the player to move, so that a rejected move can be told apart in the same
+ * way as {@link KwazamGameMaster#movePiece} does: not the player's own piece,
+ * or an own piece that cannot move there.
+ */
+public final class LegalMoveSet
+{
+    private final long hash;
+    private final int columns;
+    private final int cellCount;
+    private final List<Move> moves;
+    private final BitSet legal;
+    private final BitSet ownCells;
+
+    private LegalMoveSet(long hash, int rows, int columns, List<Move> moves, BitSet ownCells)
+    {
+        this.hash = hash;
+        this.columns = columns;
+        this.cellCount = rows * columns;
+        this.moves = List.copyOf(moves);
+        this.ownCells = ownCells;
+        this.legal = new BitSet(this.cellCount * this.cellCount);
+        for (Move move : this.moves)
+        {
+            this.legal.set(this.index(move.from()) * this.cellCount + this.index(move.to()));
+        }
+    }
+
+    /**
+     * Generates the legal moves of the current position of a game.
+     *
+     * @param game the game to generate the moves of; it is not modified
+     * @return the legal moves of the player whose turn it is
+     */
+    public static LegalMoveSet of(KwazamGameMaster game)
+    {
+        int rows = game.getBoardRows();
+        int columns = game.getBoardColumns();
+        BitSet ownCells = new BitSet(rows * columns);
+        for (CellPosition cellPos : game.getBoard().getPiecePositions(game.getCurrentPlayer()).values())
+        {
+            ownCells.set(cellPos.row() * columns + cellPos.column());
+        }
+        return new LegalMoveSet(PositionHasher.hash(game), rows, columns, MoveGenerator.generateMoves(game),
+                ownCells);
+    }
+
+    /**
+     * @return the {@link PositionHasher hash} of the position these are the
+     *         moves of
+     */
+    public long getHash()
+    {
+        return this.hash;
+    }
+
+    /**
+     * @return the legal moves, captures first, as generated by
+     *         {@link MoveGenerator#generateMoves}
+     */
+    public List<Move> getMoves()
+    {
+        return this.moves;
+    }
+
+    /**
+     * Checks whether a move is legal.
+     *
+     * @param from the cell the piece moves from
+     * @param to   the cell the piece moves to
+     * @return whether the move is legal
+     */
+    public boolean contains(CellPosition from, CellPosition to)
+    {
+        int fromIndex = this.index(from);
+        int toIndex = this.index(to);
+        return fromIndex >= 0 && toIndex >= 0 && this.legal.get(fromIndex * this.cellCount + toIndex);
+    }
+
+    /**
+     * Checks whether a cell holds a piece of the player to move.
+     *
+     * @param cellPos the cell to check
+     * @return whether the player to move has a piece there
+     */
+    public boolean isOwnPiece(CellPosition cellPos)
+    {
+        int index = this.index(cellPos);
+        return index >= 0 && this.ownCells.get(index);
+    }
+
+    private int index(CellPosition cellPos)
+    {
+        if (cellPos.row() < 0 || cellPos.column() < 0 || cellPos.column() >= this.columns)
+        {
+            return -1;
+        }
+        int index = cellPos.row() * this.columns + cellPos.column();
+        return index < this.cellCount ? index : -1;
+    }
+}
@@ -0,0 +1,69 @@
+package model.engine;
+
+import model.board.CellPosition;
+import model.game.KwazamGameMaster;
+import model.game.Move;
+import model.pieces.Piece;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the legal moves of a position.
+ */
+public final class MoveGenerator
+{
+    private MoveGenerator()
+    {
+    }
+
+    /**
+     * Generates every legal move of the player whose turn it is. Only the
+     * current player's pieces are visited (through the board's piece index),
+     * and each candidate target is checked with
+     * {@link KwazamGameMaster#isLegalMove}, so the result always agrees with
+     * what {@link KwazamGameMaster#movePiece} accepts.
+     * <p>
+     * Moves that capture a piece come first, which lets a search try the most
+     * forcing moves before the rest.
+     *
+     * @param game the game to generate moves for
+     * @return the legal moves of the current player
+     */
+    public static List<Move> generateMoves(KwazamGameMaster game)
+    {
+        int rows = game.getBoardRows();
+        int columns = game.getBoardColumns();
+        List<Move> captures = new ArrayList<>();
+        List<Move> quietMoves = new ArrayList<>();
+
+        Map<Piece, CellPosition> positions = game.getBoard().getPiecePositions(game.getCurrentPlayer());
+        for (CellPosition from : positions.values())
+        {
+            for (int row = 0; row < rows; row++)
+            {
+                for (int column = 0; column < columns; column++)
+                {
+                    CellPosition to = new CellPosition(row, column);
+                    if (!game.isLegalMove(from, to))
+                    {
+                        continue;
+                    }
+
+                    if (game.getBoard().isCellOccupied(to))
+                    {
+                        captures.add(new Move(from, to));
+                    }
+                    else
+                    {
+                        quietMoves.add(new Move(from, to));
+                    }
+                }
+            }
+        }
+
+        captures.addAll(quietMoves);
+        return captures;
+    }
+}
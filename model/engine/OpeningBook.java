@@ -0,0 +1,167 @@
+package model.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * A read-only table of book moves for early positions, stored in a binary file
+ * that is memory-mapped for lookups.
+ * <p>
+ * The file starts with a 16 byte header (magic number, format version, player
+ * count and entry count, as big-endian ints), followed by fixed size entries
+ * of a {@link PositionHasher position hash} (long) and a
+ * {@link model.game.Move#pack() packed move} (int). Entries are sorted by hash
+ * so that {@link #probe(long)} can binary search them in place, in
+ * O(log n) time and without allocating.
+ * <p>
+ * Book files are created by the {@link OpeningBookGenerator}.
+ */
+public final class OpeningBook
+{
+    /**
+     * Returned by {@link #probe(long)} when a position is not in the book.
+     * Never a valid packed move, since rows and columns are far below 255.
+     */
+    public static final int NO_MOVE = -1;
+
+    private static final int MAGIC = 0x4B57424B; // "KWBK"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final int playerCount;
+    private final int entryCount;
+
+    private OpeningBook(MappedByteBuffer buffer, int playerCount, int entryCount)
+    {
+        this.buffer = buffer;
+        this.playerCount = playerCount;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Opens a book file by mapping it into memory. The mapping stays valid
+     * after this method returns; the file itself is not kept open.
+     *
+     * @param path the book file
+     * @return the opened book
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid book file
+     */
+    public static OpeningBook open(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+            {
+                throw new IllegalArgumentException("Invalid opening book file size: " + size);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            {
+                throw new IllegalArgumentException("Not an opening book file: " + path);
+            }
+
+            int playerCount = buffer.getInt(8);
+            int entryCount = buffer.getInt(12);
+            if (entryCount < 0 || HEADER_BYTES + (long) entryCount * ENTRY_BYTES != size)
+            {
+                throw new IllegalArgumentException("Opening book entry count does not match file size");
+            }
+            return new OpeningBook(buffer, playerCount, entryCount);
+        }
+    }
+
+    /**
+     * Writes a book file.
+     *
+     * @param path        the file to write; it is replaced if it exists
+     * @param playerCount the number of players of the games the book is for
+     * @param bookMoves   packed book moves by position hash
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, int playerCount, SortedMap<Long, Integer> bookMoves)
+            throws IOException
+    {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(playerCount);
+            out.writeInt(bookMoves.size());
+
+            // the natural order of Long matches the signed comparison in probe
+            for (Map.Entry<Long, Integer> entry : bookMoves.entrySet())
+            {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Looks up the book move of a position.
+     *
+     * @param positionHash the hash of the position, as computed by
+     *                     {@link PositionHasher#hash}
+     * @return the packed book move, or {@link #NO_MOVE} if the position is not
+     * in the book
+     */
+    public int probe(long positionHash)
+    {
+        int low = 0;
+        int high = this.entryCount - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int offset = HEADER_BYTES + mid * ENTRY_BYTES;
+            long hash = this.buffer.getLong(offset);
+            if (hash < positionHash)
+            {
+                low = mid + 1;
+            }
+            else if (hash > positionHash)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return this.buffer.getInt(offset + Long.BYTES);
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * Retrieves the number of players of the games this book is for. Hashes
+     * of positions with a different number of players must not be looked up.
+     *
+     * @return the number of players
+     */
+    public int getPlayerCount()
+    {
+        return this.playerCount;
+    }
+
+    /**
+     * Retrieves the number of positions in this book.
+     *
+     * @return the number of entries
+     */
+    public int size()
+    {
+        return this.entryCount;
+    }
+}
@@ -0,0 +1,180 @@
+package model.engine;
+
+import model.board.KwazamBoard;
+import model.game.KwazamGameMaster;
+import model.game.Move;
+import model.game.Player;
+import utils.CircularArrayRing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds {@link OpeningBook} files by searching every position reachable from
+ * the start position within a given number of plies.
+ * <p>
+ * The positions are collected first (each transposition only once), then
+ * searched in parallel, one task per position on its own copy of the game.
+ * Usage:
+ * <pre>
+ * java model.engine.OpeningBookGenerator book.bin [players] [book plies] [search depth] [threads]
+ * </pre>
+ */
+public class OpeningBookGenerator
+{
+    private final int playerCount;
+    private final int bookPlies;
+    private final int searchDepth;
+    private final int threads;
+
+    /**
+     * Creates a generator.
+     *
+     * @param playerCount the number of players of the games to build the
+     *                    book for
+     * @param bookPlies   positions up to this many plies after the start
+     *                    position are put in the book
+     * @param searchDepth the depth each position is searched to
+     * @param threads     the number of positions searched at the same time
+     * @throws IllegalArgumentException if any of the values is out of range
+     */
+    public OpeningBookGenerator(int playerCount, int bookPlies, int searchDepth, int threads)
+    {
+        if (playerCount < KwazamBoard.MIN_PLAYERS || playerCount > KwazamBoard.MAX_PLAYERS)
+        {
+            throw new IllegalArgumentException("Unsupported number of players: " + playerCount);
+        }
+        if (bookPlies < 0 || searchDepth < 1 || threads < 1)
+        {
+            throw new IllegalArgumentException("Invalid opening book generator settings");
+        }
+
+        this.playerCount = playerCount;
+        this.bookPlies = bookPlies;
+        this.searchDepth = searchDepth;
+        this.threads = threads;
+    }
+
+    /**
+     * Generates the book and writes it to a file.
+     *
+     * @param path the file to write
+     * @throws IOException          if the file cannot be written
+     * @throws InterruptedException if interrupted while waiting for searches
+     */
+    public void generate(Path path) throws IOException, InterruptedException
+    {
+        OpeningBook.write(path, this.playerCount, this.generate());
+    }
+
+    /**
+     * Generates the book moves.
+     *
+     * @return packed book moves by position hash
+     * @throws InterruptedException if interrupted while waiting for searches
+     */
+    public SortedMap<Long, Integer> generate() throws InterruptedException
+    {
+        Map<Long, KwazamGameMaster> positions = new HashMap<>();
+        this.collectPositions(newGame(this.playerCount), this.bookPlies, positions);
+
+        Map<Long, Integer> bookMoves = new ConcurrentHashMap<>();
+        SearchEngine engine = new SearchEngine();
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        try
+        {
+            List<Future<?>> searches = new ArrayList<>(positions.size());
+            for (Map.Entry<Long, KwazamGameMaster> position : positions.entrySet())
+            {
+                searches.add(executor.submit(() -> engine
+                        .findBestMove(position.getValue(), this.searchDepth)
+                        .ifPresent(move -> bookMoves.put(position.getKey(), move.pack()))));
+            }
+
+            for (Future<?> search : searches)
+            {
+                search.get();
+            }
+        }
+        catch (ExecutionException e)
+        {
+            throw new RuntimeException("Opening book search failed", e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return new TreeMap<>(bookMoves);
+    }
+
+    /**
+     * Walks the game tree from the current position of a game and stores a
+     * copy of every unfinished position within the given number of plies.
+     */
+    private void collectPositions(KwazamGameMaster game, int pliesLeft,
+                                  Map<Long, KwazamGameMaster> positions)
+    {
+        long hash = PositionHasher.hash(game);
+        if (positions.containsKey(hash))
+        {
+            return;
+        }
+        positions.put(hash, game.copy());
+
+        if (pliesLeft == 0)
+        {
+            return;
+        }
+
+        for (Move move : MoveGenerator.generateMoves(game))
+        {
+            game.movePiece(move.from(), move.to());
+            if (game.getPlayers().size() > 1)
+            {
+                game.advanceTurn();
+                this.collectPositions(game, pliesLeft - 1, positions);
+            }
+            game.undo();
+        }
+    }
+
+    private static KwazamGameMaster newGame(int playerCount)
+    {
+        List<Player> players = new ArrayList<>();
+        for (int i = 1; i <= playerCount; i++)
+        {
+            players.add(new Player(String.valueOf(i)));
+        }
+        return new KwazamGameMaster(new KwazamBoard(players), new CircularArrayRing<>(players));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: OpeningBookGenerator <output file> [players] [book plies] [search depth] [threads]");
+            System.exit(1);
+        }
+
+        Path path = Path.of(args[0]);
+        int playerCount = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int bookPlies = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int searchDepth = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        new OpeningBookGenerator(playerCount, bookPlies, searchDepth, threads).generate(path);
+        System.out.printf("Wrote %s in %d ms%n", path, (System.nanoTime() - start) / 1_000_000);
+    }
+}
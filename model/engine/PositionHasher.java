@@ -0,0 +1,127 @@
+package model.engine;
+
+import model.board.CellPosition;
+import model.board.KwazamBoard;
+import model.game.KwazamGameMaster;
+import model.game.Player;
+import model.pieces.Biz;
+import model.pieces.Piece;
+import model.pieces.Ram;
+import model.pieces.Sau;
+import model.pieces.Tor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Computes 64-bit Zobrist hashes of Kwazam Chess positions.
+ * <p>
+ * A position is made up of the pieces on the board (type, owner's seat and,
+ * for Rams, the direction they face), the player to move and whether the
+ * next turn advance switches Tor/Xor. Two positions that are equal in all of
+ * these play out identically, so they get the same hash.
+ * <p>
+ * The keys are generated from a fixed seed, so a hash is the same in every
+ * run of the application. This is what allows hashes to be stored in files
+ * such as the {@link OpeningBook}.
+ */
+public final class PositionHasher
+{
+    private static final long SEED = 0x4B57415A414DL;
+
+    /**
+     * Tor, Xor, Biz, Sau, Ram facing up and Ram facing down.
+     */
+    private static final int PIECE_KINDS = 6;
+
+    private static final int MAX_COLUMNS = KwazamBoard.columnsFor(KwazamBoard.MAX_PLAYERS);
+    private static final int MAX_CELLS = KwazamBoard.ROWS * MAX_COLUMNS;
+
+    private static final long[] pieceKeys = new long[KwazamBoard.MAX_PLAYERS * PIECE_KINDS * MAX_CELLS];
+    private static final long[] playerToMoveKeys = new long[KwazamBoard.MAX_PLAYERS];
+    private static final long oddTurnKey;
+
+    static
+    {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < pieceKeys.length; i++)
+        {
+            pieceKeys[i] = random.nextLong();
+        }
+        for (int i = 0; i < playerToMoveKeys.length; i++)
+        {
+            playerToMoveKeys[i] = random.nextLong();
+        }
+        oddTurnKey = random.nextLong();
+    }
+
+    private PositionHasher()
+    {
+    }
+
+    /**
+     * Computes the hash of the current position of a game. This takes time
+     * proportional to the number of pieces on the board.
+     *
+     * @param game the game whose position to hash
+     * @return the hash of the position
+     */
+    public static long hash(KwazamGameMaster game)
+    {
+        long hash = 0;
+        List<Player> participants = game.getBoard().getParticipants();
+        for (int seat = 0; seat < participants.size(); seat++)
+        {
+            Map<Piece, CellPosition> positions = game.getBoard().getPiecePositions(participants.get(seat));
+            for (Map.Entry<Piece, CellPosition> entry : positions.entrySet())
+            {
+                hash ^= pieceKey(seat, entry.getKey(), entry.getValue());
+            }
+        }
+
+        hash ^= playerToMoveKeys[game.getSeat(game.getCurrentPlayer())];
+        if (game.getTurnCount() % 2 != 0)
+        {
+            hash ^= oddTurnKey;
+        }
+        return hash;
+    }
+
+    /**
+     * Retrieves the key of a piece standing on a cell. XOR-ing this into a
+     * hash adds the piece to it, and XOR-ing it again removes it, which allows
+     * hashes to be updated incrementally as pieces move.
+     *
+     * @param seat    the seat of the piece's owner
+     * @param piece   the piece
+     * @param cellPos the position of the piece
+     * @return the key of the piece on that cell
+     */
+    public static long pieceKey(int seat, Piece piece, CellPosition cellPos)
+    {
+        int cell = cellPos.row() * MAX_COLUMNS + cellPos.column();
+        return pieceKeys[(seat * PIECE_KINDS + kindOf(piece)) * MAX_CELLS + cell];
+    }
+
+    private static int kindOf(Piece piece)
+    {
+        if (piece instanceof Ram ram)
+        {
+            return ram.isFacingUp() ? 4 : 5;
+        }
+        if (piece instanceof Tor)
+        {
+            return 0;
+        }
+        if (piece instanceof Biz)
+        {
+            return 2;
+        }
+        if (piece instanceof Sau)
+        {
+            return 3;
+        }
+        return 1;
+    }
+}
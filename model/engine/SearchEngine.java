@@ -0,0 +1,242 @@
+package model.engine;
+
+import model.game.KwazamGameMaster;
+import model.game.Move;
+import model.game.Player;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Finds good moves for the player whose turn it is.
+ * <p>
+ * Positions found in the {@link OpeningBook} (if one is given) are answered
+ * straight from the book. Otherwise the engine runs a fixed-depth alpha-beta
+ * search on a {@link KwazamGameMaster#copy() copy} of the game, playing moves
+ * with {@link KwazamGameMaster#movePiece} and taking them back with
+ * {@link KwazamGameMaster#undo()}, so the real game is never touched. Positions
+ * covered by the {@link Tablebase} (if one is given) are scored exactly
+ * instead of being searched further. Other leaf positions are scored by an
+ * {@link Evaluator} that follows the moves on the copy incrementally.
+ * <p>
+ * With more than two players the search is "paranoid": every other player is
+ * assumed to play against the player the move is searched for.
+ */
+public class SearchEngine
+{
+    /**
+     * The score of a won position. Wins found sooner score higher.
+     */
+    public static final int WIN_SCORE = 1_000_000;
+
+    private final OpeningBook openingBook;
+    private final Tablebase tablebase;
+    private final EvaluationWeights weights;
+
+    /**
+     * Creates an engine that always searches.
+     */
+    public SearchEngine()
+    {
+        this(null, null);
+    }
+
+    /**
+     * Creates an engine that consults an opening book before searching.
+     *
+     * @param openingBook the opening book to consult, or {@code null} for none
+     */
+    public SearchEngine(OpeningBook openingBook)
+    {
+        this(openingBook, null);
+    }
+
+    /**
+     * Creates an engine that consults an opening book before searching and
+     * endgame tablebases during the search.
+     *
+     * @param openingBook the opening book to consult, or {@code null} for none
+     * @param tablebase   the tablebase to consult, or {@code null} for none
+     */
+    public SearchEngine(OpeningBook openingBook, Tablebase tablebase)
+    {
+        this(openingBook, tablebase, EvaluationWeights.defaults());
+    }
+
+    /**
+     * Creates an engine that consults an opening book before searching and
+     * endgame tablebases during the search, and evaluates positions with the
+     * given weights.
+     *
+     * @param openingBook the opening book to consult, or {@code null} for none
+     * @param tablebase   the tablebase to consult, or {@code null} for none
+     * @param weights     the weights to evaluate positions with
+     */
+    public SearchEngine(OpeningBook openingBook, Tablebase tablebase, EvaluationWeights weights)
+    {
+        this.openingBook = openingBook;
+        this.tablebase = tablebase;
+        this.weights = weights;
+    }
+
+    /**
+     * Finds the best move for the current player of a game.
+     *
+     * @param game  the game to find a move in; it is not modified
+     * @param depth the number of plies to search, at least 1
+     * @return the best move found, or an empty Optional if the current player
+     * has no legal moves
+     * @throws IllegalArgumentException if the depth is less than 1
+     * @throws CancellationException    if the calling thread is interrupted
+     *                                  during the search, e.g. by cancelling
+     *                                  the task it runs in
+     */
+    public Optional<Move> findBestMove(KwazamGameMaster game, int depth)
+    {
+        if (depth < 1)
+        {
+            throw new IllegalArgumentException("Search depth must be at least 1");
+        }
+
+        Optional<Move> bookMove = this.probeBook(game);
+        if (bookMove.isPresent())
+        {
+            return bookMove;
+        }
+
+        KwazamGameMaster searchGame = game.copy();
+        Evaluator evaluator = new Evaluator(searchGame.getBoard(), this.weights);
+        Player maximizer = searchGame.getCurrentPlayer();
+
+        Move bestMove = null;
+        int alpha = -WIN_SCORE - 1;
+        try
+        {
+            for (Move move : MoveGenerator.generateMoves(searchGame))
+            {
+                int score = this.searchMove(searchGame, evaluator, move, maximizer, depth, 0,
+                        alpha, WIN_SCORE + 1);
+                if (bestMove == null || score > alpha)
+                {
+                    bestMove = move;
+                    alpha = score;
+                }
+            }
+        }
+        finally
+        {
+            evaluator.detach();
+        }
+        return Optional.ofNullable(bestMove);
+    }
+
+    private Optional<Move> probeBook(KwazamGameMaster game)
+    {
+        if (this.openingBook == null
+                || this.openingBook.getPlayerCount() != game.getBoard().getParticipants().size())
+        {
+            return Optional.empty();
+        }
+
+        int packedMove = this.openingBook.probe(PositionHasher.hash(game));
+        if (packedMove == OpeningBook.NO_MOVE)
+        {
+            return Optional.empty();
+        }
+
+        // a hash collision could give a move from another position
+        Move move = Move.unpack(packedMove);
+        return game.isLegalMove(move.from(), move.to()) ? Optional.of(move) : Optional.empty();
+    }
+
+    /**
+     * Plays a move, scores the resulting position and takes the move back.
+     */
+    private int searchMove(KwazamGameMaster game, Evaluator evaluator, Move move,
+                           Player maximizer, int depth, int ply, int alpha, int beta)
+    {
+        game.movePiece(move.from(), move.to());
+        int score;
+        if (game.getPlayers().size() == 1)
+        {
+            // the game is over, so the turn does not advance
+            score = game.getPlayers().getFirst() == maximizer
+                    ? WIN_SCORE - ply
+                    : -WIN_SCORE + ply;
+        }
+        else
+        {
+            game.advanceTurn();
+            score = this.search(game, evaluator, maximizer, depth - 1, ply + 1, alpha, beta);
+        }
+        game.undo();
+        return score;
+    }
+
+    private int search(KwazamGameMaster game, Evaluator evaluator, Player maximizer,
+                       int depth, int ply, int alpha, int beta)
+    {
+        if (this.tablebase != null)
+        {
+            int code = this.tablebase.probe(game);
+            if (code != Tablebase.UNKNOWN)
+            {
+                return scoreTablebaseResult(code, game.getCurrentPlayer() == maximizer, ply);
+            }
+        }
+
+        if (depth == 0)
+        {
+            return evaluator.evaluate(maximizer);
+        }
+
+        // checked at inner nodes only, which keeps it off the hot path
+        if (Thread.currentThread().isInterrupted())
+        {
+            throw new CancellationException("Search interrupted");
+        }
+
+        List<Move> moves = MoveGenerator.generateMoves(game);
+        if (moves.isEmpty())
+        {
+            return evaluator.evaluate(maximizer);
+        }
+
+        boolean maximizing = game.getCurrentPlayer() == maximizer;
+        for (Move move : moves)
+        {
+            int score = this.searchMove(game, evaluator, move, maximizer, depth, ply, alpha, beta);
+            if (maximizing)
+            {
+                alpha = Math.max(alpha, score);
+            }
+            else
+            {
+                beta = Math.min(beta, score);
+            }
+
+            if (alpha >= beta)
+            {
+                break;
+            }
+        }
+        return maximizing ? alpha : beta;
+    }
+
+    /**
+     * Scores a tablebase result in the same way as a win found by the search,
+     * where the Sau is captured {@code code} plies from now.
+     */
+    private static int scoreTablebaseResult(int code, boolean maximizerToMove, int ply)
+    {
+        if (code == Tablebase.DRAW)
+        {
+            return 0;
+        }
+
+        int score = WIN_SCORE - (ply + code - 1);
+        boolean maximizerWins = Tablebase.isWin(code) == maximizerToMove;
+        return maximizerWins ? score : -score;
+    }
+}
@@ -0,0 +1,365 @@
+package model.engine;
+
+import model.board.Board;
+import model.board.CellPosition;
+import model.game.KwazamGameMaster;
+import model.game.Player;
+import model.pieces.Biz;
+import model.pieces.Piece;
+import model.pieces.Ram;
+import model.pieces.Sau;
+import model.pieces.Tor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endgame tablebases: the exact result of every position with a few pieces
+ * left on the classic two player board, looked up from memory-mapped files.
+ * <p>
+ * Results are reported as a code: {@link #DRAW} if neither side can force a
+ * win, otherwise the number of plies until the losing Sau is captured with
+ * best play. Odd codes mean the side to move wins (1 means it captures the
+ * Sau right away) and even codes mean it loses.
+ * <p>
+ * Each file holds one {@link TablebaseMaterial material}: a 32 byte header
+ * (magic number, format version, bits per entry, a reserved int, the entry
+ * count as a long and the material name in ASCII, padded with zeros),
+ * followed by the codes of all positions packed into big-endian longs with
+ * the given number of bits each. Files are created by the
+ * {@link TablebaseGenerator}.
+ */
+public final class Tablebase
+{
+    /**
+     * Returned by {@link #probe} when there is no table for a position.
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * The result code of a drawn position.
+     */
+    public static final int DRAW = 0;
+
+    /**
+     * The file name extension of table files.
+     */
+    public static final String FILE_EXTENSION = ".ktb";
+
+    private static final int MAGIC = 0x4B575442; // "KWTB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int NAME_BYTES = 8;
+
+    private record Table(TablebaseMaterial material, MappedByteBuffer buffer, int bitsPerEntry)
+    {
+    }
+
+    /**
+     * Material keys, sorted so that they can be binary searched, with the
+     * table of each key at the same index of {@link #tables}.
+     */
+    private final int[] keys;
+    private final Table[] tables;
+
+    /**
+     * Whether the pieces of a position must have Tor and Xor switched to
+     * match the material of the table at the same index.
+     */
+    private final boolean[] switched;
+
+    private final int tableCount;
+
+    private Tablebase(int[] keys, Table[] tables, boolean[] switched, int tableCount)
+    {
+        this.keys = keys;
+        this.tables = tables;
+        this.switched = switched;
+        this.tableCount = tableCount;
+    }
+
+    /**
+     * Opens every table file in a directory by mapping it into memory.
+     *
+     * @param directory the directory holding the table files
+     * @return the opened tablebase
+     * @throws IOException              if a file cannot be read
+     * @throws IllegalArgumentException if a file is not a valid table file
+     */
+    public static Tablebase open(Path directory) throws IOException
+    {
+        List<Table> opened = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION))
+        {
+            for (Path file : files)
+            {
+                opened.add(openTable(file));
+            }
+        }
+
+        // a table answers for its material and for the same material with
+        // Tor and Xor switched
+        long[] entries = new long[opened.size() * 2];
+        int entryCount = 0;
+        for (int i = 0; i < opened.size(); i++)
+        {
+            TablebaseMaterial material = opened.get(i).material();
+            entries[entryCount++] = (long) material.key() << 32 | (long) i << 1;
+            int switchedKey = material.switched().key();
+            if (switchedKey != material.key())
+            {
+                entries[entryCount++] = (long) switchedKey << 32 | (long) i << 1 | 1;
+            }
+        }
+        Arrays.sort(entries, 0, entryCount);
+
+        int[] keys = new int[entryCount];
+        Table[] tables = new Table[entryCount];
+        boolean[] switched = new boolean[entryCount];
+        for (int i = 0; i < entryCount; i++)
+        {
+            if (i > 0 && entries[i] >>> 32 == entries[i - 1] >>> 32)
+            {
+                throw new IllegalArgumentException("Duplicate tables in " + directory);
+            }
+            keys[i] = (int) (entries[i] >>> 32);
+            tables[i] = opened.get((int) entries[i] >>> 1);
+            switched[i] = (entries[i] & 1) != 0;
+        }
+        return new Tablebase(keys, tables, switched, opened.size());
+    }
+
+    private static Table openTable(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE)
+            {
+                throw new IllegalArgumentException("Invalid tablebase file size: " + file);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            {
+                throw new IllegalArgumentException("Not a tablebase file: " + file);
+            }
+
+            byte[] name = new byte[NAME_BYTES];
+            buffer.get(24, name);
+            TablebaseMaterial material = TablebaseMaterial.parse(
+                    new String(name, StandardCharsets.US_ASCII).trim());
+
+            int bitsPerEntry = buffer.getInt(8);
+            long entryCount = buffer.getLong(16);
+            if (entryCount != material.positionCount() || bitsPerEntry < 1 || bitsPerEntry > 16
+                    || HEADER_BYTES + wordCount(entryCount, bitsPerEntry) * Long.BYTES != size)
+            {
+                throw new IllegalArgumentException("Tablebase file does not match its header: " + file);
+            }
+            return new Table(material, buffer, bitsPerEntry);
+        }
+    }
+
+    /**
+     * Writes a table file.
+     *
+     * @param directory the directory to write the file to
+     * @param material  the material of the table; must be canonical
+     * @param codes     the result code of every position
+     * @return the written file
+     * @throws IOException if the file cannot be written
+     */
+    static Path write(Path directory, TablebaseMaterial material, short[] codes) throws IOException
+    {
+        int maxCode = 1;
+        for (short code : codes)
+        {
+            maxCode = Math.max(maxCode, code);
+        }
+        int bitsPerEntry = Integer.SIZE - Integer.numberOfLeadingZeros(maxCode);
+
+        long[] words = new long[(int) wordCount(codes.length, bitsPerEntry)];
+        for (int i = 0; i < codes.length; i++)
+        {
+            long bit = (long) i * bitsPerEntry;
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            words[word] |= (long) codes[i] << shift;
+            if (shift + bitsPerEntry > Long.SIZE)
+            {
+                words[word + 1] |= (long) codes[i] >>> (Long.SIZE - shift);
+            }
+        }
+
+        Path file = directory.resolve(material.name() + FILE_EXTENSION);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(bitsPerEntry);
+            out.writeInt(0);
+            out.writeLong(codes.length);
+            out.write(Arrays.copyOf(material.name().getBytes(StandardCharsets.US_ASCII), NAME_BYTES));
+            for (long word : words)
+            {
+                out.writeLong(word);
+            }
+        }
+        return file;
+    }
+
+    private static long wordCount(long entryCount, int bitsPerEntry)
+    {
+        return (entryCount * bitsPerEntry + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Looks up the result of the current position of a game.
+     *
+     * @param game the game to look up
+     * @return the result code of the position (see the class description),
+     * or {@link #UNKNOWN} if there is no table for it
+     */
+    public int probe(KwazamGameMaster game)
+    {
+        Board board = game.getBoard();
+        List<Player> participants = board.getParticipants();
+        if (participants.size() != 2 || game.getBoardColumns() != TablebaseMoves.COLUMNS)
+        {
+            return UNKNOWN;
+        }
+
+        Map<Piece, CellPosition> bluePieces = board.getPiecePositions(participants.get(0));
+        Map<Piece, CellPosition> redPieces = board.getPiecePositions(participants.get(1));
+        int count = bluePieces.size() + redPieces.size();
+        if (count > TablebaseMaterial.MAX_PIECES)
+        {
+            return UNKNOWN;
+        }
+
+        int[] sides = new int[count];
+        int[] kinds = new int[count];
+        int[] states = new int[count];
+        int i = 0;
+        for (int side = 0; side < 2; side++)
+        {
+            for (Map.Entry<Piece, CellPosition> entry : (side == 0 ? bluePieces : redPieces).entrySet())
+            {
+                Piece piece = entry.getKey();
+                int square = TablebaseMoves.square(entry.getValue());
+                sides[i] = side;
+                kinds[i] = kindOf(piece);
+                states[i] = piece instanceof Ram ram ? square * 2 + (ram.isFacingUp() ? 1 : 0) : square;
+                i++;
+            }
+        }
+
+        int found = Arrays.binarySearch(this.keys, TablebaseMaterial.key(sides, kinds, count));
+        if (found < 0)
+        {
+            return UNKNOWN;
+        }
+        Table table = this.tables[found];
+        boolean switchedPieces = this.switched[found];
+
+        // put every piece into the first free slot of its kind
+        TablebaseMaterial material = table.material();
+        int[] slotStates = new int[count];
+        boolean[] filled = new boolean[count];
+        for (int piece = 0; piece < count; piece++)
+        {
+            int kind = switchedPieces ? TablebaseMaterial.switchKind(kinds[piece]) : kinds[piece];
+            for (int slot = 0; slot < count; slot++)
+            {
+                if (!filled[slot] && material.sideOf(slot) == sides[piece] && material.kindOf(slot) == kind)
+                {
+                    filled[slot] = true;
+                    slotStates[slot] = states[piece];
+                    break;
+                }
+            }
+        }
+
+        int sideToMove = participants.indexOf(game.getCurrentPlayer());
+        long index = material.index(slotStates, switchedPieces ? 1 : 0, sideToMove);
+        return readCode(table, index);
+    }
+
+    private static int readCode(Table table, long index)
+    {
+        int bitsPerEntry = table.bitsPerEntry();
+        long bit = index * bitsPerEntry;
+        int offset = HEADER_BYTES + (int) (bit >>> 6) * Long.BYTES;
+        int shift = (int) (bit & 63);
+
+        long value = table.buffer().getLong(offset) >>> shift;
+        if (shift + bitsPerEntry > Long.SIZE)
+        {
+            value |= table.buffer().getLong(offset + Long.BYTES) << (Long.SIZE - shift);
+        }
+        return (int) (value & ((1L << bitsPerEntry) - 1));
+    }
+
+    private static int kindOf(Piece piece)
+    {
+        if (piece instanceof Sau)
+        {
+            return TablebaseMaterial.SAU;
+        }
+        if (piece instanceof Ram)
+        {
+            return TablebaseMaterial.RAM;
+        }
+        if (piece instanceof Biz)
+        {
+            return TablebaseMaterial.BIZ;
+        }
+        return piece instanceof Tor ? TablebaseMaterial.TOR : TablebaseMaterial.XOR;
+    }
+
+    /**
+     * Determines whether a result code means the side to move wins.
+     *
+     * @param code a result code returned by {@link #probe}
+     * @return {@code true} if the side to move wins
+     */
+    public static boolean isWin(int code)
+    {
+        return code > 0 && code % 2 == 1;
+    }
+
+    /**
+     * Determines whether a result code means the side to move loses.
+     *
+     * @param code a result code returned by {@link #probe}
+     * @return {@code true} if the side to move loses
+     */
+    public static boolean isLoss(int code)
+    {
+        return code > 0 && code % 2 == 0;
+    }
+
+    /**
+     * Retrieves the number of tables in this tablebase.
+     *
+     * @return the number of tables
+     */
+    public int size()
+    {
+        return this.tableCount;
+    }
+}
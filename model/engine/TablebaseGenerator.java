@@ -0,0 +1,342 @@
+package model.engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Builds {@link Tablebase} files by retrograde analysis.
+ * <p>
+ * Positions are solved in passes: pass {@code k} finds every position whose
+ * result is decided exactly {@code k} plies from the end. A position is won
+ * in {@code k} plies if some move leads to a position lost in {@code k - 1},
+ * and lost in {@code k} plies if every move leads to a won position, the
+ * longest of which is won in {@code k - 1}. Positions still undecided when a
+ * pass finds nothing new are draws. Each pass splits the table into chunks
+ * that are solved in parallel.
+ * <p>
+ * Moves that capture a piece lead into the table of the remaining material,
+ * which is generated first. Moves are generated from {@link TablebaseMoves},
+ * including Rams turning around on the edge rows and Tor/Xor switching after
+ * every move of red (i.e. whenever the turn count becomes even).
+ * <p>
+ * Usage:
+ * <pre>
+ * java model.engine.TablebaseGenerator &lt;directory&gt; &lt;material&gt;...
+ * </pre>
+ * e.g. {@code SB-S S-SB} to build the Sau and Biz against Sau tables for
+ * either colour, along with {@code S-S}.
+ */
+public class TablebaseGenerator
+{
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    /**
+     * The table to look up after a capture, and where each remaining piece
+     * goes in it.
+     *
+     * @param values       the codes of the table
+     * @param material     the (canonical) material of the table
+     * @param switched     whether Tor and Xor are switched in the table
+     * @param slotsByPiece the slot in the table of each slot of the capturing
+     *                     table, or -1 for the captured piece
+     */
+    private record CaptureTable(short[] values, TablebaseMaterial material, boolean switched,
+                                int[] slotsByPiece)
+    {
+    }
+
+    private final Map<String, short[]> solvedTables = new LinkedHashMap<>();
+    private final Map<String, TablebaseMaterial> solvedMaterials = new HashMap<>();
+
+    /**
+     * Solves the table of a material, along with the tables of all material
+     * that can be reached from it by captures. Tables are kept in memory, so
+     * solving several materials reuses their common sub-tables.
+     *
+     * @param materialName the name of the material, e.g. {@code "SB-S"}
+     * @throws IllegalArgumentException if the material name is not valid
+     */
+    public void solve(String materialName)
+    {
+        TablebaseMaterial material = TablebaseMaterial.parse(materialName);
+        this.solve(material.isCanonical() ? material : material.switched());
+    }
+
+    /**
+     * Writes every solved table to a directory.
+     *
+     * @param directory the directory to write to; it is created if needed
+     * @throws IOException if a file cannot be written
+     */
+    public void writeTables(Path directory) throws IOException
+    {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, short[]> table : this.solvedTables.entrySet())
+        {
+            Tablebase.write(directory, this.solvedMaterials.get(table.getKey()), table.getValue());
+        }
+    }
+
+    private short[] solve(TablebaseMaterial material)
+    {
+        short[] solved = this.solvedTables.get(material.name());
+        if (solved != null)
+        {
+            return solved;
+        }
+
+        CaptureTable[] captureTables = new CaptureTable[material.size()];
+        int longestCaptureResult = 0;
+        for (int slot = 0; slot < material.size(); slot++)
+        {
+            if (material.kindOf(slot) != TablebaseMaterial.SAU)
+            {
+                captureTables[slot] = this.captureTable(material, slot);
+                for (short value : captureTables[slot].values())
+                {
+                    longestCaptureResult = Math.max(longestCaptureResult, value);
+                }
+            }
+        }
+
+        if (material.positionCount() > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Material has too many positions: " + material);
+        }
+        int positionCount = (int) material.positionCount();
+        int chunkCount = (positionCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        short[] values = new short[positionCount];
+        for (int pass = 1; ; pass++)
+        {
+            short[] previous = values;
+            short[] next = previous.clone();
+            LongAdder resolved = new LongAdder();
+            int currentPass = pass;
+
+            IntStream.range(0, chunkCount).parallel().forEach(chunk ->
+            {
+                int[] states = new int[material.size()];
+                int[] captureStates = new int[material.size()];
+                int end = Math.min(positionCount, (chunk + 1) * CHUNK_SIZE);
+                for (int index = chunk * CHUNK_SIZE; index < end; index++)
+                {
+                    if (previous[index] == 0)
+                    {
+                        int value = solvePosition(material, captureTables, previous, index,
+                                currentPass, states, captureStates);
+                        if (value != 0)
+                        {
+                            next[index] = (short) value;
+                            resolved.increment();
+                        }
+                    }
+                }
+            });
+            values = next;
+
+            // results of capture tables can still decide positions in later
+            // passes, so keep going until they have all been reached
+            if (resolved.sum() == 0 && pass > longestCaptureResult + 1)
+            {
+                break;
+            }
+        }
+
+        this.solvedTables.put(material.name(), values);
+        this.solvedMaterials.put(material.name(), material);
+        return values;
+    }
+
+    private CaptureTable captureTable(TablebaseMaterial material, int capturedSlot)
+    {
+        TablebaseMaterial remaining = material.without(capturedSlot, false);
+        boolean switched = !remaining.isCanonical();
+        if (switched)
+        {
+            remaining = material.without(capturedSlot, true);
+        }
+
+        int[] slotsByPiece = new int[material.size()];
+        for (int slot = 0; slot < material.size(); slot++)
+        {
+            slotsByPiece[slot] = slot == capturedSlot ? -1
+                    : remaining.slotOfInput(slot < capturedSlot ? slot : slot - 1);
+        }
+        return new CaptureTable(this.solve(remaining), remaining, switched, slotsByPiece);
+    }
+
+    /**
+     * Tries to decide a position in the given pass.
+     *
+     * @return the result code of the position, or 0 if it is not decided in
+     * this pass
+     */
+    private static int solvePosition(TablebaseMaterial material, CaptureTable[] captureTables,
+                                     short[] values, int index, int pass, int[] states,
+                                     int[] captureStates)
+    {
+        material.decode(index, states);
+        int swapped = (index >>> 1) & 1;
+        int sideToMove = index & 1;
+
+        long occupied = 0;
+        for (int slot = 0; slot < material.size(); slot++)
+        {
+            long bit = 1L << squareOf(material, slot, states[slot]);
+            if ((occupied & bit) != 0)
+            {
+                // two pieces on one square; never reached
+                return 0;
+            }
+            occupied |= bit;
+        }
+
+        // after red moves, the turn count becomes even and Tor/Xor switch
+        int nextSwapped = sideToMove == 1 ? swapped ^ 1 : swapped;
+        int nextSideToMove = sideToMove ^ 1;
+
+        boolean hasMoves = false;
+        boolean hasUndecided = false;
+        int shortestLoss = Integer.MAX_VALUE;
+        int longestWin = 0;
+
+        for (int slot = 0; slot < material.size(); slot++)
+        {
+            if (material.sideOf(slot) != sideToMove)
+            {
+                continue;
+            }
+
+            int state = states[slot];
+            int from = squareOf(material, slot, state);
+            int moveKind = moveKindOf(material, slot, state, swapped);
+            int[] targets = TablebaseMoves.targets(moveKind, from);
+            long[] passedSquares = TablebaseMoves.passedSquares(moveKind, from);
+            boolean jumps = TablebaseMoves.jumps(moveKind);
+
+            for (int move = 0; move < targets.length; move++)
+            {
+                if (!jumps && (occupied & passedSquares[move]) != 0)
+                {
+                    continue;
+                }
+
+                int to = targets[move];
+                int captured = slotAt(material, states, to);
+                if (captured >= 0 && material.sideOf(captured) == sideToMove)
+                {
+                    continue;
+                }
+                hasMoves = true;
+
+                if (captured >= 0 && material.kindOf(captured) == TablebaseMaterial.SAU)
+                {
+                    return 1;
+                }
+
+                int nextState = to;
+                if (material.kindOf(slot) == TablebaseMaterial.RAM)
+                {
+                    int facingUp = state & 1;
+                    nextState = to * 2 + (TablebaseMoves.isEdgeSquare(to) ? facingUp ^ 1 : facingUp);
+                }
+
+                int result;
+                if (captured < 0)
+                {
+                    states[slot] = nextState;
+                    result = values[(int) material.index(states, nextSwapped, nextSideToMove)];
+                    states[slot] = state;
+                }
+                else
+                {
+                    CaptureTable table = captureTables[captured];
+                    for (int piece = 0; piece < material.size(); piece++)
+                    {
+                        if (piece != captured)
+                        {
+                            captureStates[table.slotsByPiece()[piece]] = piece == slot ? nextState : states[piece];
+                        }
+                    }
+                    int tableSwapped = table.switched() ? nextSwapped ^ 1 : nextSwapped;
+                    result = table.values()[(int) table.material().index(captureStates, tableSwapped, nextSideToMove)];
+                }
+
+                if (result == 0)
+                {
+                    hasUndecided = true;
+                }
+                else if (Tablebase.isLoss(result))
+                {
+                    shortestLoss = Math.min(shortestLoss, result);
+                }
+                else
+                {
+                    longestWin = Math.max(longestWin, result);
+                }
+            }
+        }
+
+        if (shortestLoss != Integer.MAX_VALUE)
+        {
+            return shortestLoss + 1 <= pass ? shortestLoss + 1 : 0;
+        }
+        if (hasMoves && !hasUndecided && longestWin + 1 <= pass)
+        {
+            return longestWin + 1;
+        }
+        return 0;
+    }
+
+    private static int squareOf(TablebaseMaterial material, int slot, int state)
+    {
+        return material.kindOf(slot) == TablebaseMaterial.RAM ? state >>> 1 : state;
+    }
+
+    private static int moveKindOf(TablebaseMaterial material, int slot, int state, int swapped)
+    {
+        int kind = material.kindOf(slot);
+        if (kind == TablebaseMaterial.RAM)
+        {
+            return (state & 1) != 0 ? TablebaseMaterial.RAM : TablebaseMoves.RAM_FACING_DOWN;
+        }
+        return swapped == 1 ? TablebaseMaterial.switchKind(kind) : kind;
+    }
+
+    private static int slotAt(TablebaseMaterial material, int[] states, int square)
+    {
+        for (int slot = 0; slot < material.size(); slot++)
+        {
+            if (squareOf(material, slot, states[slot]) == square)
+            {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: TablebaseGenerator <directory> <material>...");
+            System.exit(1);
+        }
+
+        TablebaseGenerator generator = new TablebaseGenerator();
+        for (int i = 1; i < args.length; i++)
+        {
+            long start = System.nanoTime();
+            generator.solve(args[i]);
+            System.out.printf("Solved %s in %d ms%n", args[i], (System.nanoTime() - start) / 1_000_000);
+        }
+        generator.writeTables(Path.of(args[0]));
+    }
+}
@@ -0,0 +1,330 @@
+package model.engine;
+
+import java.util.Arrays;
+
+/**
+ * A set of pieces on the classic two player board, e.g. {@code "SB-S"} for a
+ * Sau and a Biz against a lone Sau, together with the arithmetic that maps
+ * positions with these pieces to tablebase indices.
+ * <p>
+ * Every piece has a slot. Slots are sorted by side (blue first) and then by
+ * kind in the order {@value #KIND_LETTERS}, so the same material always gets
+ * the same slots. Letters describe the type of each piece while the Tor/Xor
+ * pieces are unswitched; the "swapped" bit of an index says whether they are
+ * currently switched. This way a position and the same position after a
+ * switch share one table.
+ *
+ * @see Tablebase
+ * @see TablebaseGenerator
+ */
+final class TablebaseMaterial
+{
+    /**
+     * Sau, Ram, Biz, Tor and Xor, in slot order.
+     */
+    static final String KIND_LETTERS = "SRBTX";
+    static final int SAU = 0;
+    static final int RAM = 1;
+    static final int BIZ = 2;
+    static final int TOR = 3;
+    static final int XOR = 4;
+
+    /**
+     * The largest number of pieces (both Saus included) a table can have.
+     */
+    static final int MAX_PIECES = 4;
+
+    private final String name;
+    private final int[] sides;
+    private final int[] kinds;
+
+    /**
+     * For each piece passed to the constructor, the slot it was put in.
+     */
+    private final int[] slotsByInputIndex;
+
+    private TablebaseMaterial(int[] inputSides, int[] inputKinds)
+    {
+        int count = inputSides.length;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++)
+        {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> inputSides[a] != inputSides[b]
+                ? Integer.compare(inputSides[a], inputSides[b])
+                : Integer.compare(inputKinds[a], inputKinds[b]));
+
+        this.sides = new int[count];
+        this.kinds = new int[count];
+        this.slotsByInputIndex = new int[count];
+        StringBuilder name = new StringBuilder();
+        for (int slot = 0; slot < count; slot++)
+        {
+            int input = order[slot];
+            this.sides[slot] = inputSides[input];
+            this.kinds[slot] = inputKinds[input];
+            this.slotsByInputIndex[input] = slot;
+
+            if (slot > 0 && this.sides[slot] != this.sides[slot - 1])
+            {
+                name.append('-');
+            }
+            name.append(KIND_LETTERS.charAt(this.kinds[slot]));
+        }
+        this.name = name.toString();
+    }
+
+    /**
+     * Parses a material name such as {@code "SB-S"}: the blue pieces, a dash
+     * and the red pieces. Letters may be in any order.
+     *
+     * @param name the material name
+     * @return the material
+     * @throws IllegalArgumentException if the name is not valid, each side
+     *                                  does not have exactly one Sau, or there
+     *                                  are more than {@value #MAX_PIECES}
+     *                                  pieces
+     */
+    static TablebaseMaterial parse(String name)
+    {
+        String[] sideNames = name.toUpperCase().split("-", -1);
+        if (sideNames.length != 2)
+        {
+            throw new IllegalArgumentException("Material must be two sides separated by '-': " + name);
+        }
+
+        int count = sideNames[0].length() + sideNames[1].length();
+        if (count > MAX_PIECES)
+        {
+            throw new IllegalArgumentException("Material has more than " + MAX_PIECES + " pieces: " + name);
+        }
+
+        int[] sides = new int[count];
+        int[] kinds = new int[count];
+        int i = 0;
+        for (int side = 0; side < 2; side++)
+        {
+            int saus = 0;
+            for (char letter : sideNames[side].toCharArray())
+            {
+                int kind = KIND_LETTERS.indexOf(letter);
+                if (kind < 0)
+                {
+                    throw new IllegalArgumentException("Unknown piece letter '" + letter + "' in " + name);
+                }
+                saus += kind == SAU ? 1 : 0;
+                sides[i] = side;
+                kinds[i] = kind;
+                i++;
+            }
+
+            if (saus != 1)
+            {
+                throw new IllegalArgumentException("Each side needs exactly one Sau: " + name);
+            }
+        }
+        return new TablebaseMaterial(sides, kinds);
+    }
+
+    /**
+     * Creates a material from pieces given in any order.
+     *
+     * @param sides the side of each piece (0 for blue, 1 for red)
+     * @param kinds the kind of each piece
+     * @return the material
+     */
+    static TablebaseMaterial of(int[] sides, int[] kinds)
+    {
+        return new TablebaseMaterial(sides.clone(), kinds.clone());
+    }
+
+    static int switchKind(int kind)
+    {
+        return kind == TOR ? XOR : kind == XOR ? TOR : kind;
+    }
+
+    /**
+     * Derives the material left after the piece in a slot is captured. The
+     * result need not be {@link #isCanonical() canonical}.
+     *
+     * @param capturedSlot the slot of the captured piece
+     * @param switched     whether to switch Tor and Xor in the result
+     * @return the remaining material
+     */
+    TablebaseMaterial without(int capturedSlot, boolean switched)
+    {
+        int[] remainingSides = new int[this.size() - 1];
+        int[] remainingKinds = new int[this.size() - 1];
+        int i = 0;
+        for (int slot = 0; slot < this.size(); slot++)
+        {
+            if (slot != capturedSlot)
+            {
+                remainingSides[i] = this.sides[slot];
+                remainingKinds[i] = switched ? switchKind(this.kinds[slot]) : this.kinds[slot];
+                i++;
+            }
+        }
+        return new TablebaseMaterial(remainingSides, remainingKinds);
+    }
+
+    /**
+     * Derives this material with Tor and Xor switched.
+     *
+     * @return the switched material
+     */
+    TablebaseMaterial switched()
+    {
+        int[] switchedKinds = new int[this.size()];
+        for (int slot = 0; slot < this.size(); slot++)
+        {
+            switchedKinds[slot] = switchKind(this.kinds[slot]);
+        }
+        return new TablebaseMaterial(this.sides, switchedKinds);
+    }
+
+    /**
+     * Determines whether this is the material a table is stored under. Of a
+     * material and its switched version, the one with the smaller name is
+     * canonical.
+     *
+     * @return {@code true} if this material is canonical
+     */
+    boolean isCanonical()
+    {
+        return this.name.compareTo(this.switched().name) <= 0;
+    }
+
+    /**
+     * Retrieves the slot a piece passed to the factory method (or kept by
+     * {@link #without}) ended up in.
+     *
+     * @param inputIndex the index of the piece in the input
+     * @return the slot of the piece
+     */
+    int slotOfInput(int inputIndex)
+    {
+        return this.slotsByInputIndex[inputIndex];
+    }
+
+    /**
+     * Encodes the counts of each kind per side into a small number, the same
+     * for all materials with the same pieces.
+     *
+     * @return the key of this material
+     */
+    int key()
+    {
+        return key(this.sides, this.kinds, this.size());
+    }
+
+    /**
+     * Computes the key of a material from its pieces, in any order.
+     *
+     * @param sides the side of each piece
+     * @param kinds the kind of each piece
+     * @param count the number of pieces
+     * @return the key of the material
+     */
+    static int key(int[] sides, int[] kinds, int count)
+    {
+        int key = 0;
+        for (int i = 0; i < count; i++)
+        {
+            // at most MAX_PIECES of a kind, so 3 bits per kind and side
+            key += 1 << (3 * (sides[i] * KIND_LETTERS.length() + kinds[i]));
+        }
+        return key;
+    }
+
+    /**
+     * Retrieves the number of states a slot can be in: one per square, and
+     * twice that for Rams, which can face either way.
+     *
+     * @param slot the slot
+     * @return the number of states of the slot
+     */
+    int statesOf(int slot)
+    {
+        return this.kinds[slot] == RAM ? 2 * TablebaseMoves.SQUARES : TablebaseMoves.SQUARES;
+    }
+
+    /**
+     * Computes the number of positions with this material, which is the size
+     * of its table.
+     *
+     * @return the number of positions
+     */
+    long positionCount()
+    {
+        long count = 4;
+        for (int slot = 0; slot < this.size(); slot++)
+        {
+            count *= this.statesOf(slot);
+        }
+        return count;
+    }
+
+    /**
+     * Computes the index of a position. The two lowest bits hold the side to
+     * move and the swapped bit.
+     *
+     * @param states     the state of each slot
+     * @param swapped    1 if Tor and Xor are currently switched, else 0
+     * @param sideToMove the side to move
+     * @return the index of the position
+     */
+    long index(int[] states, int swapped, int sideToMove)
+    {
+        long index = 0;
+        for (int slot = 0; slot < this.size(); slot++)
+        {
+            index = index * this.statesOf(slot) + states[slot];
+        }
+        return index * 4 + swapped * 2 + sideToMove;
+    }
+
+    /**
+     * Decodes the slot states of an index.
+     *
+     * @param index  the index of the position
+     * @param states receives the state of each slot
+     */
+    void decode(long index, int[] states)
+    {
+        index >>>= 2;
+        for (int slot = this.size() - 1; slot >= 0; slot--)
+        {
+            int slotStates = this.statesOf(slot);
+            states[slot] = (int) (index % slotStates);
+            index /= slotStates;
+        }
+    }
+
+    int size()
+    {
+        return this.kinds.length;
+    }
+
+    int sideOf(int slot)
+    {
+        return this.sides[slot];
+    }
+
+    int kindOf(int slot)
+    {
+        return this.kinds[slot];
+    }
+
+    String name()
+    {
+        return this.name;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.name;
+    }
+}
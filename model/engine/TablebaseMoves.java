@@ -0,0 +1,146 @@
+package model.engine;
+
+import model.board.CellPosition;
+import model.board.KwazamBoard;
+import model.game.Player;
+import model.pieces.Biz;
+import model.pieces.Piece;
+import model.pieces.Ram;
+import model.pieces.Sau;
+import model.pieces.Tor;
+import model.pieces.Xor;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Move tables for the classic two player board, used to generate moves for
+ * millions of tablebase positions without touching a real board.
+ * <p>
+ * The tables are built once by asking the piece classes themselves for the
+ * path of every move, so they follow exactly the same rules as the game.
+ * Squares are numbered {@code row * COLUMNS + column}, and the cells a move
+ * passes over are kept as a bit mask of squares.
+ */
+final class TablebaseMoves
+{
+    static final int ROWS = KwazamBoard.ROWS;
+    static final int COLUMNS = KwazamBoard.ARMY_COLUMNS;
+    static final int SQUARES = ROWS * COLUMNS;
+
+    /**
+     * Move kinds: the {@link TablebaseMaterial} kinds, with a Ram facing up
+     * using the Ram kind and a Ram facing down using this one.
+     */
+    static final int RAM_FACING_DOWN = TablebaseMaterial.KIND_LETTERS.length();
+
+    private static final int MOVE_KINDS = RAM_FACING_DOWN + 1;
+
+    private static final int[][][] targets = new int[MOVE_KINDS][SQUARES][];
+    private static final long[][][] passedSquares = new long[MOVE_KINDS][SQUARES][];
+    private static final boolean[] jumps = new boolean[MOVE_KINDS];
+
+    static
+    {
+        Player owner = new Player("tablebase");
+        Piece[] pieces = new Piece[MOVE_KINDS];
+        pieces[TablebaseMaterial.SAU] = new Sau(owner);
+        pieces[TablebaseMaterial.RAM] = new Ram(owner, true);
+        pieces[TablebaseMaterial.BIZ] = new Biz(owner);
+        pieces[TablebaseMaterial.TOR] = new Tor(owner);
+        pieces[TablebaseMaterial.XOR] = new Xor(owner);
+        pieces[RAM_FACING_DOWN] = new Ram(owner, false);
+
+        for (int kind = 0; kind < MOVE_KINDS; kind++)
+        {
+            jumps[kind] = pieces[kind].canJump();
+            for (int from = 0; from < SQUARES; from++)
+            {
+                buildMoves(pieces[kind], kind, from);
+            }
+        }
+    }
+
+    private TablebaseMoves()
+    {
+    }
+
+    private static void buildMoves(Piece piece, int kind, int from)
+    {
+        List<Integer> kindTargets = new ArrayList<>();
+        List<Long> kindPassedSquares = new ArrayList<>();
+        for (int to = 0; to < SQUARES; to++)
+        {
+            if (to == from)
+            {
+                continue;
+            }
+
+            Optional<LinkedList<CellPosition>> path = piece.getPotentialPath(position(from), position(to));
+            if (path.isEmpty() || path.get().isEmpty())
+            {
+                continue;
+            }
+
+            long mask = 0;
+            for (CellPosition cellPos : path.get().subList(0, path.get().size() - 1))
+            {
+                mask |= 1L << square(cellPos);
+            }
+            kindTargets.add(to);
+            kindPassedSquares.add(mask);
+        }
+
+        targets[kind][from] = kindTargets.stream().mapToInt(Integer::intValue).toArray();
+        passedSquares[kind][from] = kindPassedSquares.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Retrieves the squares a piece can move to from a square on an empty
+     * board.
+     *
+     * @param moveKind the move kind of the piece
+     * @param from     the square the piece is on
+     * @return the target squares; must not be modified
+     */
+    static int[] targets(int moveKind, int from)
+    {
+        return targets[moveKind][from];
+    }
+
+    /**
+     * Retrieves the squares passed over by each move returned by
+     * {@link #targets}, in the same order, as bit masks.
+     *
+     * @param moveKind the move kind of the piece
+     * @param from     the square the piece is on
+     * @return the masks of passed squares; must not be modified
+     */
+    static long[] passedSquares(int moveKind, int from)
+    {
+        return passedSquares[moveKind][from];
+    }
+
+    static boolean jumps(int moveKind)
+    {
+        return jumps[moveKind];
+    }
+
+    static boolean isEdgeSquare(int square)
+    {
+        int row = square / COLUMNS;
+        return row == 0 || row == ROWS - 1;
+    }
+
+    static int square(CellPosition cellPos)
+    {
+        return cellPos.row() * COLUMNS + cellPos.column();
+    }
+
+    static CellPosition position(int square)
+    {
+        return new CellPosition(square / COLUMNS, square % COLUMNS);
+    }
+}
@@ -3,18 +3,30 @@ package model.game;
 import model.board.Board;
 import model.board.Cell;
 import model.board.CellPosition;
+import model.diagnostics.BoardMutationEvent;
+import model.diagnostics.CaptureEvent;
+import model.diagnostics.GameEvents;
+import model.diagnostics.MoveValidationEvent;
+import model.diagnostics.WinEvent;
 import model.exceptions.NoPieceException;
 import model.exceptions.NotYourPieceException;
 import model.exceptions.PieceMoveException;
 import model.listeners.CaptureListener;
 import model.listeners.WinListener;
 import model.pieces.Piece;
-import utils.CircularLinkedList;
+import utils.CircularArrayRing;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The GameMaster class is an abstract class responsible for managing the core
@@ -51,6 +63,12 @@ import java.util.List;
  * checking for obstructions, and ensuring moves comply with the rules. This
  * centralizes the complex operation, allowing users to interact with the
  * game on a higher level without delving into the internal intricacies.
+ * <p>
+ * <strong>Move history:</strong> every move made through {@link #movePiece}
+ * is recorded together with the changes it caused (captured piece, eliminated
+ * player, Tor/Xor style switches, ...), so it can be taken back with
+ * {@link #undo()} and made again with {@link #redo()} without replaying the
+ * game from the start.
  *
  * @param <T> The type of the game board, which must extend the Board class.
  *
@@ -65,51 +83,63 @@ public abstract class GameMaster<T extends Board> implements CaptureListener
      */
     protected final T board;
     /**
-     * Stores a circularly linked list of Player objects representing the
-     * participants in the game. This ensures that iteration over players cycles
-     * continuously, providing a loop mechanism.
-     *
+     * Process-wide unique id of this game, used to correlate the Flight
+     * Recorder events emitted by this game.
+     */
+    private final long gameId = GameEvents.nextGameId();
+    /**
+     * Stores a ring of Player objects representing the participants in the
+     * game. The ring's cursor is the player whose turn is currently active, and
+     * advancing it cycles through the players continuously in constant time.
      */
-    private final CircularLinkedList<Player> players;
+    private final CircularArrayRing<Player> players;
 
     /**
      * A list of registered {@link WinListener} instances that are notified when
      * a player wins the game. Win listeners implementing the
      * {@link WinListener} interface can subscribe to be notified upon a win
-     * event.
+     * event. The list is copy-on-write, so listeners can subscribe from any
+     * thread without locking the notification path.
      */
-    private final ArrayList<WinListener> winListeners = new ArrayList<>();
+    private final List<WinListener> winListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Tracks the count of turns that have occurred in the game. Starts off at
      * 0.
      */
     protected int turnCount = 0;
+
     /**
-     * An iterator for traversing through the list of players participating in
-     * the game.
+     * Records of the moves that can be undone, most recent on top.
      */
-    private Iterator<Player> playerIterator;
+    private final Deque<MoveRecord> undoStack = new ArrayDeque<>();
+
     /**
-     * Represents the player whose turn is currently active in the game. The
-     * active player is updated during each turn of the gameplay.
+     * Records of the undone moves that can be redone, most recently undone on
+     * top. Cleared whenever a new move is made.
      */
-    private Player currentPlayer;
+    private final Deque<MoveRecord> redoStack = new ArrayDeque<>();
+
+    /**
+     * The record of the move currently being applied to the board, which
+     * collects the side effects (such as captures) the board reports back.
+     * {@code null} outside of {@link #applyMove(MoveRecord)}.
+     */
+    private MoveRecord pendingRecord = null;
 
     /**
      * Creates a new GameMaster with the specified board and list of players.
      *
      * @param board   The specific game board to use.
-     * @param players The circular list of players in the game.
+     * @param players The ring of players in the game.
      *
      * @author Harris Majeed
      */
-    public GameMaster(T board, CircularLinkedList<Player> players)
+    public GameMaster(T board, CircularArrayRing<Player> players)
     {
         this.board = board;
         this.players = players;
-        this.playerIterator = players.circularIterator();
-        this.currentPlayer = this.playerIterator.next();
+        this.players.advance();
 
         this.board.registerCaptureListener(this);
     }
@@ -132,28 +162,247 @@ public abstract class GameMaster<T extends Board> implements CaptureListener
      * @author Harris Majeed
      */
     public void movePiece(CellPosition fromCellPos, CellPosition toCellPos)
+    {
+        MoveValidationEvent validationEvent = new MoveValidationEvent();
+        validationEvent.begin();
+        boolean legal = false;
+        try
+        {
+            this.validateMove(fromCellPos, toCellPos);
+            legal = true;
+        }
+        finally
+        {
+            validationEvent.commit(this.gameId, this.turnCount, fromCellPos,
+                    toCellPos, legal);
+        }
+
+        this.redoStack.clear();
+        this.applyMove(new MoveRecord(new Move(fromCellPos, toCellPos), this.getCurrentPlayer()));
+    }
+
+    /**
+     * Applies an already validated move to the board and pushes its record
+     * onto the undo stack. The record picks up any capture or elimination the
+     * move causes along the way.
+     *
+     * @param record the record of the move to apply; its side effects are
+     *               filled in by this method
+     */
+    private void applyMove(MoveRecord record)
+    {
+        CellPosition fromCellPos = record.move.from();
+        CellPosition toCellPos = record.move.to();
+
+        BoardMutationEvent mutationEvent = new BoardMutationEvent();
+        mutationEvent.begin();
+        boolean capture = this.board.isCellOccupied(toCellPos);
+        this.pendingRecord = record;
+        try
+        {
+            this.board.movePiece(fromCellPos, toCellPos);
+        }
+        finally
+        {
+            this.pendingRecord = null;
+        }
+        this.undoStack.push(record);
+        mutationEvent.commit(this.gameId, this.turnCount, fromCellPos,
+                toCellPos, capture);
+    }
+
+    /**
+     * Takes back the most recent move, including the turn advance that
+     * followed it (if any). Restores the captured piece, turns a Ram back
+     * around, switches Tor/Xor style pieces back, and brings an eliminated
+     * player and their pieces back into the game.
+     * <p>
+     * Apart from restoring an eliminated player's pieces and switching pieces
+     * back, this takes constant time.
+     *
+     * @return the move that was undone, or an empty Optional if there is no
+     * move to undo
+     */
+    public Optional<Move> undo()
+    {
+        MoveRecord record = this.undoStack.poll();
+        if (record == null)
+        {
+            return Optional.empty();
+        }
+
+        if (record.turnAdvanced)
+        {
+            if (record.piecesSwitched)
+            {
+                this.board.switchPieces();
+            }
+            this.turnCount--;
+        }
+
+        this.board.undoMove(record.move.from(), record.move.to(), record.capturedPiece);
+
+        if (record.eliminatedPlayer != null)
+        {
+            // the eliminated pieces include the captured critical piece, which
+            // undoMove has already put back in the same place
+            this.players.restore(record.eliminatedSlot, record.eliminatedPlayer);
+            this.board.restorePieces(record.eliminatedPieces);
+        }
+
+        this.players.setCurrent(record.mover);
+
+        this.redoStack.push(record);
+        return Optional.of(record.move);
+    }
+
+    /**
+     * Makes the most recently undone move again, including the turn advance
+     * that followed it (if any). Capture and win listeners are notified just
+     * like the first time the move was made.
+     *
+     * @return the move that was redone, or an empty Optional if there is no
+     * move to redo
+     */
+    public Optional<Move> redo()
+    {
+        MoveRecord undone = this.redoStack.poll();
+        if (undone == null)
+        {
+            return Optional.empty();
+        }
+
+        this.applyMove(new MoveRecord(undone.move, undone.mover));
+        if (undone.turnAdvanced)
+        {
+            this.advanceTurn();
+        }
+        return Optional.of(undone.move);
+    }
+
+    public boolean canUndo()
+    {
+        return !this.undoStack.isEmpty();
+    }
+
+    public boolean canRedo()
+    {
+        return !this.redoStack.isEmpty();
+    }
+
+    /**
+     * Retrieves the moves made so far (excluding undone moves), oldest first.
+     *
+     * @return an unmodifiable list of the moves in the history
+     */
+    public List<Move> getMoveHistory()
+    {
+        List<Move> moves = new ArrayList<>(this.undoStack.size());
+        Iterator<MoveRecord> oldestFirst = this.undoStack.descendingIterator();
+        while (oldestFirst.hasNext())
+        {
+            moves.add(oldestFirst.next().move);
+        }
+        return Collections.unmodifiableList(moves);
+    }
+
+    /**
+     * Forgets all recorded moves, e.g. because a different game was loaded.
+     */
+    public void clearHistory()
+    {
+        this.undoStack.clear();
+        this.redoStack.clear();
+    }
+
+    /**
+     * Marks the most recent move as having switched the switchable pieces on
+     * the board when the turn advanced, so that {@link #undo()} switches them
+     * back. Subclasses that call {@code board.switchPieces()} while advancing
+     * the turn must call this afterwards.
+     */
+    protected void recordPiecesSwitched()
+    {
+        MoveRecord record = this.undoStack.peek();
+        if (record != null)
+        {
+            record.piecesSwitched = true;
+        }
+    }
+
+    /**
+     * Checks that moving a piece from one cell position to another follows
+     * the rules of the game, without touching the board.
+     *
+     * @param fromCellPos The starting cell position.
+     * @param toCellPos   The target cell position.
+     *
+     * @throws NoPieceException      If there is no piece at the starting cell.
+     * @throws NotYourPieceException If the piece does not belong to the current
+     *                               player.
+     * @throws PieceMoveException    If the move path is obstructed or invalid.
+     */
+    private void validateMove(CellPosition fromCellPos, CellPosition toCellPos)
     {
         Piece piece = this.board.getPieceAt(fromCellPos)
                 .orElseThrow(NoPieceException::new);
 
-        if (piece.getOwner() != this.currentPlayer)
+        if (piece.getOwner() != this.getCurrentPlayer())
         {
             throw new NotYourPieceException();
         }
 
-        LinkedList<CellPosition> path = piece
-                .getPotentialPath(fromCellPos, toCellPos)
-                .orElseThrow(PieceMoveException::new);
+        if (!this.canReach(piece, fromCellPos, toCellPos))
+        {
+            throw new PieceMoveException();
+        }
+    }
 
-        CellPosition lastPos = path.removeLast();
+    /**
+     * Determines whether moving a piece from one cell position to another
+     * follows the rules of the game. This performs the same checks as
+     * {@link #movePiece(CellPosition, CellPosition)} but reports the result
+     * instead of throwing, which makes it cheap enough to call for every
+     * candidate move when generating moves.
+     *
+     * @param fromCellPos The starting cell position; must be within the bounds
+     *                    of the board.
+     * @param toCellPos   The target cell position; must be within the bounds
+     *                    of the board.
+     * @return {@code true} if the current player may make this move
+     */
+    public boolean isLegalMove(CellPosition fromCellPos, CellPosition toCellPos)
+    {
+        Optional<Piece> piece = this.board.getPieceAt(fromCellPos);
+        return piece.isPresent()
+                && piece.get().getOwner() == this.getCurrentPlayer()
+                && this.canReach(piece.get(), fromCellPos, toCellPos);
+    }
 
-        if (!piece.canJump() && this.board.isPathObstructed(path)
-                || this.board.hasFriendlyPieceAt(lastPos, currentPlayer))
+    /**
+     * Checks that a piece can travel from one cell position to another: the
+     * move must fit the piece's pattern, the path must be clear unless the
+     * piece can jump, and the target must not hold a friendly piece.
+     *
+     * @param piece       The piece being moved.
+     * @param fromCellPos The starting cell position.
+     * @param toCellPos   The target cell position.
+     * @return {@code true} if the piece can reach the target
+     */
+    private boolean canReach(Piece piece, CellPosition fromCellPos, CellPosition toCellPos)
+    {
+        Optional<LinkedList<CellPosition>> potentialPath = piece
+                .getPotentialPath(fromCellPos, toCellPos);
+        if (potentialPath.isEmpty() || potentialPath.get().isEmpty())
         {
-            throw new PieceMoveException();
+            return false;
         }
 
-        this.board.movePiece(fromCellPos, toCellPos);
+        LinkedList<CellPosition> path = potentialPath.get();
+        CellPosition lastPos = path.removeLast();
+
+        return (piece.canJump() || !this.board.isPathObstructed(path))
+                && !this.board.hasFriendlyPieceAt(lastPos, piece.getOwner());
     }
 
     /**
@@ -166,55 +415,56 @@ public abstract class GameMaster<T extends Board> implements CaptureListener
      */
     public Player getCurrentPlayer()
     {
-        return this.currentPlayer;
+        return this.players.current();
     }
 
     /**
      * Sets the specified player as the current player.
      *
      * @param currentPlayer The player who will become the active participant.
+     * @throws IllegalArgumentException If the player is not participating in
+     *                                  the game.
      *
      * @author Harris Majeed
      */
     public void setCurrentPlayer(Player currentPlayer)
     {
-        this.currentPlayer = currentPlayer;
+        this.players.setCurrent(currentPlayer);
     }
 
     /**
      * Retrieves an unmodifiable list of all players participating in the game.
      * <p>
      *
+     * The list is cached by the player ring until the players change, so
+     * calling this method repeatedly is cheap.
+     *
      * @return An unmodifiable list of the current players.
      *
      * @author Harris Majeed
      */
     public List<Player> getPlayers()
     {
-        return List.copyOf(this.players);
+        return this.players.snapshot();
     }
 
     /**
      * Sets the players participating in the game to a new collection of players.
      * <p>
-     * This method clears the existing player list, adds the new players, and
-     * reinitializes the circular iterator. If the turn count is even, the
-     * currently active player is updated according to the new list.
+     * This method clears the existing player ring, adds the new players, and
+     * makes the first of them the currently active player. Use
+     * {@link #setCurrentPlayer(Player)} afterwards to resume someone else's
+     * turn.
      *
-     * @param newPlayers The new circular list of players to cycle through.
+     * @param newPlayers The new players to cycle through, in turn order.
      *
      * @author Harris Majeed
      */
-    public void setPlayers(CircularLinkedList<Player> newPlayers)
+    public void setPlayers(Collection<Player> newPlayers)
     {
         this.players.clear();
         this.players.addAll(newPlayers);
-        this.playerIterator = this.players.circularIterator();
-
-        if (this.turnCount % 2 == 0)
-        {
-            this.currentPlayer = this.playerIterator.next();
-        }
+        this.players.advance();
     }
 
     /**
@@ -224,8 +474,14 @@ public abstract class GameMaster<T extends Board> implements CaptureListener
      */
     public void advanceTurn()
     {
-        this.currentPlayer = this.playerIterator.next();
+        this.players.advance();
         this.turnCount++;
+
+        MoveRecord record = this.undoStack.peek();
+        if (record != null && !record.turnAdvanced)
+        {
+            record.turnAdvanced = true;
+        }
     }
 
     /**
@@ -250,16 +506,20 @@ public abstract class GameMaster<T extends Board> implements CaptureListener
      */
     public void notifyWinListeners(Player player)
     {
+        WinEvent winEvent = new WinEvent();
+        winEvent.begin();
         for (WinListener listener : this.winListeners)
         {
             listener.onWin(player);
         }
+        winEvent.commit(this.gameId, this.turnCount, player);
     }
 
     /**
      * Handles the capture event for a piece. If the captured piece is a
-     * critical piece, the owning player is removed. If only one player remains,
-     * that player is declared the winner.
+     * critical piece, the owning player is removed along with all of their
+     * remaining pieces. If only one player remains, that player is declared
+     * the winner.
      * <p>
      * Note: This method looks at the amount of players remaining because there
      * might be game in the future that has more than 2 players.
@@ -269,18 +529,48 @@ public abstract class GameMaster<T extends Board> implements CaptureListener
     @Override
     public void onCapture(Piece piece)
     {
+        CaptureEvent captureEvent = new CaptureEvent();
+        captureEvent.begin();
+        try
+        {
+            this.handleCapture(piece);
+        }
+        finally
+        {
+            captureEvent.commit(this.gameId, this.turnCount, piece);
+        }
+    }
+
+    /**
+     * Removes the owner of a captured critical piece, and their pieces, and
+     * notifies the win listeners if only one player remains. Removing the
+     * pieces uses the board's piece index, so it costs time proportional to
+     * the number of pieces the player owned.
+     *
+     * @param piece The piece that was captured.
+     */
+    private void handleCapture(Piece piece)
+    {
+        if (this.pendingRecord != null)
+        {
+            this.pendingRecord.capturedPiece = piece;
+        }
+
         if (!piece.isCriticalPiece())
         {
             return;
         }
 
-        for (Player player : this.players)
+        Player owner = piece.getOwner();
+        int slot = this.players.slotOf(owner);
+        this.players.remove(owner);
+        Map<Piece, CellPosition> removedPieces = this.board.removePiecesOf(owner);
+
+        if (this.pendingRecord != null && slot >= 0)
         {
-            if (piece.getOwner() == player)
-            {
-                this.players.remove(player);
-                break;
-            }
+            this.pendingRecord.eliminatedPlayer = owner;
+            this.pendingRecord.eliminatedSlot = slot;
+            this.pendingRecord.eliminatedPieces = removedPieces;
         }
 
         if (this.players.size() == 1)
@@ -289,6 +579,61 @@ public abstract class GameMaster<T extends Board> implements CaptureListener
         }
     }
 
+    /**
+     * Retrieves the process-wide unique id of this game.
+     *
+     * @return The id of this game.
+     */
+    public long getGameId()
+    {
+        return this.gameId;
+    }
+
+    /**
+     * Starts the game over: the board is restored to its initial arrangement,
+     * every participant of the board is back in the game and the turn count
+     * is reset to 0.
+     */
+    public void resetGame()
+    {
+        this.clearHistory();
+        this.board.resetCells();
+        this.setTurnCount(0);
+        this.setPlayers(this.board.getParticipants());
+    }
+
+    /**
+     * Retrieves the board used in this game. Callers should only read from
+     * the board; moves must go through {@link #movePiece} so that turns,
+     * captures and the move history stay consistent.
+     *
+     * @return The board of this game.
+     */
+    public T getBoard()
+    {
+        return this.board;
+    }
+
+    /**
+     * Retrieves the number of rows of the board used in this game.
+     *
+     * @return The number of rows of the board.
+     */
+    public int getBoardRows()
+    {
+        return this.board.getBoardRows();
+    }
+
+    /**
+     * Retrieves the number of columns of the board used in this game.
+     *
+     * @return The number of columns of the board.
+     */
+    public int getBoardColumns()
+    {
+        return this.board.getBoardColumns();
+    }
+
     public int getTurnCount()
     {
         return this.turnCount;
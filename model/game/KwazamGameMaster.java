@@ -1,10 +1,12 @@
 package model.game;
 
 import model.board.Cell;
+import model.board.CellPosition;
 import model.board.KwazamBoard;
+import model.diagnostics.PieceSwitchEvent;
 import model.pieces.Piece;
 import model.pieces.Ram;
-import utils.CircularLinkedList;
+import utils.CircularArrayRing;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,18 +22,88 @@ import java.util.Optional;
  */
 public class KwazamGameMaster extends GameMaster<KwazamBoard>
 {
+    /**
+     * The colour names used for each seat, in seating order. Blue and red
+     * match the sprite names in the assets folder; the GUI derives the sprites
+     * of the other colours from the blue ones.
+     */
+    public static final List<String> PLAYER_COLOURS = List.of("blue", "red", "green", "yellow");
+
     /**
      * Creates a new KwazamGameMaster with the given board and list of players.
      *
      * @param board   the board for this game
-     * @param players the list of players participating in this game
+     * @param players the ring of players participating in this game
      * @author Harris Majeed
      */
-    public KwazamGameMaster(KwazamBoard board, CircularLinkedList<Player> players)
+    public KwazamGameMaster(KwazamBoard board, CircularArrayRing<Player> players)
     {
         super(board, players);
     }
 
+    /**
+     * Retrieves the seat of a player, i.e. their zero-based position among the
+     * participants of the board. The seat stays the same after other players
+     * are eliminated.
+     *
+     * @param player the player to look up
+     * @return the seat of the player
+     * @throws IllegalArgumentException if the player is not a participant
+     */
+    public int getSeat(Player player)
+    {
+        int seat = this.board.getParticipants().indexOf(player);
+        if (seat < 0)
+        {
+            throw new IllegalArgumentException("Player is not a participant: " + player.id());
+        }
+        return seat;
+    }
+
+    /**
+     * Retrieves the colour name of a player, which is determined by their seat.
+     *
+     * @param player the player to look up
+     * @return the colour name of the player (e.g. "blue")
+     */
+    public String getPlayerColour(Player player)
+    {
+        return PLAYER_COLOURS.get(this.getSeat(player));
+    }
+
+    /**
+     * Determines whether the player whose turn it is sets up at the top of the
+     * board, in which case views should show the board upside down.
+     *
+     * @return {@code true} if the current player plays from the top
+     */
+    public boolean isCurrentPlayerAtTop()
+    {
+        return KwazamBoard.isTopSeat(this.getSeat(this.getCurrentPlayer()));
+    }
+
+    /**
+     * Creates an independent copy of this game in its current position: a new
+     * board with copies of every piece, the remaining players, the current
+     * player and the turn count. Listeners and move history are not copied.
+     * <p>
+     * Useful for analysing positions (e.g. searching for a move) without
+     * disturbing the game that is being played.
+     *
+     * @return a copy of this game
+     */
+    public KwazamGameMaster copy()
+    {
+        KwazamBoard boardCopy = new KwazamBoard(this.board.getParticipants());
+        boardCopy.setCells(this.board.copyCells());
+
+        KwazamGameMaster copy = new KwazamGameMaster(boardCopy,
+                new CircularArrayRing<>(this.getPlayers()));
+        copy.setTurnCount(this.turnCount);
+        copy.setCurrentPlayer(this.getCurrentPlayer());
+        return copy;
+    }
+
     /**
      * Advances the turn to the next player and switches Tor/Xor every second
      * turn according to the assignment specification.
@@ -44,7 +116,11 @@ public class KwazamGameMaster extends GameMaster<KwazamBoard>
 
         if (this.turnCount % 2 == 0)
         {
+            PieceSwitchEvent switchEvent = new PieceSwitchEvent();
+            switchEvent.begin();
             this.board.switchPieces();
+            this.recordPiecesSwitched();
+            switchEvent.commit(this.getGameId(), this.turnCount);
         }
     }
 
@@ -52,7 +128,8 @@ public class KwazamGameMaster extends GameMaster<KwazamBoard>
     /**
      * Returns a two dimensional list of string representations for each cell on the board,
      * indicating the piece type, color, and orientation (if got).
-     * The first player's pieces are shown in blue, and the second player's pieces in red
+     * Each player's pieces are shown in the colour of their seat (blue, red,
+     * green and yellow, in seating order).
      * Pieces of type {@link Ram} include a flipped suffix when facing down.
      *
      * @return a 2D {@link List} of {@link String} objects describing each cell of the board
@@ -62,45 +139,61 @@ public class KwazamGameMaster extends GameMaster<KwazamBoard>
     public List<List<String>> getCellsStringRepresentation()
     {
         List<List<String>> formattedCells = new ArrayList<>();
-        List<Player> players = this.getPlayers();
 
         for (List<Cell> row : this.board.getCells())
         {
             List<String> rowRepresentations = new ArrayList<>();
             for (Cell cell : row)
             {
-                Optional<Piece> pieceOptional = cell.getPiece();
-                if (pieceOptional.isEmpty())
-                {
-                    rowRepresentations.add(null);
-                    continue;
-                }
-
-                Piece piece = pieceOptional.get();
-                String pieceName = piece.getClass().getSimpleName().toLowerCase();
-
-                Player owner = piece.getOwner();
-                String color = "red";
-                if (players.getFirst().id().equals(owner.id()))
-                {
-                    color = "blue";
-                }
-
-                String flippedSuffix = "";
-                if (piece instanceof Ram)
-                {
-                    Ram ram = (Ram) piece;
-                    if (!ram.isFacingUp())
-                    {
-                        flippedSuffix = "_flipped";
-                    }
-                }
-
-                String representation = "%s_%s_piece%s".formatted(pieceName, color, flippedSuffix);
-                rowRepresentations.add(representation);
+                rowRepresentations.add(this.formatPiece(cell.getPiece()));
             }
             formattedCells.add(rowRepresentations);
         }
         return formattedCells;
     }
+
+    /**
+     * Returns the string representation of a single cell, in the same format
+     * as {@link #getCellsStringRepresentation()}. Useful for updating a view
+     * incrementally after only a few cells changed.
+     *
+     * @param cellPos the position of the cell
+     * @return the representation of the piece in the cell, or {@code null} if
+     * the cell is empty
+     */
+    public String getCellStringRepresentation(CellPosition cellPos)
+    {
+        return this.formatPiece(this.board.getPieceAt(cellPos));
+    }
+
+    /**
+     * Formats a piece as e.g. "ram_blue_piece_flipped".
+     *
+     * @param pieceOptional the piece to format, if any
+     * @return the formatted piece, or {@code null} if there is no piece
+     */
+    private String formatPiece(Optional<Piece> pieceOptional)
+    {
+        if (pieceOptional.isEmpty())
+        {
+            return null;
+        }
+
+        Piece piece = pieceOptional.get();
+        String pieceName = piece.getClass().getSimpleName().toLowerCase();
+
+        String color = this.getPlayerColour(piece.getOwner());
+
+        String flippedSuffix = "";
+        if (piece instanceof Ram)
+        {
+            Ram ram = (Ram) piece;
+            if (!ram.isFacingUp())
+            {
+                flippedSuffix = "_flipped";
+            }
+        }
+
+        return "%s_%s_piece%s".formatted(pieceName, color, flippedSuffix);
+    }
 }
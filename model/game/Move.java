@@ -0,0 +1,54 @@
+package model.game;
+
+import model.board.CellPosition;
+
+/**
+ * Represents a move of a piece from one cell position to another, as requested
+ * through {@link GameMaster#movePiece}.
+ *
+ * @param from the position the piece moves from
+ * @param to   the position the piece moves to
+ */
+public record Move(CellPosition from, CellPosition to)
+{
+    /**
+     * Packs this move into a single int, one byte per coordinate, for compact
+     * storage in files and primitive collections.
+     *
+     * @return the packed move
+     * @see #unpack(int)
+     */
+    public int pack()
+    {
+        return pack(from.row(), from.column(), to.row(), to.column());
+    }
+
+    /**
+     * Packs the coordinates of a move into a single int without creating a
+     * {@code Move}.
+     *
+     * @param fromRow    the row the piece moves from
+     * @param fromColumn the column the piece moves from
+     * @param toRow      the row the piece moves to
+     * @param toColumn   the column the piece moves to
+     * @return the packed move
+     */
+    public static int pack(int fromRow, int fromColumn, int toRow, int toColumn)
+    {
+        return (fromRow & 0xff) << 24 | (fromColumn & 0xff) << 16
+                | (toRow & 0xff) << 8 | (toColumn & 0xff);
+    }
+
+    /**
+     * Recreates a move from its packed form.
+     *
+     * @param packedMove a move packed by {@link #pack()}
+     * @return the unpacked move
+     */
+    public static Move unpack(int packedMove)
+    {
+        return new Move(
+                new CellPosition(packedMove >>> 24, (packedMove >>> 16) & 0xff),
+                new CellPosition((packedMove >>> 8) & 0xff, packedMove & 0xff));
+    }
+}
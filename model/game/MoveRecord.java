@@ -0,0 +1,64 @@
+package model.game;
+
+import model.board.CellPosition;
+import model.pieces.Piece;
+
+import java.util.Map;
+
+/**
+ * Stores everything needed to undo or redo a single move without replaying the
+ * game: the move itself and the changes it caused on top of moving the piece.
+ * <p>
+ * Only the {@code GameMaster} creates and reads these records, which is why
+ * the class and its fields are package-private.
+ *
+ * @see GameMaster#undo()
+ */
+final class MoveRecord
+{
+    /**
+     * The move that was made.
+     */
+    final Move move;
+
+    /**
+     * The player who made the move.
+     */
+    final Player mover;
+
+    /**
+     * The piece captured by the move, or {@code null} if none.
+     */
+    Piece capturedPiece = null;
+
+    /**
+     * The player eliminated by the move, or {@code null} if none.
+     */
+    Player eliminatedPlayer = null;
+
+    /**
+     * The ring slot the eliminated player occupied before being removed.
+     */
+    int eliminatedSlot = -1;
+
+    /**
+     * The pieces removed from the board along with the eliminated player.
+     */
+    Map<Piece, CellPosition> eliminatedPieces = Map.of();
+
+    /**
+     * Whether the turn was advanced after the move.
+     */
+    boolean turnAdvanced = false;
+
+    /**
+     * Whether advancing the turn switched the switchable pieces.
+     */
+    boolean piecesSwitched = false;
+
+    MoveRecord(Move move, Player mover)
+    {
+        this.move = move;
+        this.mover = mover;
+    }
+}
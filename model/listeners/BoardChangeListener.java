@@ -0,0 +1,46 @@
+package model.listeners;
+
+import model.board.Board;
+import model.board.CellPosition;
+import model.pieces.Piece;
+
+/**
+ * Listener interface to be notified of every change to the contents of a
+ * board, so that state derived from the board can be kept up to date
+ * incrementally instead of being recomputed by scanning all cells.
+ *
+ * <p>This interface follows the Observer pattern, where implementing classes
+ * observe and respond to relevant events (in this case, pieces being placed on
+ * or removed from cells).</p>
+ *
+ * <p>A change to a piece that stays on its cell (e.g. a Ram turning around) is
+ * reported as the piece being removed and then placed again, so the removal
+ * always describes the piece as it was when it was placed.</p>
+ */
+public interface BoardChangeListener
+{
+    /**
+     * Called after a piece has been placed on a cell.
+     *
+     * @param piece   the placed piece
+     * @param cellPos the position of the cell
+     */
+    void onPiecePlaced(Piece piece, CellPosition cellPos);
+
+    /**
+     * Called after a piece has been removed from a cell, whether it was
+     * moved away, captured or replaced.
+     *
+     * @param piece   the removed piece
+     * @param cellPos the position of the cell
+     */
+    void onPieceRemoved(Piece piece, CellPosition cellPos);
+
+    /**
+     * Called after all cells of a board have been replaced at once, e.g. when
+     * a game is loaded or reset. No events are sent for the individual pieces.
+     *
+     * @param board the board that was reset
+     */
+    void onBoardReset(Board board);
+}
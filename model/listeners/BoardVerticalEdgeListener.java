@@ -14,4 +14,15 @@ import model.pieces.Piece;
 public interface BoardVerticalEdgeListener
 {
     void onBoardVerticalEdgeReached(Piece piece);
+
+    /**
+     * Called when a move that made a piece reach a vertical edge is undone.
+     * Listeners that changed state in {@link #onBoardVerticalEdgeReached}
+     * should change it back here. Does nothing by default.
+     *
+     * @param piece the piece whose edge event is being undone
+     */
+    default void onBoardVerticalEdgeReachUndone(Piece piece)
+    {
+    }
 }
@@ -24,6 +24,14 @@ public class Biz extends Piece
         super(player);
     }
 
+    @Override
+    public Piece copy()
+    {
+        Piece copy = new Biz(this.getOwner());
+        copy.setCriticalPiece(this.isCriticalPiece());
+        return copy;
+    }
+
     @Override
     public boolean canJump()
     {
@@ -80,6 +80,14 @@ public abstract class Piece implements Stringable
         this.criticalPiece = criticalPiece;
     }
 
+    /**
+     * Creates an independent copy of this piece with the same owner and state
+     * (e.g. critical status and facing direction), for use on another board.
+     *
+     * @return a new piece equal in state to this one
+     */
+    public abstract Piece copy();
+
     /**
      * Determines if this piece type can jump over other pieces.
      *
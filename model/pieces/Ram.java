@@ -34,6 +34,14 @@ public class Ram extends Piece implements BoardVerticalEdgeListener
         return facingUp;
     }
 
+    @Override
+    public Piece copy()
+    {
+        Piece copy = new Ram(this.getOwner(), this.facingUp);
+        copy.setCriticalPiece(this.isCriticalPiece());
+        return copy;
+    }
+
     @Override
     public boolean canJump()
     {
@@ -74,6 +82,9 @@ public class Ram extends Piece implements BoardVerticalEdgeListener
 
     /**
      * Reverses the Ram's facing direction when it reaches any vertical edge of the board.
+     * The board delivers this event directly to the Ram that moved, so the
+     * check against other pieces is only a safeguard for Rams registered as
+     * general listeners.
      *
      * @param piece the piece that has reached the edge
      * @author Harris Majeed
@@ -89,6 +100,18 @@ public class Ram extends Piece implements BoardVerticalEdgeListener
         facingUp = !facingUp;
     }
 
+    /**
+     * Turns the Ram back around when the move that took it to a vertical edge
+     * is undone.
+     *
+     * @param piece the piece whose edge event is being undone
+     */
+    @Override
+    public void onBoardVerticalEdgeReachUndone(Piece piece)
+    {
+        this.onBoardVerticalEdgeReached(piece);
+    }
+
     @Override
     public String getStringRepresentation()
     {
@@ -18,6 +18,14 @@ public class Sau extends Piece
         super(player);
     }
 
+    @Override
+    public Piece copy()
+    {
+        Piece copy = new Sau(this.getOwner());
+        copy.setCriticalPiece(this.isCriticalPiece());
+        return copy;
+    }
+
     @Override
     public boolean canJump()
     {
@@ -23,6 +23,14 @@ public class Tor extends Piece implements Switchable
         super(player);
     }
 
+    @Override
+    public Piece copy()
+    {
+        Piece copy = new Tor(this.getOwner());
+        copy.setCriticalPiece(this.isCriticalPiece());
+        return copy;
+    }
+
     @Override
     public boolean canJump()
     {
@@ -24,6 +24,14 @@ public class Xor extends Piece implements Switchable
         super(player);
     }
 
+    @Override
+    public Piece copy()
+    {
+        Piece copy = new Xor(this.getOwner());
+        copy.setCriticalPiece(this.isCriticalPiece());
+        return copy;
+    }
+
     @Override
     public boolean canJump()
     {
@@ -0,0 +1,260 @@
+package model.replay;
+
+import model.board.Board;
+import model.game.KwazamGameMaster;
+import model.game.Move;
+import model.serialization.GameState;
+import model.serialization.SaveLoadManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Plays back a recorded game, with fast stepping and seeking to any ply.
+ * <p>
+ * The game is played through once when the replay is created, which checks
+ * that every move is legal and stores a keyframe (a full snapshot of the game)
+ * every {@code keyframeInterval} plies. After that:
+ * <ul>
+ *   <li>
+ *     stepping forward plays the next move, and stepping back undoes the last
+ *     one through the game's move history, both in constant time. Stepping
+ *     back past the keyframe the game was last loaded from reloads the
+ *     previous keyframe, so stepping back is constant time amortized;
+ *   </li>
+ *   <li>
+ *     seeking far away finds the nearest keyframe at or before the target in
+ *     O(log n) and plays fewer than {@code keyframeInterval} moves from there.
+ *   </li>
+ * </ul>
+ * The replay works on its own copy of the game, which views can read through
+ * {@link #getGame()}.
+ */
+public class Replay
+{
+    /**
+     * The keyframe interval used when none is given.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 16;
+
+    private final KwazamGameMaster game;
+    private final SaveLoadManager saveLoadManager;
+    private final List<Move> moves;
+    private final int keyframeInterval;
+
+    /**
+     * Keyframes by the ply they were taken at. Their cells are never handed
+     * to the board directly, so they stay unchanged.
+     */
+    private final TreeMap<Integer, GameState> keyframes = new TreeMap<>();
+
+    private int ply;
+
+    /**
+     * The ply the game was last loaded at. Moves before it are not in the
+     * game's move history and cannot be undone.
+     */
+    private int loadedPly;
+
+    /**
+     * Creates a replay with the default keyframe interval.
+     *
+     * @param start the position the game started from; it is not modified
+     * @param moves the moves of the game, in order
+     * @throws IllegalArgumentException if a move is illegal
+     */
+    public Replay(KwazamGameMaster start, List<Move> moves)
+    {
+        this(start, moves, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Creates a replay. The replay starts at ply 0, i.e. the start position.
+     *
+     * @param start            the position the game started from; it is not
+     *                         modified
+     * @param moves            the moves of the game, in order
+     * @param keyframeInterval the number of plies between keyframes; smaller
+     *                         values make seeking faster and use more memory
+     * @throws IllegalArgumentException if a move is illegal or the interval is
+     *                                  less than 1
+     */
+    public Replay(KwazamGameMaster start, List<Move> moves, int keyframeInterval)
+    {
+        if (keyframeInterval < 1)
+        {
+            throw new IllegalArgumentException("Keyframe interval must be at least 1");
+        }
+
+        this.game = start.copy();
+        this.saveLoadManager = new SaveLoadManager(this.game, this.game.getBoard());
+        this.moves = List.copyOf(moves);
+        this.keyframeInterval = keyframeInterval;
+
+        for (int i = 0; i < this.moves.size(); i++)
+        {
+            if (i % keyframeInterval == 0)
+            {
+                this.keyframes.put(i, this.snapshot());
+            }
+
+            Move move = this.moves.get(i);
+            if (this.isGameOver() || !this.game.isLegalMove(move.from(), move.to()))
+            {
+                throw new IllegalArgumentException("Illegal move at ply " + (i + 1) + ": " + move);
+            }
+            this.playMove(move);
+        }
+        this.ply = this.moves.size();
+        this.loadedPly = 0;
+
+        this.seek(0);
+    }
+
+    /**
+     * Moves one ply forward.
+     *
+     * @return {@code false} if the replay is already at the last ply
+     */
+    public boolean stepForward()
+    {
+        if (this.ply == this.moves.size())
+        {
+            return false;
+        }
+        this.playMove(this.moves.get(this.ply));
+        this.ply++;
+        return true;
+    }
+
+    /**
+     * Moves one ply back.
+     *
+     * @return {@code false} if the replay is already at the start
+     */
+    public boolean stepBack()
+    {
+        if (this.ply == 0)
+        {
+            return false;
+        }
+
+        if (this.ply > this.loadedPly)
+        {
+            this.game.undo();
+            this.ply--;
+        }
+        else
+        {
+            this.seek(this.ply - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Moves to the position after the given number of plies.
+     *
+     * @param targetPly the ply to move to, from 0 (the start position) to
+     *                  {@link #size()} (the final position)
+     * @throws IllegalArgumentException if the ply is out of range
+     */
+    public void seek(int targetPly)
+    {
+        if (targetPly < 0 || targetPly > this.moves.size())
+        {
+            throw new IllegalArgumentException("Ply out of range: " + targetPly);
+        }
+
+        boolean closeAhead = targetPly >= this.ply && targetPly - this.ply < this.keyframeInterval;
+        boolean closeBehind = targetPly < this.ply && targetPly >= this.loadedPly
+                && this.ply - targetPly < this.keyframeInterval;
+
+        if (!closeAhead && !closeBehind)
+        {
+            Map.Entry<Integer, GameState> keyframe = this.keyframes.floorEntry(targetPly);
+            this.load(keyframe.getKey(), keyframe.getValue());
+        }
+
+        while (this.ply > targetPly)
+        {
+            this.game.undo();
+            this.ply--;
+        }
+        while (this.ply < targetPly)
+        {
+            this.stepForward();
+        }
+    }
+
+    /**
+     * Retrieves the game at the current ply. It must only be read from;
+     * changing it would break the replay.
+     *
+     * @return the game at the current ply
+     */
+    public KwazamGameMaster getGame()
+    {
+        return this.game;
+    }
+
+    /**
+     * Retrieves the current ply, i.e. the number of moves played so far.
+     *
+     * @return the current ply
+     */
+    public int getPly()
+    {
+        return this.ply;
+    }
+
+    /**
+     * Retrieves the number of moves in the game, which is also the last ply.
+     *
+     * @return the number of moves
+     */
+    public int size()
+    {
+        return this.moves.size();
+    }
+
+    /**
+     * Retrieves a move of the game.
+     *
+     * @param index the zero-based index of the move, i.e. the move played at
+     *              ply {@code index + 1}
+     * @return the move
+     */
+    public Move getMove(int index)
+    {
+        return this.moves.get(index);
+    }
+
+    private void playMove(Move move)
+    {
+        this.game.movePiece(move.from(), move.to());
+        if (!this.isGameOver())
+        {
+            this.game.advanceTurn();
+        }
+    }
+
+    private boolean isGameOver()
+    {
+        return this.game.getPlayers().size() < 2;
+    }
+
+    private GameState snapshot()
+    {
+        return new GameState(this.game.getTurnCount(), this.game.getBoard().getParticipants(), this.game.getPlayers(),
+                this.game.getCurrentPlayer(), this.game.getBoard().copyCells());
+    }
+
+    private void load(int keyframePly, GameState keyframe)
+    {
+        this.saveLoadManager.loadGame(new GameState(keyframe.turnCount(), keyframe.seats(), keyframe.players(),
+                keyframe.currentPlayer(), Board.copyCells(keyframe.cells())));
+        this.ply = keyframePly;
+        this.loadedPly = keyframePly;
+    }
+}
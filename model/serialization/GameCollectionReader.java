@@ -0,0 +1,142 @@
+package model.serialization;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the games of a collection file one at a time.
+ * <p>
+ * A collection file is a number of saved games written one after the other,
+ * each starting with the {@value #RECORD_HEADER} line that every saved game
+ * starts with. A single saved game is therefore also a collection of one
+ * game. Only the lines of the game being read are held in memory, so
+ * collections of any size can be read. Compressed collection files are
+ * decompressed as they are read.
+ *
+ * @see GameCollectionWriter
+ */
+public class GameCollectionReader implements Closeable
+{
+    /**
+     * The first line of every game record.
+     */
+    public static final String RECORD_HEADER = "Game: Kwazam Chess";
+
+    private final BufferedReader reader;
+    private final SaveLoadSerializer serializer = new SaveLoadSerializer();
+
+    /**
+     * The header line of the next record, which was read while looking for
+     * the end of the previous one.
+     */
+    private String nextHeader;
+
+    private long recordCount;
+
+    /**
+     * Opens a collection file, plain or GZIP compressed.
+     *
+     * @param path the collection file to read
+     * @throws IOException if the file cannot be opened
+     */
+    public GameCollectionReader(Path path) throws IOException
+    {
+        this(new InputStreamReader(SaveLoadSerializer.openDecoded(Files.newInputStream(path)),
+                StandardCharsets.UTF_8.newDecoder()));
+    }
+
+    /**
+     * Reads a collection from a reader, which is closed with this reader.
+     *
+     * @param reader the reader to read the collection from
+     */
+    public GameCollectionReader(Reader reader)
+    {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    /**
+     * Reads the lines of the next game, without parsing them.
+     *
+     * @return the lines of the next game, starting with the record header, or
+     *         {@code null} at the end of the collection
+     * @throws IOException              if the collection cannot be read
+     * @throws IllegalArgumentException if the collection does not start with
+     *                                  a record header
+     */
+    public List<String> nextRecord() throws IOException
+    {
+        String header = this.nextHeader;
+        this.nextHeader = null;
+        while (header == null)
+        {
+            String line = this.reader.readLine();
+            if (line == null)
+            {
+                return null;
+            }
+            if (line.isBlank())
+            {
+                continue;
+            }
+            if (!line.equals(RECORD_HEADER))
+            {
+                throw new IllegalArgumentException("Invalid file format");
+            }
+            header = line;
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(header);
+        String line;
+        while ((line = this.reader.readLine()) != null)
+        {
+            if (line.equals(RECORD_HEADER))
+            {
+                this.nextHeader = line;
+                break;
+            }
+            lines.add(line);
+        }
+
+        this.recordCount++;
+        return lines;
+    }
+
+    /**
+     * Reads and parses the next game.
+     *
+     * @return the next game, or {@code null} at the end of the collection
+     * @throws IOException              if the collection cannot be read
+     * @throws IllegalArgumentException if the game is invalid
+     */
+    public GameState next() throws IOException
+    {
+        List<String> lines = this.nextRecord();
+        return lines == null ? null : this.serializer.parseState(lines);
+    }
+
+    /**
+     * Retrieves the number of games read so far.
+     *
+     * @return the number of games read
+     */
+    public long getRecordCount()
+    {
+        return this.recordCount;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.reader.close();
+    }
+}
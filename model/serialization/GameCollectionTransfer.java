@@ -0,0 +1,286 @@
+package model.serialization;
+
+import model.board.Cell;
+import model.game.Player;
+import model.pieces.Piece;
+import model.pieces.Sau;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Imports and exports large collections of games.
+ * <p>
+ * Both directions are a pipeline of three stages. On import, the calling
+ * thread reads the raw lines of one game at a time, a pool of workers parses
+ * and validates them in parallel, and the calling thread hands the games to a
+ * consumer in file order. On export, the workers turn games into text and the
+ * calling thread writes them in order. At most {@code window} games are
+ * between the stages at any time, so memory use does not grow with the size
+ * of the collection, and a slow consumer or disk holds back the reading
+ * instead of letting parsed games pile up.
+ *
+ * @see GameCollectionReader
+ * @see GameCollectionWriter
+ */
+public class GameCollectionTransfer
+{
+    /**
+     * The number of games in flight per worker, which keeps every worker busy
+     * while the calling thread waits for the oldest game.
+     */
+    private static final int GAMES_PER_WORKER = 4;
+
+    private final SaveLoadSerializer serializer = new SaveLoadSerializer();
+    private final int workers;
+    private final int window;
+
+    /**
+     * Creates a transfer with one worker per processor.
+     */
+    public GameCollectionTransfer()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a transfer.
+     *
+     * @param workers the number of threads parsing or formatting games
+     * @throws IllegalArgumentException if there are no workers
+     */
+    public GameCollectionTransfer(int workers)
+    {
+        if (workers < 1)
+        {
+            throw new IllegalArgumentException("Invalid number of workers: " + workers);
+        }
+        this.workers = workers;
+        this.window = workers * GAMES_PER_WORKER;
+    }
+
+    /**
+     * Reads, parses and validates every game of a collection file.
+     *
+     * @param path the collection file to read
+     * @param sink receives the games in file order, on the calling thread
+     * @return the throughput of the import
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if a game is invalid; the games before
+     *                                  it have been passed to the sink
+     * @throws InterruptedException     if interrupted while waiting for a
+     *                                  worker
+     */
+    public TransferStats importCollection(Path path, Consumer<GameState> sink)
+            throws IOException, InterruptedException
+    {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(this.workers);
+        Queue<Future<GameState>> pending = new ArrayDeque<>(this.window);
+        long games = 0;
+        try (GameCollectionReader reader = new GameCollectionReader(path))
+        {
+            List<String> lines;
+            while ((lines = reader.nextRecord()) != null)
+            {
+                List<String> record = lines;
+                long recordNumber = reader.getRecordCount();
+                pending.add(executor.submit(() -> this.parseRecord(record, recordNumber)));
+
+                if (pending.size() == this.window)
+                {
+                    sink.accept(await(pending.remove()));
+                    games++;
+                }
+            }
+
+            while (!pending.isEmpty())
+            {
+                sink.accept(await(pending.remove()));
+                games++;
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return new TransferStats(games, Files.size(path), System.nanoTime() - start);
+    }
+
+    /**
+     * Writes games to a collection file, replacing it if it exists.
+     *
+     * @param games the games to write, which are only read one window at a
+     *              time so they may be produced lazily
+     * @param path  the collection file to write
+     * @return the throughput of the export
+     * @throws IOException          if the file cannot be written
+     * @throws InterruptedException if interrupted while waiting for a worker
+     */
+    public TransferStats exportCollection(Iterable<GameState> games, Path path)
+            throws IOException, InterruptedException
+    {
+        return this.exportCollection(games, path, false);
+    }
+
+    /**
+     * Writes games to a collection file, replacing it if it exists,
+     * optionally GZIP compressed.
+     *
+     * @param games      the games to write, which are only read one window
+     *                   at a time so they may be produced lazily
+     * @param path       the collection file to write
+     * @param compressed whether to compress the file
+     * @return the throughput of the export, with the compressed size
+     * @throws IOException          if the file cannot be written
+     * @throws InterruptedException if interrupted while waiting for a worker
+     */
+    public TransferStats exportCollection(Iterable<GameState> games, Path path, boolean compressed)
+            throws IOException, InterruptedException
+    {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(this.workers);
+        Queue<Future<String>> pending = new ArrayDeque<>(this.window);
+        long written;
+        try (GameCollectionWriter writer = new GameCollectionWriter(path, compressed))
+        {
+            for (GameState game : games)
+            {
+                pending.add(executor.submit(game::getStringRepresentation));
+
+                if (pending.size() == this.window)
+                {
+                    writer.writeRecord(await(pending.remove()));
+                }
+            }
+
+            while (!pending.isEmpty())
+            {
+                writer.writeRecord(await(pending.remove()));
+            }
+            written = writer.getRecordCount();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        return new TransferStats(written, Files.size(path), System.nanoTime() - start);
+    }
+
+    /**
+     * Parses and validates one game, naming the record in any error.
+     */
+    private GameState parseRecord(List<String> lines, long recordNumber)
+    {
+        try
+        {
+            GameState gameState = this.serializer.parseState(lines);
+            validate(gameState);
+            return gameState;
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Invalid game at record " + recordNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks the rules a parsed game must follow beyond its format: the turn
+     * count is not negative and every player still in the game has exactly
+     * one Sau.
+     */
+    private static void validate(GameState gameState)
+    {
+        if (gameState.turnCount() < 0)
+        {
+            throw new IllegalArgumentException("Negative turn count");
+        }
+
+        Map<Player, Integer> sauCounts = new HashMap<>();
+        for (List<Cell> row : gameState.cells())
+        {
+            for (Cell cell : row)
+            {
+                Piece piece = cell.getPiece().orElse(null);
+                if (piece instanceof Sau)
+                {
+                    sauCounts.merge(piece.getOwner(), 1, Integer::sum);
+                }
+            }
+        }
+        for (Player player : gameState.players())
+        {
+            if (sauCounts.getOrDefault(player, 0) != 1)
+            {
+                throw new IllegalArgumentException("Player " + player.id() + " must have exactly one Sau");
+            }
+        }
+    }
+
+    /**
+     * Waits for a worker's result, rethrowing its exception as is.
+     */
+    private static <T> T await(Future<T> future) throws InterruptedException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException cause)
+            {
+                throw cause;
+            }
+            throw new RuntimeException("Game collection transfer failed", e.getCause());
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: GameCollectionTransfer <input file> [output file] [workers]");
+            System.exit(1);
+        }
+
+        Path input = Path.of(args[0]);
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        GameCollectionTransfer transfer = new GameCollectionTransfer(workers);
+
+        if (args.length < 2)
+        {
+            TransferStats stats = transfer.importCollection(input, gameState -> {});
+            System.out.println("Validated " + stats.getStringRepresentation());
+            return;
+        }
+
+        // Parse and validate in parallel while writing the games out in order
+        Path output = Path.of(args[1]);
+        try (GameCollectionWriter writer = new GameCollectionWriter(output))
+        {
+            TransferStats stats = transfer.importCollection(input, gameState -> {
+                try
+                {
+                    writer.write(gameState);
+                }
+                catch (IOException e)
+                {
+                    throw new RuntimeException("Failed to write game collection", e);
+                }
+            });
+            System.out.println("Copied " + stats.getStringRepresentation());
+        }
+    }
+}
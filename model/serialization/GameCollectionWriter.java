@@ -0,0 +1,103 @@
+package model.serialization;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes games to a collection file one at a time, in the format read by
+ * {@link GameCollectionReader}.
+ */
+public class GameCollectionWriter implements Closeable
+{
+    private static final int BUFFER_BYTES = 8192;
+
+    private final Writer writer;
+    private final SaveLoadSerializer serializer = new SaveLoadSerializer();
+    private long recordCount;
+
+    /**
+     * Creates or replaces a collection file.
+     *
+     * @param path the collection file to write
+     * @throws IOException if the file cannot be created
+     */
+    public GameCollectionWriter(Path path) throws IOException
+    {
+        this(path, false);
+    }
+
+    /**
+     * Creates or replaces a collection file, optionally GZIP compressed. The
+     * games are compressed as they are written, as a single stream, so that
+     * repetition across games compresses as well.
+     *
+     * @param path       the collection file to write
+     * @param compressed whether to compress the file
+     * @throws IOException if the file cannot be created
+     */
+    public GameCollectionWriter(Path path, boolean compressed) throws IOException
+    {
+        this(compressed
+                ? new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(path), BUFFER_BYTES),
+                        StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a collection to a writer, which is closed with this writer.
+     *
+     * @param writer the writer to write the collection to
+     */
+    public GameCollectionWriter(Writer writer)
+    {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+    }
+
+    /**
+     * Writes a game.
+     *
+     * @param gameState the game to write
+     * @throws IOException if the game cannot be written
+     */
+    public void write(GameState gameState) throws IOException
+    {
+        this.serializer.writeState(gameState, this.writer);
+        this.recordCount++;
+    }
+
+    /**
+     * Writes a game that has already been turned into text by
+     * {@link GameState#getStringRepresentation()}.
+     *
+     * @param record the text of the game
+     * @throws IOException if the game cannot be written
+     */
+    public void writeRecord(String record) throws IOException
+    {
+        this.writer.write(record);
+        this.recordCount++;
+    }
+
+    /**
+     * Retrieves the number of games written so far.
+     *
+     * @return the number of games written
+     */
+    public long getRecordCount()
+    {
+        return this.recordCount;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.writer.close();
+    }
+}
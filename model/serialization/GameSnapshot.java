@@ -0,0 +1,289 @@
+package model.serialization;
+
+import model.board.Board;
+import model.board.Cell;
+import model.board.KwazamBoard;
+import model.game.GameMaster;
+import model.game.Player;
+import model.pieces.Biz;
+import model.pieces.Piece;
+import model.pieces.Ram;
+import model.pieces.Sau;
+import model.pieces.Tor;
+import model.pieces.Xor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reusable snapshot of a game, for saving a game often without creating
+ * garbage.
+ * <p>
+ * Unlike a {@link GameState}, which is a new record with new lists every
+ * time, a snapshot is allocated once with room for the largest board and is
+ * overwritten by every {@link #capture(GameMaster, Board, long) capture}. Each cell
+ * is stored as a single byte holding the kind of piece, the seat of its owner
+ * and whether it is critical, and the players are kept by reference, so
+ * capturing a game and {@link #writeTo(Writer) writing} it in the saved game
+ * format allocate nothing.
+ * <p>
+ * A snapshot is not thread-safe; hand it between threads with a happens-before
+ * edge, as the {@link SnapshotAutosaver} does.
+ */
+public class GameSnapshot
+{
+    private static final int MAX_CELLS = KwazamBoard.ROWS * KwazamBoard.columnsFor(KwazamBoard.MAX_PLAYERS);
+
+    private static final int EMPTY = 0;
+    private static final int RAM_FACING_UP = 1;
+    private static final int RAM_FACING_DOWN = 2;
+    private static final int BIZ = 3;
+    private static final int SAU = 4;
+    private static final int TOR = 5;
+    private static final int XOR = 6;
+    private static final int KIND_MASK = 0x07;
+    private static final int CRITICAL = 0x08;
+    private static final int SEAT_SHIFT = 4;
+
+    /**
+     * The save format's names of the kinds, followed by the owner separator.
+     */
+    private static final String[] KIND_PREFIXES = {"EMPTY", "RAM_", "RAM_", "BIZ_", "SAU_", "TOR_", "XOR_"};
+
+    private final byte[] cells = new byte[MAX_CELLS];
+    private final Player[] participants = new Player[KwazamBoard.MAX_PLAYERS];
+    private final Player[] players = new Player[KwazamBoard.MAX_PLAYERS];
+    private final char[] digits = new char[11];
+
+    private int participantCount;
+    private int playerCount;
+    private int rows;
+    private int columns;
+    private int turnCount;
+    private Player currentPlayer;
+    private long sequence;
+
+    /**
+     * Overwrites this snapshot with the current state of a game.
+     *
+     * @param gameMaster the game to capture
+     * @param board      the board of the game
+     * @param sequence   a number identifying this capture, e.g. a counter
+     */
+    public void capture(GameMaster<?> gameMaster, Board board, long sequence)
+    {
+        List<Player> boardParticipants = board.getParticipants();
+        this.participantCount = boardParticipants.size();
+        for (int seat = 0; seat < this.participantCount; seat++)
+        {
+            this.participants[seat] = boardParticipants.get(seat);
+        }
+
+        List<Player> gamePlayers = gameMaster.getPlayers();
+        this.playerCount = gamePlayers.size();
+        for (int i = 0; i < this.playerCount; i++)
+        {
+            this.players[i] = gamePlayers.get(i);
+        }
+
+        this.currentPlayer = gameMaster.getCurrentPlayer();
+        this.turnCount = gameMaster.getTurnCount();
+        this.rows = board.getBoardRows();
+        this.columns = board.getBoardColumns();
+        this.sequence = sequence;
+
+        for (int row = 0; row < this.rows; row++)
+        {
+            for (int column = 0; column < this.columns; column++)
+            {
+                this.cells[row * this.columns + column] = this.encode(board.getPieceOrNull(row, column));
+            }
+        }
+    }
+
+    /**
+     * @return the number given to the last capture
+     */
+    public long getSequence()
+    {
+        return this.sequence;
+    }
+
+    /**
+     * @return the turn count of the captured game
+     */
+    public int getTurnCount()
+    {
+        return this.turnCount;
+    }
+
+    /**
+     * Writes the captured game in the saved game format, exactly as
+     * {@link GameState#getStringRepresentation()} would.
+     *
+     * @param writer the writer to write to, which should be buffered
+     * @throws IOException if the writer fails
+     */
+    public void writeTo(Writer writer) throws IOException
+    {
+        writer.write("Game: Kwazam Chess\nFormat: ");
+        this.writeInt(SaveLoadSerializer.FORMAT_VERSION, writer);
+        writer.write("\nTurn Count: ");
+        this.writeInt(this.turnCount, writer);
+        writer.write("\nSeats: ");
+        this.writePlayerIds(this.participants, this.participantCount, writer);
+        writer.write("\nPlayers: ");
+        this.writePlayerIds(this.players, this.playerCount, writer);
+        writer.write("\nCurrent Player: ");
+        writer.write(this.currentPlayer.id());
+        writer.write("\n\n");
+
+        for (int i = 0; i < this.rows * this.columns; i++)
+        {
+            int code = this.cells[i];
+            int kind = code & KIND_MASK;
+            writer.write(KIND_PREFIXES[kind]);
+            if (kind != EMPTY)
+            {
+                writer.write(this.participants[code >>> SEAT_SHIFT].id());
+                if (kind == RAM_FACING_UP)
+                {
+                    writer.write("_FACINGUP");
+                }
+                else if (kind == RAM_FACING_DOWN)
+                {
+                    writer.write("_FACINGDOWN");
+                }
+                if ((code & CRITICAL) != 0)
+                {
+                    writer.write("_CRITICAL");
+                }
+            }
+            writer.write('\n');
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Creates a {@link GameState} of the captured game, with new pieces. This
+     * allocates, and is meant for loading a snapshot rather than saving it.
+     *
+     * @return the captured game as a game state
+     */
+    public GameState toGameState()
+    {
+        List<List<Cell>> cellGrid = new ArrayList<>(this.rows);
+        for (int row = 0; row < this.rows; row++)
+        {
+            List<Cell> cellRow = new ArrayList<>(this.columns);
+            for (int column = 0; column < this.columns; column++)
+            {
+                Cell cell = new Cell();
+                cell.setPiece(this.decode(this.cells[row * this.columns + column]));
+                cellRow.add(cell);
+            }
+            cellGrid.add(cellRow);
+        }
+        return new GameState(this.turnCount,
+                List.copyOf(Arrays.asList(this.participants).subList(0, this.participantCount)),
+                List.copyOf(Arrays.asList(this.players).subList(0, this.playerCount)),
+                this.currentPlayer, cellGrid);
+    }
+
+    private void writePlayerIds(Player[] players, int count, Writer writer) throws IOException
+    {
+        for (int i = 0; i < count; i++)
+        {
+            if (i > 0)
+            {
+                writer.write(", ");
+            }
+            writer.write(players[i].id());
+        }
+    }
+
+    private byte encode(Piece piece)
+    {
+        if (piece == null)
+        {
+            return EMPTY;
+        }
+
+        int kind;
+        if (piece instanceof Ram ram)
+        {
+            kind = ram.isFacingUp() ? RAM_FACING_UP : RAM_FACING_DOWN;
+        }
+        else if (piece instanceof Biz)
+        {
+            kind = BIZ;
+        }
+        else if (piece instanceof Sau)
+        {
+            kind = SAU;
+        }
+        else if (piece instanceof Tor)
+        {
+            kind = TOR;
+        }
+        else if (piece instanceof Xor)
+        {
+            kind = XOR;
+        }
+        else
+        {
+            throw new IllegalArgumentException("Unknown piece type: " + piece.getClass().getSimpleName());
+        }
+
+        int seat = 0;
+        while (this.participants[seat] != piece.getOwner() && !this.participants[seat].equals(piece.getOwner()))
+        {
+            seat++;
+        }
+        return (byte) (seat << SEAT_SHIFT | (piece.isCriticalPiece() ? CRITICAL : 0) | kind);
+    }
+
+    private Piece decode(int code)
+    {
+        int kind = code & KIND_MASK;
+        Player owner = this.participants[code >>> SEAT_SHIFT];
+        Piece piece = switch (kind)
+        {
+            case EMPTY -> null;
+            case RAM_FACING_UP -> new Ram(owner, true);
+            case RAM_FACING_DOWN -> new Ram(owner, false);
+            case BIZ -> new Biz(owner);
+            case SAU -> new Sau(owner);
+            case TOR -> new Tor(owner);
+            default -> new Xor(owner);
+        };
+        if (piece != null && (code & CRITICAL) != 0)
+        {
+            piece.setCriticalPiece(true);
+        }
+        return piece;
+    }
+
+    /**
+     * Writes a number without creating a string for it.
+     */
+    private void writeInt(int value, Writer writer) throws IOException
+    {
+        if (value < 0)
+        {
+            writer.write('-');
+        }
+        int position = this.digits.length;
+        long remaining = Math.abs((long) value);
+        do
+        {
+            this.digits[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        while (remaining > 0);
+        writer.write(this.digits, position, this.digits.length - position);
+    }
+}
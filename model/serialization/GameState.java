@@ -7,13 +7,39 @@ import java.util.List;
 
 /**
  * Represents the state of the game, including the current turn count,
- * participating players, the active player, and the cells on the board.
+ * the seats of the board, the players still in the game, the active player,
+ * and the cells on the board.
+ * <p>
+ * The seats are every player the board was set up for, in seating order,
+ * including players who have since been eliminated. They decide the size of
+ * the board and which army each player has, so a board rebuilt from a saved
+ * state must be set up for the seats, not the remaining players.
+ *
+ * @param turnCount     the number of turns played
+ * @param seats         the players the board was set up for, in seating order
+ * @param players       the players still in the game, in turn order
+ * @param currentPlayer the player to move
+ * @param cells         the cells of the board, row by row
  * @author Harris Majeed
  */
-public record GameState(int turnCount, List<Player> players,
+public record GameState(int turnCount, List<Player> seats, List<Player> players,
                         Player currentPlayer,
                         List<List<Cell>> cells) implements Stringable
 {
+    /**
+     * @throws IllegalArgumentException if a player does not have a seat
+     */
+    public GameState
+    {
+        for (Player player : players)
+        {
+            if (!seats.contains(player))
+            {
+                throw new IllegalArgumentException("Player " + player.id() + " does not have a seat");
+            }
+        }
+    }
+
     /**
      * Returns a textual representation of the current game state,
      * including the turn count, active player, and the layout of cells.
@@ -24,6 +50,7 @@ public record GameState(int turnCount, List<Player> players,
     @Override
     public String getStringRepresentation()
     {
+        String formattedSeatIds = String.join(", ", seats.stream().map(Player::id).toList());
         String formattedPlayerIds = String.join(", ", players.stream().map(Player::id).toList());
         String currentPlayerId = this.currentPlayer.id();
 
@@ -39,11 +66,14 @@ public record GameState(int turnCount, List<Player> players,
 
         return """
                 Game: Kwazam Chess
+                Format: %d
                 Turn Count: %d
+                Seats: %s
                 Players: %s
                 Current Player: %s
-                
+
                 %s
-                """.formatted(turnCount, formattedPlayerIds, currentPlayerId, formattedCells);
+                """.formatted(SaveLoadSerializer.FORMAT_VERSION, turnCount, formattedSeatIds, formattedPlayerIds,
+                currentPlayerId, formattedCells);
     }
 }
@@ -0,0 +1,472 @@
+package model.serialization;
+
+import model.board.Cell;
+import model.board.KwazamBoard;
+import model.game.Player;
+import model.pieces.Biz;
+import model.pieces.Piece;
+import model.pieces.Ram;
+import model.pieces.Sau;
+import model.pieces.Tor;
+import model.pieces.Xor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single-pass parser for saved games, working directly on the bytes of a
+ * file.
+ * <p>
+ * {@link SaveLoadSerializer#parseState(List)} splits the file into lines and
+ * every line with regular expressions, and looks players up with a stream per
+ * cell. This parser scans the bytes once instead: header values are read in
+ * place, piece tokens are recognised with a switch on their three letters,
+ * and owners are matched against the bytes of the player ids, so that the
+ * only objects created are the ones that make up the game state.
+ * <p>
+ * The parser only handles well-formed files. It returns {@code null} for
+ * anything it does not fully understand, from non-ASCII bytes to a missing
+ * player, and the caller then falls back to the line-based parser, which
+ * produces the same game state or throws the same exception it always has.
+ */
+class GameStateParser
+{
+    private static final int RAM = 'R' << 16 | 'A' << 8 | 'M';
+    private static final int BIZ = 'B' << 16 | 'I' << 8 | 'Z';
+    private static final int SAU = 'S' << 16 | 'A' << 8 | 'U';
+    private static final int TOR = 'T' << 16 | 'O' << 8 | 'R';
+    private static final int XOR = 'X' << 16 | 'O' << 8 | 'R';
+
+    private static final byte[] TURN_COUNT_KEY = ascii("Turn Count");
+    private static final byte[] SEATS_KEY = ascii(SaveLoadSerializer.SEATS_KEY);
+    private static final byte[] PLAYERS_KEY = ascii("Players");
+    private static final byte[] CURRENT_PLAYER_KEY = ascii("Current Player");
+    private static final byte[] FORMAT_KEY = ascii(SaveLoadSerializer.FORMAT_KEY);
+    private static final byte[] EMPTY = ascii("EMPTY");
+    private static final byte[] FACING_UP = ascii("FACINGUP");
+    private static final byte[] CRITICAL = ascii("CRITICAL");
+
+    private static final int MIN_LINES = 5;
+
+    private final byte[] data;
+    private final int end;
+    private int position;
+
+    /**
+     * The start and end of the line read by {@link #nextLine()}.
+     */
+    private int lineStart;
+    private int lineEnd;
+
+    private int lineCount;
+    private boolean ascii = true;
+
+    private GameStateParser(byte[] data, int offset, int length)
+    {
+        this.data = data;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    /**
+     * Parses a saved game.
+     *
+     * @param data   the buffer holding the saved game
+     * @param offset the index of the first byte of the saved game
+     * @param length the number of bytes of the saved game
+     * @return the game state, or {@code null} if the bytes are not a
+     *         well-formed saved game
+     */
+    static GameState parse(byte[] data, int offset, int length)
+    {
+        return new GameStateParser(data, offset, length).parse();
+    }
+
+    private GameState parse()
+    {
+        // The first line names the game and is not checked, like the
+        // line-based parser
+        this.nextLine();
+
+        int turnCount = -1;
+        int seatsStart = -1;
+        int seatsEnd = -1;
+        int playersStart = -1;
+        int playersEnd = -1;
+        int currentStart = -1;
+        int currentEnd = -1;
+        while (this.nextLine() && !this.isBlankLine())
+        {
+            int separator = this.indexOf(this.lineStart, this.lineEnd);
+            if (separator < 0)
+            {
+                return null;
+            }
+
+            int valueStart = separator + 2;
+            int valueEnd = this.indexOf(valueStart, this.lineEnd);
+            valueEnd = valueEnd < 0 ? this.lineEnd : valueEnd;
+            if (valueStart == valueEnd)
+            {
+                return null;
+            }
+
+            if (this.regionEquals(this.lineStart, separator, TURN_COUNT_KEY))
+            {
+                turnCount = this.parseInt(valueStart, valueEnd);
+                if (turnCount < 0)
+                {
+                    return null;
+                }
+            }
+            else if (this.regionEquals(this.lineStart, separator, SEATS_KEY))
+            {
+                seatsStart = valueStart;
+                seatsEnd = valueEnd;
+            }
+            else if (this.regionEquals(this.lineStart, separator, PLAYERS_KEY))
+            {
+                playersStart = valueStart;
+                playersEnd = valueEnd;
+            }
+            else if (this.regionEquals(this.lineStart, separator, CURRENT_PLAYER_KEY))
+            {
+                currentStart = valueStart;
+                currentEnd = valueEnd;
+            }
+            else if (this.regionEquals(this.lineStart, separator, FORMAT_KEY))
+            {
+                int format = this.parseInt(valueStart, valueEnd);
+                if (format < 0 || format > SaveLoadSerializer.FORMAT_VERSION)
+                {
+                    return null;
+                }
+            }
+        }
+
+        if (turnCount < 0 || playersStart < 0 || currentStart < 0)
+        {
+            return null;
+        }
+
+        List<Player> players = new ArrayList<>(KwazamBoard.MAX_PLAYERS);
+        List<byte[]> playerIds = new ArrayList<>(KwazamBoard.MAX_PLAYERS);
+        if (!this.parsePlayers(playersStart, playersEnd, players, playerIds))
+        {
+            return null;
+        }
+        int currentSeat = this.findPlayer(currentStart, currentEnd, playerIds);
+        if (currentSeat < 0)
+        {
+            return null;
+        }
+
+        List<Cell> cells = new ArrayList<>(KwazamBoard.ROWS * KwazamBoard.columnsFor(KwazamBoard.MAX_PLAYERS));
+        while (this.nextLine())
+        {
+            int start = this.lineStart;
+            int end = this.lineEnd;
+            while (start < end && this.data[start] <= ' ')
+            {
+                start++;
+            }
+            while (end > start && this.data[end - 1] <= ' ')
+            {
+                end--;
+            }
+            if (start == end)
+            {
+                continue;
+            }
+
+            Cell cell = this.parseCell(start, end, players, playerIds);
+            if (cell == null)
+            {
+                return null;
+            }
+            cells.add(cell);
+        }
+
+        // Anything but ASCII, a subset of the UTF-8 the line-based parser
+        // reads, is left to it, as are files too short to be saved games
+        if (!this.ascii || this.lineCount < MIN_LINES)
+        {
+            return null;
+        }
+
+        int rows = KwazamBoard.ROWS;
+        int columns = cells.size() / rows;
+        if (cells.size() != rows * columns || columns == 0 || columns % KwazamBoard.ARMY_COLUMNS != 0)
+        {
+            return null;
+        }
+
+        List<List<Cell>> cellGrid = new ArrayList<>(rows);
+        for (int i = 0; i < cells.size(); i += columns)
+        {
+            cellGrid.add(new ArrayList<>(cells.subList(i, i + columns)));
+        }
+        List<Player> seats = this.parseSeats(seatsStart, seatsEnd, players, columns);
+        if (seats == null)
+        {
+            return null;
+        }
+        return new GameState(turnCount, seats, players, players.get(currentSeat), cellGrid);
+    }
+
+    /**
+     * Reads the seats, sharing the players still in the game, or works them
+     * out like the line-based parser if the file has none.
+     *
+     * @return the seats, or {@code null} if they are not valid for the board
+     */
+    private List<Player> parseSeats(int start, int end, List<Player> players, int columns)
+    {
+        try
+        {
+            if (start < 0)
+            {
+                return SaveLoadSerializer.inferSeats(players, columns);
+            }
+
+            List<Player> seatPlayers = new ArrayList<>(KwazamBoard.MAX_PLAYERS);
+            if (!this.parsePlayers(start, end, seatPlayers, new ArrayList<>(KwazamBoard.MAX_PLAYERS))
+                    || KwazamBoard.columnsFor(seatPlayers.size()) != columns)
+            {
+                return null;
+            }
+            return SaveLoadSerializer.seatsOf(seatPlayers.stream().map(Player::id).toList(), players);
+        }
+        catch (IllegalArgumentException e)
+        {
+            // left to the line-based parser to report
+            return null;
+        }
+    }
+
+    /**
+     * Reads the players, which are separated by ", ". Empty ids are left to
+     * the line-based parser.
+     */
+    private boolean parsePlayers(int start, int end, List<Player> players, List<byte[]> playerIds)
+    {
+        int idStart = start;
+        while (idStart < end)
+        {
+            int idEnd = idStart;
+            while (idEnd < end && !(this.data[idEnd] == ',' && idEnd + 1 < end && this.data[idEnd + 1] == ' '))
+            {
+                idEnd++;
+            }
+            if (idEnd == idStart)
+            {
+                return false;
+            }
+
+            byte[] id = new byte[idEnd - idStart];
+            System.arraycopy(this.data, idStart, id, 0, id.length);
+            playerIds.add(id);
+            players.add(new Player(new String(id, StandardCharsets.US_ASCII)));
+            idStart = idEnd + 2;
+            if (idStart == end)
+            {
+                return false;
+            }
+        }
+        return !players.isEmpty();
+    }
+
+    /**
+     * Parses a cell such as {@code EMPTY} or {@code RAM_1_FACINGUP_CRITICAL}.
+     */
+    private Cell parseCell(int start, int end, List<Player> players, List<byte[]> playerIds)
+    {
+        Cell cell = new Cell();
+        if (this.regionEquals(start, end, EMPTY))
+        {
+            return cell;
+        }
+
+        if (end - start < 5 || this.data[start + 3] != '_')
+        {
+            return null;
+        }
+        int ownerStart = start + 4;
+        int ownerEnd = ownerStart;
+        while (ownerEnd < end && this.data[ownerEnd] != '_')
+        {
+            ownerEnd++;
+        }
+        int seat = this.findPlayer(ownerStart, ownerEnd, playerIds);
+        if (seat < 0)
+        {
+            return null;
+        }
+        Player owner = players.get(seat);
+
+        boolean facingUp = false;
+        boolean critical = false;
+        int modifierStart = ownerEnd + 1;
+        while (modifierStart < end)
+        {
+            int modifierEnd = modifierStart;
+            while (modifierEnd < end && this.data[modifierEnd] != '_')
+            {
+                modifierEnd++;
+            }
+            facingUp |= this.regionEquals(modifierStart, modifierEnd, FACING_UP);
+            critical |= this.regionEquals(modifierStart, modifierEnd, CRITICAL);
+            modifierStart = modifierEnd + 1;
+        }
+
+        int token = this.data[start] << 16 | this.data[start + 1] << 8 | this.data[start + 2];
+        Piece piece;
+        switch (token)
+        {
+            case RAM:
+                piece = new Ram(owner, facingUp);
+                break;
+            case BIZ:
+                piece = new Biz(owner);
+                break;
+            case SAU:
+                piece = new Sau(owner);
+                break;
+            case TOR:
+                piece = new Tor(owner);
+                break;
+            case XOR:
+                piece = new Xor(owner);
+                break;
+            default:
+                return null;
+        }
+
+        if (critical)
+        {
+            piece.setCriticalPiece(true);
+        }
+        cell.setPiece(piece);
+        return cell;
+    }
+
+    /**
+     * Finds the first player whose id equals the given bytes.
+     */
+    private int findPlayer(int start, int end, List<byte[]> playerIds)
+    {
+        for (int seat = 0; seat < playerIds.size(); seat++)
+        {
+            if (this.regionEquals(start, end, playerIds.get(seat)))
+            {
+                return seat;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a number of at most nine digits with an optional minus sign.
+     *
+     * @return the number, or -1 if it is not such a number or negative
+     */
+    private int parseInt(int start, int end)
+    {
+        if (end - start > 9 || this.data[start] == '-')
+        {
+            return -1;
+        }
+
+        int value = 0;
+        for (int i = start; i < end; i++)
+        {
+            int digit = this.data[i] - '0';
+            if (digit < 0 || digit > 9)
+            {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Moves to the next line, ending at a {@code \n}, {@code \r} or
+     * {@code \r\n} like {@link java.io.BufferedReader#readLine()}.
+     *
+     * @return {@code false} at the end of the data
+     */
+    private boolean nextLine()
+    {
+        if (this.position >= this.end)
+        {
+            return false;
+        }
+
+        this.lineStart = this.position;
+        int i = this.position;
+        while (i < this.end && this.data[i] != '\n' && this.data[i] != '\r')
+        {
+            this.ascii &= this.data[i] >= 0;
+            i++;
+        }
+        this.lineEnd = i;
+        if (i < this.end && this.data[i] == '\r' && i + 1 < this.end && this.data[i + 1] == '\n')
+        {
+            i++;
+        }
+        this.position = i + 1;
+        this.lineCount++;
+        return true;
+    }
+
+    private boolean isBlankLine()
+    {
+        for (int i = this.lineStart; i < this.lineEnd; i++)
+        {
+            byte b = this.data[i];
+            if (!(b >= '\t' && b <= '\r' || b >= 0x1C && b <= ' '))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the first ": " in a region.
+     */
+    private int indexOf(int start, int end)
+    {
+        for (int i = start; i + 1 < end; i++)
+        {
+            if (this.data[i] == ':' && this.data[i + 1] == ' ')
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionEquals(int start, int end, byte[] expected)
+    {
+        if (end - start != expected.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++)
+        {
+            if (this.data[start + i] != expected[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String text)
+    {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
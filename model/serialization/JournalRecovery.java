@@ -0,0 +1,48 @@
+package model.serialization;
+
+import model.game.KwazamGameMaster;
+import model.game.Move;
+
+import java.util.List;
+
+/**
+ * What {@link MoveJournal#recover(java.nio.file.Path)} read back from a
+ * journal.
+ *
+ * @param base        the position the journalled moves were played from
+ * @param moves       the moves played from the base, in order, without the
+ *                    ones that were taken back
+ * @param recordCount the number of intact records
+ * @param validLength the length of the intact part of the file; anything
+ *                    after it was torn by a crash
+ */
+public record JournalRecovery(GameState base, List<Move> moves, int recordCount, long validLength)
+{
+    /**
+     * Restores the journalled game into a game: loads the base position and
+     * plays the moves, advancing the turn after each one until the game is
+     * won.
+     *
+     * @param game the game to restore into; its board must have been set up
+     *             for the seats of the base position
+     * @throws IllegalArgumentException if a move is illegal, i.e. the journal
+     *                                  does not belong to this game
+     */
+    public void applyTo(KwazamGameMaster game)
+    {
+        new SaveLoadManager(game, game.getBoard()).loadGame(this.base);
+        for (int i = 0; i < this.moves.size(); i++)
+        {
+            Move move = this.moves.get(i);
+            if (game.getPlayers().size() < 2 || !game.isLegalMove(move.from(), move.to()))
+            {
+                throw new IllegalArgumentException("Illegal move at ply " + (i + 1) + ": " + move);
+            }
+            game.movePiece(move.from(), move.to());
+            if (game.getPlayers().size() > 1)
+            {
+                game.advanceTurn();
+            }
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package model.serialization;
+
+import model.game.Move;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * A write-ahead journal of the moves of a game, so that a long game survives
+ * a crash without saving the whole game after every move.
+ * <p>
+ * A journal file starts with a 12 byte header (magic number, format version
+ * and the length of the base position, as big-endian ints) and the base
+ * position in the saved game format, followed by fixed size records of a
+ * sequence number, a {@link Move#pack() packed move} (or {@link #UNDO} for a
+ * taken back move) and a CRC-32 of the two. The header and base are always
+ * written to a temporary file and renamed into place, so they are never torn;
+ * a record torn by a crash fails its checksum or sequence number, and
+ * {@link #recover(Path)} stops there.
+ * <p>
+ * Records are written by a background thread with group commit: every record
+ * appended while the previous batch was being forced to disk is written and
+ * forced together with the others, so the journal costs one {@code fsync}
+ * per batch rather than per move however fast moves arrive. The future
+ * returned by {@link #append(Move)} completes once its record is durable.
+ *
+ * @see JournalRecovery
+ */
+public class MoveJournal implements Closeable
+{
+    /**
+     * The move of a record that takes back the previous move.
+     */
+    public static final int UNDO = -1;
+
+    static final int MAGIC = 0x4B574D4A; // "KWMJ"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 12;
+    static final int RECORD_BYTES = 12;
+
+    private static final int MAX_BATCH = 1024;
+
+    /**
+     * Moves of entries that write nothing: a sync only waits for the entries
+     * before it, and a stop also ends the writer thread.
+     */
+    private static final int SYNC = Integer.MIN_VALUE;
+    private static final int STOP = Integer.MIN_VALUE + 1;
+
+    private final Path path;
+    private final SaveLoadSerializer serializer = new SaveLoadSerializer();
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+
+    private FileChannel channel;
+    private int nextSequence;
+    private volatile long batchCount;
+    private volatile long recordCount;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    /**
+     * A record waiting to be written, or a new base position.
+     */
+    private record Entry(int move, byte[] base, CompletableFuture<Void> done)
+    {
+    }
+
+    private MoveJournal(Path path, FileChannel channel, int nextSequence)
+    {
+        this.path = path;
+        this.channel = channel;
+        this.nextSequence = nextSequence;
+        this.writerThread = new Thread(this::writeLoop, "move-journal");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Creates a journal, replacing any existing file, starting from a base
+     * position.
+     *
+     * @param path the journal file
+     * @param base the position the journalled moves are played from
+     * @return the journal, ready for appending
+     * @throws IOException if the file cannot be written
+     */
+    public static MoveJournal create(Path path, GameState base) throws IOException
+    {
+        Path target = path.toAbsolutePath();
+        writeBase(target, encodeBase(new SaveLoadSerializer(), base));
+        return new MoveJournal(target, openForAppend(target, Files.size(target)), 0);
+    }
+
+    /**
+     * Opens an existing journal to append to it, cutting off a record torn by
+     * a crash. Use {@link #recover(Path)} first to restore the game.
+     *
+     * @param path the journal file
+     * @return the journal, ready for appending
+     * @throws IOException              if the file cannot be read or written
+     * @throws IllegalArgumentException if the file is not a journal
+     */
+    public static MoveJournal resume(Path path) throws IOException
+    {
+        Path target = path.toAbsolutePath();
+        JournalRecovery recovery = recover(target);
+        return new MoveJournal(target, openForAppend(target, recovery.validLength()), recovery.recordCount());
+    }
+
+    /**
+     * Reads a journal back: the base position and the moves played from it,
+     * with taken back moves removed.
+     *
+     * @param path the journal file
+     * @return what was recovered
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a journal
+     */
+    public static JournalRecovery recover(Path path) throws IOException
+    {
+        byte[] data = Files.readAllBytes(path);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (data.length < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+        {
+            throw new IllegalArgumentException("Not a move journal: " + path);
+        }
+
+        int baseLength = buffer.getInt(8);
+        GameState base = new SaveLoadSerializer().parseState(data, HEADER_BYTES, baseLength);
+
+        List<Move> moves = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        int sequence = 0;
+        int position = HEADER_BYTES + baseLength;
+        while (position + RECORD_BYTES <= data.length)
+        {
+            crc.reset();
+            crc.update(data, position, Integer.BYTES * 2);
+            if (buffer.getInt(position) != sequence || buffer.getInt(position + 8) != (int) crc.getValue())
+            {
+                break;
+            }
+
+            int move = buffer.getInt(position + 4);
+            if (move != UNDO)
+            {
+                moves.add(Move.unpack(move));
+            }
+            else if (!moves.isEmpty())
+            {
+                moves.remove(moves.size() - 1);
+            }
+            sequence++;
+            position += RECORD_BYTES;
+        }
+        return new JournalRecovery(base, moves, sequence, position);
+    }
+
+    /**
+     * Appends a move.
+     *
+     * @param move the move that was played
+     * @return completes when the move is on disk
+     * @throws RuntimeException if the journal has failed or is closed
+     */
+    public CompletableFuture<Void> append(Move move)
+    {
+        return this.enqueue(move.pack(), null);
+    }
+
+    /**
+     * Appends the taking back of the last move.
+     *
+     * @return completes when the record is on disk
+     * @throws RuntimeException if the journal has failed or is closed
+     */
+    public CompletableFuture<Void> appendUndo()
+    {
+        return this.enqueue(UNDO, null);
+    }
+
+    /**
+     * Starts the journal again from a new base position, e.g. after a new
+     * game was started or loaded. Records appended earlier are written to the
+     * old journal first, and the new one replaces it atomically.
+     *
+     * @param base the new base position; it is encoded before this method
+     *             returns, so the game may change afterwards
+     * @return completes when the new journal is on disk
+     * @throws RuntimeException if the journal has failed or is closed
+     */
+    public CompletableFuture<Void> checkpoint(GameState base)
+    {
+        try
+        {
+            return this.enqueue(0, encodeBase(this.serializer, base));
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Failed to encode move journal base", e);
+        }
+    }
+
+    /**
+     * Waits until everything appended so far is on disk.
+     *
+     * @throws RuntimeException if a record could not be written
+     */
+    public void sync()
+    {
+        this.enqueue(SYNC, null).join();
+    }
+
+    /**
+     * @return the number of records written so far
+     */
+    public long getRecordCount()
+    {
+        return this.recordCount;
+    }
+
+    /**
+     * @return the number of batches forced to disk so far, i.e. the number of
+     *         {@code fsync} calls made for records
+     */
+    public long getBatchCount()
+    {
+        return this.batchCount;
+    }
+
+    /**
+     * Writes everything appended so far and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        if (this.failure == null)
+        {
+            // the writer thread writes everything before it and stops;
+            // interrupting it instead could close the channel mid-write
+            this.enqueue(STOP, null).exceptionally(e -> null).join();
+        }
+        this.closed = true;
+        try
+        {
+            this.writerThread.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        this.channel.close();
+    }
+
+    private CompletableFuture<Void> enqueue(int move, byte[] base)
+    {
+        if (this.closed)
+        {
+            throw new RuntimeException("Move journal is closed");
+        }
+        if (this.failure != null)
+        {
+            throw new RuntimeException("Move journal failed", this.failure);
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        this.queue.add(new Entry(move, base, done));
+        // the writer thread may have failed and emptied the queue for the
+        // last time just before the entry was added, leaving it to us
+        IOException failure = this.failure;
+        if (failure != null)
+        {
+            done.completeExceptionally(failure);
+        }
+        return done;
+    }
+
+    /**
+     * Takes whatever has been appended, writes it with one force, and
+     * repeats; appends arriving during a force make up the next batch.
+     */
+    private void writeLoop()
+    {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        ByteBuffer records = ByteBuffer.allocate(MAX_BATCH * RECORD_BYTES);
+        CRC32 crc = new CRC32();
+        boolean stopping = false;
+        while (!stopping)
+        {
+            try
+            {
+                batch.add(this.queue.take());
+            }
+            catch (InterruptedException e)
+            {
+                continue;
+            }
+            this.queue.drainTo(batch, MAX_BATCH - 1);
+
+            try
+            {
+                records.clear();
+                int written = 0;
+                for (Entry entry : batch)
+                {
+                    if (entry.base() != null)
+                    {
+                        this.writeRecords(records, written);
+                        records.clear();
+                        written = 0;
+                        this.channel.close();
+                        writeBase(this.path, entry.base());
+                        this.channel = openForAppend(this.path, Files.size(this.path));
+                        this.nextSequence = 0;
+                    }
+                    else if (entry.move() == STOP)
+                    {
+                        stopping = true;
+                    }
+                    else if (entry.move() != SYNC)
+                    {
+                        records.putInt(this.nextSequence).putInt(entry.move());
+                        crc.reset();
+                        crc.update(records.array(), records.position() - Integer.BYTES * 2, Integer.BYTES * 2);
+                        records.putInt((int) crc.getValue());
+                        this.nextSequence++;
+                        written++;
+                    }
+                }
+                this.writeRecords(records, written);
+
+                for (Entry entry : batch)
+                {
+                    entry.done().complete(null);
+                }
+            }
+            catch (IOException e)
+            {
+                this.failure = e;
+                for (Entry entry : batch)
+                {
+                    entry.done().completeExceptionally(e);
+                }
+                for (Entry entry = this.queue.poll(); entry != null; entry = this.queue.poll())
+                {
+                    entry.done().completeExceptionally(e);
+                }
+                return;
+            }
+            finally
+            {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeRecords(ByteBuffer records, int count) throws IOException
+    {
+        if (count == 0)
+        {
+            return;
+        }
+        records.flip();
+        while (records.hasRemaining())
+        {
+            this.channel.write(records);
+        }
+        this.channel.force(false);
+        this.recordCount += count;
+        this.batchCount++;
+    }
+
+    private static byte[] encodeBase(SaveLoadSerializer serializer, GameState base) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+        serializer.writeState(base, writer);
+        writer.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeBase(Path path, byte[] base) throws IOException
+    {
+        SaveLoadSerializer.writeAtomically(path, out -> {
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(base.length);
+            header.write(base);
+            header.flush();
+        });
+    }
+
+    private static FileChannel openForAppend(Path path, long length) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        channel.truncate(length);
+        channel.position(length);
+        return channel;
+    }
+}
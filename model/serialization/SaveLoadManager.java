@@ -1,9 +1,15 @@
 package model.serialization;
 
 import model.board.Board;
+import model.board.KwazamBoard;
+import model.diagnostics.SaveLoadEvent;
 import model.game.GameMaster;
+import model.game.KwazamGameMaster;
 import model.game.Player;
-import utils.CircularLinkedList;
+import utils.CircularArrayRing;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Manages saving and loading the state of a game.
@@ -31,23 +37,59 @@ public class SaveLoadManager
         this.board = board;
     }
 
+    /**
+     * Creates a new game set up for the seats of a saved state, and loads the
+     * state into it. The board is built from the seats rather than the
+     * players still in the game, so that its size and every player's army
+     * are those of the saved game.
+     *
+     * @param gameState the saved state
+     * @return a game in the saved state
+     * @throws IllegalArgumentException if the state does not fit its seats
+     */
+    public static KwazamGameMaster newGame(GameState gameState)
+    {
+        List<Player> seats = new ArrayList<>(gameState.seats());
+        KwazamGameMaster game = new KwazamGameMaster(new KwazamBoard(seats), new CircularArrayRing<>(seats));
+        new SaveLoadManager(game, game.getBoard()).loadGame(gameState);
+        return game;
+    }
+
     /**
      * Saves the current state of the game.
      * <p>
-     * This method captures the current turn count, all players,
-     * the current player, and the state of the board’s cells.
+     * This method captures the current turn count, the seats of the board,
+     * all players, the current player, and the state of the board’s cells.
      *
      * @return a {@link GameState} representing the current game configuration
      * @author Abdullah Hawash
      */
     public GameState saveGame()
     {
-        return new GameState(
+        SaveLoadEvent saveEvent = new SaveLoadEvent();
+        saveEvent.begin();
+        GameState gameState = new GameState(
                 gameMaster.getTurnCount(),
+                board.getParticipants(),
                 gameMaster.getPlayers(),
                 gameMaster.getCurrentPlayer(),
                 board.getCells()
         );
+        saveEvent.commit(gameMaster.getGameId(), gameState.turnCount(), "save", null);
+        return gameState;
+    }
+
+    /**
+     * Saves the current state of the game into a reusable snapshot instead of
+     * a new {@link GameState}, without allocating. Meant for saving after
+     * every move, see {@link SnapshotAutosaver}.
+     *
+     * @param snapshot the snapshot to overwrite
+     * @param sequence a number identifying this save
+     */
+    public void saveGameInto(GameSnapshot snapshot, long sequence)
+    {
+        snapshot.capture(gameMaster, board, sequence);
     }
 
     /**
@@ -55,21 +97,40 @@ public class SaveLoadManager
      * <p>
      * This method updates the turn count, reinitializes the list of players
      * in the game master, sets the current player, and restores the board's cells
-     * based on the provided {@link GameState}.
+     * based on the provided {@link GameState}. The move history of the game
+     * master is cleared, as it belongs to the game that was replaced.
      *
      * @param gameState the saved state to load
+     * @throws IllegalArgumentException if the state was saved from a board
+     *                                  with other seats, or a piece belongs
+     *                                  to someone without a seat
      * @author Abdullah Hawash
      */
     public void loadGame(GameState gameState)
     {
+        if (!gameState.seats().equals(board.getParticipants()))
+        {
+            throw new IllegalArgumentException("Saved game is for seats " + seatIds(gameState.seats())
+                    + " but this board has seats " + seatIds(board.getParticipants()));
+        }
+
+        SaveLoadEvent loadEvent = new SaveLoadEvent();
+        loadEvent.begin();
+
         gameMaster.setTurnCount(gameState.turnCount());
 
-        CircularLinkedList<Player> newPlayers = new CircularLinkedList<>();
-        newPlayers.addAll(gameState.players());
-        gameMaster.setPlayers(newPlayers);
+        gameMaster.setPlayers(gameState.players());
 
         gameMaster.setCurrentPlayer(gameState.currentPlayer());
 
         board.setCells(gameState.cells());
+        gameMaster.clearHistory();
+
+        loadEvent.commit(gameMaster.getGameId(), gameState.turnCount(), "load", null);
+    }
+
+    private static String seatIds(List<Player> seats)
+    {
+        return String.join(", ", seats.stream().map(Player::id).toList());
     }
 }
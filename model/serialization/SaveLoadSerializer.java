@@ -1,17 +1,37 @@
 package model.serialization;
 
 import model.board.Cell;
+import model.board.KwazamBoard;
+import model.diagnostics.GameEvents;
+import model.diagnostics.SaveLoadEvent;
 import model.game.Player;
 import model.pieces.*;
 
-import java.io.FileWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Handles saving and loading game states to and from files.
@@ -21,12 +41,51 @@ import java.util.stream.Collectors;
  */
 public class SaveLoadSerializer
 {
+    /**
+     * The header key of the format version, which files written before
+     * versioning was introduced do not have.
+     */
+    public static final String FORMAT_KEY = "Format";
+
+    /**
+     * The newest format version this serializer can read, and the one it
+     * writes. Version 2 added the {@value #SEATS_KEY} field.
+     */
+    public static final int FORMAT_VERSION = 2;
+
+    /**
+     * The header key of the seats of the board, which files written before
+     * version 2 do not have.
+     */
+    public static final String SEATS_KEY = "Seats";
+
+    private static final int GZIP_BUFFER_BYTES = 8192;
+
+    /**
+     * Whether saved files are compressed.
+     */
+    private final boolean compressSaves;
+
     /**
      * Constructs a new instance of this serializer.
      * @author Abdullah Hawash
      */
     public SaveLoadSerializer()
     {
+        this(false);
+    }
+
+    /**
+     * Constructs a new instance of this serializer that saves files either in
+     * the plain text format or GZIP compressed. Saved games are mostly
+     * {@code EMPTY} lines and repeated piece names, so they compress to a
+     * fraction of their size. Loading reads both formats either way.
+     *
+     * @param compressSaves whether to compress saved files
+     */
+    public SaveLoadSerializer(boolean compressSaves)
+    {
+        this.compressSaves = compressSaves;
     }
 
     /**
@@ -39,15 +98,109 @@ public class SaveLoadSerializer
      */
     public void saveStateToFile(GameState gameState, String path)
     {
-        String content = gameState.getStringRepresentation();
-        try (FileWriter writer = new FileWriter(path))
+        SaveLoadEvent saveEvent = new SaveLoadEvent();
+        saveEvent.begin();
+
+        try (OutputStream out = new FileOutputStream(path))
         {
-            writer.write(content);
+            this.encodeState(gameState, out);
         }
         catch (IOException e)
         {
             throw new RuntimeException("Failed to save game state to file", e);
         }
+
+        saveEvent.commit(GameEvents.NO_GAME, gameState.turnCount(), "saveFile", path);
+    }
+
+    /**
+     * Saves the specified game state to a file at the given path so that a
+     * crash at any point leaves either the old file or the new one, never a
+     * partly written one.
+     * <p>
+     * The state is written to a temporary file next to the target, forced to
+     * disk and then renamed over the target in a single atomic step. The
+     * directory is forced as well where the platform allows it, so that the
+     * rename itself survives a crash.
+     *
+     * @param gameState the game state to be saved
+     * @param path the file path where the state should be saved
+     * @throws RuntimeException if an I/O error occurs during save, in which
+     *                          case the target is unchanged
+     */
+    public void saveStateToFileAtomically(GameState gameState, String path)
+    {
+        SaveLoadEvent saveEvent = new SaveLoadEvent();
+        saveEvent.begin();
+
+        Path target = Path.of(path).toAbsolutePath();
+        try
+        {
+            writeAtomically(target, out -> this.encodeState(gameState, out));
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Failed to save game state to file", e);
+        }
+
+        saveEvent.commit(GameEvents.NO_GAME, gameState.turnCount(), "saveFileAtomic", path);
+    }
+
+    /**
+     * Writes a file to a temporary file next to the target, forces it to
+     * disk and renames it over the target atomically. Every write has a
+     * temporary file of its own, so concurrent writes to the same target
+     * cannot clobber each other's content.
+     *
+     * @param target  the file to replace
+     * @param content writes the content of the file
+     * @throws IOException if the file cannot be written, in which case the
+     *                     target is unchanged
+     */
+    static void writeAtomically(Path target, FileContent content) throws IOException
+    {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temporaryFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        boolean moved = false;
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE))
+            {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+                content.write(out);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporaryFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        }
+        finally
+        {
+            if (!moved)
+            {
+                Files.deleteIfExists(temporaryFile);
+            }
+        }
+
+        // Not every platform can open a directory, and the rename is still
+        // atomic without this, just not yet durable
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ))
+        {
+            directoryChannel.force(true);
+        }
+        catch (IOException e)
+        {
+            // best effort
+        }
+    }
+
+    /**
+     * Writes the content of a file.
+     */
+    @FunctionalInterface
+    interface FileContent
+    {
+        void write(OutputStream out) throws IOException;
     }
 
 
@@ -61,58 +214,387 @@ public class SaveLoadSerializer
      * @author Harris Majeed
      */
     public GameState loadStateFromFile(String path)
+    {
+        SaveLoadEvent loadEvent = new SaveLoadEvent();
+        loadEvent.begin();
+
+        GameState gameState = this.readStateFromFile(path);
+
+        loadEvent.commit(GameEvents.NO_GAME, gameState.turnCount(), "loadFile", path);
+        return gameState;
+    }
+
+    /**
+     * Writes a game state to a stream in the format of this serializer,
+     * compressing it on the fly if compression is on. The stream is not
+     * closed.
+     *
+     * @param gameState the game state to write
+     * @param out       the stream to write to
+     * @throws IOException if the stream fails
+     */
+    public void encodeState(GameState gameState, OutputStream out) throws IOException
+    {
+        GZIPOutputStream gzip = this.compressSaves ? new GZIPOutputStream(out, GZIP_BUFFER_BYTES) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip != null ? gzip : out, StandardCharsets.UTF_8));
+        this.writeState(gameState, writer);
+        writer.flush();
+        if (gzip != null)
+        {
+            gzip.finish();
+        }
+    }
+
+    /**
+     * Wraps a stream of a saved game or collection so that it reads the
+     * plain text, decompressing it on the fly if it starts with the GZIP
+     * magic number.
+     *
+     * @param in the stream to read
+     * @return a stream of the plain text
+     * @throws IOException if the stream cannot be read
+     */
+    public static InputStream openDecoded(InputStream in) throws IOException
+    {
+        BufferedInputStream buffered = new BufferedInputStream(in, GZIP_BUFFER_BYTES);
+        buffered.mark(2);
+        int magic = buffered.read() | buffered.read() << 8;
+        buffered.reset();
+        return magic == GZIPInputStream.GZIP_MAGIC
+                ? new GZIPInputStream(buffered, GZIP_BUFFER_BYTES)
+                : buffered;
+    }
+
+    /**
+     * Writes a game state in the format of
+     * {@link GameState#getStringRepresentation()}, straight to a writer
+     * instead of building the text first.
+     *
+     * @param gameState the game state to write
+     * @param writer    the writer to write to, which should be buffered
+     * @throws IOException if the writer fails
+     */
+    public void writeState(GameState gameState, Writer writer) throws IOException
+    {
+        writer.write("Game: Kwazam Chess\nFormat: ");
+        writer.write(Integer.toString(FORMAT_VERSION));
+        writer.write("\nTurn Count: ");
+        writer.write(Integer.toString(gameState.turnCount()));
+        writer.write("\nSeats: ");
+        this.writePlayerIds(gameState.seats(), writer);
+        writer.write("\nPlayers: ");
+        this.writePlayerIds(gameState.players(), writer);
+        writer.write("\nCurrent Player: ");
+        writer.write(gameState.currentPlayer().id());
+        writer.write("\n\n");
+
+        for (List<Cell> row : gameState.cells())
+        {
+            for (Cell cell : row)
+            {
+                this.writeCell(cell, writer);
+                writer.write('\n');
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void writePlayerIds(List<Player> players, Writer writer) throws IOException
+    {
+        for (int i = 0; i < players.size(); i++)
+        {
+            if (i > 0)
+            {
+                writer.write(", ");
+            }
+            writer.write(players.get(i).id());
+        }
+    }
+
+    /**
+     * Writes a cell like {@link Cell#getStringRepresentation()}, without
+     * formatting a string for it.
+     *
+     * @param cell   the cell to write
+     * @param writer the writer to write to
+     * @throws IOException if the writer fails
+     */
+    private void writeCell(Cell cell, Writer writer) throws IOException
+    {
+        Piece piece = cell.getPiece().orElse(null);
+        String type = piece instanceof Ram ? "RAM"
+                : piece instanceof Biz ? "BIZ"
+                : piece instanceof Sau ? "SAU"
+                : piece instanceof Tor ? "TOR"
+                : piece instanceof Xor ? "XOR"
+                : null;
+        if (type == null)
+        {
+            writer.write(cell.getStringRepresentation());
+            return;
+        }
+
+        writer.write(type);
+        writer.write('_');
+        writer.write(piece.getOwner().id());
+        if (piece instanceof Ram ram)
+        {
+            writer.write(ram.isFacingUp() ? "_FACINGUP" : "_FACINGDOWN");
+        }
+        if (piece.isCriticalPiece())
+        {
+            writer.write("_CRITICAL");
+        }
+    }
+
+    /**
+     * Reads and parses a game state from the specified file path.
+     *
+     * @param path the file path from which to load the game state
+     * @return the reconstructed game state
+     * @throws RuntimeException if an I/O error occurs during load
+     * @throws IllegalArgumentException if the file format is invalid
+     */
+    private GameState readStateFromFile(String path)
     {
         try
         {
-            List<String> lines = Files.readAllLines(Path.of(path));
-            if (lines.size() < 5)
+            byte[] data;
+            try (InputStream in = openDecoded(Files.newInputStream(Path.of(path))))
+            {
+                data = in.readAllBytes();
+            }
+            return this.parseState(data, 0, data.length);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Failed to load game state from file", e);
+        }
+    }
+
+    /**
+     * Parses a game state from the bytes of a saved game, using the fast
+     * {@link GameStateParser} and falling back to {@link #parseState(List)}
+     * for anything it does not accept.
+     *
+     * @param data   the buffer holding the saved game
+     * @param offset the index of the first byte of the saved game
+     * @param length the number of bytes of the saved game
+     * @return the reconstructed game state
+     * @throws IOException              if the bytes are not valid UTF-8
+     * @throws IllegalArgumentException if the format is invalid
+     */
+    GameState parseState(byte[] data, int offset, int length) throws IOException
+    {
+        GameState gameState = GameStateParser.parse(data, offset, length);
+        if (gameState != null)
+        {
+            return gameState;
+        }
+
+        // Not a well-formed file: parse it line by line, which decodes it
+        // strictly like Files.readAllLines and reports what is wrong
+        String text = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(data, offset, length)).toString();
+        return this.parseState(text.lines().toList());
+    }
+
+    /**
+     * Parses a game state from the lines of a saved game, as written by
+     * {@link GameState#getStringRepresentation()}.
+     * <p>
+     * The header runs from the second line up to the first blank line, and is
+     * read by key so that header fields added by newer versions are skipped.
+     * A {@value #FORMAT_KEY} field newer than {@value #FORMAT_VERSION} is
+     * rejected, as its cells may not be readable. Files without a
+     * {@value #SEATS_KEY} field get their seats from
+     * {@link #inferSeats(List, int)}.
+     *
+     * @param lines the lines of the saved game
+     * @return the reconstructed game state
+     * @throws IllegalArgumentException if the format is invalid
+     */
+    public GameState parseState(List<String> lines)
+    {
+        if (lines.size() < 5)
+        {
+            throw new IllegalArgumentException("Invalid file format");
+        }
+
+        int cellStartIndex = 1;
+        Map<String, String> header = new HashMap<>();
+        while (cellStartIndex < lines.size() && !lines.get(cellStartIndex).isBlank())
+        {
+            String line = lines.get(cellStartIndex++);
+            int separator = line.indexOf(": ");
+            if (separator < 0)
             {
                 throw new IllegalArgumentException("Invalid file format");
             }
+            header.put(line.substring(0, separator), line);
+        }
+
+        String format = header.get(FORMAT_KEY);
+        if (format != null && Integer.parseInt(format.split(": ")[1]) > FORMAT_VERSION)
+        {
+            throw new IllegalArgumentException("Unsupported format version: " + format);
+        }
+        if (!header.containsKey("Turn Count") || !header.containsKey("Players")
+                || !header.containsKey("Current Player"))
+        {
+            throw new IllegalArgumentException("Invalid file format");
+        }
 
-            int turnCount = parseTurnCount(lines.get(1));
-            List<String> playerIds = parsePlayers(lines.get(2));
-            String currentPlayerId = parseCurrentPlayer(lines.get(3));
+        int turnCount = parseTurnCount(header.get("Turn Count"));
+        List<String> playerIds = parsePlayers(header.get("Players"));
+        String currentPlayerId = parseCurrentPlayer(header.get("Current Player"));
 
-            List<Player> players = playerIds.stream()
-                    .map(Player::new)
-                    .collect(Collectors.toList());
+        List<Player> players = playerIds.stream()
+                .map(Player::new)
+                .collect(Collectors.toList());
+        List<Player> seats = header.containsKey(SEATS_KEY)
+                ? seatsOf(parsePlayers(header.get(SEATS_KEY)), players)
+                : null;
 
-            Player currentPlayer = players.stream()
-                    .filter(player -> player.id().equals(currentPlayerId))
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalArgumentException("Current player not found in players list"));
+        Player currentPlayer = players.stream()
+                .filter(player -> player.id().equals(currentPlayerId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Current player not found in players list"));
 
-            int cellStartIndex = 5;
-            List<Cell> cells = new ArrayList<>();
-            for (int i = cellStartIndex; i < lines.size(); i++)
+        List<Cell> cells = new ArrayList<>();
+        for (int i = cellStartIndex; i < lines.size(); i++)
+        {
+            String line = lines.get(i).trim();
+            if (!line.isEmpty())
             {
-                String line = lines.get(i).trim();
-                if (!line.isEmpty())
-                {
-                    cells.add(parseCell(line, players));
-                }
+                cells.add(parseCell(line, players));
             }
+        }
+
+        // Boards are always 8 rows high and grow by 5 columns for every
+        // extra pair of players, see KwazamBoard
+        int rows = 8;
+        int columns = cells.size() / rows;
+        if (cells.size() != rows * columns || columns == 0
+                || columns % KwazamBoard.ARMY_COLUMNS != 0)
+        {
+            throw new IllegalArgumentException(
+                    "Cell count does not match a board of 8 rows and a multiple of 5 columns");
+        }
+        if (seats == null)
+        {
+            seats = inferSeats(players, columns);
+        }
+        else if (KwazamBoard.columnsFor(seats.size()) != columns)
+        {
+            throw new IllegalArgumentException("%d seats do not fit a board of %d columns"
+                    .formatted(seats.size(), columns));
+        }
+
+        List<List<Cell>> cellGrid = new ArrayList<>();
+        for (int i = 0; i < cells.size(); i += columns)
+        {
+            int end = i + columns;
+            List<Cell> row = new ArrayList<>(cells.subList(i, end));
+            cellGrid.add(row);
+        }
 
-            if (cells.size() != 8 * 5)
+        return new GameState(turnCount, seats, players, currentPlayer, cellGrid);
+    }
+
+    /**
+     * Creates the seats of a saved game from their ids, sharing the
+     * {@link Player} of every seat whose player is still in the game.
+     *
+     * @param seatIds the ids of the seats, in seating order
+     * @param players the players still in the game
+     * @return the seats
+     * @throws IllegalArgumentException if a seat is listed twice or a player
+     *                                  has no seat
+     */
+    static List<Player> seatsOf(List<String> seatIds, List<Player> players)
+    {
+        List<Player> seats = new ArrayList<>(seatIds.size());
+        for (String seatId : seatIds)
+        {
+            Player seat = players.stream()
+                    .filter(player -> player.id().equals(seatId))
+                    .findFirst()
+                    .orElseGet(() -> new Player(seatId));
+            if (seats.contains(seat))
             {
-                throw new IllegalArgumentException("Cell count does not match 8x5 dimensions");
+                throw new IllegalArgumentException("Seat listed twice: " + seatId);
             }
+            seats.add(seat);
+        }
+        for (Player player : players)
+        {
+            if (!seats.contains(player))
+            {
+                throw new IllegalArgumentException("Player " + player.id() + " does not have a seat");
+            }
+        }
+        return seats;
+    }
 
-            List<List<Cell>> cellGrid = new ArrayList<>();
-            for (int i = 0; i < cells.size(); i += 5)
+    /**
+     * Works out the seats of a game saved before the seats were recorded,
+     * from the width of its board and the ids of the players left.
+     * <p>
+     * If the players have the numbered ids the game gives them ("1", "2" and
+     * so on), the seats are numbered up to the highest id or the fewest seats
+     * of a board this wide, whichever is more. Otherwise the players are
+     * taken to be the seats, which only holds if they fill the board.
+     *
+     * @param players the players still in the game
+     * @param columns the number of columns of the board
+     * @return the seats
+     * @throws IllegalArgumentException if the seats cannot be told
+     */
+    static List<Player> inferSeats(List<Player> players, int columns)
+    {
+        int seatCount = KwazamBoard.MIN_PLAYERS;
+        while (seatCount < KwazamBoard.MAX_PLAYERS && KwazamBoard.columnsFor(seatCount) != columns)
+        {
+            seatCount++;
+        }
+        for (Player player : players)
+        {
+            int number = numberOf(player);
+            if (number < 1)
             {
-                int end = i + 5;
-                List<Cell> row = new ArrayList<>(cells.subList(i, end));
-                cellGrid.add(row);
+                if (KwazamBoard.columnsFor(players.size()) != columns)
+                {
+                    throw new IllegalArgumentException("Cannot tell the seats of player " + player.id()
+                            + " on a board of " + columns + " columns without a " + SEATS_KEY + " field");
+                }
+                return players;
             }
+            seatCount = Math.max(seatCount, number);
+        }
+        if (seatCount > KwazamBoard.MAX_PLAYERS || KwazamBoard.columnsFor(seatCount) != columns)
+        {
+            throw new IllegalArgumentException("Players do not fit a board of " + columns + " columns");
+        }
 
-            return new GameState(turnCount, players, currentPlayer, cellGrid);
+        List<String> seatIds = new ArrayList<>(seatCount);
+        for (int seat = 1; seat <= seatCount; seat++)
+        {
+            seatIds.add(String.valueOf(seat));
         }
-        catch (IOException e)
+        return seatsOf(seatIds, players);
+    }
+
+    /**
+     * @return the number a player's id is, or -1 if it is not a number
+     */
+    private static int numberOf(Player player)
+    {
+        String id = player.id();
+        if (id.isEmpty() || id.length() > 9 || !id.chars().allMatch(c -> c >= '0' && c <= '9'))
         {
-            throw new RuntimeException("Failed to load game state from file", e);
+            return -1;
         }
+        return Integer.parseInt(id);
     }
 
     /**
@@ -0,0 +1,236 @@
+package model.serialization;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Saves a game to a file after every move without allocating on the game's
+ * thread.
+ * <p>
+ * The autosaver owns two {@link GameSnapshot}s. {@link #autosave()} captures
+ * the game into whichever one the background writer is not writing, and the
+ * writer writes the latest captured one to the file atomically. While the
+ * writer is busy, further captures overwrite the waiting snapshot, so a fast
+ * game coalesces saves rather than queueing them: only the newest position
+ * is ever written, and the game never waits for the disk.
+ */
+public class SnapshotAutosaver implements Closeable
+{
+    private final SaveLoadManager manager;
+    private final Path path;
+    private final GameSnapshot[] buffers = {new GameSnapshot(), new GameSnapshot()};
+    private final Object lock = new Object();
+    private final Thread writerThread;
+
+    /**
+     * The buffer the writer is writing, and the buffer captured but not yet
+     * written, or {@code -1} for none. Guarded by {@link #lock}.
+     */
+    private int writingIndex = -1;
+    private int readyIndex = -1;
+
+    private long capturedSequence;
+    private long writtenSequence;
+    private long writeCount;
+    private boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * Creates an autosaver and starts its writer thread.
+     *
+     * @param manager the manager of the game to save
+     * @param path    the file to save to, which is replaced on every write
+     */
+    public SnapshotAutosaver(SaveLoadManager manager, Path path)
+    {
+        this.manager = manager;
+        this.path = path.toAbsolutePath();
+        this.writerThread = new Thread(this::writeLoop, "snapshot-autosaver");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Captures the current state of the game to be saved in the background.
+     * Call it on the thread that plays the game, after a move; it does not
+     * allocate and does not wait for the disk.
+     *
+     * @throws RuntimeException if the autosaver has failed or is closed
+     */
+    public void autosave()
+    {
+        synchronized (this.lock)
+        {
+            if (this.closed)
+            {
+                throw new RuntimeException("Autosaver is closed");
+            }
+            if (this.failure != null)
+            {
+                throw new RuntimeException("Autosave failed", this.failure);
+            }
+
+            int target;
+            if (this.writingIndex >= 0)
+            {
+                target = 1 - this.writingIndex;
+            }
+            else
+            {
+                target = this.readyIndex >= 0 ? this.readyIndex : 0;
+            }
+            this.manager.saveGameInto(this.buffers[target], ++this.capturedSequence);
+            this.readyIndex = target;
+            this.lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until the last captured state is on disk.
+     *
+     * @throws RuntimeException if it could not be written
+     */
+    public void flush()
+    {
+        synchronized (this.lock)
+        {
+            boolean interrupted = false;
+            while (this.writtenSequence < this.capturedSequence && this.failure == null)
+            {
+                try
+                {
+                    this.lock.wait();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+            if (this.failure != null)
+            {
+                throw new RuntimeException("Autosave failed", this.failure);
+            }
+        }
+    }
+
+    /**
+     * @return the number of states captured so far
+     */
+    public long getCaptureCount()
+    {
+        synchronized (this.lock)
+        {
+            return this.capturedSequence;
+        }
+    }
+
+    /**
+     * @return the number of times the file has been written so far, which is
+     *         lower than the number of captures when saves were coalesced
+     */
+    public long getWriteCount()
+    {
+        synchronized (this.lock)
+        {
+            return this.writeCount;
+        }
+    }
+
+    /**
+     * Writes the last captured state and stops the writer thread.
+     *
+     * @throws IOException if the last state could not be written
+     */
+    @Override
+    public void close() throws IOException
+    {
+        synchronized (this.lock)
+        {
+            if (this.closed)
+            {
+                return;
+            }
+            this.closed = true;
+            this.lock.notifyAll();
+        }
+        try
+        {
+            this.writerThread.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (this.failure != null)
+        {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * Writes the waiting snapshot whenever there is one, until closed with
+     * nothing left to write.
+     */
+    private void writeLoop()
+    {
+        while (true)
+        {
+            GameSnapshot snapshot;
+            synchronized (this.lock)
+            {
+                while (this.readyIndex < 0 && !this.closed)
+                {
+                    try
+                    {
+                        this.lock.wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // only close() stops the writer
+                    }
+                }
+                if (this.readyIndex < 0)
+                {
+                    return;
+                }
+                this.writingIndex = this.readyIndex;
+                this.readyIndex = -1;
+                snapshot = this.buffers[this.writingIndex];
+            }
+
+            try
+            {
+                SaveLoadSerializer.writeAtomically(this.path, out -> {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                    snapshot.writeTo(writer);
+                    writer.flush();
+                });
+            }
+            catch (IOException e)
+            {
+                this.failure = e;
+            }
+
+            synchronized (this.lock)
+            {
+                this.writingIndex = -1;
+                this.lock.notifyAll();
+                if (this.failure != null)
+                {
+                    return;
+                }
+                this.writtenSequence = snapshot.getSequence();
+                this.writeCount++;
+            }
+        }
+    }
+}
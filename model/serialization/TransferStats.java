@@ -0,0 +1,34 @@
+package model.serialization;
+
+/**
+ * Throughput of a bulk import or export of games.
+ *
+ * @param games the number of games transferred
+ * @param bytes the size of the collection file
+ * @param nanos the time the transfer took, in nanoseconds
+ */
+public record TransferStats(long games, long bytes, long nanos) implements Stringable
+{
+    /**
+     * @return the number of games transferred per second
+     */
+    public double gamesPerSecond()
+    {
+        return this.nanos == 0 ? 0 : this.games * 1e9 / this.nanos;
+    }
+
+    /**
+     * @return the number of megabytes (10^6 bytes) transferred per second
+     */
+    public double megabytesPerSecond()
+    {
+        return this.nanos == 0 ? 0 : this.bytes * 1e3 / this.nanos;
+    }
+
+    @Override
+    public String getStringRepresentation()
+    {
+        return "%d games, %d bytes in %d ms (%.0f games/s, %.1f MB/s)".formatted(this.games, this.bytes,
+                this.nanos / 1_000_000, this.gamesPerSecond(), this.megabytesPerSecond());
+    }
+}
@@ -0,0 +1,219 @@
+package model.spectator;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * One encoded update of a game for spectators: either the cells that changed
+ * with a move (a diff) or every cell of the board (a snapshot).
+ * <p>
+ * A frame is encoded once and the same bytes are handed to every spectator,
+ * so it is immutable. On the wire, and in {@link #asBuffer()}, a frame is a
+ * big-endian int with the length of the rest, followed by
+ * <ul>
+ *   <li>the type, {@link #DIFF} or {@link #SNAPSHOT}, as a byte,</li>
+ *   <li>the sequence number of the update, as an int,</li>
+ *   <li>the turn count, as an int,</li>
+ *   <li>the seat of the player to move, as a byte,</li>
+ *   <li>for a diff, the number of changed cells as a short and a cell index
+ *       and piece code byte for each; for a snapshot, the number of rows and
+ *       columns as bytes and the piece code of every cell, row by row.</li>
+ * </ul>
+ * A cell index is {@code row * columns + column}. A piece code is 0 for an
+ * empty cell and otherwise {@code 1 + seat * 6 + kind}, where the kind is
+ * 0 for a Sau, 1 for a Ram facing up, 2 for a Biz, 3 for a Tor, 4 for a Xor
+ * and 5 for a Ram facing down.
+ * <p>
+ * A spectator applies frames in order to its own copy of the cells. A
+ * snapshot replaces the whole copy, so a spectator that falls behind is sent
+ * a snapshot in place of the diffs it missed.
+ *
+ * @see SpectatorHub
+ */
+public final class SpectatorFrame
+{
+    public static final byte DIFF = 1;
+    public static final byte SNAPSHOT = 2;
+
+    static final int HEADER_BYTES = Integer.BYTES + 1 + Integer.BYTES + Integer.BYTES + 1;
+
+    /**
+     * Frames larger than this are rejected when read, as no board comes close.
+     */
+    private static final int MAX_LENGTH = 1 << 16;
+
+    private final byte[] bytes;
+
+    private SpectatorFrame(byte[] bytes)
+    {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Encodes a diff.
+     *
+     * @param sequence    the sequence number of the update
+     * @param turnCount   the turn count after the move
+     * @param currentSeat the seat of the player to move
+     * @param cells       the indices of the changed cells
+     * @param codes       the piece codes of all cells, by cell index
+     * @param count       the number of changed cells in {@code cells}
+     * @return the frame
+     */
+    static SpectatorFrame diff(int sequence, int turnCount, int currentSeat, int[] cells, byte[] codes, int count)
+    {
+        ByteBuffer buffer = header(DIFF, sequence, turnCount, currentSeat, Short.BYTES + 2 * count);
+        buffer.putShort((short) count);
+        for (int i = 0; i < count; i++)
+        {
+            buffer.put((byte) cells[i]).put(codes[cells[i]]);
+        }
+        return new SpectatorFrame(buffer.array());
+    }
+
+    /**
+     * Encodes a snapshot.
+     *
+     * @param sequence    the sequence number of the update
+     * @param turnCount   the turn count
+     * @param currentSeat the seat of the player to move
+     * @param rows        the number of rows of the board
+     * @param columns     the number of columns of the board
+     * @param codes       the piece codes of all cells, by cell index
+     * @return the frame
+     */
+    static SpectatorFrame snapshot(int sequence, int turnCount, int currentSeat, int rows, int columns, byte[] codes)
+    {
+        ByteBuffer buffer = header(SNAPSHOT, sequence, turnCount, currentSeat, 2 + codes.length);
+        buffer.put((byte) rows).put((byte) columns).put(codes);
+        return new SpectatorFrame(buffer.array());
+    }
+
+    private static ByteBuffer header(byte type, int sequence, int turnCount, int currentSeat, int bodyBytes)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bodyBytes);
+        buffer.putInt(buffer.capacity() - Integer.BYTES)
+                .put(type)
+                .putInt(sequence)
+                .putInt(turnCount)
+                .put((byte) currentSeat);
+        return buffer;
+    }
+
+    /**
+     * Reads a frame written to a stream, e.g. by a {@link SpectatorServer}.
+     *
+     * @param in the stream to read from
+     * @return the frame
+     * @throws IOException if the stream fails, ends or does not hold a frame
+     */
+    public static SpectatorFrame read(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < HEADER_BYTES - Integer.BYTES || length > MAX_LENGTH)
+        {
+            throw new IOException("Not a spectator frame, length " + length);
+        }
+        byte[] bytes = new byte[Integer.BYTES + length];
+        ByteBuffer.wrap(bytes).putInt(length);
+        in.readFully(bytes, Integer.BYTES, length);
+        byte type = bytes[Integer.BYTES];
+        if (type != DIFF && type != SNAPSHOT)
+        {
+            throw new IOException("Not a spectator frame, type " + type);
+        }
+        return new SpectatorFrame(bytes);
+    }
+
+    /**
+     * @return the encoded frame, including its length, as a read-only buffer
+     *         of its own position sharing the bytes of the frame
+     */
+    public ByteBuffer asBuffer()
+    {
+        return ByteBuffer.wrap(this.bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the number of bytes of the encoded frame, including its length
+     */
+    public int size()
+    {
+        return this.bytes.length;
+    }
+
+    /**
+     * @return {@link #DIFF} or {@link #SNAPSHOT}
+     */
+    public byte getType()
+    {
+        return this.bytes[Integer.BYTES];
+    }
+
+    public int getSequence()
+    {
+        return ByteBuffer.wrap(this.bytes).getInt(Integer.BYTES + 1);
+    }
+
+    public int getTurnCount()
+    {
+        return ByteBuffer.wrap(this.bytes).getInt(Integer.BYTES + 1 + Integer.BYTES);
+    }
+
+    public int getCurrentSeat()
+    {
+        return this.bytes[HEADER_BYTES - 1];
+    }
+
+    /**
+     * Applies this frame to a spectator's copy of the cells.
+     *
+     * @param cells the piece codes of all cells, by cell index; for a
+     *              snapshot, {@code null} or an array of the wrong size is
+     *              replaced
+     * @return the updated cells, which are {@code cells} itself unless a
+     *         snapshot replaced them
+     * @throws IllegalStateException if a diff arrives before any snapshot
+     */
+    public byte[] applyTo(byte[] cells)
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(this.bytes);
+        buffer.position(HEADER_BYTES);
+        if (this.getType() == SNAPSHOT)
+        {
+            int cellCount = buffer.get() * buffer.get();
+            if (cells == null || cells.length != cellCount)
+            {
+                cells = new byte[cellCount];
+            }
+            buffer.get(cells);
+            return cells;
+        }
+
+        if (cells == null)
+        {
+            throw new IllegalStateException("A diff needs a snapshot to apply to");
+        }
+        int count = buffer.getShort();
+        for (int i = 0; i < count; i++)
+        {
+            int cell = Byte.toUnsignedInt(buffer.get());
+            cells[cell] = buffer.get();
+        }
+        return cells;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        return other instanceof SpectatorFrame frame && Arrays.equals(this.bytes, frame.bytes);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(this.bytes);
+    }
+}
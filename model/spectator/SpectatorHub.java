@@ -0,0 +1,291 @@
+package model.spectator;
+
+import model.board.Board;
+import model.board.CellPosition;
+import model.game.KwazamGameMaster;
+import model.listeners.BoardChangeListener;
+import model.pieces.Biz;
+import model.pieces.Piece;
+import model.pieces.Ram;
+import model.pieces.Sau;
+import model.pieces.Tor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Broadcasts a game to any number of spectators in the same process, e.g.
+ * the connections of a {@link SpectatorServer}.
+ * <p>
+ * The hub follows every change to the board of the game and keeps its own
+ * piece codes of the cells, so it never has to read the board. Calling
+ * {@link #publish()} after a move (or an undo, a loaded game and so on)
+ * encodes the cells changed since the last update as one
+ * {@link SpectatorFrame} diff, plus a snapshot of the whole board, and hands
+ * those same two frames to every spectator. However many spectators there
+ * are, a move is encoded once; each spectator only costs a queue offer.
+ * <p>
+ * Board changes and {@link #publish()} must come from the thread that plays
+ * the game. Spectators can subscribe and read from any thread; subscribing
+ * and handing out an update are done under the hub's lock, so every update
+ * is either in a new spectator's first snapshot or queued after it, exactly
+ * once.
+ *
+ * @see SpectatorSubscription
+ */
+public class SpectatorHub implements BoardChangeListener
+{
+    private static final int PIECE_KINDS = 6;
+
+    private final KwazamGameMaster gameMaster;
+    private final int rows;
+    private final int columns;
+    private final int queueCapacity;
+
+    /**
+     * The piece code of every cell, kept up to date by the board events.
+     */
+    private final byte[] codes;
+
+    /**
+     * The cells changed since the last update, in the first changedCount
+     * slots, each only once.
+     */
+    private final int[] changedCells;
+    private final boolean[] changed;
+    private int changedCount;
+
+    private final Set<SpectatorSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final List<Runnable> publishListeners = new CopyOnWriteArrayList<>();
+
+    private int sequence;
+    private int publishedTurnCount;
+    private int publishedSeat;
+    private volatile SpectatorFrame latestSnapshot;
+    private volatile long publishCount;
+
+    /**
+     * Creates a hub for a game and starts following its board.
+     *
+     * @param gameMaster    the game to broadcast
+     * @param queueCapacity how many frames a spectator may fall behind by
+     *                      before it is sent a snapshot instead
+     * @throws IllegalArgumentException if the capacity is less than 1
+     */
+    public SpectatorHub(KwazamGameMaster gameMaster, int queueCapacity)
+    {
+        if (queueCapacity < 1)
+        {
+            throw new IllegalArgumentException("Queue capacity must be at least 1: " + queueCapacity);
+        }
+        this.gameMaster = gameMaster;
+        this.rows = gameMaster.getBoardRows();
+        this.columns = gameMaster.getBoardColumns();
+        this.queueCapacity = queueCapacity;
+        this.codes = new byte[this.rows * this.columns];
+        this.changedCells = new int[this.codes.length];
+        this.changed = new boolean[this.codes.length];
+
+        // the first snapshot covers the board as it is, so nothing has
+        // changed since
+        this.readBoard(gameMaster.getBoard());
+        Arrays.fill(this.changed, false);
+        this.changedCount = 0;
+        this.publishedTurnCount = gameMaster.getTurnCount();
+        this.publishedSeat = this.currentSeat();
+        this.latestSnapshot = this.encodeSnapshot();
+        gameMaster.getBoard().registerChangeListener(this);
+    }
+
+    /**
+     * Stops following the board. Spectators keep what they were sent.
+     */
+    public void detach()
+    {
+        this.gameMaster.getBoard().unregisterChangeListener(this);
+    }
+
+    /**
+     * Subscribes a spectator, starting with a snapshot of the position as of
+     * the last update.
+     *
+     * @return the spectator's queue of frames
+     */
+    public synchronized SpectatorSubscription subscribe()
+    {
+        SpectatorSubscription subscription = new SpectatorSubscription(this, this.queueCapacity, this.latestSnapshot);
+        this.subscriptions.add(subscription);
+        return subscription;
+    }
+
+    void unsubscribe(SpectatorSubscription subscription)
+    {
+        this.subscriptions.remove(subscription);
+    }
+
+    /**
+     * Registers something to be run after every update has been handed to
+     * the spectators, e.g. to wake up a thread that sends them on.
+     *
+     * @param listener the listener to run, on the thread that publishes
+     */
+    public void registerPublishListener(Runnable listener)
+    {
+        this.publishListeners.add(listener);
+    }
+
+    public void unregisterPublishListener(Runnable listener)
+    {
+        this.publishListeners.remove(listener);
+    }
+
+    /**
+     * Sends the changes since the last update to every spectator. Does
+     * nothing if nothing changed.
+     */
+    public void publish()
+    {
+        int turnCount = this.gameMaster.getTurnCount();
+        int seat = this.currentSeat();
+        if (this.changedCount == 0 && turnCount == this.publishedTurnCount && seat == this.publishedSeat)
+        {
+            return;
+        }
+
+        this.sequence++;
+        this.publishedTurnCount = turnCount;
+        this.publishedSeat = seat;
+        SpectatorFrame snapshot = this.encodeSnapshot();
+        // a diff of most of the board is no smaller than the board itself
+        SpectatorFrame diff = 2 * this.changedCount < this.codes.length
+                ? SpectatorFrame.diff(this.sequence, turnCount, seat, this.changedCells, this.codes, this.changedCount)
+                : snapshot;
+        for (int i = 0; i < this.changedCount; i++)
+        {
+            this.changed[this.changedCells[i]] = false;
+        }
+        this.changedCount = 0;
+
+        this.handOut(diff, snapshot);
+        this.publishCount++;
+        for (Runnable listener : this.publishListeners)
+        {
+            listener.run();
+        }
+    }
+
+    /**
+     * Makes an update the one new spectators start from, and queues it for
+     * every spectator already subscribed.
+     */
+    private synchronized void handOut(SpectatorFrame diff, SpectatorFrame snapshot)
+    {
+        this.latestSnapshot = snapshot;
+        for (SpectatorSubscription subscription : this.subscriptions)
+        {
+            subscription.offer(diff, snapshot);
+        }
+    }
+
+    /**
+     * @return the snapshot sent with the last update, or of the position
+     *         the hub was created in
+     */
+    public SpectatorFrame getLatestSnapshot()
+    {
+        return this.latestSnapshot;
+    }
+
+    public int getSubscriberCount()
+    {
+        return this.subscriptions.size();
+    }
+
+    public long getPublishCount()
+    {
+        return this.publishCount;
+    }
+
+    @Override
+    public void onPiecePlaced(Piece piece, CellPosition cellPos)
+    {
+        this.setCode(cellPos.row() * this.columns + cellPos.column(), this.codeOf(piece));
+    }
+
+    @Override
+    public void onPieceRemoved(Piece piece, CellPosition cellPos)
+    {
+        this.setCode(cellPos.row() * this.columns + cellPos.column(), (byte) 0);
+    }
+
+    @Override
+    public void onBoardReset(Board board)
+    {
+        this.readBoard(board);
+    }
+
+    private void readBoard(Board board)
+    {
+        for (int row = 0; row < this.rows; row++)
+        {
+            for (int column = 0; column < this.columns; column++)
+            {
+                Piece piece = board.getPieceOrNull(row, column);
+                this.setCode(row * this.columns + column, piece == null ? 0 : this.codeOf(piece));
+            }
+        }
+    }
+
+    private void setCode(int cell, byte code)
+    {
+        this.codes[cell] = code;
+        if (!this.changed[cell])
+        {
+            this.changed[cell] = true;
+            this.changedCells[this.changedCount++] = cell;
+        }
+    }
+
+    private SpectatorFrame encodeSnapshot()
+    {
+        return SpectatorFrame.snapshot(this.sequence, this.publishedTurnCount, this.publishedSeat,
+                this.rows, this.columns, this.codes);
+    }
+
+    private int currentSeat()
+    {
+        return this.gameMaster.getSeat(this.gameMaster.getCurrentPlayer());
+    }
+
+    /**
+     * Encodes a piece as described in {@link SpectatorFrame}.
+     */
+    private byte codeOf(Piece piece)
+    {
+        int kind;
+        if (piece instanceof Sau)
+        {
+            kind = 0;
+        }
+        else if (piece instanceof Ram ram)
+        {
+            kind = ram.isFacingUp() ? 1 : 5;
+        }
+        else if (piece instanceof Biz)
+        {
+            kind = 2;
+        }
+        else if (piece instanceof Tor)
+        {
+            kind = 3;
+        }
+        else
+        {
+            kind = 4;
+        }
+        return (byte) (1 + this.gameMaster.getSeat(piece.getOwner()) * PIECE_KINDS + kind);
+    }
+}
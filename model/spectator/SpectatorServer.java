@@ -0,0 +1,256 @@
+package model.spectator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Sends the frames of a {@link SpectatorHub} to spectators connecting over
+ * TCP on the loopback interface, e.g. other programs on the same machine
+ * showing the game.
+ * <p>
+ * Every connection is a subscription of the hub, and is sent the frames of
+ * its subscription one after the other as described in
+ * {@link SpectatorFrame}. All connections are served by a single thread
+ * without blocking: the shared bytes of a frame are written as far as the
+ * connection takes them, and the rest once it can take more. A spectator
+ * that reads too slowly therefore falls behind on its subscription only, and
+ * catches up through a snapshot. Anything a spectator sends is ignored.
+ */
+public class SpectatorServer implements Closeable
+{
+    /**
+     * A connected spectator and the frame it is being sent.
+     */
+    private static final class Connection
+    {
+        private final SocketChannel channel;
+        private final SpectatorSubscription subscription;
+        private ByteBuffer pending;
+
+        private Connection(SocketChannel channel, SpectatorSubscription subscription)
+        {
+            this.channel = channel;
+            this.subscription = subscription;
+        }
+    }
+
+    private final SpectatorHub hub;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Runnable wakeUp;
+    private final Thread serverThread;
+    private final ByteBuffer discard = ByteBuffer.allocate(256);
+    private volatile boolean closed;
+
+    /**
+     * Starts serving spectators.
+     *
+     * @param hub  the hub whose frames to send
+     * @param port the loopback port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be listened on
+     */
+    public SpectatorServer(SpectatorHub hub, int port) throws IOException
+    {
+        this.hub = hub;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try
+        {
+            this.serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            this.serverChannel.configureBlocking(false);
+            this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+        }
+        catch (IOException e)
+        {
+            this.serverChannel.close();
+            this.selector.close();
+            throw e;
+        }
+
+        // the selector is woken up to send every update, rather than the
+        // hub waiting on any of the connections
+        this.wakeUp = this.selector::wakeup;
+        hub.registerPublishListener(this.wakeUp);
+
+        this.serverThread = new Thread(this::serveLoop, "spectator-server");
+        this.serverThread.setDaemon(true);
+        this.serverThread.start();
+    }
+
+    /**
+     * @return the port spectators can connect to
+     */
+    public int getPort()
+    {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Disconnects every spectator and stops listening.
+     *
+     * @throws IOException if the port cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        this.closed = true;
+        this.hub.unregisterPublishListener(this.wakeUp);
+        this.selector.wakeup();
+        try
+        {
+            this.serverThread.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        this.serverChannel.close();
+    }
+
+    private void serveLoop()
+    {
+        try (this.selector)
+        {
+            while (!this.closed)
+            {
+                this.selector.select();
+                for (SelectionKey key : this.selector.selectedKeys())
+                {
+                    if (key.isValid() && key.isAcceptable())
+                    {
+                        this.accept();
+                    }
+                    else if (key.isValid() && key.isReadable())
+                    {
+                        this.receive(key, (Connection) key.attachment());
+                    }
+                }
+                this.selector.selectedKeys().clear();
+
+                // any connection may have frames, whether the wake-up was an
+                // update or it can take more of a frame
+                for (SelectionKey key : this.selector.keys())
+                {
+                    if (key.isValid() && key.attachment() instanceof Connection connection)
+                    {
+                        this.send(key, connection);
+                    }
+                }
+            }
+            for (SelectionKey key : this.selector.keys())
+            {
+                if (key.attachment() instanceof Connection connection)
+                {
+                    this.disconnect(key, connection);
+                }
+            }
+        }
+        catch (IOException | ClosedSelectorException e)
+        {
+            if (!this.closed)
+            {
+                System.err.println("Spectator server stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException
+    {
+        SocketChannel channel;
+        while ((channel = this.serverChannel.accept()) != null)
+        {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel, this.hub.subscribe());
+            channel.register(this.selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    /**
+     * Throws away what a spectator sent, only to find out whether it has
+     * gone away.
+     */
+    private void receive(SelectionKey key, Connection connection)
+    {
+        try
+        {
+            int read;
+            do
+            {
+                this.discard.clear();
+                read = connection.channel.read(this.discard);
+            }
+            while (read > 0);
+            if (read < 0)
+            {
+                this.disconnect(key, connection);
+            }
+        }
+        catch (IOException e)
+        {
+            this.disconnect(key, connection);
+        }
+    }
+
+    /**
+     * Writes as many of a connection's frames as it takes without blocking,
+     * and asks to be told when it takes more if it did not take them all.
+     */
+    private void send(SelectionKey key, Connection connection)
+    {
+        try
+        {
+            while (true)
+            {
+                if (connection.pending == null)
+                {
+                    SpectatorFrame frame = connection.subscription.poll();
+                    if (frame == null)
+                    {
+                        key.interestOps(SelectionKey.OP_READ);
+                        return;
+                    }
+                    connection.pending = frame.asBuffer();
+                }
+                connection.channel.write(connection.pending);
+                if (connection.pending.hasRemaining())
+                {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                connection.pending = null;
+            }
+        }
+        catch (IOException e)
+        {
+            // the spectator went away
+            this.disconnect(key, connection);
+        }
+    }
+
+    private void disconnect(SelectionKey key, Connection connection)
+    {
+        key.cancel();
+        connection.subscription.close();
+        try
+        {
+            connection.channel.close();
+        }
+        catch (IOException ignored)
+        {
+            // nothing more is sent to it either way
+        }
+    }
+}
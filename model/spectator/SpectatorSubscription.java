@@ -0,0 +1,95 @@
+package model.spectator;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A spectator's queue of frames from a {@link SpectatorHub}.
+ * <p>
+ * The queue is bounded, so a spectator that stops reading cannot hold on to
+ * every move of the game. When its queue is full, the frames it has not read
+ * are dropped and replaced by a single snapshot of the position, and the
+ * spectator carries on with the diffs after it. The first frame is always a
+ * snapshot of the position at the time of subscribing.
+ * <p>
+ * A subscription may be read from any thread.
+ */
+public class SpectatorSubscription implements Closeable
+{
+    private final SpectatorHub hub;
+    private final BlockingQueue<SpectatorFrame> frames;
+    private volatile long resyncCount;
+
+    SpectatorSubscription(SpectatorHub hub, int capacity, SpectatorFrame snapshot)
+    {
+        this.hub = hub;
+        this.frames = new ArrayBlockingQueue<>(capacity);
+        this.frames.add(snapshot);
+    }
+
+    /**
+     * Queues a frame, or the snapshot of the same update in place of every
+     * queued frame if the queue is full.
+     */
+    synchronized void offer(SpectatorFrame frame, SpectatorFrame snapshot)
+    {
+        if (!this.frames.offer(frame))
+        {
+            this.frames.clear();
+            this.frames.add(snapshot);
+            this.resyncCount++;
+        }
+    }
+
+    /**
+     * @return the next frame, or {@code null} if there is none yet
+     */
+    public SpectatorFrame poll()
+    {
+        return this.frames.poll();
+    }
+
+    /**
+     * Waits for the next frame.
+     *
+     * @param timeout how long to wait
+     * @param unit    the unit of the timeout
+     * @return the next frame, or {@code null} if none came in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public SpectatorFrame poll(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return this.frames.poll(timeout, unit);
+    }
+
+    /**
+     * Waits for the next frame.
+     *
+     * @return the next frame
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public SpectatorFrame take() throws InterruptedException
+    {
+        return this.frames.take();
+    }
+
+    /**
+     * @return how many times this spectator fell behind and was sent a
+     *         snapshot in place of the frames it had not read
+     */
+    public long getResyncCount()
+    {
+        return this.resyncCount;
+    }
+
+    /**
+     * Stops receiving frames. Frames already queued can still be read.
+     */
+    @Override
+    public void close()
+    {
+        this.hub.unsubscribe(this);
+    }
+}
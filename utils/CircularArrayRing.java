@@ -0,0 +1,383 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An array-backed ring of elements with a cursor that can be advanced around
+ * the ring indefinitely.
+ * <p>
+ * Every element lives in its own slot of a set of parallel arrays, and the
+ * ring order is kept as doubly linked {@code next}/{@code prev} slot indices.
+ * A slot never moves once assigned, which gives this class the following
+ * properties:
+ * <ul>
+ *   <li>
+ *     {@link #advance()} is a single array lookup, no matter how many
+ *     elements are in the ring.
+ *   </li>
+ *   <li>
+ *     {@link #remove(Object)} unlinks a slot in constant time and keeps the
+ *     cursor on a sensible element, so the rotation order of the remaining
+ *     elements is unaffected (unlike index-based iteration over a list,
+ *     where removing an element shifts every index after it).
+ *   </li>
+ *   <li>
+ *     {@link #snapshot()} is cached between mutations, so handing out the
+ *     element list is free in the common case.
+ *   </li>
+ * </ul>
+ * Elements are located through their {@code equals}/{@code hashCode}, so the
+ * ring must not contain duplicates.
+ *
+ * @param <T> the type of elements held in this ring
+ */
+public class CircularArrayRing<T> implements Iterable<T>
+{
+    private static final int NO_SLOT = -1;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final Map<T, Integer> slotsByElement = new HashMap<>();
+
+    private Object[] elements = new Object[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int[] prev = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of slots handed out since the last {@link #clear()}. Slots of
+     * removed elements are not reused so that indices stay stable.
+     */
+    private int usedSlots = 0;
+    private int size = 0;
+    private int head = NO_SLOT;
+    private int cursor = NO_SLOT;
+
+    /**
+     * Cached result of {@link #snapshot()}, or {@code null} if the ring has
+     * changed since it was last built.
+     */
+    private List<T> snapshot = null;
+
+    /**
+     * Constructs an empty ring.
+     */
+    public CircularArrayRing()
+    {
+    }
+
+    /**
+     * Constructs a ring holding the given elements in iteration order.
+     *
+     * @param elements the elements to add to the ring
+     */
+    public CircularArrayRing(Collection<? extends T> elements)
+    {
+        this.addAll(elements);
+    }
+
+    /**
+     * Appends an element to the end of the ring, i.e. just before the first
+     * element in rotation order.
+     *
+     * @param element the element to add; must not already be in the ring
+     * @throws IllegalArgumentException if the element is already in the ring
+     */
+    public void add(T element)
+    {
+        if (this.slotsByElement.containsKey(element))
+        {
+            throw new IllegalArgumentException("Element is already in the ring: " + element);
+        }
+
+        if (this.usedSlots == this.elements.length)
+        {
+            int newCapacity = this.elements.length * 2;
+            this.elements = Arrays.copyOf(this.elements, newCapacity);
+            this.next = Arrays.copyOf(this.next, newCapacity);
+            this.prev = Arrays.copyOf(this.prev, newCapacity);
+        }
+
+        int slot = this.usedSlots++;
+        this.elements[slot] = element;
+        this.slotsByElement.put(element, slot);
+
+        if (this.head == NO_SLOT)
+        {
+            this.head = slot;
+            this.next[slot] = slot;
+            this.prev[slot] = slot;
+        }
+        else
+        {
+            int tail = this.prev[this.head];
+            this.next[tail] = slot;
+            this.prev[slot] = tail;
+            this.next[slot] = this.head;
+            this.prev[this.head] = slot;
+        }
+
+        this.size++;
+        this.snapshot = null;
+    }
+
+    /**
+     * Appends all given elements to the end of the ring, in iteration order.
+     *
+     * @param elements the elements to add
+     */
+    public void addAll(Collection<? extends T> elements)
+    {
+        for (T element : elements)
+        {
+            this.add(element);
+        }
+    }
+
+    /**
+     * Removes an element from the ring in constant time.
+     * <p>
+     * If the removed element is the one under the cursor, the cursor moves
+     * back to the previous element so that the next call to
+     * {@link #advance()} yields the element that would have followed the
+     * removed one.
+     *
+     * @param element the element to remove
+     * @return {@code true} if the element was in the ring
+     */
+    public boolean remove(Object element)
+    {
+        Integer slot = this.slotsByElement.remove(element);
+        if (slot == null)
+        {
+            return false;
+        }
+
+        this.size--;
+        this.snapshot = null;
+        this.elements[slot] = null;
+
+        if (this.size == 0)
+        {
+            this.head = NO_SLOT;
+            this.cursor = NO_SLOT;
+            return true;
+        }
+
+        int before = this.prev[slot];
+        int after = this.next[slot];
+        this.next[before] = after;
+        this.prev[after] = before;
+
+        if (this.head == slot)
+        {
+            this.head = after;
+        }
+        if (this.cursor == slot)
+        {
+            this.cursor = before;
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the slot of an element. Slots stay the same for as long as the
+     * element is in the ring, and can be used to {@link #restore(int, Object)
+     * restore} the element to the same place after it has been removed.
+     *
+     * @param element the element to look up
+     * @return the slot of the element, or {@code -1} if it is not in the ring
+     */
+    public int slotOf(Object element)
+    {
+        Integer slot = this.slotsByElement.get(element);
+        return slot == null ? NO_SLOT : slot;
+    }
+
+    /**
+     * Puts a removed element back into the slot it was removed from, between
+     * the same neighbours as before, in constant time.
+     * <p>
+     * The neighbours are only guaranteed to be the same if removals are undone
+     * in reverse order (i.e. like a stack), which is the intended use.
+     *
+     * @param slot    the slot the element had before it was removed, as
+     *                returned by {@link #slotOf(Object)}
+     * @param element the element to restore
+     * @throws IllegalArgumentException if the slot is in use or was never
+     *                                  handed out, or the element is already
+     *                                  in the ring
+     */
+    public void restore(int slot, T element)
+    {
+        if (slot < 0 || slot >= this.usedSlots || this.elements[slot] != null
+                || this.slotsByElement.containsKey(element))
+        {
+            throw new IllegalArgumentException("Cannot restore element into slot " + slot);
+        }
+
+        this.elements[slot] = element;
+        this.slotsByElement.put(element, slot);
+
+        if (this.size == 0)
+        {
+            this.next[slot] = slot;
+            this.prev[slot] = slot;
+            this.head = slot;
+        }
+        else
+        {
+            // the links of the removed slot still point at its old neighbours
+            this.next[this.prev[slot]] = slot;
+            this.prev[this.next[slot]] = slot;
+
+            // slots are handed out in rotation order, so the first element is
+            // always the one in the lowest slot
+            if (slot < this.head)
+            {
+                this.head = slot;
+            }
+        }
+
+        this.size++;
+        this.snapshot = null;
+    }
+
+    /**
+     * Moves the cursor to the next element in rotation order and returns it.
+     * The first call after construction (or after {@link #clear()}) returns
+     * the first element of the ring.
+     *
+     * @return the element now under the cursor
+     * @throws NoSuchElementException if the ring is empty
+     */
+    public T advance()
+    {
+        if (this.size == 0)
+        {
+            throw new NoSuchElementException();
+        }
+
+        this.cursor = this.cursor == NO_SLOT ? this.head : this.next[this.cursor];
+        return this.elementAt(this.cursor);
+    }
+
+    /**
+     * Retrieves the element under the cursor.
+     *
+     * @return the element under the cursor, or {@code null} if the cursor has
+     * not been placed yet
+     */
+    public T current()
+    {
+        return this.cursor == NO_SLOT ? null : this.elementAt(this.cursor);
+    }
+
+    /**
+     * Places the cursor on the given element in constant time.
+     *
+     * @param element the element to place the cursor on
+     * @throws IllegalArgumentException if the element is not in the ring
+     */
+    public void setCurrent(T element)
+    {
+        Integer slot = this.slotsByElement.get(element);
+        if (slot == null)
+        {
+            throw new IllegalArgumentException("Element is not in the ring: " + element);
+        }
+        this.cursor = slot;
+    }
+
+    /**
+     * Retrieves the first element of the ring in rotation order.
+     *
+     * @return the first element
+     * @throws NoSuchElementException if the ring is empty
+     */
+    public T getFirst()
+    {
+        if (this.size == 0)
+        {
+            throw new NoSuchElementException();
+        }
+        return this.elementAt(this.head);
+    }
+
+    public boolean contains(Object element)
+    {
+        return this.slotsByElement.containsKey(element);
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes every element and resets the cursor.
+     */
+    public void clear()
+    {
+        Arrays.fill(this.elements, 0, this.usedSlots, null);
+        this.slotsByElement.clear();
+        this.usedSlots = 0;
+        this.size = 0;
+        this.head = NO_SLOT;
+        this.cursor = NO_SLOT;
+        this.snapshot = null;
+    }
+
+    /**
+     * Returns an unmodifiable list of the elements in rotation order, starting
+     * from the first element. The list is cached until the ring is next
+     * modified, so repeated calls do not allocate.
+     *
+     * @return an unmodifiable list of the elements in this ring
+     */
+    public List<T> snapshot()
+    {
+        if (this.snapshot == null)
+        {
+            Object[] ordered = new Object[this.size];
+            int slot = this.head;
+            for (int i = 0; i < this.size; i++)
+            {
+                ordered[i] = this.elements[slot];
+                slot = this.next[slot];
+            }
+
+            @SuppressWarnings("unchecked")
+            List<T> list = (List<T>) List.of(ordered);
+            this.snapshot = list;
+        }
+        return this.snapshot;
+    }
+
+    /**
+     * Returns an iterator that visits each element once, in rotation order,
+     * starting from the first element. It does not support removal.
+     *
+     * @return an iterator over the elements in this ring
+     */
+    @Override
+    public Iterator<T> iterator()
+    {
+        return this.snapshot().iterator();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int slot)
+    {
+        return (T) this.elements[slot];
+    }
+}
@@ -0,0 +1,71 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records when each phase of starting the game began and ended, so that a
+ * slow start can be traced to the phase responsible.
+ * <p>
+ * Phases may run in parallel on different threads, so each one is recorded
+ * as its own span measured from the start of {@code main}, and the report
+ * lists the spans rather than adding them up.
+ */
+public class StartupTimings
+{
+    private record Phase(String name, long beginNanos, long endNanos)
+    {
+    }
+
+    private final long startNanos = System.nanoTime();
+    private final List<Phase> phases = new ArrayList<>();
+
+    /**
+     * @return the current time, to pass to {@link #record} when the phase
+     *         that starts now has ended
+     */
+    public long now()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a phase that ends now.
+     *
+     * @param name       the name of the phase, e.g. "window"
+     * @param beginNanos the time the phase began, from {@link #now()}
+     */
+    public synchronized void record(String name, long beginNanos)
+    {
+        this.phases.add(new Phase(name, beginNanos, System.nanoTime()));
+    }
+
+    /**
+     * Describes the phases recorded so far, e.g.
+     * "startup: window 2-240 ms, model 3-60 ms; ready after 250 ms".
+     *
+     * @return the report, on one line
+     */
+    public synchronized String report()
+    {
+        StringBuilder report = new StringBuilder("startup:");
+        long readyNanos = this.startNanos;
+        for (Phase phase : this.phases)
+        {
+            report.append(' ').append(phase.name()).append(' ')
+                    .append(this.millis(phase.beginNanos())).append('-')
+                    .append(this.millis(phase.endNanos())).append(" ms,");
+            readyNanos = Math.max(readyNanos, phase.endNanos());
+        }
+        if (!this.phases.isEmpty())
+        {
+            report.setLength(report.length() - 1);
+        }
+        return report.append("; ready after ").append(this.millis(readyNanos)).append(" ms").toString();
+    }
+
+    private long millis(long nanos)
+    {
+        return (nanos - this.startNanos) / 1_000_000;
+    }
+}
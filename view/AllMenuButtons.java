@@ -7,7 +7,8 @@ import java.awt.event.ActionListener;
 /**
  * The AllMenuButtons class represents a panel containing the menu buttons for
  * the game. It includes buttons for saving the game, loading a game, and
- * starting a new game.
+ * starting a new game, plus a second row for undoing and redoing moves and
+ * turning move hints on or off, and a third for replaying the game.
  * <p>
  * This class sets up a flexible layout to accommodate the buttons and provides
  * a consistent styling for each button.
@@ -20,6 +21,10 @@ public class AllMenuButtons extends JPanel
     private JButton saveGameButton;
     private JButton loadGameButton;
     private JButton newGameButton;
+    private JButton undoButton;
+    private JButton redoButton;
+    private JButton hintsButton;
+    private JButton replayButton;
 
     /**
      * The AllMenuButtons class represents a panel containing the menu buttons for
@@ -52,6 +57,10 @@ public class AllMenuButtons extends JPanel
         saveGameButton = createButton("SAVE GAME", new Color(255, 0, 0), Color.WHITE);
         loadGameButton = createButton("LOAD GAME", new Color(0, 128, 0), Color.WHITE);
         newGameButton = createButton("NEW GAME", new Color(0, 0, 255), Color.WHITE);
+        undoButton = createButton("UNDO", new Color(105, 105, 105), Color.WHITE);
+        redoButton = createButton("REDO", new Color(128, 0, 128), Color.WHITE);
+        hintsButton = createButton("HINTS: OFF", new Color(0, 128, 128), Color.WHITE);
+        replayButton = createButton("REPLAY", new Color(184, 134, 11), Color.WHITE);
 
         // Add the "SAVE GAME" button to the left 
         gbc.gridx = 0;
@@ -65,8 +74,26 @@ public class AllMenuButtons extends JPanel
         gbc.gridx = 2;
         add(newGameButton, gbc);
 
+        // Undo, redo and hints go in a second row below the first row
+        gbc.gridy = 1;
+        gbc.insets = new Insets(10, 20, 0, 20);
+
+        gbc.gridx = 0;
+        add(undoButton, gbc);
+
+        gbc.gridx = 1;
+        add(redoButton, gbc);
+
+        gbc.gridx = 2;
+        add(hintsButton, gbc);
+
+        // Replay goes in the middle of a third row
+        gbc.gridy = 2;
+        gbc.gridx = 1;
+        add(replayButton, gbc);
+
         // Set the preferred size of the whole panel to fit everything nicely
-        setPreferredSize(new Dimension(500, 80));
+        setPreferredSize(new Dimension(500, 180));
     }
 
     /**
@@ -106,6 +133,61 @@ public class AllMenuButtons extends JPanel
         newGameButton.addActionListener(listener);
     }
 
+    /**
+     * Adds an ActionListener to the "UNDO" button to handle take-backs.
+     *
+     * @param listener the {@link ActionListener} to be invoked when the
+     *                 "UNDO" button is clicked.
+     */
+    public void addUndoListener(ActionListener listener)
+    {
+        undoButton.addActionListener(listener);
+    }
+    /**
+     * Adds an ActionListener to the "REDO" button to replay a taken-back move.
+     *
+     * @param listener the {@link ActionListener} to be invoked when the
+     *                 "REDO" button is clicked.
+     */
+    public void addRedoListener(ActionListener listener)
+    {
+        redoButton.addActionListener(listener);
+    }
+
+    /**
+     * Adds an ActionListener to the "HINTS" button to turn move hints on or
+     * off.
+     *
+     * @param listener the {@link ActionListener} to be invoked when the
+     *                 "HINTS" button is clicked.
+     */
+    public void addHintsListener(ActionListener listener)
+    {
+        hintsButton.addActionListener(listener);
+    }
+
+    /**
+     * Adds an ActionListener to the "REPLAY" button to step through the moves
+     * of the game, or to go back to playing it.
+     *
+     * @param listener the {@link ActionListener} to be invoked when the
+     *                 "REPLAY" button is clicked.
+     */
+    public void addReplayListener(ActionListener listener)
+    {
+        replayButton.addActionListener(listener);
+    }
+
+    /**
+     * Shows on the "HINTS" button whether move hints are on.
+     *
+     * @param hintsOn whether move hints are on
+     */
+    public void setHintsOn(boolean hintsOn)
+    {
+        hintsButton.setText(hintsOn ? "HINTS: ON" : "HINTS: OFF");
+    }
+
     /**
      * Helper method to create and configure a JButton with the given
      * parameters. It sets the size, colours, font, and adds hover effects for
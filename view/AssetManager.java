@@ -0,0 +1,262 @@
+package view;
+
+import model.game.KwazamGameMaster;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the piece sprites in the background, so that nothing that draws the
+ * board has to wait for the disk.
+ * <p>
+ * Sprites are read from the "assets" folder on the classpath, e.g. when the
+ * game is run from a jar, or else from the assets folder given. Each sprite
+ * is read once, on a single loader thread, and is handed out as a future
+ * that completes when it has been read. The GUI starts reading every sprite
+ * of the game before its window is shown and draws a placeholder for any
+ * sprite that is not read yet, so the window appears at once.
+ *
+ * @see SpriteCache
+ */
+public class AssetManager
+{
+    private static final List<String> PIECE_TYPES = List.of("biz", "ram", "sau", "tor", "xor");
+
+    /**
+     * Sprites that only exist in blue are recoloured for these colours.
+     */
+    static final Map<String, Color> DERIVED_COLOURS = Map.of(
+            "green", new Color(40, 170, 60),
+            "yellow", new Color(230, 190, 20));
+
+    private static final String RESOURCE_FOLDER = "/assets/";
+
+    private static final AssetManager SHARED = new AssetManager(Path.of("assets"));
+
+    private final Path assetDirectory;
+    private final ExecutorService loader;
+    private final Map<String, CompletableFuture<BufferedImage>> sprites = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a manager of the sprites in a folder.
+     *
+     * @param assetDirectory the folder holding the sprites if they are not on
+     *                       the classpath, e.g. "assets"
+     */
+    public AssetManager(Path assetDirectory)
+    {
+        this.assetDirectory = assetDirectory;
+        this.loader = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "asset-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the manager of the sprites in the "assets" folder, shared by
+     *         everything that draws boards
+     */
+    public static AssetManager shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * Lists the names of every sprite a game can show.
+     *
+     * @param playerCount the number of players of the game
+     * @return the sprite names, e.g. "ram_blue_piece_flipped"
+     */
+    public static List<String> spriteNames(int playerCount)
+    {
+        List<String> names = new ArrayList<>();
+        for (String colour : KwazamGameMaster.PLAYER_COLOURS.subList(0, playerCount))
+        {
+            for (String pieceType : PIECE_TYPES)
+            {
+                names.add(pieceType + "_" + colour + "_piece");
+            }
+            names.add("ram_" + colour + "_piece_flipped");
+        }
+        return names;
+    }
+
+    /**
+     * Starts reading every sprite a game can show, without waiting for them.
+     *
+     * @param playerCount the number of players of the game
+     * @return a future that completes when every sprite has been read, or
+     *         completes exceptionally if any cannot be read
+     */
+    public CompletableFuture<Void> preloadSprites(int playerCount)
+    {
+        return CompletableFuture.allOf(spriteNames(playerCount).stream()
+                .map(this::load)
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Starts reading a sprite, unless it is already read or being read.
+     *
+     * @param piece the name of the sprite, e.g. "ram_blue_piece_flipped"
+     * @return a future that completes with the sprite once it is read, or
+     *         completes exceptionally with an {@link UncheckedIOException} if
+     *         it cannot be read
+     */
+    public CompletableFuture<BufferedImage> load(String piece)
+    {
+        return this.sprites.computeIfAbsent(piece, name -> CompletableFuture.supplyAsync(() -> {
+            try
+            {
+                return this.readSprite(name);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("Error loading image: " + name, e);
+            }
+        }, this.loader));
+    }
+
+    /**
+     * Checks whether reading a sprite has finished, so that retrieving it
+     * does not wait.
+     *
+     * @param piece the name of the sprite, e.g. "ram_blue_piece_flipped"
+     * @return whether the sprite has been read or has failed to read
+     */
+    public boolean isReady(String piece)
+    {
+        return this.load(piece).isDone();
+    }
+
+    /**
+     * Retrieves a sprite, waiting for it to be read if it is not yet.
+     *
+     * @param piece the name of the sprite, e.g. "ram_blue_piece_flipped"
+     * @return the sprite at its original size
+     * @throws UncheckedIOException if the sprite cannot be read
+     */
+    public BufferedImage getSprite(String piece)
+    {
+        try
+        {
+            return this.load(piece).join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof UncheckedIOException cause)
+            {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a sprite. Pieces of the extra colours used by variants with more
+     * than two players have no sprite of their own; they are derived from the
+     * blue sprite by recolouring its blue pixels.
+     */
+    private BufferedImage readSprite(String name) throws IOException
+    {
+        BufferedImage image = this.readImage(name);
+        if (image != null)
+        {
+            return image;
+        }
+        for (Map.Entry<String, Color> derived : DERIVED_COLOURS.entrySet())
+        {
+            String colourToken = "_" + derived.getKey() + "_";
+            if (name.contains(colourToken))
+            {
+                BufferedImage blueImage = this.readImage(name.replace(colourToken, "_blue_"));
+                if (blueImage != null)
+                {
+                    return recolour(blueImage, derived.getValue());
+                }
+            }
+        }
+        throw new IOException("No such sprite: " + name);
+    }
+
+    /**
+     * Reads a sprite from the classpath or else from the assets folder.
+     *
+     * @return the sprite, or {@code null} if there is no such file
+     */
+    private BufferedImage readImage(String name) throws IOException
+    {
+        String fileName = name + ".png";
+        URL resource = AssetManager.class.getResource(RESOURCE_FOLDER + fileName);
+        if (resource != null)
+        {
+            try (InputStream in = resource.openStream())
+            {
+                return decode(ImageIO.read(in), resource.toString());
+            }
+        }
+        Path imagePath = this.assetDirectory.resolve(fileName);
+        if (!Files.exists(imagePath))
+        {
+            return null;
+        }
+        return decode(ImageIO.read(imagePath.toFile()), imagePath.toString());
+    }
+
+    private static BufferedImage decode(BufferedImage image, String source) throws IOException
+    {
+        if (image == null)
+        {
+            throw new IOException("Not an image: " + source);
+        }
+        return image;
+    }
+
+    /**
+     * Replaces the blue body of a sprite with another colour.
+     */
+    private static BufferedImage recolour(BufferedImage blueImage, Color colour)
+    {
+        int width = blueImage.getWidth();
+        int height = blueImage.getHeight();
+        BufferedImage recoloured = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int argb = blueImage.getRGB(x, y);
+                int red = (argb >> 16) & 0xff;
+                int green = (argb >> 8) & 0xff;
+                int blue = argb & 0xff;
+                if (blue > red && blue > green)
+                {
+                    // keep the shading by scaling the target colour with
+                    // the brightness of the original pixel
+                    double shade = blue / 255.0;
+                    argb = (argb & 0xff000000)
+                            | ((int) (colour.getRed() * shade) << 16)
+                            | ((int) (colour.getGreen() * shade) << 8)
+                            | (int) (colour.getBlue() * shade);
+                }
+                recoloured.setRGB(x, y, argb);
+            }
+        }
+        return recoloured;
+    }
+}
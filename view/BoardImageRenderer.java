@@ -0,0 +1,287 @@
+package view;
+
+import model.board.Cell;
+import model.game.KwazamGameMaster;
+import model.game.Player;
+import model.pieces.Piece;
+import model.pieces.Ram;
+import model.serialization.GameState;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Draws boards as images without a window, e.g. for thumbnails of saved games
+ * or for reports, and writes them as PNG files.
+ * <p>
+ * Boards are drawn from blue's side in the colours of {@link KwazamGUI}, with
+ * the sprites from a {@link SpriteCache} that is shared by all renderers. The
+ * empty board of each size is drawn once and copied for every image, so
+ * drawing an image is one copy plus one sprite per piece. Many images can be
+ * rendered at once on the renderer's thread pool.
+ */
+public class BoardImageRenderer implements Closeable
+{
+    /**
+     * A light deflate level: about three times as fast as the default and
+     * smaller too, as the default spends its time on filtering that does
+     * not pay off for flat board colours.
+     */
+    private static final float PNG_COMPRESSION_QUALITY = 0.75f;
+
+    private final int cellSize;
+    private final SpriteCache spriteCache;
+    private final ExecutorService executor;
+
+    /**
+     * Empty boards by their number of rows and columns.
+     */
+    private final Map<Dimension, BufferedImage> emptyBoards = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a renderer with the shared sprite cache and one thread per
+     * processor.
+     *
+     * @param cellSize the width and height of a cell in pixels
+     */
+    public BoardImageRenderer(int cellSize)
+    {
+        this(cellSize, SpriteCache.shared(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a renderer.
+     *
+     * @param cellSize    the width and height of a cell in pixels
+     * @param spriteCache the sprites to draw the pieces with
+     * @param threads     the number of images to render at once
+     * @throws IllegalArgumentException if the cell size is too small to hold a
+     *                                  sprite or there are no threads
+     */
+    public BoardImageRenderer(int cellSize, SpriteCache spriteCache, int threads)
+    {
+        if (cellSize <= 2 * SpriteCache.PADDING)
+        {
+            throw new IllegalArgumentException("Cell size too small: " + cellSize);
+        }
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("Need at least one thread");
+        }
+        this.cellSize = cellSize;
+        this.spriteCache = spriteCache;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "board-renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Names the pieces of a saved game in the same way as
+     * {@link KwazamGameMaster#getCellsStringRepresentation()}, e.g.
+     * "ram_blue_piece_flipped".
+     * Colours are given by the seats of the saved game, as they are in the
+     * game itself.
+     *
+     * @param gameState the saved game
+     * @return the name of the piece in each cell, {@code null} for empty cells
+     */
+    public static List<List<String>> pieceNames(GameState gameState)
+    {
+        List<List<String>> names = new ArrayList<>();
+        for (List<Cell> row : gameState.cells())
+        {
+            List<String> rowNames = new ArrayList<>(row.size());
+            for (Cell cell : row)
+            {
+                rowNames.add(cell.getPiece().map(piece -> pieceName(piece, gameState.seats())).orElse(null));
+            }
+            names.add(rowNames);
+        }
+        return names;
+    }
+
+    private static String pieceName(Piece piece, List<Player> seats)
+    {
+        int seat = seats.indexOf(piece.getOwner());
+        String flippedSuffix = piece instanceof Ram ram && !ram.isFacingUp() ? "_flipped" : "";
+        return "%s_%s_piece%s".formatted(piece.getClass().getSimpleName().toLowerCase(),
+                KwazamGameMaster.PLAYER_COLOURS.get(seat), flippedSuffix);
+    }
+
+    /**
+     * @return the width and height of a cell in pixels
+     */
+    public int getCellSize()
+    {
+        return this.cellSize;
+    }
+
+    /**
+     * Draws a board.
+     *
+     * @param cells the name of the piece in each cell, as given by
+     *              {@link KwazamGameMaster#getCellsStringRepresentation()}
+     * @return the image of the board
+     * @throws UncheckedIOException if a sprite cannot be read
+     */
+    public BufferedImage render(List<List<String>> cells)
+    {
+        int rows = cells.size();
+        int columns = rows == 0 ? 0 : cells.getFirst().size();
+        BufferedImage emptyBoard = this.emptyBoards.computeIfAbsent(new Dimension(columns, rows),
+                size -> this.drawEmptyBoard(size.height, size.width));
+
+        BufferedImage image = new BufferedImage(emptyBoard.getWidth(), emptyBoard.getHeight(),
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.drawImage(emptyBoard, 0, 0, null);
+        for (int row = 0; row < rows; row++)
+        {
+            List<String> rowCells = cells.get(row);
+            for (int col = 0; col < columns; col++)
+            {
+                String piece = rowCells.get(col);
+                if (piece != null)
+                {
+                    g2d.drawImage(this.spriteCache.getSprite(piece, this.cellSize, this.cellSize),
+                            col * this.cellSize, row * this.cellSize, null);
+                }
+            }
+        }
+        g2d.dispose();
+        return image;
+    }
+
+    /**
+     * Draws a saved game.
+     *
+     * @param gameState the saved game
+     * @return the image of its board
+     * @throws UncheckedIOException if a sprite cannot be read
+     */
+    public BufferedImage render(GameState gameState)
+    {
+        return this.render(pieceNames(gameState));
+    }
+
+    /**
+     * Draws a board and encodes it as PNG.
+     *
+     * @param cells the name of the piece in each cell
+     * @param out   the stream to write the PNG to; it is not closed
+     * @throws IOException if the image cannot be written
+     */
+    public void writePng(List<List<String>> cells, OutputStream out) throws IOException
+    {
+        BufferedImage image = this.render(cells);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(PNG_COMPRESSION_QUALITY);
+        try (ImageOutputStream imageOut = new MemoryCacheImageOutputStream(out))
+        {
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        }
+        finally
+        {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Draws a board in the background and encodes it as PNG.
+     *
+     * @param cells the name of the piece in each cell; must not change until
+     *              the image is done
+     * @return completes with the PNG file contents
+     */
+    public CompletableFuture<byte[]> renderPngAsync(List<List<String>> cells)
+    {
+        return CompletableFuture.supplyAsync(() -> {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            try
+            {
+                this.writePng(cells, png);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            return png.toByteArray();
+        }, this.executor);
+    }
+
+    /**
+     * Draws a board in the background and writes it to a PNG file.
+     *
+     * @param cells the name of the piece in each cell; must not change until
+     *              the image is done
+     * @param file  the file to write, which is replaced if it exists
+     * @return completes when the file is written
+     */
+    public CompletableFuture<Void> renderPngAsync(List<List<String>> cells, Path file)
+    {
+        return CompletableFuture.runAsync(() -> {
+            try (OutputStream out = Files.newOutputStream(file))
+            {
+                this.writePng(cells, out);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }, this.executor);
+    }
+
+    /**
+     * Stops the thread pool once the images already asked for are done.
+     */
+    @Override
+    public void close()
+    {
+        this.executor.shutdown();
+    }
+
+    private BufferedImage drawEmptyBoard(int rows, int columns)
+    {
+        BufferedImage board = new BufferedImage(columns * this.cellSize, rows * this.cellSize,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = board.createGraphics();
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < columns; col++)
+            {
+                // alternate colours based on (row + col) parity, as on screen
+                g2d.setColor((row + col) % 2 == 0 ? PaintedBoardView.EVEN_COLOUR : PaintedBoardView.ODD_COLOUR);
+                g2d.fillRect(col * this.cellSize, row * this.cellSize, this.cellSize, this.cellSize);
+                g2d.setColor(Color.BLACK);
+                g2d.drawRect(col * this.cellSize, row * this.cellSize, this.cellSize - 1, this.cellSize - 1);
+            }
+        }
+        g2d.dispose();
+        return board;
+    }
+}
@@ -0,0 +1,118 @@
+package view;
+
+import javax.swing.*;
+
+/**
+ * The part of {@link KwazamGUI} that shows the cells of the board and turns
+ * clicks on them into cell coordinates.
+ * <p>
+ * The GUI keeps track of which piece is where and which way up the board is;
+ * a board view only draws what it is told to. All coordinates are cells as
+ * shown on screen, and all methods must be called on the event dispatch
+ * thread.
+ *
+ * @see ButtonBoardView
+ * @see PaintedBoardView
+ */
+interface BoardView
+{
+    /**
+     * @return the component to add to the window
+     */
+    JComponent getComponent();
+
+    /**
+     * Sets who is told about clicked cells. The clicked cell is marked by the
+     * view before the listener is told.
+     *
+     * @param listener the listener to notify
+     */
+    void setCellClickListener(CellClickListener listener);
+
+    /**
+     * Shows a piece in a cell.
+     *
+     * @param row   the row index of the cell
+     * @param col   the column index of the cell
+     * @param piece the name of the sprite to show, e.g. "ram_blue_piece", or
+     *              {@code null} for an empty cell
+     */
+    void setPiece(int row, int col, String piece);
+
+    /**
+     * Sets whether pieces are drawn upside down, as they are while the board
+     * is shown from the top player's side. Applies to pieces set afterwards.
+     *
+     * @param flipped whether to draw pieces upside down
+     */
+    void setFlipped(boolean flipped);
+
+    /**
+     * Animates a move about to be shown: the piece in the from cell slides
+     * to the to cell, taking whatever is there. Must be called before the
+     * pieces of the move are set, which then show once the piece lands.
+     * Views that cannot animate show the move at once.
+     *
+     * @param fromRow the row of the piece that moves
+     * @param fromCol the column of the piece that moves
+     * @param toRow   the row it moves to
+     * @param toCol   the column it moves to
+     */
+    void animateMove(int fromRow, int fromCol, int toRow, int toCol);
+
+    /**
+     * Animates the board turning around, after any move being animated.
+     * Must be called before the board is flipped; the flipped board shows
+     * once it has turned. Views that cannot animate show it at once.
+     */
+    void animateFlip();
+
+    /**
+     * Marks a cell as a place the selected piece can move to.
+     *
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     */
+    void markMoveTarget(int row, int col);
+
+    /**
+     * Removes all move target marks, leaving the mark of the clicked cell.
+     */
+    void clearMoveTargets();
+
+    /**
+     * Shows an arrow suggesting a move.
+     *
+     * @param fromRow the row of the piece to move
+     * @param fromCol the column of the piece to move
+     * @param toRow   the row to move it to
+     * @param toCol   the column to move it to
+     */
+    void showArrow(int fromRow, int fromCol, int toRow, int toCol);
+
+    /**
+     * Removes the arrow, if one is shown.
+     */
+    void clearArrow();
+
+    /**
+     * Flashes a cell red twice, e.g. to point out an invalid move.
+     *
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     */
+    void flashCell(int row, int col);
+
+    /**
+     * Ends the flashes of every cell at once, e.g. when the whole board is
+     * replaced and they no longer point at anything.
+     */
+    void cancelFlashes();
+
+    /**
+     * Enables or disables clicking on the cells.
+     *
+     * @param enabled whether the cells can be clicked
+     */
+    void setBoardEnabled(boolean enabled);
+}
@@ -0,0 +1,319 @@
+package view;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.LineBorder;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The original board view: a grid of buttons, one per cell, each showing its
+ * piece as an icon.
+ *
+ * @author Laxman Pillai -> creator
+ * @author Abdullah Hawash
+ * @see PaintedBoardView
+ */
+class ButtonBoardView implements BoardView
+{
+    private final JPanel boardPanel;
+    private final JButton[][] boardCells; // rows x columns grid of cells
+    private final String[][] cellPieces; // the piece each cell should show
+    private final MoveHintArrow hintArrow;
+    private final List<JButton> highlightedCells = new ArrayList<>();
+    private final FeedbackEffects feedbackEffects;
+    private boolean flipped = false;
+    private int prevRowClicked = -1, prevColClicked = -1;
+    private CellClickListener cellClickListener;
+
+    /**
+     * Constructs the grid of cells.
+     *
+     * @param rows      the number of rows of the board
+     * @param columns   the number of columns of the board
+     * @param hintArrow the glass pane of the window, to draw suggested moves on
+     */
+    ButtonBoardView(int rows, int columns, MoveHintArrow hintArrow)
+    {
+        this.boardCells = new JButton[rows][columns];
+        this.cellPieces = new String[rows][columns];
+        this.hintArrow = hintArrow;
+        this.feedbackEffects = new FeedbackEffects(rows, columns, FrameScheduler.shared(), this::showFlash);
+
+        boardPanel = new JPanel(new GridLayout(rows, columns));
+        boardPanel.setBorder(new EmptyBorder(1, 50, 50, 50));
+
+        // Initialize the cells
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < columns; col++)
+            {
+                JButton cell = createCellButton(row, col);
+                boardPanel.add(cell);
+                boardCells[row][col] = cell;
+            }
+        }
+    }
+
+    @Override
+    public JComponent getComponent()
+    {
+        return boardPanel;
+    }
+
+    @Override
+    public void setCellClickListener(CellClickListener listener)
+    {
+        this.cellClickListener = listener;
+    }
+
+    /**
+     * Shows or hides the red flash of a cell. The flashing itself is timed
+     * by {@link FeedbackEffects}, which only calls this when the flash turns
+     * on or off.
+     */
+    private void showFlash(int row, int col, boolean on)
+    {
+        JButton cell = boardCells[row][col];
+
+        // get the cell's true default color (stored at creation)
+        // this is to prevent the cell from permanently becoming red after spamming the invalid move
+        Color defaultColor = (Color) cell.getClientProperty("defaultBackground");
+        if (defaultColor == null)
+        {
+            // Fallback in case client property isn't set
+            defaultColor = cell.getBackground();
+        }
+        cell.setBackground(on ? Color.RED : defaultColor);
+    }
+
+    /**
+     * @author Laxman Pillai -> creator
+     */
+    private JButton createCellButton(int row, int col)
+    {
+        JButton cell = new JButton();
+        cell.setOpaque(true);
+
+        // Alternate colors based on (row + col) parity
+        boolean colour = (row + col) % 2 == 0;
+        cell.setBackground(colour ? PaintedBoardView.EVEN_COLOUR : PaintedBoardView.ODD_COLOUR);
+
+        // store this original color in the buttons client property
+        cell.putClientProperty("defaultBackground", cell.getBackground());
+
+        cell.setBorder(new LineBorder(Color.black, 2));
+        cell.setFocusable(false);
+
+        // center the icon in the label
+        cell.setHorizontalAlignment(SwingConstants.CENTER);
+        cell.setVerticalAlignment(SwingConstants.CENTER);
+        cell.addActionListener(e -> handleCellClick(row, col));
+        return cell;
+    }
+
+    /**
+     * Renders the icon of a single cell.
+     */
+    @Override
+    public void setPiece(int row, int col, String piece)
+    {
+        JButton cell = boardCells[row][col];
+        cellPieces[row][col] = piece;
+
+        if (piece != null)
+        {
+            boolean ready = SpriteCache.shared().getAssets().isReady(piece);
+            Icon icon = loadScaledToCellIcon(piece, cell.getWidth(), cell.getHeight(), ready);
+            cell.setIcon(icon);
+            if (!ready)
+            {
+                // the placeholder is replaced once the sprite has been read,
+                // unless the cell shows another piece by then
+                SpriteCache.shared().getAssets().load(piece).whenComplete((image, error) ->
+                        SwingUtilities.invokeLater(() -> {
+                            if (piece.equals(cellPieces[row][col]))
+                            {
+                                setPiece(row, col, piece);
+                            }
+                        }));
+            }
+        }
+        else
+        {
+            cell.setIcon(null);
+        }
+    }
+
+    @Override
+    public void setFlipped(boolean flipped)
+    {
+        this.flipped = flipped;
+    }
+
+    /**
+     * Buttons cannot be drawn between cells, so moves show at once.
+     */
+    @Override
+    public void animateMove(int fromRow, int fromCol, int toRow, int toCol)
+    {
+    }
+
+    /**
+     * Buttons cannot be drawn turning, so the flipped board shows at once.
+     */
+    @Override
+    public void animateFlip()
+    {
+    }
+
+    /**
+     * Image Scaling Logic: the sprite is scaled to fit the cell less its
+     * padding, keeping its aspect ratio, and centred on a transparent canvas
+     * the size of the cell. The scaling is done once per cell size by
+     * {@link SpriteCache}, which also keeps variants for the resolution of
+     * HiDPI screens, so pieces stay sharp and rendering a cell scales
+     * nothing. A sprite that is still being read shows as a placeholder.
+     *
+     * @author Laxman Pillai -> creator (big ting)
+     */
+    private Icon loadScaledToCellIcon(String piece, int targetWidth, int targetHeight, boolean ready)
+    {
+        if (piece == null || targetWidth <= 0 || targetHeight <= 0)
+        {
+            return null;
+        }
+        try
+        {
+            SpriteCache spriteCache = SpriteCache.shared();
+            Image sprite = ready
+                    ? spriteCache.getMultiResolutionSprite(piece, targetWidth, targetHeight)
+                    : spriteCache.getPlaceholderSprite(piece, targetWidth, targetHeight);
+            return new SpriteIcon(sprite, targetWidth, targetHeight, this.flipped);
+        }
+        catch (Exception e)
+        {
+            System.err.println("Error loading image: assets/" + piece + ".png");
+            return null;
+        }
+    }
+
+    /**
+     * An icon drawing a sprite, upside down if the board is flipped. The
+     * sprite is drawn through the graphics of the button, so a
+     * multi-resolution sprite is drawn at the resolution of the screen.
+     */
+    private record SpriteIcon(Image sprite, int width, int height, boolean upsideDown) implements Icon
+    {
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y)
+        {
+            if (upsideDown)
+            {
+                g.drawImage(sprite, x + width, y + height, x, y, 0, 0, width, height, c);
+            }
+            else
+            {
+                g.drawImage(sprite, x, y, width, height, c);
+            }
+        }
+
+        @Override
+        public int getIconWidth()
+        {
+            return width;
+        }
+
+        @Override
+        public int getIconHeight()
+        {
+            return height;
+        }
+    }
+
+    /**
+     * @author Laxman Pillai -> creator
+     * @param row
+     * @param col
+     */
+    private void handleCellClick(int row, int col)
+    {
+        if (prevRowClicked != -1 && prevColClicked != -1)
+        {
+            boardCells[prevRowClicked][prevColClicked].setBorder(new LineBorder(Color.BLACK, 2));
+        }
+
+        // Highlight newly clicked cell
+        boardCells[row][col].setBorder(new LineBorder(Color.blue, 3));
+
+        // Update the previous cell coordinates
+        prevColClicked = col;
+        prevRowClicked = row;
+
+        // Notify the listener (Controller)
+        if (cellClickListener != null)
+        {
+            cellClickListener.onCellClicked(row, col);
+        }
+    }
+
+    @Override
+    public void markMoveTarget(int row, int col)
+    {
+        JButton cell = boardCells[row][col];
+        cell.setBorder(new LineBorder(PaintedBoardView.TARGET_COLOUR, 4));
+        highlightedCells.add(cell);
+    }
+
+    @Override
+    public void clearMoveTargets()
+    {
+        for (JButton cell : highlightedCells)
+        {
+            boolean clicked = prevRowClicked != -1 && boardCells[prevRowClicked][prevColClicked] == cell;
+            cell.setBorder(clicked ? new LineBorder(Color.blue, 3) : new LineBorder(Color.black, 2));
+        }
+        highlightedCells.clear();
+    }
+
+    @Override
+    public void showArrow(int fromRow, int fromCol, int toRow, int toCol)
+    {
+        hintArrow.showArrow(boardCells[fromRow][fromCol], boardCells[toRow][toCol]);
+    }
+
+    @Override
+    public void clearArrow()
+    {
+        hintArrow.clearArrow();
+    }
+
+    /**
+     * Flashing a cell that is still flashing starts its flash over, so rapid
+     * invalid clicks do not stack up timers on the cell.
+     */
+    @Override
+    public void flashCell(int row, int col)
+    {
+        feedbackEffects.flash(row, col);
+    }
+
+    @Override
+    public void cancelFlashes()
+    {
+        feedbackEffects.cancelAll();
+    }
+
+    @Override
+    public void setBoardEnabled(boolean enabled)
+    {
+        for (JButton[] row : boardCells)
+        {
+            for (JButton cell : row)
+            {
+                cell.setEnabled(enabled);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package view;
+
+/**
+ * Runs the feedback effects of the cells of a board, such as the red flash
+ * of an invalid move, on the shared {@link FrameScheduler}.
+ * <p>
+ * There is at most one effect per cell: flashing a cell that is already
+ * flashing starts its flash over rather than adding another, so however fast
+ * cells are clicked, the effects never outnumber the cells and never fight
+ * over a cell's colour. The effects of a board share a single animation,
+ * which only runs while a cell is flashing, and the board is only told about
+ * a cell when its flash turns on or off, not on every frame.
+ * <p>
+ * All methods must be called on the event dispatch thread.
+ */
+class FeedbackEffects implements FrameScheduler.Animation
+{
+    /**
+     * Shows the effects on the board.
+     */
+    interface CellPainter
+    {
+        /**
+         * Shows or hides the flash of a cell.
+         *
+         * @param row the row index of the cell
+         * @param col the column index of the cell
+         * @param on  whether the cell should show as flashed
+         */
+        void showFlash(int row, int col, boolean on);
+    }
+
+    /**
+     * A flash is two red on/off cycles of this many milliseconds each way.
+     */
+    private static final long FLASH_TOGGLE_NANOS = 150_000_000L;
+    private static final int FLASH_TOGGLES = 4;
+
+    private final int columns;
+    private final FrameScheduler scheduler;
+    private final CellPainter painter;
+
+    /**
+     * When the flash of each cell started, by row * columns + column, or 0
+     * if the cell is not flashing.
+     */
+    private final long[] flashStarts;
+    private final boolean[] flashShown;
+
+    /**
+     * The cells that are flashing, in the first activeCount slots.
+     */
+    private final int[] activeCells;
+    private int activeCount;
+    private boolean running;
+
+    /**
+     * Constructs the effects of a board.
+     *
+     * @param rows      the number of rows of the board
+     * @param columns   the number of columns of the board
+     * @param scheduler the scheduler to animate the effects with
+     * @param painter   shows the effects on the board
+     */
+    FeedbackEffects(int rows, int columns, FrameScheduler scheduler, CellPainter painter)
+    {
+        this.columns = columns;
+        this.scheduler = scheduler;
+        this.painter = painter;
+        this.flashStarts = new long[rows * columns];
+        this.flashShown = new boolean[rows * columns];
+        this.activeCells = new int[rows * columns];
+    }
+
+    /**
+     * Flashes a cell red twice, starting over if it is already flashing.
+     *
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     */
+    void flash(int row, int col)
+    {
+        int cell = row * columns + col;
+        if (flashStarts[cell] == 0)
+        {
+            activeCells[activeCount++] = cell;
+        }
+        // never 0, which marks a cell that is not flashing
+        flashStarts[cell] = System.nanoTime() | 1;
+        show(cell, true);
+
+        if (!running)
+        {
+            running = true;
+            scheduler.start(this);
+        }
+    }
+
+    /**
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     * @return whether the cell is showing as flashed right now
+     */
+    boolean isFlashShown(int row, int col)
+    {
+        return flashShown[row * columns + col];
+    }
+
+    /**
+     * Ends every effect at once.
+     */
+    void cancelAll()
+    {
+        for (int i = 0; i < activeCount; i++)
+        {
+            flashStarts[activeCells[i]] = 0;
+            show(activeCells[i], false);
+        }
+        activeCount = 0;
+        if (running)
+        {
+            running = false;
+            scheduler.cancel(this);
+        }
+    }
+
+    @Override
+    public boolean onFrame(long frameNanos)
+    {
+        int i = 0;
+        while (i < activeCount)
+        {
+            int cell = activeCells[i];
+            long toggles = (frameNanos - flashStarts[cell]) / FLASH_TOGGLE_NANOS;
+            if (toggles >= FLASH_TOGGLES)
+            {
+                flashStarts[cell] = 0;
+                show(cell, false);
+                activeCells[i] = activeCells[--activeCount];
+            }
+            else
+            {
+                show(cell, toggles % 2 == 0);
+                i++;
+            }
+        }
+        running = activeCount > 0;
+        return running;
+    }
+
+    private void show(int cell, boolean on)
+    {
+        if (flashShown[cell] != on)
+        {
+            flashShown[cell] = on;
+            painter.showFlash(cell / columns, cell % columns, on);
+        }
+    }
+}
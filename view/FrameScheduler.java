@@ -0,0 +1,170 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives every animation of the GUI from one Swing timer, so that however
+ * many things are moving there is only one tick per frame on the event
+ * dispatch thread.
+ * <p>
+ * Animations are driven by time, not by frame count: each frame tells them
+ * the current time and they draw themselves as they should look at that
+ * moment. That is what lets the scheduler fall behind gracefully. Each frame
+ * has a time budget, and animations that do not fit into it wait for the
+ * next frame, first in line; a frame is skipped altogether while mouse or
+ * keyboard input is waiting to be handled; and ticks that pile up while the
+ * event dispatch thread is busy are merged by the timer. In all these cases
+ * the animations simply jump ahead on the next frame, and input is never
+ * held up by animating.
+ * <p>
+ * The timer only runs while something is animating. All methods must be
+ * called on the event dispatch thread.
+ */
+public class FrameScheduler
+{
+    /**
+     * Something that changes over time.
+     */
+    public interface Animation
+    {
+        /**
+         * Updates the animation for a frame, typically by asking for a
+         * repaint of what it draws.
+         *
+         * @param frameNanos the time of the frame, from {@link System#nanoTime()}
+         * @return whether the animation is still running; one that returns
+         *         {@code false} is not called again
+         */
+        boolean onFrame(long frameNanos);
+    }
+
+    private static final int FRAME_MILLIS = 16;
+    private static final long FRAME_BUDGET_NANOS = 8_000_000;
+
+    private static final FrameScheduler SHARED = new FrameScheduler(FRAME_MILLIS, FRAME_BUDGET_NANOS);
+
+    private final long budgetNanos;
+    private final Timer timer;
+    private final List<Animation> animations = new ArrayList<>();
+
+    private long frameCount;
+    private long skippedFrameCount;
+
+    /**
+     * Constructs a scheduler.
+     *
+     * @param frameMillis the time between frames in milliseconds
+     * @param budgetNanos the time animations may take per frame
+     */
+    public FrameScheduler(int frameMillis, long budgetNanos)
+    {
+        this.budgetNanos = budgetNanos;
+        this.timer = new Timer(frameMillis, e -> this.runFrame());
+        this.timer.setCoalesce(true);
+    }
+
+    /**
+     * @return the scheduler shared by all animations of the GUI, running at
+     *         about 60 frames per second with half of each frame to spend
+     */
+    public static FrameScheduler shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * Starts running an animation from the next frame on.
+     *
+     * @param animation the animation to run
+     */
+    public void start(Animation animation)
+    {
+        this.animations.add(animation);
+        if (!this.timer.isRunning())
+        {
+            this.timer.start();
+        }
+    }
+
+    /**
+     * Stops running an animation. Nothing happens if it is not running.
+     *
+     * @param animation the animation to stop
+     */
+    public void cancel(Animation animation)
+    {
+        this.animations.remove(animation);
+    }
+
+    /**
+     * @return the number of frames run so far
+     */
+    public long getFrameCount()
+    {
+        return this.frameCount;
+    }
+
+    /**
+     * @return the number of frames skipped so far because input was waiting
+     *         or the budget ran out before every animation had its turn
+     */
+    public long getSkippedFrameCount()
+    {
+        return this.skippedFrameCount;
+    }
+
+    /**
+     * Gives every animation its frame, as far as the budget allows.
+     */
+    private void runFrame()
+    {
+        if (this.animations.isEmpty())
+        {
+            this.timer.stop();
+            return;
+        }
+        if (isInputPending())
+        {
+            // the animations catch up on the next frame
+            this.skippedFrameCount++;
+            return;
+        }
+
+        this.frameCount++;
+        long frameNanos = System.nanoTime();
+        int count = this.animations.size();
+        int done = 0;
+        while (done < count)
+        {
+            if (done > 0 && System.nanoTime() - frameNanos > this.budgetNanos)
+            {
+                // the rest were moved to the front and go first next frame
+                this.skippedFrameCount++;
+                break;
+            }
+            Animation animation = this.animations.removeFirst();
+            if (animation.onFrame(frameNanos))
+            {
+                this.animations.add(animation);
+            }
+            done++;
+        }
+        if (this.animations.isEmpty())
+        {
+            this.timer.stop();
+        }
+    }
+
+    private static boolean isInputPending()
+    {
+        EventQueue queue = Toolkit.getDefaultToolkit().getSystemEventQueue();
+        return queue.peekEvent(MouseEvent.MOUSE_PRESSED) != null
+                || queue.peekEvent(MouseEvent.MOUSE_RELEASED) != null
+                || queue.peekEvent(KeyEvent.KEY_PRESSED) != null;
+    }
+}
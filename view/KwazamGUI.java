@@ -1,17 +1,16 @@
 package view;
 
 import javax.swing.*;
-import javax.swing.border.EmptyBorder;
-import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * The KwazamGUI class sets up and manages a graphical user interface for a
- * Kwazam-themed board game. It displays an 8×5 grid of buttons for each cell,
+ * Kwazam-themed board game. It displays a grid of buttons for each cell (8×5
+ * in the classic two player game, wider for variants with more players), or
+ * optionally the whole board painted as one component (see {@link BoardView}),
  * along with control buttons that let you perform common game actions.
  * <p>
  * This class uses a simple observer-like approach where it notifies an
@@ -27,10 +26,11 @@ import java.util.List;
 public class KwazamGUI extends JFrame
 {
 
-    private final JButton[][] boardCells = new JButton[8][5]; // 8x5 grid of cells
+    private final int rows;
+    private final int columns;
+    private final BoardView boardView;
     private List<List<String>> initialPieceStartingPositions = new ArrayList<>();
     private boolean flipped = false;
-    private int prevRowClicked = -1, prevColClicked = -1;
     private CellClickListener cellClickListener;
     private JLabel winLabel; // Label for displaying the win message
     private boolean torXorSwitched = false;
@@ -46,8 +46,41 @@ public class KwazamGUI extends JFrame
      */
     public KwazamGUI()
     {
+        this(8, 5);
+    }
+
+    /**
+     * Constructs the KwazamGUI for a board of the given size, e.g. for
+     * variants with more than two players.
+     *
+     * @param rows    the number of rows of the board
+     * @param columns the number of columns of the board
+     * @author Laxman Pillai ->constructor creator
+     */
+    public KwazamGUI(int rows, int columns)
+    {
+        this(rows, columns, false);
+    }
+
+    /**
+     * Constructs the KwazamGUI for a board of the given size, with either a
+     * button per cell or a single painted board. The painted board is much
+     * lighter on large variant boards.
+     *
+     * @param rows         the number of rows of the board
+     * @param columns      the number of columns of the board
+     * @param paintedBoard whether to paint the board in one component instead
+     *                     of using a button per cell
+     * @author Laxman Pillai ->constructor creator
+     * @see PaintedBoardView
+     */
+    public KwazamGUI(int rows, int columns, boolean paintedBoard)
+    {
+        this.rows = rows;
+        this.columns = columns;
+
         setTitle("Kwazam Chess Game");
-        setSize(550, 800);
+        setSize(100 + 90 * columns, 800);
         setLayout(new BorderLayout());
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
@@ -55,21 +88,20 @@ public class KwazamGUI extends JFrame
         // Set the Button Position on top of the Kwazam Chess game
         add(menuButtons, BorderLayout.NORTH);
 
-        JPanel boardPanel = new JPanel(new GridLayout(8, 5));
-        boardPanel.setBorder(new EmptyBorder(1, 50, 50, 50));
-
-        // Initialize the cells
-        for (int row = 0; row < 8; row++)
+        if (paintedBoard)
         {
-            for (int col = 0; col < 5; col++)
-            {
-                JButton cell = createCellButton(row, col);
-                boardPanel.add(cell);
-                boardCells[row][col] = cell;
-            }
+            boardView = new PaintedBoardView(rows, columns);
+        }
+        else
+        {
+            // The suggested move is drawn over the buttons
+            MoveHintArrow hintArrow = new MoveHintArrow();
+            setGlassPane(hintArrow);
+            boardView = new ButtonBoardView(rows, columns, hintArrow);
         }
+        boardView.setCellClickListener(this::handleCellClick);
 
-        add(boardPanel, BorderLayout.CENTER);
+        add(boardView.getComponent(), BorderLayout.CENTER);
         setVisible(true);
 
         // Add label for win message at the bottom
@@ -81,60 +113,20 @@ public class KwazamGUI extends JFrame
         add(winLabel, BorderLayout.SOUTH);
     }
 
-    /**
-     * Creates and returns a timer that flashes a given cell a few times.
-     * This is useful for indicating an invalid move or drawing attention to
-     * a particular cell.
-     *
-     * @param defaultColor the original background color of the cell
-     * @param cell         the cell to be flashed
-     * @return a {@link Timer} that animates the flashing effect
-     * @author Abdullah Hawash
-     */
-    private static Timer getTimer(Color defaultColor, JButton cell)
-    {
-        final Timer flashTimer = new Timer(150, null);
-
-        // This counter tracks how many times we've toggled
-        // so we can stop after 2 on/off cycles (4 toggles total basically)
-        // array cuz lambdas don't support non-final variables
-        final int[] toggleCount = {0};
-
-        flashTimer.addActionListener(e -> {
-            // Toggle between default color and red
-            if (cell.getBackground() == Color.RED)
-            {
-                cell.setBackground(defaultColor);
-            }
-            else
-            {
-                cell.setBackground(Color.RED);
-            }
-            toggleCount[0]++;
-
-            // After 4 toggles => 2 flashes completed
-            if (toggleCount[0] == 4)
-            {
-                flashTimer.stop();
-                // Ensure we end on the default color
-                cell.setBackground(defaultColor);
-            }
-        });
-        return flashTimer;
-    }
-
     /**
      * Updates the internal board representation and visually displays the given
      * pieces in each cell.
      * <p>
      * This method is typically called to initialize or reset the board with
-     * a fresh state of piece positions.
+     * a fresh state of piece positions, e.g. for a new or loaded game, so any
+     * cells still flashing stop.
      *
      * @param cells a 2D list of strings indicating the piece in each cell
      * @author Laxman Pillai -> creator
      */
     public void setBoard(List<List<String>> cells)
     {
+        boardView.cancelFlashes();
         initialPieceStartingPositions = new ArrayList<>();
         for (List<String> row : cells)
         {
@@ -173,31 +165,88 @@ public class KwazamGUI extends JFrame
     }
 
     /**
-     * @author Laxman Pillai -> creator
+     * @param listener the listener to be invoked when the "UNDO" button is
+     *                 clicked
      */
-    private JButton createCellButton(int row, int col)
+    public void addUndoListener(ActionListener listener)
     {
-        JButton cell = new JButton();
-        cell.setOpaque(true);
+        menuButtons.addUndoListener(listener);
+    }
 
-        Color evenColour = new Color(112, 128, 144);
-        Color oddColour = new Color(245, 245, 245);
+    /**
+     * @param listener the listener to be invoked when the "REDO" button is
+     *                 clicked
+     */
+    public void addRedoListener(ActionListener listener)
+    {
+        menuButtons.addRedoListener(listener);
+    }
 
-        // Alternate colors based on (row + col) parity
-        boolean colour = (row + col) % 2 == 0;
-        cell.setBackground(colour ? evenColour : oddColour);
+    /**
+     * @param listener the listener to be invoked when the "HINTS" button is
+     *                 clicked
+     */
+    public void addHintsListener(ActionListener listener)
+    {
+        menuButtons.addHintsListener(listener);
+    }
 
-        // store this original color in the buttons client property
-        cell.putClientProperty("defaultBackground", cell.getBackground());
+    /**
+     * @param listener the listener to be invoked when the "REPLAY" button is
+     *                 clicked
+     */
+    public void addReplayListener(ActionListener listener)
+    {
+        menuButtons.addReplayListener(listener);
+    }
 
-        cell.setBorder(new LineBorder(Color.black, 2));
-        cell.setFocusable(false);
+    /**
+     * @param hintsOn whether move hints are on
+     */
+    public void setHintsOn(boolean hintsOn)
+    {
+        menuButtons.setHintsOn(hintsOn);
+    }
+
+    /**
+     * Marks a cell as a place the selected piece can move to. The mark stays
+     * until {@link #clearMoveHints()} is called.
+     *
+     * @param row the row index of the cell, as shown on screen
+     * @param col the column index of the cell, as shown on screen
+     */
+    public void highlightMoveTarget(int row, int col)
+    {
+        boardView.markMoveTarget(row, col);
+    }
 
-        // center the icon in the label
-        cell.setHorizontalAlignment(SwingConstants.CENTER);
-        cell.setVerticalAlignment(SwingConstants.CENTER);
-        cell.addActionListener(e -> handleCellClick(row, col));
-        return cell;
+    /**
+     * Shows an arrow over the board suggesting a move.
+     *
+     * @param fromRow the row of the piece to move, as shown on screen
+     * @param fromCol the column of the piece to move, as shown on screen
+     * @param toRow   the row to move it to, as shown on screen
+     * @param toCol   the column to move it to, as shown on screen
+     */
+    public void showHintArrow(int fromRow, int fromCol, int toRow, int toCol)
+    {
+        boardView.showArrow(fromRow, fromCol, toRow, toCol);
+    }
+
+    /**
+     * Removes the arrow suggesting a move, if one is shown.
+     */
+    public void clearHintArrow()
+    {
+        boardView.clearArrow();
+    }
+
+    /**
+     * Removes all move target marks, leaving the mark of the clicked cell.
+     */
+    public void clearMoveHints()
+    {
+        boardView.clearMoveTargets();
     }
 
     /**
@@ -215,113 +264,81 @@ public class KwazamGUI extends JFrame
      */
     public void renderPieceToBoard(List<List<String>> positions)
     {
-        for (int row = 0; row < 8; row++)
+        for (int row = 0; row < rows; row++)
         {
-            for (int col = 0; col < 5; col++)
+            for (int col = 0; col < columns; col++)
             {
-                JButton cell = boardCells[row][col];
-                String piece = positions.get(row).get(col);
-
-                if (piece != null)
-                {
-                    // Swap Tor/Xor visually based on the toggle state
-                    if (torXorSwitched)
-                    {
-                        if (piece.startsWith("tor"))
-                        {
-                            piece = piece.replace("tor", "xor");
-                        }
-                        else if (piece.startsWith("xor"))
-                        {
-                            piece = piece.replace("xor", "tor");
-                        }
-                    }
-                    String imagePath = "assets/" + piece + ".png";
-                    ImageIcon icon = loadScaledToCellIcon(imagePath, cell.getWidth(), cell.getHeight());
-                    cell.setIcon(icon);
-                }
-                else
-                {
-                    cell.setIcon(null);
-                }
+                renderCell(row, col, positions.get(row).get(col));
             }
         }
     }
 
     /**
-     * Image Scaling Logic: This section calculates the dimensions to scale the
-     * original image such that: 1. The image fits within the padded target
-     * area(cell dimensions minus padding). 2. The aspect ratio (width-to-height
-     * proportion) is preserved to avoid distortion. Steps taken first we get
-     * the original image's width and height. Using that we calculate
-     * width/height ratios between the padded target area and original image. We
-     * then wse the SMALLER ratio to scale the image, ensuring it fits entirely
-     * within both the target width and height constraints and finally we derive
-     * the final scaled width/height using this ratio.
+     * Animates a move before it is rendered, if the board view animates moves.
+     * Must be called while the board still shows the position before the
+     * move.
      *
-     * @author Laxman Pillai -> creator (big ting)
+     * @param fromRow the row of the piece that moves, as shown on screen
+     * @param fromCol the column of the piece that moves, as shown on screen
+     * @param toRow   the row it moves to, as shown on screen
+     * @param toCol   the column it moves to, as shown on screen
      */
-    private ImageIcon loadScaledToCellIcon(String imagePath, int targetWidth,
-                                           int targetHeight)
+    public void animateMove(int fromRow, int fromCol, int toRow, int toCol)
     {
-        if (imagePath == null || targetWidth <= 0 || targetHeight <= 0)
+        boardView.animateMove(fromRow, fromCol, toRow, toCol);
+    }
+
+    /**
+     * Replaces the piece shown in a single cell without re-rendering the rest
+     * of the board. Used to apply small changes such as an undone move.
+     * <p>
+     * The piece name is the model's current name for the piece, so if the
+     * Tor/Xor visuals are currently swapped, the name is stored swapped back
+     * to stay consistent with the rest of the board.
+     *
+     * @param row   the row index of the cell, as shown on screen
+     * @param col   the column index of the cell, as shown on screen
+     * @param piece the name of the piece (e.g. "ram_blue_piece_flipped"), or
+     *              {@code null} for an empty cell
+     */
+    public void setCellPiece(int row, int col, String piece)
+    {
+        if (piece != null && torXorSwitched)
         {
-            return null;
+            piece = swapTorXorName(piece);
         }
-        try
-        {
-            ImageIcon rawIcon = new ImageIcon(imagePath);
-            Image rawImage = rawIcon.getImage();
-
-            // Handling Padding
-            int padding = 3;
-            int paddedTargetWidth = targetWidth - 2 * padding;
-            int paddedTargetHeight = targetHeight - 2 * padding;
-
-            // Scalling Calculations
-            int originalWidth = rawImage.getWidth(null);
-            int originalHeight = rawImage.getHeight(null);
-            double widthRatio = (double) paddedTargetWidth / originalWidth;
-            double heightRatio = (double) paddedTargetHeight / originalHeight;
-            double scale = Math.min(widthRatio, heightRatio);
-
-            int scaledWidth = (int) (originalWidth * scale);
-            int scaledHeight = (int) (originalHeight * scale);
-
-            // Create a transparent canvas to hold the chess piece icon This
-            // ensures the icon is centered and doesn't stretch.
-            BufferedImage paddedImage = new BufferedImage(targetWidth,
-                    targetHeight, BufferedImage.TYPE_INT_ARGB);
-
-            // Enable smooth scaling for the icon (avoids pixelation)
-            // Bilinear interpolation blends pixels for a smoother appearance.
-            Graphics2D g2d = paddedImage.createGraphics();
-            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-
-            // Center the scaled image
-            int x = (targetWidth - scaledWidth) / 2;
-            int y = (targetHeight - scaledHeight) / 2;
-
-            if (this.flipped)
-            {
-                g2d.translate(x + scaledWidth, y + scaledHeight);
-                g2d.scale(-1, -1);
-                g2d.drawImage(rawImage, 0, 0, scaledWidth, scaledHeight, null);
-            }
-            else
-            {
-                // No flipping
-                g2d.drawImage(rawImage, x, y, scaledWidth, scaledHeight, null);
-            }
+        initialPieceStartingPositions.get(row).set(col, piece);
+        renderCell(row, col, piece);
+    }
 
-            g2d.dispose();
-            return new ImageIcon(paddedImage);
+    /**
+     * Swaps the "tor" and "xor" prefixes of a piece name, leaving other names
+     * untouched.
+     */
+    private static String swapTorXorName(String piece)
+    {
+        if (piece.startsWith("tor"))
+        {
+            return piece.replace("tor", "xor");
+        }
+        if (piece.startsWith("xor"))
+        {
+            return piece.replace("xor", "tor");
         }
-        catch (Exception e)
+        return piece;
+    }
+
+    /**
+     * Renders the icon of a single cell.
+     */
+    private void renderCell(int row, int col, String piece)
+    {
+        // Swap Tor/Xor visually based on the toggle state
+        if (piece != null && torXorSwitched)
         {
-            System.err.println("Error loading image: " + imagePath);
-            return null;
+            piece = swapTorXorName(piece);
         }
+        boardView.setPiece(row, col, piece);
     }
 
     /**
@@ -331,18 +348,7 @@ public class KwazamGUI extends JFrame
      */
     private void handleCellClick(int row, int col)
     {
-        if (prevRowClicked != -1 && prevColClicked != -1)
-        {
-            boardCells[prevRowClicked][prevColClicked].setBorder(new LineBorder(Color.BLACK, 2));
-        }
-
-        // Highlight newly clicked cell
-        boardCells[row][col].setBorder(new LineBorder(Color.blue, 3));
-
-        // Update the previous cell coordinates
-        prevColClicked = col;
-        prevRowClicked = row;
-
+        // The board view has already marked the clicked cell
         // Notify the listener (Controller)
         if (cellClickListener != null)
         {
@@ -376,13 +382,7 @@ public class KwazamGUI extends JFrame
      */
     public void disableBoard()
     {
-        for (JButton[] row : boardCells)
-        {
-            for (JButton cell : row)
-            {
-                cell.setEnabled(false);
-            }
-        }
+        boardView.setBoardEnabled(false);
     }
 
     /**
@@ -390,13 +390,7 @@ public class KwazamGUI extends JFrame
      */
     public void enableBoard()
     {
-        for (JButton[] row : boardCells)
-        {
-            for (JButton cell : row)
-            {
-                cell.setEnabled(true);
-            }
-        }
+        boardView.setBoardEnabled(true);
     }
 
     /**
@@ -439,19 +433,7 @@ public class KwazamGUI extends JFrame
      */
     public void flashCellRed(int row, int col)
     {
-        JButton cell = boardCells[row][col];
-
-        // get the cell's true default color (stored at creation)
-        // this is to prevent the cell from permanently becoming red after spamming the invalid move
-        Color defaultColor = (Color) cell.getClientProperty("defaultBackground");
-        if (defaultColor == null)
-        {
-            // Fallback in case client property isn't set
-            defaultColor = cell.getBackground();
-        }
-
-        final Timer flashTimer = getTimer(defaultColor, cell);
-        flashTimer.start();
+        boardView.flashCell(row, col);
     }
 
     /**
@@ -476,28 +458,16 @@ public class KwazamGUI extends JFrame
      * @throws ArrayIndexOutOfBoundsException if the provided row or column
      *                                        exceeds board dimensions.
      * @author Abdullah Hawash
-     * @see #loadScaledToCellIcon(String, int, int)
      */
     public void flipRamPiece(int row, int col)
     {
-        JButton cell = boardCells[row][col];
         String piece = initialPieceStartingPositions.get(row).get(col);
 
         if (piece != null && piece.startsWith("ram"))
         {
             String flippedPiece = piece.endsWith("_flipped") ? piece.replace("_flipped", "") : piece + "_flipped";
-            String imagePath = "assets/" + flippedPiece + ".png";
-            ImageIcon flippedIcon = loadScaledToCellIcon(imagePath, cell.getWidth(), cell.getHeight());
-
-            if (flippedIcon != null)
-            {
-                cell.setIcon(flippedIcon);
-                initialPieceStartingPositions.get(row).set(col, flippedPiece);
-            }
-            else
-            {
-                System.err.println("Error: Could not load image: " + imagePath);
-            }
+            initialPieceStartingPositions.get(row).set(col, flippedPiece);
+            renderCell(row, col, flippedPiece);
         }
     }
 
@@ -542,7 +512,9 @@ public class KwazamGUI extends JFrame
      */
     public void flipBoard()
     {
+        boardView.animateFlip();
         this.flipped = !this.flipped;
+        boardView.setFlipped(this.flipped);
         flipPiecesPosition();
         renderPieceToBoard(initialPieceStartingPositions);
     }
@@ -561,9 +533,37 @@ public class KwazamGUI extends JFrame
     public void setFlipped(boolean flipped)
     {
         this.flipped = flipped;
+        boardView.setFlipped(flipped);
         renderPieceToBoard(initialPieceStartingPositions);
     }
 
+    /**
+     * Shows replay controls below the board in place of the win message.
+     *
+     * @param replayBar the replay controls to show
+     */
+    public void showReplayBar(ReplayBar replayBar)
+    {
+        remove(winLabel);
+        add(replayBar, BorderLayout.SOUTH);
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Removes the replay controls and brings back the win message below the
+     * board.
+     *
+     * @param replayBar the replay controls shown
+     */
+    public void hideReplayBar(ReplayBar replayBar)
+    {
+        remove(replayBar);
+        add(winLabel, BorderLayout.SOUTH);
+        revalidate();
+        repaint();
+    }
+
     /**
      * @author Laxman Pillai
      */
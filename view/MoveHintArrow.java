@@ -0,0 +1,117 @@
+package view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+
+/**
+ * A transparent glass pane that draws an arrow from one cell of the board to
+ * another, to suggest a move.
+ * <p>
+ * The arrow is anchored to the cells themselves rather than to coordinates,
+ * so it follows the board when the window is resized. The pane never takes
+ * mouse events, so the board underneath stays clickable.
+ */
+public class MoveHintArrow extends JComponent
+{
+    private static final Color ARROW_COLOUR = new Color(255, 140, 0, 180);
+    private static final float SHAFT_WIDTH = 8f;
+    private static final int HEAD_LENGTH = 24;
+    private static final int HEAD_WIDTH = 16;
+
+    private JComponent fromCell;
+    private JComponent toCell;
+
+    /**
+     * Constructs an arrow pane showing no arrow.
+     */
+    public MoveHintArrow()
+    {
+        setOpaque(false);
+    }
+
+    /**
+     * Shows an arrow between the centres of two cells.
+     *
+     * @param fromCell the cell the arrow starts at
+     * @param toCell   the cell the arrow points to
+     */
+    public void showArrow(JComponent fromCell, JComponent toCell)
+    {
+        this.fromCell = fromCell;
+        this.toCell = toCell;
+        setVisible(true);
+        repaint();
+    }
+
+    /**
+     * Removes the arrow, if one is shown.
+     */
+    public void clearArrow()
+    {
+        this.fromCell = null;
+        this.toCell = null;
+        setVisible(false);
+    }
+
+    /**
+     * The pane is only drawn on, so clicks always go through to the board.
+     */
+    @Override
+    public boolean contains(int x, int y)
+    {
+        return false;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        if (fromCell == null || toCell == null)
+        {
+            return;
+        }
+
+        Point from = SwingUtilities.convertPoint(fromCell, fromCell.getWidth() / 2, fromCell.getHeight() / 2, this);
+        Point to = SwingUtilities.convertPoint(toCell, toCell.getWidth() / 2, toCell.getHeight() / 2, this);
+        paintArrow(g, from, to);
+    }
+
+    /**
+     * Draws a move arrow between two points, e.g. the centres of two cells.
+     * Also used by {@link PaintedBoardView}, which draws its own arrow.
+     *
+     * @param g    the graphics to draw with
+     * @param from the point the arrow starts at
+     * @param to   the point the arrow points to
+     */
+    static void paintArrow(Graphics g, Point from, Point to)
+    {
+        double length = from.distance(to);
+        if (length < HEAD_LENGTH)
+        {
+            return;
+        }
+
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(ARROW_COLOUR);
+
+        // draw the arrow pointing right from the origin, then rotate it into place
+        AffineTransform transform = AffineTransform.getTranslateInstance(from.x, from.y);
+        transform.rotate(to.x - from.x, to.y - from.y);
+        g2d.transform(transform);
+
+        g2d.setStroke(new BasicStroke(SHAFT_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        g2d.drawLine(0, 0, (int) (length - HEAD_LENGTH), 0);
+
+        Path2D head = new Path2D.Double();
+        head.moveTo(length, 0);
+        head.lineTo(length - HEAD_LENGTH, -HEAD_WIDTH / 2.0);
+        head.lineTo(length - HEAD_LENGTH, HEAD_WIDTH / 2.0);
+        head.closePath();
+        g2d.fill(head);
+
+        g2d.dispose();
+    }
+}
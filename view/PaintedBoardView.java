@@ -0,0 +1,675 @@
+package view;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A board view that paints the whole board in one component instead of using
+ * a button per cell.
+ * <p>
+ * There is a single component to lay out, clicks are turned into cells by
+ * arithmetic, and changing a piece only repaints that cell. Sprites are
+ * scaled once per cell size and reused for every cell, and are scaled again
+ * only when the window is resized. They are the multi-resolution sprites of
+ * {@link SpriteCache}, so on a HiDPI screen they are drawn from a variant at
+ * the screen's own resolution rather than scaled up.
+ * <p>
+ * Moves, captures and board flips are animated instead of showing at once:
+ * the moving piece slides to its new cell while the captured piece fades
+ * out, and the board then turns around to face the next player. Like the
+ * flashing cells of {@link FeedbackEffects}, the animations are run by the
+ * shared {@link FrameScheduler} and draw whatever they should show at the
+ * time of painting, so frames the scheduler skips are simply not drawn. A click
+ * during an animation finishes it at once, so the board always answers
+ * clicks as it is shown.
+ *
+ * @see ButtonBoardView
+ */
+class PaintedBoardView extends JComponent implements BoardView
+{
+    static final Color EVEN_COLOUR = new Color(112, 128, 144);
+    static final Color ODD_COLOUR = new Color(245, 245, 245);
+    static final Color TARGET_COLOUR = new Color(40, 170, 60);
+
+    private static final Color DISABLED_SHADE = new Color(255, 255, 255, 90);
+    private static final int MOVE_MILLIS = 180;
+    private static final int FLIP_MILLIS = 320;
+
+    private final int rows;
+    private final int columns;
+    private final String[][] pieces;
+    private final boolean[][] moveTargets;
+    private final FrameScheduler scheduler = FrameScheduler.shared();
+    private final FeedbackEffects feedbackEffects;
+    private final Map<String, Image> scaledSprites = new HashMap<>();
+    private final Set<String> loadingSprites = new HashSet<>();
+
+    private boolean flipped = false;
+    private boolean boardEnabled = true;
+    private int clickedRow = -1, clickedCol = -1;
+    private int pressedRow = -1, pressedCol = -1;
+    private int[] arrow;
+    private CellClickListener cellClickListener;
+    private MoveAnimation moveAnimation;
+    private FlipAnimation flipAnimation;
+
+    /**
+     * The cell size the sprites in {@link #scaledSprites} were scaled to.
+     */
+    private int spriteWidth, spriteHeight;
+
+    /**
+     * A piece sliding from one cell to another, in the cells of the board as
+     * it was shown when the move was made.
+     */
+    private final class MoveAnimation implements FrameScheduler.Animation
+    {
+        private final int fromRow, fromCol, toRow, toCol;
+        private final String movingPiece;
+        private final String capturedPiece;
+        private final long startNanos;
+        private final long endNanos;
+        private Rectangle paintedBounds;
+
+        private MoveAnimation(int fromRow, int fromCol, int toRow, int toCol, long startNanos)
+        {
+            this.fromRow = fromRow;
+            this.fromCol = fromCol;
+            this.toRow = toRow;
+            this.toCol = toCol;
+            this.movingPiece = pieces[fromRow][fromCol];
+            this.capturedPiece = pieces[toRow][toCol];
+            this.startNanos = startNanos;
+            this.endNanos = startNanos + MOVE_MILLIS * 1_000_000L;
+        }
+
+        /**
+         * @return how far the piece has come, from 0 to 1, slowing down as
+         *         it lands
+         */
+        private double progress(long nowNanos)
+        {
+            double linear = Math.clamp((double) (nowNanos - this.startNanos) / (this.endNanos - this.startNanos), 0, 1);
+            return 1 - (1 - linear) * (1 - linear);
+        }
+
+        /**
+         * @return where the moving piece is drawn
+         */
+        private Rectangle bounds(long nowNanos)
+        {
+            Insets insets = getInsets();
+            int cellWidth = cellWidth();
+            int cellHeight = cellHeight();
+            double progress = this.progress(nowNanos);
+            double col = this.fromCol + (this.toCol - this.fromCol) * progress;
+            double row = this.fromRow + (this.toRow - this.fromRow) * progress;
+            return new Rectangle(insets.left + (int) Math.round(col * cellWidth),
+                    insets.top + (int) Math.round(row * cellHeight), cellWidth, cellHeight);
+        }
+
+        @Override
+        public boolean onFrame(long frameNanos)
+        {
+            // only where the piece was and where it is now need painting
+            Rectangle bounds = this.bounds(frameNanos);
+            Rectangle dirty = this.paintedBounds == null ? bounds : bounds.union(this.paintedBounds);
+            repaint(dirty);
+            repaintCell(this.toRow, this.toCol);
+            this.paintedBounds = bounds;
+            if (frameNanos < this.endNanos)
+            {
+                return true;
+            }
+            moveAnimation = null;
+            return false;
+        }
+    }
+
+    /**
+     * The board turning around, drawn as a picture of the board as it was
+     * before the flip, rotated about its centre. Half a turn shows exactly
+     * the flipped board, with every piece upside down.
+     */
+    private final class FlipAnimation implements FrameScheduler.Animation
+    {
+        private final String[][] piecesBefore;
+        private final boolean flippedBefore;
+        private final long startNanos;
+        private final long endNanos;
+        private BufferedImage picture;
+
+        private FlipAnimation(long startNanos)
+        {
+            this.piecesBefore = new String[rows][];
+            for (int row = 0; row < rows; row++)
+            {
+                this.piecesBefore[row] = pieces[row].clone();
+            }
+            this.flippedBefore = flipped;
+            this.startNanos = startNanos;
+            this.endNanos = startNanos + FLIP_MILLIS * 1_000_000L;
+        }
+
+        private boolean isTurning(long nowNanos)
+        {
+            return nowNanos >= this.startNanos;
+        }
+
+        private double angle(long nowNanos)
+        {
+            double linear = Math.clamp((double) (nowNanos - this.startNanos) / (this.endNanos - this.startNanos), 0, 1);
+            // ease in and out
+            return Math.PI * (1 - Math.cos(Math.PI * linear)) / 2;
+        }
+
+        /**
+         * @return the picture of the board to turn, drawn once per animation
+         */
+        private BufferedImage picture(int cellWidth, int cellHeight)
+        {
+            if (this.picture == null || this.picture.getWidth() != columns * cellWidth
+                    || this.picture.getHeight() != rows * cellHeight)
+            {
+                this.picture = new BufferedImage(columns * cellWidth, rows * cellHeight, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g2d = this.picture.createGraphics();
+                for (int row = 0; row < rows; row++)
+                {
+                    for (int col = 0; col < columns; col++)
+                    {
+                        paintCell(g2d, row, col, col * cellWidth, row * cellHeight, cellWidth, cellHeight,
+                                this.piecesBefore[row][col], this.flippedBefore, 1);
+                    }
+                }
+                g2d.dispose();
+            }
+            return this.picture;
+        }
+
+        @Override
+        public boolean onFrame(long frameNanos)
+        {
+            if (!this.isTurning(frameNanos))
+            {
+                // waiting for the move before it to land
+                return true;
+            }
+            repaint();
+            if (frameNanos < this.endNanos)
+            {
+                return true;
+            }
+            flipAnimation = null;
+            return false;
+        }
+    }
+
+    /**
+     * Constructs an empty board.
+     *
+     * @param rows    the number of rows of the board
+     * @param columns the number of columns of the board
+     */
+    PaintedBoardView(int rows, int columns)
+    {
+        this.rows = rows;
+        this.columns = columns;
+        this.pieces = new String[rows][columns];
+        this.moveTargets = new boolean[rows][columns];
+        this.feedbackEffects = new FeedbackEffects(rows, columns, scheduler, (row, col, on) -> repaintCell(row, col));
+
+        setBorder(new EmptyBorder(1, 50, 50, 50));
+        setOpaque(true);
+
+        MouseAdapter mouseHandler = new MouseAdapter()
+        {
+            @Override
+            public void mousePressed(MouseEvent e)
+            {
+                Point cell = cellAt(e.getPoint());
+                pressedRow = cell == null ? -1 : cell.y;
+                pressedCol = cell == null ? -1 : cell.x;
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e)
+            {
+                // like a button, a click counts if released on the cell it was pressed on
+                Point cell = cellAt(e.getPoint());
+                if (boardEnabled && SwingUtilities.isLeftMouseButton(e) && cell != null
+                        && cell.y == pressedRow && cell.x == pressedCol)
+                {
+                    finishAnimations();
+                    handleCellClick(cell.y, cell.x);
+                }
+                pressedRow = -1;
+                pressedCol = -1;
+            }
+        };
+        addMouseListener(mouseHandler);
+    }
+
+    @Override
+    public JComponent getComponent()
+    {
+        return this;
+    }
+
+    @Override
+    public void setCellClickListener(CellClickListener listener)
+    {
+        this.cellClickListener = listener;
+    }
+
+    @Override
+    public void setPiece(int row, int col, String piece)
+    {
+        pieces[row][col] = piece;
+        repaintCell(row, col);
+    }
+
+    @Override
+    public void setFlipped(boolean flipped)
+    {
+        if (flipAnimation == null && flipped != this.flipped)
+        {
+            // a flip that is not animated leaves nothing to animate
+            finishAnimations();
+        }
+        this.flipped = flipped;
+        repaint();
+    }
+
+    @Override
+    public void animateMove(int fromRow, int fromCol, int toRow, int toCol)
+    {
+        finishAnimations();
+        if (pieces[fromRow][fromCol] == null || getWidth() == 0)
+        {
+            return;
+        }
+        moveAnimation = new MoveAnimation(fromRow, fromCol, toRow, toCol, System.nanoTime());
+        scheduler.start(moveAnimation);
+    }
+
+    @Override
+    public void animateFlip()
+    {
+        long startNanos = System.nanoTime();
+        if (flipAnimation != null)
+        {
+            finishAnimations();
+        }
+        else if (moveAnimation != null)
+        {
+            startNanos = Math.max(startNanos, moveAnimation.endNanos);
+        }
+        if (getWidth() == 0)
+        {
+            return;
+        }
+        flipAnimation = new FlipAnimation(startNanos);
+        scheduler.start(flipAnimation);
+    }
+
+    /**
+     * Ends any move or flip being animated, showing the board as it is.
+     */
+    private void finishAnimations()
+    {
+        if (moveAnimation == null && flipAnimation == null)
+        {
+            return;
+        }
+        if (moveAnimation != null)
+        {
+            scheduler.cancel(moveAnimation);
+            moveAnimation = null;
+        }
+        if (flipAnimation != null)
+        {
+            scheduler.cancel(flipAnimation);
+            flipAnimation = null;
+        }
+        repaint();
+    }
+
+    @Override
+    public void markMoveTarget(int row, int col)
+    {
+        moveTargets[row][col] = true;
+        repaintCell(row, col);
+    }
+
+    @Override
+    public void clearMoveTargets()
+    {
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < columns; col++)
+            {
+                if (moveTargets[row][col])
+                {
+                    moveTargets[row][col] = false;
+                    repaintCell(row, col);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void showArrow(int fromRow, int fromCol, int toRow, int toCol)
+    {
+        arrow = new int[]{fromRow, fromCol, toRow, toCol};
+        repaint();
+    }
+
+    @Override
+    public void clearArrow()
+    {
+        if (arrow != null)
+        {
+            arrow = null;
+            repaint();
+        }
+    }
+
+    @Override
+    public void flashCell(int row, int col)
+    {
+        // flashing a cell again restarts its flash instead of stacking another
+        feedbackEffects.flash(row, col);
+    }
+
+    @Override
+    public void cancelFlashes()
+    {
+        feedbackEffects.cancelAll();
+    }
+
+    @Override
+    public void setBoardEnabled(boolean enabled)
+    {
+        this.boardEnabled = enabled;
+        repaint();
+    }
+
+    private void handleCellClick(int row, int col)
+    {
+        int previousRow = clickedRow;
+        int previousCol = clickedCol;
+        clickedRow = row;
+        clickedCol = col;
+        if (previousRow != -1)
+        {
+            repaintCell(previousRow, previousCol);
+        }
+        repaintCell(row, col);
+
+        // Notify the listener (Controller)
+        if (cellClickListener != null)
+        {
+            cellClickListener.onCellClicked(row, col);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize()
+    {
+        Insets insets = getInsets();
+        return new Dimension(90 * columns + insets.left + insets.right, 80 * rows + insets.top + insets.bottom);
+    }
+
+    /**
+     * Paints only the cells within the clip, so repainting one cell costs
+     * one cell.
+     */
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        int cellWidth = cellWidth();
+        int cellHeight = cellHeight();
+        if (cellWidth <= 2 * SpriteCache.PADDING || cellHeight <= 2 * SpriteCache.PADDING)
+        {
+            return;
+        }
+        if (cellWidth != spriteWidth || cellHeight != spriteHeight)
+        {
+            scaledSprites.clear();
+            spriteWidth = cellWidth;
+            spriteHeight = cellHeight;
+        }
+
+        Insets insets = getInsets();
+        Rectangle clip = g.getClipBounds();
+        long now = System.nanoTime();
+        Graphics2D g2d = (Graphics2D) g.create();
+        if (flipAnimation != null && flipAnimation.isTurning(now))
+        {
+            paintTurningBoard(g2d, now, cellWidth, cellHeight);
+            g2d.dispose();
+            return;
+        }
+
+        // until the board has turned it is shown as it was before the flip
+        String[][] shownPieces = flipAnimation != null ? flipAnimation.piecesBefore : pieces;
+        boolean shownFlipped = flipAnimation != null ? flipAnimation.flippedBefore : flipped;
+        for (int row = 0; row < rows; row++)
+        {
+            for (int col = 0; col < columns; col++)
+            {
+                int x = insets.left + col * cellWidth;
+                int y = insets.top + row * cellHeight;
+                if (clip == null || clip.intersects(x, y, cellWidth, cellHeight))
+                {
+                    String piece = shownPieces[row][col];
+                    float pieceAlpha = 1;
+                    if (moveAnimation != null && row == moveAnimation.toRow && col == moveAnimation.toCol)
+                    {
+                        // the captured piece fades out until the moving piece lands
+                        piece = moveAnimation.capturedPiece;
+                        pieceAlpha = (float) (1 - moveAnimation.progress(now));
+                    }
+                    paintCell(g2d, row, col, x, y, cellWidth, cellHeight, piece, shownFlipped, pieceAlpha);
+                }
+            }
+        }
+
+        if (moveAnimation != null)
+        {
+            Rectangle bounds = moveAnimation.bounds(now);
+            if (clip == null || clip.intersects(bounds))
+            {
+                paintSprite(g2d, sprite(moveAnimation.movingPiece, cellWidth, cellHeight), shownFlipped,
+                        bounds.x, bounds.y, cellWidth, cellHeight, 1);
+            }
+        }
+
+        if (!boardEnabled)
+        {
+            g2d.setColor(DISABLED_SHADE);
+            g2d.fillRect(insets.left, insets.top, columns * cellWidth, rows * cellHeight);
+        }
+        g2d.dispose();
+
+        if (arrow != null)
+        {
+            MoveHintArrow.paintArrow(g, cellCentre(arrow[0], arrow[1]), cellCentre(arrow[2], arrow[3]));
+        }
+    }
+
+    /**
+     * Paints the picture of the board as it was before the flip, turned as
+     * far as the flip animation has come.
+     */
+    private void paintTurningBoard(Graphics2D g2d, long now, int cellWidth, int cellHeight)
+    {
+        Insets insets = getInsets();
+        int boardWidth = columns * cellWidth;
+        int boardHeight = rows * cellHeight;
+        AffineTransform transform = AffineTransform.getRotateInstance(flipAnimation.angle(now),
+                insets.left + boardWidth / 2.0, insets.top + boardHeight / 2.0);
+        transform.translate(insets.left, insets.top);
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(flipAnimation.picture(cellWidth, cellHeight), transform, null);
+    }
+
+    private void paintCell(Graphics2D g2d, int row, int col, int x, int y, int width, int height,
+                           String piece, boolean upsideDown, float pieceAlpha)
+    {
+        Color background = (row + col) % 2 == 0 ? EVEN_COLOUR : ODD_COLOUR;
+        if (feedbackEffects.isFlashShown(row, col))
+        {
+            background = Color.RED;
+        }
+        g2d.setColor(background);
+        g2d.fillRect(x, y, width, height);
+
+        paintSprite(g2d, piece == null ? null : sprite(piece, width, height), upsideDown, x, y, width, height,
+                pieceAlpha);
+
+        // the same borders as the buttons of ButtonBoardView
+        if (moveTargets[row][col])
+        {
+            paintBorder(g2d, TARGET_COLOUR, 4, x, y, width, height);
+        }
+        else if (row == clickedRow && col == clickedCol)
+        {
+            paintBorder(g2d, Color.BLUE, 3, x, y, width, height);
+        }
+        else
+        {
+            paintBorder(g2d, Color.BLACK, 2, x, y, width, height);
+        }
+    }
+
+    private static void paintSprite(Graphics2D g2d, Image sprite, boolean upsideDown, int x, int y,
+                                    int width, int height, float alpha)
+    {
+        if (sprite == null || alpha <= 0)
+        {
+            return;
+        }
+        Composite composite = g2d.getComposite();
+        if (alpha < 1)
+        {
+            g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+        }
+        if (upsideDown)
+        {
+            // drawn upside down for the player at the top
+            g2d.drawImage(sprite, x + width, y + height, x, y, 0, 0, width, height, null);
+        }
+        else
+        {
+            g2d.drawImage(sprite, x, y, null);
+        }
+        g2d.setComposite(composite);
+    }
+
+    private static void paintBorder(Graphics2D g2d, Color colour, int thickness, int x, int y, int width, int height)
+    {
+        g2d.setColor(colour);
+        g2d.fillRect(x, y, width, thickness);
+        g2d.fillRect(x, y + height - thickness, width, thickness);
+        g2d.fillRect(x, y, thickness, height);
+        g2d.fillRect(x + width - thickness, y, thickness, height);
+    }
+
+    /**
+     * Retrieves a sprite scaled to the current cell size, or {@code null} if
+     * it cannot be loaded. A sprite that is still being read is drawn as a
+     * placeholder, and the board is painted again once it has been read.
+     */
+    private Image sprite(String piece, int width, int height)
+    {
+        Image sprite = scaledSprites.get(piece);
+        if (sprite == null && !scaledSprites.containsKey(piece))
+        {
+            SpriteCache spriteCache = SpriteCache.shared();
+            if (!spriteCache.getAssets().isReady(piece))
+            {
+                if (loadingSprites.add(piece))
+                {
+                    spriteCache.getAssets().load(piece).whenComplete((image, error) ->
+                            SwingUtilities.invokeLater(() -> {
+                                loadingSprites.remove(piece);
+                                repaint();
+                            }));
+                }
+                return spriteCache.getPlaceholderSprite(piece, width, height);
+            }
+            try
+            {
+                sprite = spriteCache.getMultiResolutionSprite(piece, width, height);
+            }
+            catch (UncheckedIOException e)
+            {
+                System.err.println("Error loading image: assets/" + piece + ".png");
+            }
+            // a missing sprite is remembered too, so it is reported only once
+            scaledSprites.put(piece, sprite);
+        }
+        return sprite;
+    }
+
+    private int cellWidth()
+    {
+        Insets insets = getInsets();
+        return (getWidth() - insets.left - insets.right) / columns;
+    }
+
+    private int cellHeight()
+    {
+        Insets insets = getInsets();
+        return (getHeight() - insets.top - insets.bottom) / rows;
+    }
+
+    private void repaintCell(int row, int col)
+    {
+        Insets insets = getInsets();
+        int cellWidth = cellWidth();
+        int cellHeight = cellHeight();
+        repaint(insets.left + col * cellWidth, insets.top + row * cellHeight, cellWidth, cellHeight);
+    }
+
+    private Point cellCentre(int row, int col)
+    {
+        Insets insets = getInsets();
+        return new Point(insets.left + col * cellWidth() + cellWidth() / 2,
+                insets.top + row * cellHeight() + cellHeight() / 2);
+    }
+
+    /**
+     * Finds the cell under a point.
+     *
+     * @return the cell as (column, row), or {@code null} if the point is not
+     *         on the board
+     */
+    private Point cellAt(Point point)
+    {
+        Insets insets = getInsets();
+        int cellWidth = cellWidth();
+        int cellHeight = cellHeight();
+        if (cellWidth <= 0 || cellHeight <= 0 || point.x < insets.left || point.y < insets.top)
+        {
+            return null;
+        }
+        int col = (point.x - insets.left) / cellWidth;
+        int row = (point.y - insets.top) / cellHeight;
+        return row < rows && col < columns ? new Point(col, row) : null;
+    }
+}
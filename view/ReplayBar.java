@@ -0,0 +1,130 @@
+package view;
+
+import javax.swing.*;
+import javax.swing.event.ChangeListener;
+import java.awt.*;
+import java.awt.event.ActionListener;
+
+/**
+ * The ReplayBar class represents the controls shown below the board while a
+ * game is being replayed: buttons to jump to the start, step back, step
+ * forward and jump to the end, a slider to scrub through the plies, and a
+ * button to go back to the game.
+ */
+public class ReplayBar extends JPanel
+{
+    private final JButton firstButton;
+    private final JButton previousButton;
+    private final JButton nextButton;
+    private final JButton lastButton;
+    private final JButton exitButton;
+    private final JSlider plySlider;
+    private final JLabel plyLabel;
+
+    /**
+     * Constructs a ReplayBar for a game with the given number of plies.
+     *
+     * @param plies the number of plies of the game being replayed
+     */
+    public ReplayBar(int plies)
+    {
+        setLayout(new BorderLayout(10, 0));
+        setBorder(BorderFactory.createEmptyBorder(0, 50, 20, 50));
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        firstButton = createButton("|<");
+        previousButton = createButton("<");
+        nextButton = createButton(">");
+        lastButton = createButton(">|");
+        buttons.add(firstButton);
+        buttons.add(previousButton);
+        buttons.add(nextButton);
+        buttons.add(lastButton);
+
+        plySlider = new JSlider(0, plies, 0);
+        plyLabel = new JLabel("", SwingConstants.CENTER);
+        plyLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        plyLabel.setPreferredSize(new Dimension(90, 30));
+
+        exitButton = createButton("EXIT");
+        exitButton.setPreferredSize(new Dimension(70, 30));
+        JPanel exit = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        exit.add(plyLabel);
+        exit.add(exitButton);
+
+        add(buttons, BorderLayout.WEST);
+        add(plySlider, BorderLayout.CENTER);
+        add(exit, BorderLayout.EAST);
+        setPly(0);
+    }
+
+    /**
+     * Shows the given ply on the slider and the label. Moving the slider this
+     * way notifies the slider listeners like a user would.
+     *
+     * @param ply the ply to show
+     */
+    public void setPly(int ply)
+    {
+        plySlider.setValue(ply);
+        plyLabel.setText(ply + " / " + plySlider.getMaximum());
+    }
+
+    /**
+     * @return the ply currently selected on the slider
+     */
+    public int getSelectedPly()
+    {
+        return plySlider.getValue();
+    }
+
+    public void addSliderListener(ChangeListener listener)
+    {
+        plySlider.addChangeListener(listener);
+    }
+
+    public void addFirstListener(ActionListener listener)
+    {
+        firstButton.addActionListener(listener);
+    }
+
+    public void addPreviousListener(ActionListener listener)
+    {
+        previousButton.addActionListener(listener);
+    }
+
+    public void addNextListener(ActionListener listener)
+    {
+        nextButton.addActionListener(listener);
+    }
+
+    public void addLastListener(ActionListener listener)
+    {
+        lastButton.addActionListener(listener);
+    }
+
+    public void addExitListener(ActionListener listener)
+    {
+        exitButton.addActionListener(listener);
+    }
+
+    /**
+     * Helper method to create a small button in the style of the menu
+     * buttons.
+     *
+     * @param text The label of the button.
+     * @return The configured button.
+     */
+    private JButton createButton(String text)
+    {
+        JButton button = new JButton(text);
+        button.setPreferredSize(new Dimension(45, 30));
+        button.setBackground(new Color(105, 105, 105));
+        button.setForeground(Color.WHITE);
+        button.setBorder(BorderFactory.createLineBorder(Color.BLACK, 2));
+        button.setFont(button.getFont().deriveFont(Font.BOLD, 14));
+        button.setOpaque(true);
+        button.setFocusPainted(false);
+        return button;
+    }
+}
@@ -0,0 +1,333 @@
+package view;
+
+import java.awt.*;
+import java.awt.image.AbstractMultiResolutionImage;
+import java.awt.image.BufferedImage;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Loads the piece sprites from the assets folder and keeps them scaled to the
+ * sizes they are drawn at, so that each sprite is read and scaled only once
+ * however many boards are drawn with it.
+ * <p>
+ * A scaled sprite is drawn onto a transparent canvas the size of a cell, with
+ * the same padding and centring as the cells of {@link KwazamGUI}, so it can be
+ * drawn straight at the corner of a cell. The cache is safe to use from any
+ * number of threads; the sprites it returns must not be drawn on.
+ * <p>
+ * For drawing on screen there are also multi-resolution sprites. On a HiDPI
+ * screen, where a cell covers more device pixels than its size in the GUI,
+ * Java2D asks such a sprite for the pixel size it is actually drawn at and
+ * gets a variant scaled from the original sprite to exactly that size. Each
+ * variant is scaled once per cell size and screen scale and then cached, so
+ * pieces stay sharp without any scaling while painting.
+ * <p>
+ * Only the sizes used most recently are kept, a few per sprite, so resizing
+ * a window does not leave the sprites of every size it went through behind.
+ * <p>
+ * The original sprites are read by an {@link AssetManager}. Until a sprite
+ * has been read, the GUI draws the placeholder of this cache instead, so that
+ * painting never waits for the disk.
+ */
+public class SpriteCache
+{
+    /**
+     * Space left between a sprite and the edge of its cell, in pixels.
+     */
+    static final int PADDING = 3;
+
+    /**
+     * The colours placeholders are drawn in, by the colour in the sprite name.
+     */
+    private static final Map<String, Color> PLACEHOLDER_COLOURS = Map.of(
+            "blue", new Color(30, 90, 200),
+            "red", new Color(200, 40, 40),
+            "green", AssetManager.DERIVED_COLOURS.get("green"),
+            "yellow", AssetManager.DERIVED_COLOURS.get("yellow"));
+
+    /**
+     * The largest screen scale variants are made for; anything drawn larger
+     * is scaled up from this.
+     */
+    private static final double MAX_SCALE = 4;
+
+    /**
+     * The number of scaled sprites of each kind that are kept: every sprite
+     * at a few cell sizes, e.g. a board on screen plus one being exported.
+     */
+    private static final int CACHED_SPRITES = 256;
+
+    /**
+     * The number of screen scales the variants of a sprite are kept for.
+     */
+    private static final int CACHED_VARIANTS = 4;
+
+    private static final SpriteCache SHARED = new SpriteCache(AssetManager.shared());
+
+    private final AssetManager assets;
+    private final Map<String, BufferedImage> scaledSprites = lruMap(CACHED_SPRITES);
+    private final Map<String, BufferedImage> placeholders = lruMap(CACHED_SPRITES);
+    private final Map<String, MultiResolutionSprite> multiResolutionSprites = lruMap(CACHED_SPRITES);
+
+    /**
+     * Constructs a cache of the sprites in a folder.
+     *
+     * @param assetDirectory the folder holding the sprites, e.g. "assets"
+     */
+    public SpriteCache(Path assetDirectory)
+    {
+        this(new AssetManager(assetDirectory));
+    }
+
+    /**
+     * Constructs a cache of the sprites read by an asset manager.
+     *
+     * @param assets the manager reading the original sprites
+     */
+    public SpriteCache(AssetManager assets)
+    {
+        this.assets = assets;
+    }
+
+    /**
+     * @return the cache of the sprites in the "assets" folder, shared by
+     *         everything that draws boards
+     */
+    public static SpriteCache shared()
+    {
+        return SHARED;
+    }
+
+    /**
+     * @return the manager reading the original sprites, to check whether a
+     *         sprite can be retrieved without waiting
+     */
+    public AssetManager getAssets()
+    {
+        return this.assets;
+    }
+
+    /**
+     * Retrieves the placeholder drawn for a sprite that is not read yet.
+     *
+     * @param piece  the name of the piece, e.g. "ram_blue_piece_flipped"
+     * @param width  the width of the cell
+     * @param height the height of the cell
+     * @return the placeholder centred on a transparent image the size of the
+     *         cell
+     */
+    public BufferedImage getPlaceholderSprite(String piece, int width, int height)
+    {
+        return cached(this.placeholders, piece + "@" + width + "x" + height,
+                () -> drawPlaceholder(piece, width, height));
+    }
+
+    /**
+     * Retrieves a sprite scaled to fit a cell.
+     *
+     * @param piece  the name of the piece, e.g. "ram_blue_piece_flipped"
+     * @param width  the width of the cell
+     * @param height the height of the cell
+     * @return the sprite centred on a transparent image the size of the cell
+     * @throws UncheckedIOException if the sprite cannot be read
+     */
+    public BufferedImage getSprite(String piece, int width, int height)
+    {
+        return this.getScaledSprite(piece, width, height, PADDING);
+    }
+
+    /**
+     * Retrieves a sprite scaled to fit a cell, that is drawn sharp at any
+     * screen scale.
+     *
+     * @param piece  the name of the piece, e.g. "ram_blue_piece_flipped"
+     * @param width  the width of the cell
+     * @param height the height of the cell
+     * @return the sprite centred on a transparent image the size of the cell,
+     *         with variants for the pixel sizes it is drawn at
+     * @throws UncheckedIOException if the sprite cannot be read
+     */
+    public Image getMultiResolutionSprite(String piece, int width, int height)
+    {
+        return cached(this.multiResolutionSprites, piece + "@" + width + "x" + height,
+                () -> new MultiResolutionSprite(piece, this.getSprite(piece, width, height)));
+    }
+
+    private BufferedImage getScaledSprite(String piece, int width, int height, int padding)
+    {
+        return cached(this.scaledSprites, piece + "@" + width + "x" + height + "+" + padding,
+                () -> scaleToCell(this.getRawSprite(piece), width, height, padding));
+    }
+
+    /**
+     * Creates a map that keeps at most the given number of entries, dropping
+     * the least recently used first. It is safe to use from any thread.
+     */
+    private static <K, V> Map<K, V> lruMap(int capacity)
+    {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+            {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * Retrieves a cached image, creating and caching it if it is not cached.
+     * It is created without holding the cache's lock, as that may wait for a
+     * sprite to be read; if two threads create it at once, both get the
+     * first one cached.
+     */
+    private static <K, V> V cached(Map<K, V> cache, K key, Supplier<V> create)
+    {
+        V value = cache.get(key);
+        if (value == null)
+        {
+            V created = create.get();
+            value = cache.putIfAbsent(key, created);
+            if (value == null)
+            {
+                value = created;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * A sprite scaled to a cell, with a variant for each pixel size it is
+     * drawn at, scaled from the original sprite the first time it is needed.
+     */
+    private final class MultiResolutionSprite extends AbstractMultiResolutionImage
+    {
+        private final String piece;
+        private final BufferedImage baseImage;
+        private final Map<Long, BufferedImage> variants = lruMap(CACHED_VARIANTS);
+
+        private MultiResolutionSprite(String piece, BufferedImage baseImage)
+        {
+            this.piece = piece;
+            this.baseImage = baseImage;
+        }
+
+        @Override
+        public Image getResolutionVariant(double destImageWidth, double destImageHeight)
+        {
+            int baseWidth = this.baseImage.getWidth();
+            int baseHeight = this.baseImage.getHeight();
+            double scale = Math.min(Math.max(destImageWidth / baseWidth, destImageHeight / baseHeight), MAX_SCALE);
+            int width = (int) Math.ceil(baseWidth * scale);
+            int height = (int) Math.ceil(baseHeight * scale);
+            if (width <= baseWidth && height <= baseHeight)
+            {
+                return this.baseImage;
+            }
+            // the padding grows with the cell, so every variant has the same layout
+            int padding = (int) Math.round(PADDING * scale);
+            return cached(this.variants, ((long) width << 32) | height,
+                    () -> getScaledSprite(this.piece, width, height, padding));
+        }
+
+        @Override
+        public List<Image> getResolutionVariants()
+        {
+            List<Image> all = new ArrayList<>(this.variants.values());
+            all.addFirst(this.baseImage);
+            return List.copyOf(all);
+        }
+
+        @Override
+        protected Image getBaseImage()
+        {
+            return this.baseImage;
+        }
+    }
+
+    /**
+     * Retrieves a sprite at its original size, waiting for it to be read if
+     * it is not yet.
+     *
+     * @param piece the name of the piece, e.g. "ram_blue_piece_flipped"
+     * @return the sprite
+     * @throws UncheckedIOException if the sprite cannot be read
+     */
+    public BufferedImage getRawSprite(String piece)
+    {
+        return this.assets.getSprite(piece);
+    }
+
+    /**
+     * Draws a stand-in for a sprite that is not read yet: the first letter
+     * of the piece in a ring of its colour, scaled and centred like the
+     * sprite.
+     */
+    private static BufferedImage drawPlaceholder(String piece, int width, int height)
+    {
+        Color colour = Color.GRAY;
+        for (Map.Entry<String, Color> named : PLACEHOLDER_COLOURS.entrySet())
+        {
+            if (piece.contains("_" + named.getKey() + "_"))
+            {
+                colour = named.getValue();
+            }
+        }
+
+        BufferedImage placeholder = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int size = Math.min(width, height) - 2 * PADDING;
+        if (size <= 0)
+        {
+            return placeholder;
+        }
+        int x = (width - size) / 2;
+        int y = (height - size) / 2;
+        Graphics2D g2d = placeholder.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setColor(colour);
+        g2d.setStroke(new BasicStroke(Math.max(1f, size / 16f)));
+        g2d.drawOval(x, y, size, size);
+
+        String glyph = piece.substring(0, 1).toUpperCase();
+        g2d.setFont(new Font(Font.SANS_SERIF, Font.BOLD, Math.max(1, size / 2)));
+        FontMetrics metrics = g2d.getFontMetrics();
+        g2d.drawString(glyph, (width - metrics.stringWidth(glyph)) / 2,
+                (height - metrics.getHeight()) / 2 + metrics.getAscent());
+        g2d.dispose();
+        return placeholder;
+    }
+
+    /**
+     * Scales a sprite to fit a cell less its padding, keeping its aspect
+     * ratio, and centres it in the cell.
+     */
+    static BufferedImage scaleToCell(BufferedImage sprite, int width, int height)
+    {
+        return scaleToCell(sprite, width, height, PADDING);
+    }
+
+    private static BufferedImage scaleToCell(BufferedImage sprite, int width, int height, int padding)
+    {
+        double scale = Math.min((double) (width - 2 * padding) / sprite.getWidth(),
+                (double) (height - 2 * padding) / sprite.getHeight());
+        int scaledWidth = (int) (sprite.getWidth() * scale);
+        int scaledHeight = (int) (sprite.getHeight() * scale);
+
+        BufferedImage cellImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = cellImage.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g2d.drawImage(sprite, (width - scaledWidth) / 2, (height - scaledHeight) / 2, scaledWidth, scaledHeight,
+                null);
+        g2d.dispose();
+        return cellImage;
+    }
+}